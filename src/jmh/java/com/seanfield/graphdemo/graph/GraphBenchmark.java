@@ -0,0 +1,105 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.CompiledGraph;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.seanfield.graphdemo.knowledge.FaqCorpus;
+import com.seanfield.graphdemo.knowledge.KeywordKnowledgeBase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 状态图编译和完整执行的吞吐量，配合 {@code -prof gc} 查看每次操作的分配量
+ *
+ * <p>大模型调用由 {@link StubChatModel} 立即返回；执行走 {@link GraphRegistry}，与线上接口的调用路径一致。</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBenchmark {
+
+    private static final Map<String, Object> EXPAND_INPUT = Map.of(
+            "input", Map.of("query", "你好，很高兴认识你，能简单介绍一下自己吗？", "expandernumber", 2));
+    private static final Map<String, Object> LOOP_INPUT = Map.of(
+            "items", List.of("春天的花朵", "夏天的海滩", "秋天的落叶", "冬天的雪花"),
+            "loop_index", 0,
+            "processed_results", List.of());
+    private static final Map<String, Object> CUSTOMER_SERVICE_INPUT = Map.of(
+            "input", Map.of("question", "专业版价格多少钱"), "retry_count", 0);
+
+    private StateGraph expandConditionalGraph;
+    private StateGraph loopGraph;
+    private StateGraph customerServiceGraph;
+    private GraphRegistry registry;
+
+    @Setup
+    public void setUp() throws Exception {
+        ChatClient.Builder chatClientBuilder = ChatClient.builder(new StubChatModel());
+        StateDiffTracer tracer = new StateDiffTracer(0);
+        this.expandConditionalGraph = GraphConfiguration.expandConditionalGraph(chatClientBuilder, tracer);
+        this.loopGraph = GraphConfiguration.loopGraph(chatClientBuilder, tracer);
+        this.customerServiceGraph = GraphConfiguration.customerServiceGraph(chatClientBuilder, tracer,
+                new KeywordKnowledgeBase(FaqCorpus.builtin()), new SpeculativeExecution(false), false,
+                new IntentPreClassifier(null, 1), new IntentMicroBatcher(chatClientBuilder.build(), false, 2, Duration.ZERO),
+                new AsyncQualityAssessment(false, 1, Set.of(), 0, 0));
+
+        this.registry = new GraphRegistry(1, false, tracer)
+                .register(GraphConfiguration.EXPAND_CONDITIONAL_GRAPH, this.expandConditionalGraph, null)
+                .register(GraphConfiguration.LOOP_GRAPH, this.loopGraph, null)
+                .register(GraphConfiguration.LOOP_PARALLEL_GRAPH, GraphConfiguration.parallelLoopGraph(chatClientBuilder, tracer, 4), null)
+                .register(GraphConfiguration.CUSTOMER_SERVICE_GRAPH, this.customerServiceGraph, null);
+    }
+
+    @Benchmark
+    public CompiledGraph compileExpandConditional() throws Exception {
+        return this.expandConditionalGraph.compile();
+    }
+
+    @Benchmark
+    public CompiledGraph compileLoop() throws Exception {
+        return this.loopGraph.compile();
+    }
+
+    @Benchmark
+    public CompiledGraph compileCustomerService() throws Exception {
+        return this.customerServiceGraph.compile();
+    }
+
+    @Benchmark
+    public OverAllState invokeExpandConditional() throws Exception {
+        return this.registry.invoke(GraphConfiguration.EXPAND_CONDITIONAL_GRAPH, EXPAND_INPUT).orElseThrow();
+    }
+
+    @Benchmark
+    public OverAllState invokeLoop() throws Exception {
+        return this.registry.invoke(GraphConfiguration.LOOP_GRAPH, LOOP_INPUT).orElseThrow();
+    }
+
+    @Benchmark
+    public OverAllState invokeParallelLoop() throws Exception {
+        return this.registry.invoke(GraphConfiguration.LOOP_PARALLEL_GRAPH, LOOP_INPUT).orElseThrow();
+    }
+
+    @Benchmark
+    public OverAllState invokeCustomerService() throws Exception {
+        return this.registry.invoke(GraphConfiguration.CUSTOMER_SERVICE_GRAPH, CUSTOMER_SERVICE_INPUT).orElseThrow();
+    }
+}
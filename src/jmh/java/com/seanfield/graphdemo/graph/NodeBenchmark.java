@@ -0,0 +1,133 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.seanfield.graphdemo.knowledge.Bm25Index;
+import com.seanfield.graphdemo.knowledge.Bm25KnowledgeBase;
+import com.seanfield.graphdemo.knowledge.FaqCorpus;
+import com.seanfield.graphdemo.knowledge.KeywordKnowledgeBase;
+import com.seanfield.graphdemo.knowledge.KnowledgeBase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不调用大模型的本地节点逻辑：知识库检索、意图和质量评分解析、答案格式化
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NodeBenchmark {
+
+    private static final String QUESTION = "专业版价格多少钱";
+    private static final String ANSWER = "专业版每月99元，包含全部高级功能和优先技术支持。";
+    private static final List<String> INTENT_FIELDS = List.of("意图类型", "置信度", "理由");
+    private static final List<String> QUALITY_FIELDS = List.of("准确性", "完整性", "专业性", "友好性", "实用性", "总体评分", "评估理由");
+
+    private IntentRecognitionNode intentRecognitionNode;
+    private QualityAssessmentNode qualityAssessmentNode;
+    private AnswerGenerationNode answerGenerationNode;
+    private Map<String, String> intentFields;
+    private Map<String, String> qualityFields;
+    private List<String> qualityLines;
+
+    /**
+     * 知识库检索单独参数化，其他基准不随检索方式重复运行
+     */
+    @State(Scope.Benchmark)
+    public static class KnowledgeSearch {
+
+        /**
+         * 知识库检索方式，与 graph.knowledge.type 对应
+         */
+        @Param({"keyword", "bm25"})
+        public String knowledgeType;
+
+        private Path bm25IndexFile;
+        private KnowledgeSearchNode node;
+        private OverAllState state;
+
+        @Setup
+        public void setUp() throws Exception {
+            KnowledgeBase knowledgeBase;
+            if ("bm25".equals(this.knowledgeType)) {
+                this.bm25IndexFile = Files.createTempFile("faq-bench", ".bm25");
+                Bm25Index.build(FaqCorpus.builtin(), this.bm25IndexFile);
+                knowledgeBase = new Bm25KnowledgeBase(Bm25Index.open(this.bm25IndexFile), 3.0);
+            } else {
+                knowledgeBase = new KeywordKnowledgeBase(FaqCorpus.builtin());
+            }
+            this.node = new KnowledgeSearchNode(knowledgeBase);
+            this.state = new OverAllState(Map.of("input", Map.of("question", QUESTION)));
+        }
+
+        @TearDown
+        public void tearDown() throws Exception {
+            if (this.bm25IndexFile != null) {
+                Files.deleteIfExists(this.bm25IndexFile);
+            }
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        ChatClient.Builder chatClientBuilder = ChatClient.builder(new StubChatModel());
+        this.intentRecognitionNode = new IntentRecognitionNode(chatClientBuilder);
+        this.qualityAssessmentNode = new QualityAssessmentNode(chatClientBuilder);
+        this.answerGenerationNode = new AnswerGenerationNode();
+
+        this.intentFields = StreamingLineParser.parseFields(Flux.fromArray(StubChatModel.INTENT_RESPONSE.split("(?<=\n)")),
+                INTENT_FIELDS, INTENT_FIELDS).block();
+        this.qualityLines = List.of(StubChatModel.QUALITY_RESPONSE.split("(?<=\n)"));
+        this.qualityFields = StreamingLineParser.parseFields(Flux.fromIterable(this.qualityLines),
+                QUALITY_FIELDS, QUALITY_FIELDS).block();
+    }
+
+    @Benchmark
+    public Map<String, Object> knowledgeSearch(KnowledgeSearch search) throws Exception {
+        return search.node.apply(search.state);
+    }
+
+    @Benchmark
+    public IntentAnalysis parseIntentResult() {
+        return this.intentRecognitionNode.parseIntentResult(this.intentFields, QUESTION);
+    }
+
+    @Benchmark
+    public QualityAssessment parseQualityScores() {
+        return this.qualityAssessmentNode.parseQualityScores(this.qualityFields);
+    }
+
+    /**
+     * 包含流式按行切分字段的开销，对应质量评估节点收到模型输出后的完整解析
+     */
+    @Benchmark
+    public QualityAssessment parseQualityStream() {
+        return this.qualityAssessmentNode.parseQualityScores(
+                StreamingLineParser.parseFields(Flux.fromIterable(this.qualityLines), QUALITY_FIELDS, List.of("总体评分")).block());
+    }
+
+    @Benchmark
+    public String formatAnswer() {
+        return this.answerGenerationNode.formatAnswer(ANSWER, "knowledge_base");
+    }
+}
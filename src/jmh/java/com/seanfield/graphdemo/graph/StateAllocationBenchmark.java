@@ -0,0 +1,170 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.seanfield.graphdemo.knowledge.FaqCorpus;
+import com.seanfield.graphdemo.knowledge.KeywordKnowledgeBase;
+import com.seanfield.graphdemo.knowledge.KnowledgeMatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客服工作流状态的读写开销：嵌套的字符串键 HashMap 与类型化状态键 + 值对象，配合 {@code -prof gc} 查看每次请求的分配量
+ *
+ * <p>每次操作重放一次 FAQ 请求的状态读写（意图识别、路由、知识库搜索、答案生成、质量评估、质量检查），
+ * 两种方式使用相同的字符串内容，差别只来自状态结构。整个请求的开销见 {@link GraphBenchmark#invokeCustomerService}。</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StateAllocationBenchmark {
+
+    private static final String QUESTION = "专业版价格多少钱";
+    private static final String ANSWER = "😊 专业版每月99元\n\n📚 此答案来自我们的知识库，如有其他疑问，随时为您服务！";
+    private static final String TIME = "2025-01-01 12:00:00";
+
+    private KnowledgeMatch match;
+
+    @Setup
+    public void setUp() {
+        this.match = new KeywordKnowledgeBase(FaqCorpus.builtin()).search(QUESTION).orElseThrow();
+    }
+
+    private static OverAllState newState() {
+        OverAllState state = CustomerServiceState.SCHEMA.stateFactory().create();
+        state.updateState(Map.of("input", Map.of("question", QUESTION), "retry_count", 0));
+        return state;
+    }
+
+    /**
+     * 改为值对象之前各节点的写法
+     */
+    @Benchmark
+    public OverAllState mapBased() {
+        OverAllState state = newState();
+
+        String question = String.valueOf(state.value("input", Map.of()).getOrDefault("question", ""));
+        HashMap<String, Object> intentInfo = new HashMap<>();
+        intentInfo.put("intent_type", "FAQ");
+        intentInfo.put("confidence", 90);
+        intentInfo.put("reason", "价格查询");
+        intentInfo.put("original_question", question);
+        HashMap<String, Object> result = new HashMap<>();
+        result.put("intent_analysis", intentInfo);
+        state.updateState(result);
+
+        Map<String, Object> intentAnalysis = state.value("intent_analysis", Map.of());
+        String intentType = String.valueOf(intentAnalysis.getOrDefault("intent_type", "COMPLEX"));
+        int confidence = (Integer) intentAnalysis.getOrDefault("confidence", 50);
+        if (confidence < 60 || !"FAQ".equals(intentType)) {
+            throw new IllegalStateException();
+        }
+
+        question = String.valueOf(state.value("input", Map.of()).getOrDefault("question", ""));
+        HashMap<String, Object> knowledgeInfo = new HashMap<>();
+        knowledgeInfo.put("search_found", true);
+        knowledgeInfo.put("match_score", this.match.score());
+        knowledgeInfo.put("retrieval", "keyword");
+        knowledgeInfo.put("faq_title", this.match.entry().title());
+        knowledgeInfo.put("faq_answer", this.match.entry().answer());
+        knowledgeInfo.put("source", "knowledge_base");
+        result = new HashMap<>();
+        result.put("knowledge_search", knowledgeInfo);
+        state.updateState(result);
+
+        intentAnalysis = state.value("intent_analysis", Map.of());
+        intentType = String.valueOf(intentAnalysis.getOrDefault("intent_type", "COMPLEX"));
+        Map<String, Object> knowledgeSearch = state.value("knowledge_search", Map.of());
+        if (Boolean.TRUE.equals(knowledgeSearch.get("search_found"))) {
+            String.valueOf(knowledgeSearch.getOrDefault("faq_answer", ""));
+        }
+        HashMap<String, Object> answerInfo = new HashMap<>();
+        answerInfo.put("final_answer", ANSWER);
+        answerInfo.put("answer_source", "knowledge_base");
+        answerInfo.put("intent_type", intentType);
+        answerInfo.put("generated_time", TIME);
+        answerInfo.put("answer_length", ANSWER.length());
+        result = new HashMap<>();
+        result.put("generated_answer", answerInfo);
+        state.updateState(result);
+
+        question = String.valueOf(state.value("input", Map.of()).getOrDefault("question", ""));
+        String answer = String.valueOf(state.value("generated_answer", Map.of()).getOrDefault("final_answer", ""));
+        HashMap<String, Object> qualityInfo = new HashMap<>();
+        qualityInfo.put("accuracy_score", 9);
+        qualityInfo.put("completeness_score", 8);
+        qualityInfo.put("professionalism_score", 9);
+        qualityInfo.put("friendliness_score", 9);
+        qualityInfo.put("usefulness_score", 8);
+        qualityInfo.put("overall_score", 9);
+        qualityInfo.put("assessment_reason", "回答准确");
+        qualityInfo.put("quality_passed", true);
+        result = new HashMap<>();
+        result.put("quality_assessment", qualityInfo);
+        state.updateState(result);
+
+        Map<String, Object> qualityAssessment = state.value("quality_assessment", Map.of());
+        boolean qualityPassed = Boolean.TRUE.equals(qualityAssessment.get("quality_passed"));
+        int overallScore = (Integer) qualityAssessment.getOrDefault("overall_score", 7);
+        int retryCount = state.value("retry_count", 0);
+        if (!qualityPassed || overallScore < 7 || retryCount != 0 || question.isEmpty() || answer.isEmpty()) {
+            throw new IllegalStateException();
+        }
+        return state;
+    }
+
+    @Benchmark
+    public OverAllState typed() {
+        OverAllState state = newState();
+
+        String question = CustomerServiceState.question(state);
+        HashMap<String, Object> result = new HashMap<>();
+        CustomerServiceState.INTENT_ANALYSIS.put(result, new IntentAnalysis("FAQ", 90, "价格查询", question, null));
+        state.updateState(result);
+
+        IntentAnalysis intentAnalysis = CustomerServiceState.INTENT_ANALYSIS.get(state);
+        if (intentAnalysis.confidence() < 60 || !"FAQ".equals(intentAnalysis.intentType())) {
+            throw new IllegalStateException();
+        }
+
+        result = new HashMap<>();
+        CustomerServiceState.KNOWLEDGE_SEARCH.put(result, KnowledgeSearchResult.found(this.match, "keyword"));
+        state.updateState(result);
+
+        String intentType = CustomerServiceState.intentType(state, "COMPLEX");
+        KnowledgeSearchResult knowledgeSearch = CustomerServiceState.KNOWLEDGE_SEARCH.get(state);
+        if (knowledgeSearch.searchFound()) {
+            knowledgeSearch.faqAnswer();
+        }
+        result = new HashMap<>();
+        CustomerServiceState.GENERATED_ANSWER.put(result, new GeneratedAnswer(ANSWER, "knowledge_base", intentType, TIME));
+        state.updateState(result);
+
+        question = CustomerServiceState.question(state);
+        String answer = CustomerServiceState.GENERATED_ANSWER.get(state).finalAnswer();
+        result = new HashMap<>();
+        CustomerServiceState.QUALITY_ASSESSMENT.put(result, new QualityAssessment(9, 8, 9, 9, 8, 9, "回答准确"));
+        state.updateState(result);
+
+        QualityAssessment qualityAssessment = CustomerServiceState.QUALITY_ASSESSMENT.get(state);
+        int retryCount = CustomerServiceState.RETRY_COUNT.get(state);
+        if (!qualityAssessment.qualityPassed() || retryCount != 0 || question.isEmpty() || answer.isEmpty()) {
+            throw new IllegalStateException();
+        }
+        return state;
+    }
+}
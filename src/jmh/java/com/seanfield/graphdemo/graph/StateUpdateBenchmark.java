@@ -0,0 +1,70 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.KeyStrategy;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.seanfield.graphdemo.knowledge.FaqCorpus;
+import com.seanfield.graphdemo.knowledge.KeywordKnowledgeBase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 替换策略下的 OverAllState 更新：客服工作流执行到质量评估时的完整状态上写入一个节点结果
+ *
+ * <p>{@code updateInPlace} 是节点直接调用的实例方法；{@code mergeStep} 是引擎每个超步合并节点输出时
+ * 调用的静态方法，会重建整个状态 Map。</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StateUpdateBenchmark {
+
+    private OverAllState state;
+    private Map<String, Object> data;
+    private Map<String, KeyStrategy> keyStrategies;
+    private Map<String, Object> partialState;
+
+    @Setup
+    public void setUp() {
+        String question = "专业版价格多少钱";
+        HashMap<String, Object> initial = new HashMap<>();
+        CustomerServiceState.INPUT.put(initial, Map.of("question", question));
+        CustomerServiceState.RETRY_COUNT.put(initial, 0);
+        CustomerServiceState.INTENT_ANALYSIS.put(initial, new IntentAnalysis("FAQ", 90, "价格查询", question, null));
+        CustomerServiceState.KNOWLEDGE_SEARCH.put(initial, KnowledgeSearchResult.found(
+                new KeywordKnowledgeBase(FaqCorpus.builtin()).search(question).orElseThrow(), "keyword"));
+        CustomerServiceState.GENERATED_ANSWER.put(initial, new GeneratedAnswer("😊 专业版每月99元", "knowledge_base", "FAQ", "2025-01-01 12:00:00"));
+
+        this.state = CustomerServiceState.SCHEMA.stateFactory().create();
+        this.state.updateState(initial);
+        this.data = new HashMap<>(this.state.data());
+        this.keyStrategies = this.state.keyStrategies();
+
+        this.partialState = new HashMap<>();
+        CustomerServiceState.QUALITY_ASSESSMENT.put(this.partialState, new QualityAssessment(9, 8, 9, 9, 8, 9, "回答准确"));
+    }
+
+    @Benchmark
+    public Map<String, Object> updateInPlace() {
+        return this.state.updateState(this.partialState);
+    }
+
+    @Benchmark
+    public Map<String, Object> mergeStep() {
+        return OverAllState.updateState(this.data, this.partialState, this.keyStrategies);
+    }
+}
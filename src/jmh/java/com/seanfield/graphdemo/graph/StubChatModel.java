@@ -0,0 +1,37 @@
+package com.seanfield.graphdemo.graph;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * 基准测试用的无延迟桩模型：按提示词返回意图识别、质量评估或普通文本，每行一个分片
+ *
+ * <p>测得的是图引擎和本地节点的开销，不含真实大模型的网络和推理耗时。</p>
+ */
+final class StubChatModel implements ChatModel {
+
+    static final String INTENT_RESPONSE = "意图类型：FAQ\n置信度：90\n理由：用户询问产品价格，属于常见问题\n";
+    static final String QUALITY_RESPONSE = "准确性：9\n完整性：8\n专业性：9\n友好性：9\n实用性：8\n总体评分：9\n评估理由：回答准确且专业\n";
+    static final String TEXT_RESPONSE = "这是第一条回答\n这是第二条回答\n";
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        return stream(prompt).blockLast();
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        String contents = prompt.getContents();
+        String text = contents.contains("意图识别") ? INTENT_RESPONSE
+                : contents.contains("质量评估") ? QUALITY_RESPONSE
+                : TEXT_RESPONSE;
+        return Flux.fromArray(text.split("(?<=\n)"))
+                .map(line -> new ChatResponse(List.of(new Generation(new AssistantMessage(line)))));
+    }
+}
@@ -0,0 +1,99 @@
+package com.seanfield.graphdemo.graph;
+
+import com.seanfield.graphdemo.knowledge.FaqCorpus;
+import com.seanfield.graphdemo.knowledge.KeywordKnowledgeBase;
+import com.seanfield.graphdemo.loadtest.LatencyStubChatModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客服工作流在平台线程池和虚拟线程下并发执行一批的总耗时
+ *
+ * <p>一次操作同时发起 {@code runs} 次图执行并等待全部完成。大模型由 {@link LatencyStubChatModel} 模拟，
+ * 每次调用延迟 {@code latencyMs}，FAQ 路径每次执行调用两次。平台线程模式使用 200 个线程（Tomcat 默认最大线程数），
+ * 耗时约为 runs / 200 轮大模型延迟；虚拟线程模式每个执行一个虚拟线程，需要 Java 21（{@code mvn -Pjmh,java21 verify}），
+ * 低版本时该参数组合在 Setup 中失败，其他基准照常运行。</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VirtualThreadGraphBenchmark {
+
+    private static final Map<String, Object> INPUT = Map.of("input", Map.of("question", "专业版价格多少钱"), "retry_count", 0);
+
+    /**
+     * platform 或 virtual
+     */
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"2000"})
+    public int runs;
+
+    @Param({"200"})
+    public long latencyMs;
+
+    private GraphRegistry registry;
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() throws Exception {
+        boolean virtual = "virtual".equals(this.threads);
+        if (virtual && !GraphThreads.virtualThreadsSupported()) {
+            throw new IllegalStateException("当前 Java " + Runtime.version().feature() + " 不支持虚拟线程，需要 Java 21");
+        }
+        ChatClient.Builder chatClientBuilder = ChatClient.builder(
+                new LatencyStubChatModel(Duration.ofMillis(this.latencyMs), 0, 0, 0, Duration.ofSeconds(1), 40));
+        this.registry = new GraphRegistry(this.runs, false, new StateDiffTracer(0));
+        this.registry.register(GraphConfiguration.CUSTOMER_SERVICE_GRAPH, GraphConfiguration.customerServiceGraph(
+                chatClientBuilder, new StateDiffTracer(0), new KeywordKnowledgeBase(FaqCorpus.builtin()),
+                new SpeculativeExecution(false), false, new IntentPreClassifier(null, 1),
+                new IntentMicroBatcher(chatClientBuilder.build(), false, 2, Duration.ZERO),
+                new AsyncQualityAssessment(false, 1, Set.of(), 0, 0)), null);
+        this.executor = virtual
+                ? Executors.newCachedThreadPool(new GraphThreads(true).threadFactory("graph-run-"))
+                : Executors.newFixedThreadPool(200);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int runBatch() throws Exception {
+        List<Future<?>> futures = new ArrayList<>(this.runs);
+        for (int i = 0; i < this.runs; i++) {
+            futures.add(this.executor.submit(() ->
+                    this.registry.invoke(GraphConfiguration.CUSTOMER_SERVICE_GRAPH, INPUT).orElseThrow()));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return futures.size();
+    }
+}
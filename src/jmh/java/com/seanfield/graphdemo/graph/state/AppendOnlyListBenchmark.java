@@ -0,0 +1,75 @@
+package com.seanfield.graphdemo.graph.state;
+
+import com.alibaba.cloud.ai.graph.KeyStrategy;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 循环结果累积：复制整个列表 + ReplaceStrategy 与只追加策略，配合 {@code -prof gc} 查看每次循环迭代的分配量
+ *
+ * <p>一次操作是引擎合并一次循环节点输出（{@link OverAllState#updateState(Map, Map, Map)}）。
+ * 复制方式每次都从长度为 {@code size} 的列表复制，开销随长度线性增长；只追加方式的开销与长度无关，
+ * 测量期间列表从 {@code size} 开始继续增长，每轮测量前重置。</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppendOnlyListBenchmark {
+
+    private static final String KEY = "processed_results";
+    private static final String ITEM = "项目: 春天的花朵 -> 分析: 生机盎然";
+
+    /**
+     * 已累积的结果数
+     */
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private final Map<String, KeyStrategy> replace = Map.of(KEY, new ReplaceStrategy());
+    private final Map<String, KeyStrategy> appendOnly = Map.of(KEY, new AppendOnlyStrategy());
+    private Map<String, Object> copying;
+    private Map<String, Object> appending;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        List<String> results = Collections.nCopies(this.size, ITEM);
+        this.copying = Map.of(KEY, new ArrayList<>(results));
+        this.appending = Map.of(KEY, AppendOnlyList.copyOf(results));
+    }
+
+    @Benchmark
+    public Map<String, Object> copyAndReplace() {
+        @SuppressWarnings("unchecked")
+        List<String> current = (List<String>) this.copying.get(KEY);
+        List<String> copy = new ArrayList<>(current);
+        copy.add(ITEM);
+        return OverAllState.updateState(this.copying, Map.of(KEY, copy), this.replace);
+    }
+
+    @Benchmark
+    public Map<String, Object> appendOnly() {
+        this.appending = OverAllState.updateState(this.appending, Map.of(KEY, ITEM), this.appendOnly);
+        return this.appending;
+    }
+}
@@ -0,0 +1,98 @@
+package com.seanfield.graphdemo.knowledge;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BM25 索引的查询延迟和打开开销
+ *
+ * <p>语料由常用汉字随机组合生成，查询取自文档问题的片段。{@code search} 按采样给出延迟分位数；
+ * {@code open} 配合 {@code -prof gc} 查看打开索引的堆分配，用来确认索引内容在内存映射中而不在堆上。
+ * 索引构建在 Setup 中完成，不计入结果。</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Bm25IndexBenchmark {
+
+    private static final String CHARS = "的一是在不了有和人这中大为上个国我以要他时来用们生到作地于出就分对成会可主发年动同工也能下过子说产种面而方后多定行学法所民得经十三之进着等部度家电力里如水化高自二理起小物现实加量都两体制机当使点从业本去把性好应开它合还因由其些然前外天政四日那社义事平形相全表间样与关各重新线内数正心反你明看原又么利比或但质气第向道命此变条只没结解问意建月公无系军很情者最立代想已通并提直题党程展五果料象员革位入常文总次品式活设及管特件长求老头基资边流路级少图山统接知较将组见计别她手角期根论运农指几九区强放决西被干做必战先回则任取据处队南给色光门即保治北造百规热领七海口东导器压志世金增争济阶油思术极交受联什认六共权收证改清己美再采转更单风切打白教速花带安场身车例真务具万每目至达走积示议声报斗完类八离华名确才科张信马节话米整空元况今集温传土许步群广石记需段研界拉林律叫且究观越织装影算低持音众书布复容儿须际商非验连断深难近矿千周委素技备半办青省列习响约支般史感劳便团往酸历市克何除消构府称太准精值号率族维划选标写存候毛亲快效斯院查江型眼王按格养易置派层片始却专状育厂京识适属圆包火住调满县局照参红细引听该铁价严";
+    private static final int QUERIES = 10_000;
+
+    /**
+     * 索引的文档数
+     */
+    @Param({"100000"})
+    public int docCount;
+
+    private Path file;
+    private Bm25Index index;
+    private List<String> queries;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(7);
+        List<FaqEntry> entries = new ArrayList<>(this.docCount);
+        for (int i = 0; i < this.docCount; i++) {
+            entries.add(new FaqEntry("问题" + i, text(random, 12 + random.nextInt(20)), text(random, 60 + random.nextInt(120)), List.of()));
+        }
+        this.queries = new ArrayList<>(QUERIES);
+        for (int i = 0; i < QUERIES; i++) {
+            String question = entries.get(random.nextInt(this.docCount)).question();
+            int start = random.nextInt(question.length() / 2);
+            this.queries.add(question.substring(start, start + 4 + random.nextInt(question.length() - start - 3)));
+        }
+        this.file = Files.createTempFile("faq", ".bm25");
+        Bm25Index.build(entries, this.file);
+        this.index = Bm25Index.open(this.file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    /**
+     * top5 查询并读取第一条命中的文档
+     */
+    @Benchmark
+    public FaqEntry search() {
+        String query = this.queries.get(this.next++ % QUERIES);
+        List<Bm25Index.Hit> hits = this.index.search(query, 5);
+        return hits.isEmpty() ? null : this.index.document(hits.get(0).doc());
+    }
+
+    @Benchmark
+    public Bm25Index open() throws IOException {
+        return Bm25Index.open(this.file);
+    }
+
+    private static String text(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(CHARS.charAt(random.nextInt(CHARS.length())));
+        }
+        return text.toString();
+    }
+}
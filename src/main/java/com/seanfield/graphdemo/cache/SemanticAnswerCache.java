@@ -0,0 +1,290 @@
+package com.seanfield.graphdemo.cache;
+
+import com.seanfield.graphdemo.embedding.TextEmbedder;
+import com.seanfield.graphdemo.graph.QualityAssessment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 语义答案缓存：对用户问题做向量化，命中相似度超过阈值的历史问题时直接返回缓存的答案和意图分析，不进入客服工作流
+ *
+ * <p>容量有上限，超出时淘汰最久未访问的条目（按访问顺序排列的 LinkedHashMap，淘汰为常数时间）；条目超过 TTL 后失效。
+ * 相似问题查找为对全部条目的线性点积扫描，在数千条以内的容量下开销远小于一次大模型调用；
+ * 问题向量在加锁之前计算，锁内只有点积扫描。</p>
+ *
+ * <p>质量评估未通过的答案（包括重试次数用尽后被强制放行的答案）不缓存。后台质量评估可能在工作流返回、
+ * 答案写入缓存之前就判定不合格，此时记下该问题，随后到达的一次写入直接丢弃，见 {@link #invalidateFailedAnswer(String)}。</p>
+ */
+public class SemanticAnswerCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticAnswerCache.class);
+
+    private final TextEmbedder embedder;
+    private final boolean enabled;
+    private final double similarityThreshold;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    /**
+     * 按访问顺序排列，最久未访问的条目在最前；所有访问都在该对象的锁内
+     */
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * 判定不合格时尚未写入缓存的问题及判定时间，同样在 entries 的锁内访问
+     */
+    private final LinkedHashMap<String, Long> failedBeforePut;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong exactHits = new AtomicLong();
+    private final AtomicLong semanticHits = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong rejectedFailedQuality = new AtomicLong();
+    private final AtomicLong rejectedAfterAsyncFailure = new AtomicLong();
+
+    public SemanticAnswerCache(TextEmbedder embedder, boolean enabled, double similarityThreshold, int maxEntries, Duration ttl) {
+        this(embedder, enabled, similarityThreshold, maxEntries, ttl, System::nanoTime);
+    }
+
+    SemanticAnswerCache(TextEmbedder embedder, boolean enabled, double similarityThreshold, int maxEntries, Duration ttl, LongSupplier nanoClock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be > 0");
+        }
+        this.embedder = embedder;
+        this.enabled = enabled;
+        this.similarityThreshold = similarityThreshold;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= SemanticAnswerCache.this.maxEntries) {
+                    return false;
+                }
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+        this.failedBeforePut = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > SemanticAnswerCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 查找与问题相同或语义相近的缓存答案
+     */
+    public Optional<CacheHit> lookup(String question) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        lookups.incrementAndGet();
+        long now = nanoClock.getAsLong();
+        String key = normalize(question);
+
+        synchronized (entries) {
+            Entry exact = entries.get(key);
+            if (exact != null && !expireIfStale(key, exact, now)) {
+                exactHits.incrementAndGet();
+                return Optional.of(new CacheHit(exact.data, 1.0, exact.question));
+            }
+        }
+
+        float[] vector = embedder.embed(key);
+        synchronized (entries) {
+            Entry best = null;
+            float bestSimilarity = -1f;
+            for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+                Entry entry = it.next();
+                if (now - entry.createdAt > ttlNanos) {
+                    it.remove();
+                    expirations.incrementAndGet();
+                    continue;
+                }
+                float similarity = TextEmbedder.dot(vector, entry.vector);
+                if (similarity > bestSimilarity) {
+                    bestSimilarity = similarity;
+                    best = entry;
+                }
+            }
+
+            if (best != null && bestSimilarity >= similarityThreshold) {
+                // 移到访问顺序的末尾
+                entries.get(best.key);
+                semanticHits.incrementAndGet();
+                log.info("语义缓存命中: 问题={}, 相似问题={}, 相似度={}", question, best.question, bestSimilarity);
+                return Optional.of(new CacheHit(best.data, bestSimilarity, best.question));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 缓存一次客服工作流的结果；转人工（会生成工单）的结果与用户相关，不缓存；
+     * 质量评估未通过的答案不缓存，工作流在重试次数用尽后会强制放行这类答案
+     */
+    public void put(String question, Map<String, Object> stateData) {
+        if (!enabled || stateData.containsKey("human_service")
+                || !stateData.containsKey("generated_answer") || !stateData.containsKey("intent_analysis")) {
+            return;
+        }
+        if (stateData.get("quality_assessment") instanceof QualityAssessment assessment && !assessment.qualityPassed()) {
+            rejectedFailedQuality.incrementAndGet();
+            log.info("答案质量评估未通过，不缓存: 问题={}, 总分={}", question, assessment.overallScore());
+            return;
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("generated_answer", stateData.get("generated_answer"));
+        data.put("intent_analysis", stateData.get("intent_analysis"));
+
+        String key = normalize(question);
+        long now = nanoClock.getAsLong();
+        Entry entry = new Entry(key, question, embedder.embed(key), Map.copyOf(data), now);
+        synchronized (entries) {
+            Long failedAt = failedBeforePut.remove(key);
+            if (failedAt != null && now - failedAt <= ttlNanos) {
+                rejectedAfterAsyncFailure.incrementAndGet();
+                log.info("答案在写入缓存前已被判定不合格，不缓存: 问题={}", question);
+                return;
+            }
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * 移除某个问题的缓存答案，例如异步质量评估判定该答案不合格
+     */
+    public void invalidate(String question) {
+        Entry removed;
+        synchronized (entries) {
+            removed = entries.remove(normalize(question));
+        }
+        if (removed != null) {
+            invalidations.incrementAndGet();
+            log.info("语义缓存移除答案: 问题={}", question);
+        }
+    }
+
+    /**
+     * 后台质量评估判定答案不合格：移除已缓存的答案；答案尚未写入缓存（评估先于工作流结束完成）时，
+     * 丢弃该问题随后的一次写入，超过 TTL 未写入的记录不再生效
+     */
+    public void invalidateFailedAnswer(String question) {
+        String key = normalize(question);
+        synchronized (entries) {
+            if (entries.remove(key) == null) {
+                failedBeforePut.put(key, nanoClock.getAsLong());
+                return;
+            }
+        }
+        invalidations.incrementAndGet();
+        log.info("语义缓存移除答案: 问题={}", question);
+    }
+
+    /**
+     * 清空全部缓存，例如知识库更新后旧答案不再可信
+     */
+    public void clear() {
+        int cleared;
+        synchronized (entries) {
+            cleared = entries.size();
+            entries.clear();
+            failedBeforePut.clear();
+        }
+        log.info("语义缓存已清空，共 {} 条", cleared);
+    }
+
+    public Map<String, Object> stats() {
+        long total = lookups.get();
+        long hits = exactHits.get() + semanticHits.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+        }
+        stats.put("max_entries", maxEntries);
+        stats.put("lookups", total);
+        stats.put("exact_hits", exactHits.get());
+        stats.put("semantic_hits", semanticHits.get());
+        stats.put("misses", total - hits);
+        stats.put("hit_rate", total == 0 ? 0.0 : (double) hits / total);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("rejected_failed_quality", rejectedFailedQuality.get());
+        stats.put("rejected_after_async_failure", rejectedAfterAsyncFailure.get());
+        return stats;
+    }
+
+    /**
+     * 调用方持有 entries 的锁
+     */
+    private boolean expireIfStale(String key, Entry entry, long now) {
+        if (now - entry.createdAt <= ttlNanos) {
+            return false;
+        }
+        entries.remove(key);
+        expirations.incrementAndGet();
+        return true;
+    }
+
+    static String normalize(String question) {
+        return question.trim().toLowerCase().replaceAll("\\s+", " ");
+    }
+
+    public static class CacheHit {
+        private final Map<String, Object> data;
+        private final double similarity;
+        private final String matchedQuestion;
+
+        CacheHit(Map<String, Object> data, double similarity, String matchedQuestion) {
+            this.data = data;
+            this.similarity = similarity;
+            this.matchedQuestion = matchedQuestion;
+        }
+
+        public Map<String, Object> data() {
+            return data;
+        }
+
+        public double similarity() {
+            return similarity;
+        }
+
+        public String matchedQuestion() {
+            return matchedQuestion;
+        }
+    }
+
+    private static class Entry {
+        final String key;
+        final String question;
+        final float[] vector;
+        final Map<String, Object> data;
+        final long createdAt;
+
+        Entry(String key, String question, float[] vector, Map<String, Object> data, long createdAt) {
+            this.key = key;
+            this.question = question;
+            this.vector = vector;
+            this.data = data;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.seanfield.graphdemo.cache;
+
+import com.seanfield.graphdemo.embedding.TextEmbedder;
+import com.seanfield.graphdemo.graph.AsyncQualityAssessment;
+import com.seanfield.graphdemo.knowledge.ReloadableKnowledgeBase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 语义缓存配置类
+ */
+@Configuration
+public class SemanticCacheConfiguration {
+
+	@Bean
+	public SemanticAnswerCache semanticAnswerCache(TextEmbedder textEmbedder, ReloadableKnowledgeBase knowledgeBase,
+												   AsyncQualityAssessment asyncQualityAssessment,
+												   @Value("${graph.semantic-cache.enabled:true}") boolean enabled,
+												   @Value("${graph.semantic-cache.similarity-threshold:0.9}") double similarityThreshold,
+												   @Value("${graph.semantic-cache.max-entries:1000}") int maxEntries,
+												   @Value("${graph.semantic-cache.ttl:30m}") Duration ttl) {
+		SemanticAnswerCache cache = new SemanticAnswerCache(textEmbedder, enabled, similarityThreshold, maxEntries, ttl);
+		// 缓存的答案来自旧版本知识库，知识库重新加载后全部作废
+		knowledgeBase.addReloadListener(cache::clear);
+		// 异步质量评估不合格的答案不再继续提供：已写入缓存的移除，评估先于写入完成时丢弃随后的写入
+		asyncQualityAssessment.addFailedQualityListener(cache::invalidateFailedAnswer);
+		return cache;
+	}
+}
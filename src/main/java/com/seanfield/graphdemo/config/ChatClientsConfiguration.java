@@ -1,24 +1,51 @@
 package com.seanfield.graphdemo.config;
 
+import com.seanfield.graphdemo.graph.GraphMetrics;
+import com.seanfield.graphdemo.graph.GraphTracing;
+import com.seanfield.graphdemo.llm.LlmConcurrencyConfiguration;
+import com.seanfield.graphdemo.llm.LlmConcurrencyLimits;
+import com.seanfield.graphdemo.loadtest.LatencyStubChatModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 /**
  * 聊天客户端配置类
  */
 @Configuration
 public class ChatClientsConfiguration {
 
+	private static final Logger log = LoggerFactory.getLogger(ChatClientsConfiguration.class);
+
 	// DeepSeek（OpenAI 协议）作为默认的聊天客户端构建器
 
 	// Qwen（DashScope）保留，用于图工作流或需要通义千问的场景
 	// 直接使用主要的聊天模型，不依赖特定的限定符
+	// 开启 graph.llm-stub 时改用本地模拟延迟的模型，用于离线压测
+	// 模型调用经 GraphMetrics 计量首 token 延迟和流式耗时，经 GraphTracing 在所属节点下创建 span
+	// 按 DashScope 的自适应并发上限排队，计量和 span 包含排队时间
 	@Bean(name = "qwenChatClientBuilder")
-	public ChatClient.Builder qwenChatClientBuilder(ChatModel chatModel) {
-		return ChatClient.builder(chatModel);
+	public ChatClient.Builder qwenChatClientBuilder(ChatModel chatModel, GraphMetrics graphMetrics, GraphTracing graphTracing,
+													LlmConcurrencyLimits llmConcurrencyLimits,
+													@Value("${graph.llm-stub.enabled:false}") boolean stubEnabled,
+													@Value("${graph.llm-stub.time-to-first-token:500ms}") Duration timeToFirstToken,
+													@Value("${graph.llm-stub.tokens-per-second:40}") double tokensPerSecond,
+													@Value("${graph.llm-stub.error-rate:0}") double errorRate,
+													@Value("${graph.llm-stub.timeout-rate:0}") double timeoutRate,
+													@Value("${graph.llm-stub.timeout:30s}") Duration timeout,
+													@Value("${graph.llm-stub.answer-length:150}") int answerLength) {
+		if (stubEnabled) {
+			log.warn("使用本地模拟大模型（压测模式）: 首token延迟={}ms, 速率={} token/s, 失败率={}, 超时率={}",
+					timeToFirstToken.toMillis(), tokensPerSecond, errorRate, timeoutRate);
+			chatModel = new LatencyStubChatModel(timeToFirstToken, tokensPerSecond, errorRate, timeoutRate, timeout, answerLength);
+		}
+		ChatModel limited = llmConcurrencyLimits.limit(LlmConcurrencyConfiguration.DASHSCOPE, chatModel);
+		return ChatClient.builder(graphMetrics.meter(graphTracing.trace(limited)));
 	}
 }
-
-
@@ -0,0 +1,30 @@
+package com.seanfield.graphdemo.embedding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 向量化配置类：graph.embedding.type=local 使用本地哈希向量，model 使用 Spring AI 向量模型
+ */
+@Configuration
+public class EmbeddingConfiguration {
+
+	private static final Logger log = LoggerFactory.getLogger(EmbeddingConfiguration.class);
+
+	@Bean
+	public TextEmbedder textEmbedder(@Value("${graph.embedding.type:local}") String type,
+									 @Value("${graph.embedding.dimensions:256}") int dimensions,
+									 ObjectProvider<EmbeddingModel> embeddingModel) {
+		if ("model".equalsIgnoreCase(type)) {
+			log.info("使用向量模型进行文本向量化");
+			return new ModelTextEmbedder(embeddingModel.getObject());
+		}
+		log.info("使用本地 n-gram 哈希进行文本向量化，维度: {}", dimensions);
+		return new HashingNgramEmbedder(dimensions);
+	}
+}
@@ -0,0 +1,69 @@
+package com.seanfield.graphdemo.embedding;
+
+/**
+ * 本地字符 n-gram 哈希向量化：不依赖网络，结果确定，适合测试和离线环境
+ *
+ * <p>将单字和相邻二字组合哈希到固定维度并带符号累加，能识别用词相近的改写问法，
+ * 但无法理解同义改写，语义精度要求高时应使用 {@link ModelTextEmbedder}。</p>
+ */
+public class HashingNgramEmbedder implements TextEmbedder {
+
+    private final int dimensions;
+
+    public HashingNgramEmbedder(int dimensions) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("dimensions must be > 0");
+        }
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimensions];
+        int previous = -1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (Character.isWhitespace(c) || isPunctuation(c)) {
+                previous = -1;
+                continue;
+            }
+            accumulate(vector, c, 1f);
+            if (previous >= 0) {
+                // 二字组合携带词序信息，权重高于单字
+                accumulate(vector, previous * 31 + c + 0x9E3779B9, 2f);
+            }
+            previous = c;
+        }
+        return TextEmbedder.normalize(vector);
+    }
+
+    @Override
+    public String name() {
+        return "hashing-ngram-" + dimensions;
+    }
+
+    private void accumulate(float[] vector, int feature, float weight) {
+        int hash = mix(feature);
+        int bucket = Math.floorMod(hash, dimensions);
+        vector[bucket] += (hash & 0x40000000) == 0 ? weight : -weight;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static boolean isPunctuation(char c) {
+        int type = Character.getType(c);
+        return type == Character.OTHER_PUNCTUATION
+                || type == Character.START_PUNCTUATION
+                || type == Character.END_PUNCTUATION
+                || type == Character.DASH_PUNCTUATION
+                || type == Character.INITIAL_QUOTE_PUNCTUATION
+                || type == Character.FINAL_QUOTE_PUNCTUATION;
+    }
+}
@@ -0,0 +1,29 @@
+package com.seanfield.graphdemo.embedding;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.util.List;
+
+/**
+ * 基于 Spring AI EmbeddingModel 的向量化（例如 DashScope 文本向量模型）
+ */
+public class ModelTextEmbedder implements TextEmbedder {
+
+    private final EmbeddingModel embeddingModel;
+
+    public ModelTextEmbedder(EmbeddingModel embeddingModel) {
+        this.embeddingModel = embeddingModel;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return TextEmbedder.normalize(embeddingModel.embed(text));
+    }
+
+    @Override
+    public List<float[]> embedAll(List<String> texts) {
+        List<float[]> vectors = embeddingModel.embed(texts);
+        vectors.forEach(TextEmbedder::normalize);
+        return vectors;
+    }
+}
@@ -0,0 +1,53 @@
+package com.seanfield.graphdemo.embedding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文本向量化接口：返回 L2 归一化后的向量，点积即余弦相似度
+ */
+public interface TextEmbedder {
+
+    float[] embed(String text);
+
+    /**
+     * 向量化方式的标识，持久化的向量索引据此判断是否需要重建
+     */
+    default String name() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * 批量向量化，默认逐条调用；远程模型实现应覆盖为一次批量请求
+     */
+    default List<float[]> embedAll(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            vectors.add(embed(text));
+        }
+        return vectors;
+    }
+
+    static float dot(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            return vector;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}
@@ -7,14 +7,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Collectors;
 
 /**
  * AI深度分析节点：处理复杂咨询问题，生成专业回答
  */
-public class AIAnalysisNode implements NodeAction {
+public class AIAnalysisNode implements NodeAction, ReactiveNodeAction {
 
     private static final Logger log = LoggerFactory.getLogger(AIAnalysisNode.class);
 
@@ -38,14 +41,23 @@ public class AIAnalysisNode implements NodeAction {
 
     @Override
     public Map<String, Object> apply(OverAllState state) throws Exception {
-        log.info("AIAnalysisNode开始执行，当前状态: {}", state.data());
+        return applyReactive(state).block();
+    }
+
+    @Override
+    public Mono<Map<String, Object>> applyReactive(OverAllState state) {
+        log.info("AIAnalysisNode开始执行");
 
         // 获取用户问题
-        Map<String, Object> input = state.value("input", Map.of());
-        String question = String.valueOf(input.getOrDefault("question", ""));
+        String question = CustomerServiceState.question(state);
         
         log.info("AI正在深度分析复杂问题: {}", question);
 
+        // 流式接口会传入监听器，边生成边把 token 推送给用户
+        AnswerStreamListener listener = CustomerServiceState.ANSWER_STREAM.get(state);
+        int retryCount = CustomerServiceState.RETRY_COUNT.get(state);
+        listener.onAnswerStart(retryCount + 1);
+
         // 使用AI进行深度分析
         Flux<String> contentStream = this.chatClient
                 .prompt()
@@ -53,23 +65,20 @@ public class AIAnalysisNode implements NodeAction {
                         .text(AI_ANALYSIS_PROMPT.getTemplate())
                         .param("question", question))
                 .stream()
-                .content();
+                .content()
+                .doOnNext(listener::onToken);
 
-        String aiResponse = contentStream.reduce("", (acc, s) -> acc + s).block();
-        
-        log.info("AI深度分析完成，生成回答长度: {}", aiResponse.length());
+        // 接收方取消时放弃答案，取消对大模型流的订阅
+        Mono<String> aiResponseMono = Mono.firstWithSignal(contentStream.collect(Collectors.joining()),
+                listener.cancelled().then(Mono.error(() -> new CancellationException("答案流已被接收方取消"))));
 
-        // 构建返回结果
-        HashMap<String, Object> analysisInfo = new HashMap<>();
-        analysisInfo.put("ai_response", aiResponse);
-        analysisInfo.put("analysis_type", "complex_inquiry");
-        analysisInfo.put("response_length", aiResponse.length());
-        analysisInfo.put("source", "ai_analysis");
-        analysisInfo.put("original_question", question);
+        return aiResponseMono.map(aiResponse -> {
+            log.info("AI深度分析完成，生成回答长度: {}", aiResponse.length());
 
-        HashMap<String, Object> result = new HashMap<>();
-        result.put("ai_analysis", analysisInfo);
-        
-        return result;
+            // 构建返回结果
+            HashMap<String, Object> result = new HashMap<>();
+            CustomerServiceState.AI_ANALYSIS.put(result, new AiAnalysis(aiResponse, question));
+            return result;
+        });
     }
 }
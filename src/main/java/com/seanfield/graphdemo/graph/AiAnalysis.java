@@ -0,0 +1,44 @@
+package com.seanfield.graphdemo.graph;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * AI深度分析结果：大模型对复杂咨询的回答
+ */
+public final class AiAnalysis {
+
+    private final String aiResponse;
+    private final String originalQuestion;
+
+    public AiAnalysis(String aiResponse, String originalQuestion) {
+        this.aiResponse = aiResponse;
+        this.originalQuestion = originalQuestion;
+    }
+
+    public String aiResponse() {
+        return aiResponse;
+    }
+
+    public String originalQuestion() {
+        return originalQuestion;
+    }
+
+    /**
+     * 接口返回的格式
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("ai_response", aiResponse);
+        map.put("analysis_type", "complex_inquiry");
+        map.put("response_length", aiResponse.length());
+        map.put("source", "ai_analysis");
+        map.put("original_question", originalQuestion);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
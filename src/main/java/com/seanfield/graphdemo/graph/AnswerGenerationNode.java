@@ -19,11 +19,10 @@ public class AnswerGenerationNode implements NodeAction {
 
     @Override
     public Map<String, Object> apply(OverAllState state) throws Exception {
-        log.info("AnswerGenerationNode开始执行，当前状态: {}", state.data());
+        log.info("AnswerGenerationNode开始执行");
 
         // 获取意图分析结果
-        Map<String, Object> intentAnalysis = state.value("intent_analysis", Map.of());
-        String intentType = String.valueOf(intentAnalysis.getOrDefault("intent_type", "COMPLEX"));
+        String intentType = CustomerServiceState.intentType(state, "COMPLEX");
         
         String finalAnswer;
         String answerSource;
@@ -52,34 +51,28 @@ public class AnswerGenerationNode implements NodeAction {
         // 构建格式化的最终回复
         String formattedAnswer = formatAnswer(finalAnswer, answerSource);
 
-        HashMap<String, Object> answerInfo = new HashMap<>();
-        answerInfo.put("final_answer", formattedAnswer);
-        answerInfo.put("answer_source", answerSource);
-        answerInfo.put("intent_type", intentType);
-        answerInfo.put("generated_time", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-        answerInfo.put("answer_length", formattedAnswer.length());
+        GeneratedAnswer answerInfo = new GeneratedAnswer(formattedAnswer, answerSource, intentType,
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
 
         HashMap<String, Object> result = new HashMap<>();
-        result.put("generated_answer", answerInfo);
+        CustomerServiceState.GENERATED_ANSWER.put(result, answerInfo);
         
         return result;
     }
 
     private String generateFAQAnswer(OverAllState state) {
-        Map<String, Object> knowledgeSearch = state.value("knowledge_search", Map.of());
-        boolean searchFound = Boolean.TRUE.equals(knowledgeSearch.get("search_found"));
+        KnowledgeSearchResult knowledgeSearch = CustomerServiceState.KNOWLEDGE_SEARCH.get(state);
         
-        if (searchFound) {
-            String faqAnswer = String.valueOf(knowledgeSearch.getOrDefault("faq_answer", ""));
-            return faqAnswer;
+        if (knowledgeSearch != null && knowledgeSearch.searchFound()) {
+            return knowledgeSearch.faqAnswer();
         } else {
             return "很抱歉，我在知识库中没有找到相关答案。建议您联系我们的客服热线：400-123-4567，我们会为您提供更详细的帮助。";
         }
     }
 
     private String generateComplexAnswer(OverAllState state) {
-        Map<String, Object> aiAnalysis = state.value("ai_analysis", Map.of());
-        String aiResponse = String.valueOf(aiAnalysis.getOrDefault("ai_response", ""));
+        AiAnalysis aiAnalysis = CustomerServiceState.AI_ANALYSIS.get(state);
+        String aiResponse = aiAnalysis == null ? "" : aiAnalysis.aiResponse();
         
         if (!aiResponse.trim().isEmpty()) {
             return aiResponse;
@@ -94,7 +87,7 @@ public class AnswerGenerationNode implements NodeAction {
                "为您提供满意的解决方案。如需紧急处理，请拨打客服热线：400-123-4567。";
     }
 
-    private String formatAnswer(String answer, String source) {
+    String formatAnswer(String answer, String source) {
         StringBuilder formatted = new StringBuilder();
         
         // 添加友好的开头
@@ -0,0 +1,38 @@
+package com.seanfield.graphdemo.graph;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 答案流监听器：通过状态键 {@link #STATE_KEY} 传入图中，AI 生成答案时逐个接收 token
+ *
+ * <p>接收方不再需要答案时（例如 SSE 客户端断开），{@link #cancelled()} 完成，
+ * 流式生成答案的节点据此取消大模型调用并以 {@link java.util.concurrent.CancellationException} 结束本次执行。</p>
+ */
+public interface AnswerStreamListener {
+
+    String STATE_KEY = "answer_stream";
+
+    AnswerStreamListener NOOP = new AnswerStreamListener() {
+        @Override
+        public void onAnswerStart(int attempt) {
+        }
+
+        @Override
+        public void onToken(String token) {
+        }
+    };
+
+    /**
+     * 开始生成一次答案，质量检查未通过重新生成时 attempt 递增
+     */
+    void onAnswerStart(int attempt);
+
+    void onToken(String token);
+
+    /**
+     * 接收方取消时完成的信号，默认永不完成
+     */
+    default Mono<Void> cancelled() {
+        return Mono.never();
+    }
+}
@@ -0,0 +1,246 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 异步质量评估：答案生成后立即返回，质量评估在后台执行，结果记录下来供离线抽查
+ *
+ * <p>只有按比例抽中的请求、指定意图的请求和重试中的请求仍同步评估，不合格时照常回到AI分析重新生成。
+ * 异步评估的请求在状态中写入 assessment_mode=async、pending=true 并直接通过质量检查；
+ * 后台评估完成后保留最近若干条记录，不合格的答案额外打印告警并通知监听器（例如从语义缓存中移除）。
+ * 进行中的异步评估超过上限时跳过评估，避免大模型故障时堆积；单次评估超过 timeout 时按失败处理并释放名额。
+ * 未启用时所有请求都同步评估。</p>
+ */
+public class AsyncQualityAssessment {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncQualityAssessment.class);
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    private final boolean enabled;
+    private final double syncFraction;
+    private final Set<String> syncIntents;
+    private final int maxInFlight;
+    private final int recentCapacity;
+    private final Duration timeout;
+    private final List<Consumer<String>> failedQualityListeners = new CopyOnWriteArrayList<>();
+    private final Deque<Map<String, Object>> recent = new ArrayDeque<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong syncAssessed = new AtomicLong();
+    private final AtomicLong asyncSubmitted = new AtomicLong();
+    private final AtomicLong asyncCompleted = new AtomicLong();
+    private final AtomicLong asyncFailedQuality = new AtomicLong();
+    private final AtomicLong asyncErrors = new AtomicLong();
+    private final AtomicLong asyncTimeouts = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong asyncScoreSum = new AtomicLong();
+
+    public AsyncQualityAssessment(boolean enabled, double syncFraction, Set<String> syncIntents, int maxInFlight, int recentCapacity) {
+        this(enabled, syncFraction, syncIntents, maxInFlight, recentCapacity, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param syncFraction   仍同步评估的请求比例（0-1）
+     * @param syncIntents    总是同步评估的意图类型（如 COMPLEX）
+     * @param maxInFlight    同时进行的异步评估数上限
+     * @param recentCapacity 保留的最近异步评估记录数
+     * @param timeout        单次异步评估的最长时间
+     */
+    public AsyncQualityAssessment(boolean enabled, double syncFraction, Set<String> syncIntents, int maxInFlight, int recentCapacity,
+                                  Duration timeout) {
+        this.enabled = enabled;
+        this.syncFraction = syncFraction;
+        this.syncIntents = Set.copyOf(syncIntents);
+        this.maxInFlight = maxInFlight;
+        this.recentCapacity = recentCapacity;
+        this.timeout = timeout;
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * 包装质量评估节点；未启用时原样返回
+     */
+    public ReactiveNodeAction wrap(ReactiveNodeAction qualityNode) {
+        if (!enabled) {
+            return qualityNode;
+        }
+        return state -> {
+            String intentType = CustomerServiceState.intentType(state, "");
+            if (gateSynchronously(state, intentType)) {
+                syncAssessed.incrementAndGet();
+                return qualityNode.applyReactive(state).map(result -> withMode(result, "sync"));
+            }
+            submit(qualityNode, state, intentType);
+
+            HashMap<String, Object> result = new HashMap<>();
+            CustomerServiceState.QUALITY_ASSESSMENT.put(result, QualityAssessment.pendingAsync());
+            return Mono.just(result);
+        };
+    }
+
+    /**
+     * 异步评估不合格时以用户问题调用，例如从语义缓存中移除该答案
+     */
+    public void addFailedQualityListener(Consumer<String> listener) {
+        failedQualityListeners.add(listener);
+    }
+
+    /**
+     * 最近完成的异步评估记录，最新的在前
+     */
+    public List<Map<String, Object>> recent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long completed = asyncCompleted.get();
+        long total = syncAssessed.get() + asyncSubmitted.get() + skipped.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("sync_fraction", syncFraction);
+        stats.put("sync_intents", syncIntents);
+        stats.put("sync_assessed", syncAssessed.get());
+        stats.put("async_submitted", asyncSubmitted.get());
+        stats.put("async_completed", completed);
+        stats.put("async_failed_quality", asyncFailedQuality.get());
+        stats.put("async_errors", asyncErrors.get());
+        stats.put("async_timeouts", asyncTimeouts.get());
+        stats.put("skipped", skipped.get());
+        stats.put("in_flight", inFlight.get());
+        // 不在请求路径上等待评估的比例，即少一次大模型调用的请求比例
+        stats.put("off_critical_path_fraction", total == 0 ? 0.0 : (double) (asyncSubmitted.get() + skipped.get()) / total);
+        stats.put("avg_async_overall_score", completed == 0 ? 0.0 : (double) asyncScoreSum.get() / completed);
+        return stats;
+    }
+
+    private boolean gateSynchronously(OverAllState state, String intentType) {
+        // 重试说明上一次同步评估不合格，继续同步评估才能决定是否再次重试
+        if (CustomerServiceState.RETRY_COUNT.get(state) > 0) {
+            return true;
+        }
+        if (syncIntents.contains(intentType)) {
+            return true;
+        }
+        return syncFraction > 0 && ThreadLocalRandom.current().nextDouble() < syncFraction;
+    }
+
+    private void submit(ReactiveNodeAction qualityNode, OverAllState state, String intentType) {
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            skipped.incrementAndGet();
+            log.warn("进行中的异步质量评估已达上限 {}，跳过本次评估", maxInFlight);
+            return;
+        }
+        asyncSubmitted.incrementAndGet();
+        // 评估在节点返回后继续运行，不能读取会被引擎修改的共享状态
+        OverAllState snapshot = new OverAllState(new HashMap<>(state.data()));
+        String question = CustomerServiceState.question(snapshot);
+        GeneratedAnswer generatedAnswer = CustomerServiceState.GENERATED_ANSWER.get(snapshot);
+        String answer = generatedAnswer == null ? "" : generatedAnswer.finalAnswer();
+        long start = System.nanoTime();
+
+        AtomicReference<QualityAssessment> assessed = new AtomicReference<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Mono.defer(() -> qualityNode.applyReactive(snapshot))
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("质量评估没有返回结果")))
+                .timeout(timeout)
+                .map(AsyncQualityAssessment::qualityInfo)
+                .doOnNext(assessed::set)
+                .doOnError(e -> {
+                    failure.set(e);
+                    if (e instanceof TimeoutException) {
+                        log.warn("异步质量评估超过 {}ms 未完成: 问题={}", timeout.toMillis(), question);
+                    } else {
+                        log.warn("异步质量评估失败: 问题={}，原因={}", question, e.getMessage());
+                    }
+                })
+                .onErrorResume(e -> Mono.empty())
+                // 成功、失败、超时和取消都在这里释放名额，不会因为评估卡住而永久占用
+                .doFinally(signal -> finish(question, answer, intentType, assessed.get(), failure.get(),
+                        System.nanoTime() - start))
+                .subscribe();
+    }
+
+    private void finish(String question, String answer, String intentType, QualityAssessment qualityInfo, Throwable failure,
+                        long elapsedNanos) {
+        if (qualityInfo == null) {
+            // 先释放名额再更新统计，读到失败数时名额已经可用
+            inFlight.decrementAndGet();
+            if (failure instanceof TimeoutException) {
+                asyncTimeouts.incrementAndGet();
+            }
+            asyncErrors.incrementAndGet();
+            return;
+        }
+        record(question, answer, intentType, qualityInfo, elapsedNanos);
+    }
+
+    private void record(String question, String answer, String intentType, QualityAssessment qualityInfo, long elapsedNanos) {
+        int overallScore = qualityInfo.overallScore();
+        boolean passed = qualityInfo.qualityPassed();
+
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("question", question);
+        entry.put("answer", answer);
+        entry.put("intent_type", intentType);
+        entry.put("quality_assessment", qualityInfo.toMap());
+        entry.put("assessment_time_ms", elapsedNanos / 1_000_000);
+        entry.put("completed_at", System.currentTimeMillis());
+        synchronized (recent) {
+            recent.addFirst(entry);
+            if (recent.size() > recentCapacity) {
+                recent.removeLast();
+            }
+        }
+        // 先更新记录和进行中数量再更新完成数，读到完成数时对应的记录已经可见
+        inFlight.decrementAndGet();
+        asyncScoreSum.addAndGet(overallScore);
+        if (!passed) {
+            asyncFailedQuality.incrementAndGet();
+            log.warn("异步质量评估不合格: 总分={}，问题={}，理由={}", overallScore, question, qualityInfo.reason());
+            for (Consumer<String> listener : failedQualityListeners) {
+                listener.accept(question);
+            }
+        }
+        asyncCompleted.incrementAndGet();
+    }
+
+    private static Map<String, Object> withMode(Map<String, Object> result, String mode) {
+        HashMap<String, Object> withMode = new HashMap<>(result);
+        CustomerServiceState.QUALITY_ASSESSMENT.put(withMode, qualityInfo(result).withMode(mode));
+        return withMode;
+    }
+
+    private static QualityAssessment qualityInfo(Map<String, Object> result) {
+        Object qualityInfo = result.get(CustomerServiceState.QUALITY_ASSESSMENT.key());
+        if (!(qualityInfo instanceof QualityAssessment)) {
+            throw new IllegalStateException("质量评估节点没有返回 " + CustomerServiceState.QUALITY_ASSESSMENT);
+        }
+        return (QualityAssessment) qualityInfo;
+    }
+}
@@ -0,0 +1,55 @@
+package com.seanfield.graphdemo.graph;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 先缓存、后转发的流式监听器：推测执行的分支在结果被采用前不能把 token 推送给用户，
+ * 采用时调用 {@link #attach(AnswerStreamListener)} 按顺序补发已缓存的事件，之后的事件直接转发；
+ * 采用后目标监听器的取消信号同样转发给分支
+ */
+class BufferedStreamListener implements AnswerStreamListener {
+
+    private final List<Object> events = new ArrayList<>();
+    private final Sinks.Empty<Void> cancelled = Sinks.empty();
+    private AnswerStreamListener target;
+
+    @Override
+    public synchronized void onAnswerStart(int attempt) {
+        if (target != null) {
+            target.onAnswerStart(attempt);
+        } else {
+            events.add(attempt);
+        }
+    }
+
+    @Override
+    public synchronized void onToken(String token) {
+        if (target != null) {
+            target.onToken(token);
+        } else {
+            events.add(token);
+        }
+    }
+
+    @Override
+    public Mono<Void> cancelled() {
+        return cancelled.asMono();
+    }
+
+    synchronized void attach(AnswerStreamListener listener) {
+        for (Object event : events) {
+            if (event instanceof Integer attempt) {
+                listener.onAnswerStart(attempt);
+            } else {
+                listener.onToken((String) event);
+            }
+        }
+        events.clear();
+        target = listener;
+        listener.cancelled().subscribe(null, null, cancelled::tryEmitEmpty);
+    }
+}
@@ -0,0 +1,46 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.seanfield.graphdemo.graph.state.StateSchema;
+import com.seanfield.graphdemo.graph.state.StateSlot;
+
+import java.util.Map;
+
+/**
+ * 智能客服工作流的状态键：各节点的结果都是不可变的值对象
+ */
+public final class CustomerServiceState {
+
+    public static final StateSlot<Map<String, Object>> INPUT = StateSlot.map("input");
+    public static final StateSlot<IntentAnalysis> INTENT_ANALYSIS = StateSlot.of("intent_analysis", IntentAnalysis.class, null);
+    public static final StateSlot<KnowledgeSearchResult> KNOWLEDGE_SEARCH = StateSlot.of("knowledge_search", KnowledgeSearchResult.class, null);
+    public static final StateSlot<AiAnalysis> AI_ANALYSIS = StateSlot.of("ai_analysis", AiAnalysis.class, null);
+    public static final StateSlot<GeneratedAnswer> GENERATED_ANSWER = StateSlot.of("generated_answer", GeneratedAnswer.class, null);
+    public static final StateSlot<QualityAssessment> QUALITY_ASSESSMENT = StateSlot.of("quality_assessment", QualityAssessment.class, null);
+    public static final StateSlot<HumanServiceTicket> HUMAN_SERVICE = StateSlot.of("human_service", HumanServiceTicket.class, null);
+    public static final StateSlot<Integer> RETRY_COUNT = StateSlot.of("retry_count", Integer.class, 0);
+    public static final StateSlot<AnswerStreamListener> ANSWER_STREAM =
+            StateSlot.of(AnswerStreamListener.STATE_KEY, AnswerStreamListener.class, AnswerStreamListener.NOOP);
+    public static final StateSlot<Object> SPECULATION = StateSlot.of(SpeculativeExecution.STATE_KEY, Object.class, null);
+
+    public static final StateSchema SCHEMA = StateSchema.of("智能客服工作流", INPUT, INTENT_ANALYSIS, KNOWLEDGE_SEARCH,
+            AI_ANALYSIS, GENERATED_ANSWER, QUALITY_ASSESSMENT, HUMAN_SERVICE, RETRY_COUNT, ANSWER_STREAM, SPECULATION);
+
+    private CustomerServiceState() {
+    }
+
+    /**
+     * 用户问题，来自调用方传入的 input.question
+     */
+    public static String question(OverAllState state) {
+        return String.valueOf(INPUT.get(state).getOrDefault("question", ""));
+    }
+
+    /**
+     * 意图类型，尚未识别时返回 defaultType
+     */
+    public static String intentType(OverAllState state, String defaultType) {
+        IntentAnalysis intent = INTENT_ANALYSIS.get(state);
+        return intent == null ? defaultType : intent.intentType();
+    }
+}
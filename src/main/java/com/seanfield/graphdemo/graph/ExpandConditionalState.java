@@ -0,0 +1,24 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import com.seanfield.graphdemo.graph.state.StateSchema;
+import com.seanfield.graphdemo.graph.state.StateSlot;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 条件扩展工作流的状态键
+ */
+public final class ExpandConditionalState {
+
+    public static final StateSlot<Map<String, Object>> INPUT = StateSlot.map("input");
+    public static final StateSlot<QueryValidation> VALIDATION = StateSlot.of("validation", QueryValidation.class, null);
+    public static final StateSlot<List<String>> EXPANDER_CONTENT = StateSlot.list("expandercontent", new ReplaceStrategy());
+    public static final StateSlot<String> ERROR = StateSlot.of("error", String.class, null);
+
+    public static final StateSchema SCHEMA = StateSchema.of("条件扩展工作流", INPUT, VALIDATION, EXPANDER_CONTENT, ERROR);
+
+    private ExpandConditionalState() {
+    }
+}
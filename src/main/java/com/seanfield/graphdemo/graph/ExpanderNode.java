@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
 import java.util.List;
@@ -15,7 +16,7 @@ import java.util.Map;
 /**
  * 扩展节点：使用AI生成查询的多个变体版本
  */
-public class ExpanderNode implements NodeAction {
+public class ExpanderNode implements NodeAction, ReactiveNodeAction {
 
     private static final Logger log = LoggerFactory.getLogger(ExpanderNode.class);
 
@@ -32,7 +33,7 @@ public class ExpanderNode implements NodeAction {
     );
 
     private final ChatClient chatClient;
-    private final Integer defaultNumber = 3;
+    private final int defaultNumber = 3;
 
     public ExpanderNode(ChatClient.Builder chatClientBuilder) {
         this.chatClient = chatClientBuilder.build();
@@ -40,14 +41,20 @@ public class ExpanderNode implements NodeAction {
 
     @Override
     public Map<String, Object> apply(OverAllState state) throws Exception {
-        log.info("ExpanderNode开始执行，当前状态: {}", state.data());
+        return applyReactive(state).block();
+    }
+
+    @Override
+    public Mono<Map<String, Object>> applyReactive(OverAllState state) {
+        log.info("ExpanderNode开始执行");
         
         // 1. 从状态中获取输入数据
-        Map<String, Object> payload = state.value("input", Map.of());
+        Map<String, Object> payload = ExpandConditionalState.INPUT.get(state);
 
         // 2. 提取查询参数
-        String query = (String) payload.getOrDefault("query", "");
-        Integer expanderNumber = (Integer) payload.getOrDefault("expandernumber", this.defaultNumber);
+        String query = String.valueOf(payload.getOrDefault("query", ""));
+        Object number = payload.get("expandernumber");
+        int expanderNumber = number instanceof Number n ? n.intValue() : this.defaultNumber;
 
         log.info("处理查询: {}, 扩展数量: {}", query, expanderNumber);
 
@@ -60,12 +67,13 @@ public class ExpanderNode implements NodeAction {
                 .stream()
                 .content();
 
-        String all = contentStream.reduce("", (acc, s) -> acc + s).block();
-        List<String> variants = List.of(all.split("\n"));
+        return contentStream.reduce("", (acc, s) -> acc + s).map(all -> {
+            List<String> variants = List.of(all.split("\n"));
 
-        HashMap<String, Object> result = new HashMap<>();
-        result.put("expandercontent", variants);
-        return result;
+            HashMap<String, Object> result = new HashMap<>();
+            ExpandConditionalState.EXPANDER_CONTENT.put(result, variants);
+            return result;
+        });
     }
 }
 
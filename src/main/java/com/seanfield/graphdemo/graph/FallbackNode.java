@@ -14,17 +14,16 @@ public class FallbackNode implements NodeAction {
 
 	@Override
 	public Map<String, Object> apply(OverAllState state) throws Exception {
-		Map<String, Object> input = state.value("input", Map.of());
-		String query = String.valueOf(input.getOrDefault("query", ""));
+		String query = String.valueOf(ExpandConditionalState.INPUT.get(state).getOrDefault("query", ""));
 		String reason = "回退处理";
-		Map<String, Object> validation = state.value("validation", Map.of());
-		if (validation.containsKey("reason")) {
-			reason = String.valueOf(validation.get("reason"));
+		QueryValidation validation = ExpandConditionalState.VALIDATION.get(state);
+		if (validation != null) {
+			reason = validation.reason();
 		}
 
 		HashMap<String, Object> result = new HashMap<>();
-		result.put("error", reason);
-		result.put("expandercontent", List.of(query));
+		ExpandConditionalState.ERROR.put(result, reason);
+		ExpandConditionalState.EXPANDER_CONTENT.put(result, List.of(query));
 		return result;
 	}
 }
@@ -0,0 +1,128 @@
+package com.seanfield.graphdemo.graph;
+
+import com.google.gson.Gson;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 把采样的 span 追加写入本地 JSON Lines 文件，无需采集器即可离线分析
+ *
+ * <p>每行一个 span：trace_id、span_id、parent_span_id、name、开始时间、耗时、属性、事件和状态，
+ * 按 trace_id 分组、parent_span_id 连接即可还原调用树。由 Spring Boot 的 BatchSpanProcessor 批量调用，写入不在请求线程上。
+ * 文件路径为 null 时不写入。</p>
+ */
+public class FileSpanExporter implements SpanExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSpanExporter.class);
+
+    private final Gson gson = new Gson();
+    private final BufferedWriter writer;
+    private final AtomicLong exported = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * @param file 输出文件，为 null 时不写入；文件已存在时追加
+     */
+    public FileSpanExporter(Path file) throws IOException {
+        if (file == null) {
+            this.writer = null;
+            return;
+        }
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        log.info("span 写入文件: {}", file.toAbsolutePath());
+    }
+
+    public boolean enabled() {
+        return writer != null;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        if (writer == null) {
+            return CompletableResultCode.ofSuccess();
+        }
+        try {
+            for (SpanData span : spans) {
+                writer.write(gson.toJson(toJson(span)));
+                writer.newLine();
+            }
+            writer.flush();
+            exported.addAndGet(spans.size());
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            log.warn("span 写入文件失败: {}", e.toString());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                return CompletableResultCode.ofFailure();
+            }
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled());
+        stats.put("exported_spans", exported.get());
+        stats.put("failures", failures.get());
+        return stats;
+    }
+
+    static Map<String, Object> toJson(SpanData span) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("trace_id", span.getTraceId());
+        json.put("span_id", span.getSpanId());
+        if (span.getParentSpanContext().isValid()) {
+            json.put("parent_span_id", span.getParentSpanId());
+        }
+        json.put("name", span.getName());
+        json.put("start_epoch_micros", span.getStartEpochNanos() / 1_000);
+        json.put("duration_ms", (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1_000_000.0);
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), value));
+        json.put("attributes", attributes);
+        if (!span.getEvents().isEmpty()) {
+            List<Map<String, Object>> events = new ArrayList<>();
+            for (EventData event : span.getEvents()) {
+                events.add(Map.of("name", event.getName(),
+                        "offset_ms", (event.getEpochNanos() - span.getStartEpochNanos()) / 1_000_000.0));
+            }
+            json.put("events", events);
+        }
+        json.put("status", span.getStatus().getStatusCode().name());
+        return json;
+    }
+}
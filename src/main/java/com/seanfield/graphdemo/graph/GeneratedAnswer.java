@@ -0,0 +1,56 @@
+package com.seanfield.graphdemo.graph;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 最终回复：格式化后的答案、答案来源（knowledge_base、ai_analysis、human_service）和生成时间
+ */
+public final class GeneratedAnswer {
+
+    private final String finalAnswer;
+    private final String answerSource;
+    private final String intentType;
+    private final String generatedTime;
+
+    public GeneratedAnswer(String finalAnswer, String answerSource, String intentType, String generatedTime) {
+        this.finalAnswer = finalAnswer;
+        this.answerSource = answerSource;
+        this.intentType = intentType;
+        this.generatedTime = generatedTime;
+    }
+
+    public String finalAnswer() {
+        return finalAnswer;
+    }
+
+    public String answerSource() {
+        return answerSource;
+    }
+
+    public String intentType() {
+        return intentType;
+    }
+
+    public String generatedTime() {
+        return generatedTime;
+    }
+
+    /**
+     * 接口返回的格式
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("final_answer", finalAnswer);
+        map.put("answer_source", answerSource);
+        map.put("intent_type", intentType);
+        map.put("generated_time", generatedTime);
+        map.put("answer_length", finalAnswer.length());
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
@@ -1,11 +1,263 @@
 package com.seanfield.graphdemo.graph;
 
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.seanfield.graphdemo.graph.checkpoint.FileCheckpointSaver;
+import com.seanfield.graphdemo.intent.IntentClassifier;
+import com.seanfield.graphdemo.intent.IntentExample;
+import com.seanfield.graphdemo.intent.IntentTrainingData;
+import com.seanfield.graphdemo.knowledge.KnowledgeBase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.alibaba.cloud.ai.graph.action.AsyncEdgeAction.edge_async;
+import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
+import static com.seanfield.graphdemo.graph.ReactiveNodeAction.node_reactive;
+
+/**
+ * 图配置类：定义所有工作流状态图，并在启动时注册到图注册表中预编译
+ */
 @Configuration
 public class GraphConfiguration {
-	// Graph configuration is now handled directly in the Controller
-	// to ensure proper initialization and avoid Spring Bean lifecycle issues
-}
 
+	public static final String EXPAND_CONDITIONAL_GRAPH = "expand_conditional";
+	public static final String LOOP_GRAPH = "loop";
+	public static final String LOOP_PARALLEL_GRAPH = "loop_parallel";
+	public static final String CUSTOMER_SERVICE_GRAPH = "customer_service";
+
+	private static final Logger log = LoggerFactory.getLogger(GraphConfiguration.class);
+
+	@Bean
+	public GraphMetrics graphMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+									 @Value("${graph.metrics.enabled:true}") boolean enabled) {
+		return new GraphMetrics(enabled ? meterRegistry.getIfAvailable() : null);
+	}
+
+	@Bean
+	public GraphTracing graphTracing(ObjectProvider<Tracer> tracer,
+									 @Value("${graph.tracing.enabled:true}") boolean enabled) {
+		return new GraphTracing(enabled ? tracer.getIfAvailable() : null);
+	}
+
+	// Spring Boot 会把所有 SpanExporter bean 加入批量导出，与 OTLP 导出器并存
+	@Bean
+	public FileSpanExporter fileSpanExporter(@Value("${graph.tracing.file:}") String file) throws IOException {
+		return new FileSpanExporter(file.isBlank() ? null : Path.of(file));
+	}
+
+	@Bean
+	public StateDiffTracer stateDiffTracer(@Value("${graph.trace.sample-rate:0.01}") double sampleRate, GraphMetrics graphMetrics,
+										   GraphTracing graphTracing) {
+		return new StateDiffTracer(sampleRate, graphMetrics, graphTracing);
+	}
+
+	@Bean
+	public GraphThreads graphThreads(@Value("${spring.threads.virtual.enabled:false}") boolean virtual,
+									 @Value("${graph.threads.blocking-pool-size:200}") int blockingPoolSize) {
+		return new GraphThreads(virtual, blockingPoolSize);
+	}
+
+	@Bean
+	public SpeculativeExecution speculativeExecution(GraphThreads graphThreads,
+													 @Value("${graph.speculation.enabled:false}") boolean enabled,
+													 @Value("${graph.speculation.max-threads:32}") int maxThreads) {
+		return new SpeculativeExecution(enabled, maxThreads, graphThreads.threadFactory("speculative-branch-"));
+	}
+
+	@Bean
+	public IntentPreClassifier intentPreClassifier(@Value("${graph.intent.local.enabled:true}") boolean enabled,
+												   @Value("${graph.intent.local.threshold:0.85}") double threshold,
+												   @Value("${graph.intent.local.training-file:}") String trainingFile) throws IOException {
+		if (!enabled) {
+			return new IntentPreClassifier(null, threshold);
+		}
+		List<IntentExample> examples = new ArrayList<>(IntentTrainingData.builtin());
+		if (!trainingFile.isBlank()) {
+			examples.addAll(IntentTrainingData.load(Path.of(trainingFile)));
+		}
+		long start = System.nanoTime();
+		IntentClassifier classifier = IntentClassifier.train(examples);
+		log.info("本地意图分类器训练完成: 样本数={}，耗时 {}ms，阈值={}", examples.size(), (System.nanoTime() - start) / 1_000_000, threshold);
+		return new IntentPreClassifier(classifier, threshold);
+	}
+
+	@Bean
+	public IntentMicroBatcher intentMicroBatcher(ChatClient.Builder chatClientBuilder, GraphThreads graphThreads,
+												 @Value("${graph.intent.batch.enabled:false}") boolean enabled,
+												 @Value("${graph.intent.batch.max-batch-size:16}") int maxBatchSize,
+												 @Value("${graph.intent.batch.max-wait:20ms}") Duration maxWait,
+												 @Value("${graph.intent.batch.call-timeout:10s}") Duration callTimeout) {
+		return new IntentMicroBatcher(chatClientBuilder.build(), enabled, maxBatchSize, maxWait, callTimeout,
+				graphThreads.threadFactory("intent-batch-call-"));
+	}
+
+	@Bean
+	public AsyncQualityAssessment asyncQualityAssessment(@Value("${graph.quality.async.enabled:false}") boolean enabled,
+														 @Value("${graph.quality.async.sync-fraction:0.1}") double syncFraction,
+														 @Value("${graph.quality.async.sync-intents:}") String syncIntents,
+														 @Value("${graph.quality.async.max-in-flight:64}") int maxInFlight,
+														 @Value("${graph.quality.async.recent-capacity:200}") int recentCapacity,
+														 @Value("${graph.quality.async.timeout:30s}") Duration timeout) {
+		Set<String> intents = Arrays.stream(syncIntents.split(","))
+				.map(String::trim)
+				.filter(intent -> !intent.isEmpty())
+				.map(String::toUpperCase)
+				.collect(Collectors.toSet());
+		return new AsyncQualityAssessment(enabled, syncFraction, intents, maxInFlight, recentCapacity, timeout);
+	}
+
+	@Bean
+	public FileCheckpointSaver fileCheckpointSaver(@Value("${graph.checkpoint.enabled:false}") boolean enabled,
+												   @Value("${graph.checkpoint.directory:checkpoints}") String directory,
+												   @Value("${graph.checkpoint.compaction-threshold:64MB}") DataSize compactionThreshold) throws IOException {
+		return new FileCheckpointSaver(enabled, Path.of(directory), compactionThreshold.toBytes());
+	}
 
+	@Bean
+	public GraphRegistry graphRegistry(ChatClient.Builder chatClientBuilder, StateDiffTracer tracer, KnowledgeBase knowledgeBase,
+									   SpeculativeExecution speculation, IntentPreClassifier intentPreClassifier,
+									   IntentMicroBatcher intentMicroBatcher, AsyncQualityAssessment asyncQualityAssessment,
+									   FileCheckpointSaver checkpointSaver,
+									   @Value("${graph.speculation.include-ai-analysis:false}") boolean speculateAnalysis,
+									   @Value("${graph.registry.pool-size:4}") int poolSize,
+									   @Value("${graph.registry.max-idle:${graph.threads.blocking-pool-size:200}}") int maxIdle,
+									   @Value("${graph.registry.warmup:true}") boolean warmup,
+									   @Value("${graph.loop.parallel-concurrency:8}") int loopConcurrency) throws GraphStateException {
+		GraphRegistry registry = new GraphRegistry(poolSize, Math.max(poolSize, maxIdle), warmup, tracer);
+
+		// 空查询会走 validation -> fallback 分支，预热不会调用大模型
+		registry.register(EXPAND_CONDITIONAL_GRAPH, expandConditionalGraph(chatClientBuilder, tracer),
+				Map.of("input", Map.of("query", "", "expandernumber", 3)));
+		// 空项目列表直接进入结果收集，预热不会调用大模型
+		// 逐项循环的长流程按线程 ID 保存检查点，进程重启后可以从最后一个 loop_index 继续
+		registry.register(LOOP_GRAPH, loopGraph(chatClientBuilder, tracer),
+				Map.of("items", List.of(), "loop_index", 0, "processed_results", List.of()),
+				checkpointSaver.enabled() ? checkpointSaver : null);
+		registry.register(LOOP_PARALLEL_GRAPH, parallelLoopGraph(chatClientBuilder, tracer, loopConcurrency),
+				Map.of("items", List.of(), "loop_index", 0, "processed_results", List.of()));
+		// 客服工作流的入口就是意图识别（大模型调用），只预编译不预热
+		registry.register(CUSTOMER_SERVICE_GRAPH, customerServiceGraph(chatClientBuilder, tracer, knowledgeBase, speculation, speculateAnalysis,
+				intentPreClassifier, intentMicroBatcher, asyncQualityAssessment), null);
+
+		return registry;
+	}
+
+	@Bean
+	public SingleFlightInvoker singleFlightInvoker(GraphRegistry graphRegistry,
+												   @Value("${graph.single-flight.enabled:true}") boolean enabled,
+												   @Value("${graph.single-flight.follower-timeout:60s}") Duration followerTimeout) {
+		return new SingleFlightInvoker(graphRegistry, enabled, followerTimeout);
+	}
+
+	static StateGraph expandConditionalGraph(ChatClient.Builder chatClientBuilder, StateDiffTracer tracer) throws GraphStateException {
+		log.info("正在创建包含扩展节点的状态图...");
+
+		// 创建包含条件逻辑的状态图，状态键在 ExpandConditionalState 中统一登记
+		StateGraph graph = new StateGraph("条件扩展工作流", ExpandConditionalState.SCHEMA.stateFactory())
+				.addNode("validation", node_async(tracer.trace("validation", new ValidationNode(1))))
+				.addNode("expander", node_reactive(tracer.traceReactive("expander", new ExpanderNode(chatClientBuilder))))
+				.addNode("fallback", node_async(tracer.trace("fallback", new FallbackNode())))
+				.addEdge(StateGraph.START, "validation")
+				.addConditionalEdges("validation",
+						edge_async(tracer.traceRoute("validation", new ValidationEdgeAction())),
+						Map.of("valid", "expander", "invalid", "fallback"))
+				.addEdge("expander", StateGraph.END)
+				.addEdge("fallback", StateGraph.END);
+		log.info("状态图创建成功");
+		return graph;
+	}
+
+	static StateGraph loopGraph(ChatClient.Builder chatClientBuilder, StateDiffTracer tracer) throws GraphStateException {
+		log.info("正在创建循环处理状态图...");
+
+		StateGraph graph = new StateGraph("循环处理工作流", LoopState.SCHEMA.stateFactory())
+				.addNode("loop_processor", node_reactive(tracer.traceReactive("loop_processor", new LoopProcessorNode(chatClientBuilder))))
+				.addNode("result_collector", node_async(tracer.trace("result_collector", new ResultCollectorNode())))
+				.addEdge(StateGraph.START, "loop_processor")
+				.addConditionalEdges("loop_processor",
+						edge_async(tracer.traceRoute("loop_condition", new LoopConditionAction())),
+						Map.of("continue", "loop_processor", "finish", "result_collector"))
+				.addEdge("result_collector", StateGraph.END);
+		log.info("循环处理状态图创建成功");
+		return graph;
+	}
+
+	static StateGraph parallelLoopGraph(ChatClient.Builder chatClientBuilder, StateDiffTracer tracer, int concurrency) throws GraphStateException {
+		log.info("正在创建并行映射处理状态图...");
+
+		// 一次性并发处理全部项目，不再需要循环条件边
+		StateGraph graph = new StateGraph("并行映射处理工作流", LoopState.SCHEMA.stateFactory())
+				.addNode("parallel_processor", node_async(tracer.trace("parallel_processor", new ParallelLoopProcessorNode(chatClientBuilder, concurrency))))
+				.addNode("result_collector", node_async(tracer.trace("result_collector", new ResultCollectorNode())))
+				.addEdge(StateGraph.START, "parallel_processor")
+				.addEdge("parallel_processor", "result_collector")
+				.addEdge("result_collector", StateGraph.END);
+		log.info("并行映射处理状态图创建成功");
+		return graph;
+	}
+
+	static StateGraph customerServiceGraph(ChatClient.Builder chatClientBuilder, StateDiffTracer tracer, KnowledgeBase knowledgeBase,
+										   SpeculativeExecution speculation, boolean speculateAnalysis,
+										   IntentPreClassifier intentPreClassifier, IntentMicroBatcher intentMicroBatcher,
+										   AsyncQualityAssessment asyncQualityAssessment) throws GraphStateException {
+		log.info("正在创建智能客服工作流状态图...");
+
+		KnowledgeSearchNode knowledgeSearchNode = new KnowledgeSearchNode(knowledgeBase);
+		AIAnalysisNode aiAnalysisNode = new AIAnalysisNode(chatClientBuilder);
+		// 推测执行：大模型意图识别期间提前运行知识库检索（开销很小），可选提前运行AI分析（会多消耗一次大模型调用）；
+		// 本地分类器先判断，能直接给出意图时不启动推测分支
+		Map<String, NodeAction> speculativeBranches = new LinkedHashMap<>();
+		speculativeBranches.put("knowledge_search", knowledgeSearchNode);
+		if (speculateAnalysis) {
+			speculativeBranches.put("ai_analysis", aiAnalysisNode);
+		}
+		Map<String, String> intentRoutes = Map.of("faq", "knowledge_search", "complex", "ai_analysis", "complaint", "human_service");
+
+		// 各节点的结果是不可变的值对象，状态键在 CustomerServiceState 中统一登记
+		StateGraph graph = new StateGraph("智能客服工作流", CustomerServiceState.SCHEMA.stateFactory())
+				// 两个大模型节点以响应式方式注册，等待大模型期间不占用线程
+				.addNode("intent_recognition", node_reactive(tracer.traceReactive("intent_recognition",
+						intentPreClassifier.wrapReactive(speculation.launchReactive(new IntentRecognitionNode(chatClientBuilder,
+								intentMicroBatcher.enabled() ? intentMicroBatcher : null), speculativeBranches)))))
+				.addNode("knowledge_search", node_async(tracer.trace("knowledge_search", speculation.adopt("knowledge_search", knowledgeSearchNode))))
+				.addNode("ai_analysis", node_reactive(tracer.traceReactive("ai_analysis", speculation.adoptReactive("ai_analysis", aiAnalysisNode))))
+				.addNode("human_service", node_async(tracer.trace("human_service", new HumanServiceNode())))
+				.addNode("answer_generation", node_async(tracer.trace("answer_generation", new AnswerGenerationNode())))
+				// 异步模式下大部分请求不等待质量评估，评估在后台完成后记录供抽查
+				.addNode("quality_assessment", node_reactive(tracer.traceReactive("quality_assessment",
+						asyncQualityAssessment.wrap(new QualityAssessmentNode(chatClientBuilder)))))
+				.addEdge(StateGraph.START, "intent_recognition")
+				.addConditionalEdges("intent_recognition",
+						edge_async(speculation.resolve(tracer.traceRoute("intent_routing", new IntentRoutingAction()), intentRoutes)),
+						intentRoutes)
+				.addEdge("knowledge_search", "answer_generation")
+				.addEdge("ai_analysis", "answer_generation")
+				.addEdge("answer_generation", "quality_assessment")
+				.addConditionalEdges("quality_assessment",
+						edge_async(tracer.traceRoute("quality_check", new QualityCheckAction())),
+						Map.of("pass", StateGraph.END, "retry", "ai_analysis"))
+				.addEdge("human_service", StateGraph.END);
+		log.info("智能客服工作流状态图创建成功");
+		return graph;
+	}
+}
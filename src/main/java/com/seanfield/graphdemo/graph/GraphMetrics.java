@@ -0,0 +1,219 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.EdgeAction;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.model.ChatModel;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图执行指标：按图和节点记录执行耗时、大模型首 token 延迟和流式耗时、路由决策次数和客服工作流的重试次数，
+ * 通过 Actuator 的 /actuator/prometheus 和 /actuator/metrics 暴露
+ *
+ * <p>节点和路由由 {@link StateDiffTracer} 包装时一并计量，所属的图取自 {@link GraphRunContext}；
+ * 大模型调用经 {@link #meter(ChatModel)} 包装，通过 Reactor 上下文（响应式节点）或当前线程（同步节点）
+ * 得知发起调用的节点，推测执行和后台质量评估发起的调用记为 node=none。
+ * 未配置 MeterRegistry 时不包装、不计量。</p>
+ */
+public class GraphMetrics {
+
+    static final String NODE_TAGS_KEY = GraphMetrics.class.getName() + ".node";
+    static final Tags NO_NODE = Tags.of("graph", "none", "node", "none");
+
+    private static final ThreadLocal<Tags> CURRENT_NODE = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+    private final Map<Tags, Timer> nodeTimers = new ConcurrentHashMap<>();
+    private final Map<Tags, Timer> firstTokenTimers = new ConcurrentHashMap<>();
+
+    /**
+     * @param registry 指标注册表，为 null 时关闭计量
+     */
+    public GraphMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public boolean enabled() {
+        return registry != null;
+    }
+
+    /**
+     * 包装同步节点，计量执行耗时；执行期间在当前线程上标记节点，供其中的大模型调用归属
+     */
+    NodeAction time(String nodeId, NodeAction action) {
+        if (!enabled()) {
+            return action;
+        }
+        return state -> {
+            Tags node = nodeTags(state, nodeId);
+            Tags previous = CURRENT_NODE.get();
+            CURRENT_NODE.set(node);
+            long start = System.nanoTime();
+            String outcome = "error";
+            try {
+                Map<String, Object> partialState = action.apply(state);
+                outcome = "success";
+                return partialState;
+            } finally {
+                CURRENT_NODE.set(previous);
+                nodeTimer(node, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    /**
+     * 包装响应式节点，耗时统计到 Mono 完成为止，节点标记写入 Reactor 上下文
+     */
+    ReactiveNodeAction timeReactive(String nodeId, ReactiveNodeAction action) {
+        if (!enabled()) {
+            return action;
+        }
+        return state -> {
+            Tags node = nodeTags(state, nodeId);
+            return Mono.defer(() -> {
+                        long start = System.nanoTime();
+                        return action.applyReactive(state)
+                                .doOnSuccess(result -> nodeTimer(node, "success").record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                                .doOnError(e -> nodeTimer(node, "error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+                    })
+                    .contextWrite(context -> context.put(NODE_TAGS_KEY, node));
+        };
+    }
+
+    /**
+     * 包装条件边，按图、边和决策计数
+     */
+    EdgeAction route(String edgeId, EdgeAction action) {
+        if (!enabled()) {
+            return action;
+        }
+        return state -> {
+            String decision = action.apply(state);
+            registry.counter("graph.route.decisions", "graph", graphName(state), "edge", edgeId, "decision", decision).increment();
+            return decision;
+        };
+    }
+
+    /**
+     * 记录一次图执行：整体耗时，以及最终状态中的重试次数（只有客服工作流有该状态键）
+     */
+    void recordRun(String graphName, long nanos, boolean success, Map<String, Object> data) {
+        if (!enabled()) {
+            return;
+        }
+        Timer.builder("graph.run.duration")
+                .description("图执行耗时")
+                .tags("graph", graphName, "outcome", success ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (data.containsKey(CustomerServiceState.RETRY_COUNT.key())) {
+            DistributionSummary.builder("graph.retries")
+                    .description("每次执行的答案重新生成次数")
+                    .tags("graph", graphName)
+                    .serviceLevelObjectives(1, 2, 3)
+                    .register(registry)
+                    .record(CustomerServiceState.RETRY_COUNT.get(data));
+        }
+    }
+
+    /**
+     * 包装聊天模型，计量每次调用的首 token 延迟、总耗时和流式分片数
+     */
+    public ChatModel meter(ChatModel chatModel) {
+        return enabled() ? new MeteredChatModel(chatModel, this) : chatModel;
+    }
+
+    /**
+     * 发起大模型调用的节点：优先取 Reactor 上下文，其次是当前线程上执行的同步节点
+     */
+    Tags currentNode(ContextView context) {
+        Tags node = context.getOrDefault(NODE_TAGS_KEY, null);
+        return node == null ? currentNode() : node;
+    }
+
+    Tags currentNode() {
+        Tags node = CURRENT_NODE.get();
+        return node == null ? NO_NODE : node;
+    }
+
+    void recordFirstToken(Tags node, long nanos) {
+        firstTokenTimers.computeIfAbsent(node, tags -> Timer.builder("graph.llm.time_to_first_token")
+                        .description("大模型流式调用的首 token 延迟")
+                        .tags(tags)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordCall(Tags node, String mode, String outcome, long nanos, int chunks) {
+        Timer.builder("graph.llm.duration")
+                .description("大模型调用耗时，流式调用统计到最后一个分片或提前取消")
+                .tags(node)
+                .tags("mode", mode, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (chunks > 0) {
+            DistributionSummary.builder("graph.llm.stream.tokens")
+                    .description("每次流式调用收到的分片数，约等于输出 token 数")
+                    .tags(node)
+                    .register(registry)
+                    .record(chunks);
+        }
+    }
+
+    /**
+     * 按总耗时从高到低列出各节点，便于找到最慢的节点
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled());
+        List<Map<String, Object>> nodes = new ArrayList<>();
+        nodeTimers.forEach((tags, timer) -> {
+            Map<String, Object> node = new LinkedHashMap<>();
+            tags.forEach(tag -> node.put(tag.getKey(), tag.getValue()));
+            node.put("count", timer.count());
+            node.put("mean_ms", timer.mean(TimeUnit.MILLISECONDS));
+            node.put("max_ms", timer.max(TimeUnit.MILLISECONDS));
+            node.put("total_ms", timer.totalTime(TimeUnit.MILLISECONDS));
+            Timer firstToken = firstTokenTimers.get(Tags.of("graph", String.valueOf(node.get("graph")), "node", String.valueOf(node.get("node"))));
+            if (firstToken != null) {
+                node.put("llm_first_token_mean_ms", firstToken.mean(TimeUnit.MILLISECONDS));
+            }
+            nodes.add(node);
+        });
+        nodes.sort(Comparator.comparingDouble(node -> -(double) node.get("total_ms")));
+        stats.put("nodes", nodes);
+        return stats;
+    }
+
+    private Timer nodeTimer(Tags node, String outcome) {
+        return nodeTimers.computeIfAbsent(node.and("outcome", outcome), tags -> Timer.builder("graph.node.duration")
+                .description("节点执行耗时")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private static Tags nodeTags(OverAllState state, String nodeId) {
+        return Tags.of("graph", graphName(state), "node", nodeId);
+    }
+
+    private static String graphName(OverAllState state) {
+        return state.<GraphRunContext>value(GraphRunContext.STATE_KEY).map(GraphRunContext::graphName).orElse("none");
+    }
+}
@@ -0,0 +1,319 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.CompileConfig;
+import com.alibaba.cloud.ai.graph.CompiledGraph;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.checkpoint.BaseCheckpointSaver;
+import com.alibaba.cloud.ai.graph.checkpoint.config.SaverConfig;
+import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 图注册表：启动时预编译并预热所有状态图，请求期间复用已编译的图实例
+ *
+ * <p>CompiledGraph 内部持有一份共享的 OverAllState，同一实例不能被并发调用，
+ * 因此每个图维护一个已编译实例池：调用时借出一个实例，执行完成后清空状态再归还。
+ * 启动时预编译 poolSize 个实例；并发高于池中空闲实例数时临时编译，临时实例归还后同样留在池中，
+ * 直到空闲实例数达到上限 maxIdle（一般等于执行图调用的线程数），因此稳定负载下不再编译。
+ * 编译次数与耗时都会计入统计。</p>
+ *
+ * <p>每次执行都会在状态中放入 {@link GraphRunContext}，供 {@link StateDiffTracer} 判断是否抽样追踪，
+ * 其中携带本次执行的根 span（{@link GraphTracing}）。
+ * 以 {@code __} 开头的状态键只在图内部使用，返回给调用方的快照中不包含这些键。</p>
+ *
+ * <p>注册时指定检查点存储的图，按线程 ID 执行时每个超步后保存检查点，执行成功后删除；
+ * 执行中断（异常或进程重启）后可以按线程 ID 从最新检查点继续执行。</p>
+ */
+public class GraphRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(GraphRegistry.class);
+
+    static final String INTERNAL_KEY_PREFIX = "__";
+
+    private final Map<String, RegisteredGraph> graphs = new ConcurrentHashMap<>();
+    private final int poolSize;
+    private final int maxIdle;
+    private final boolean warmupEnabled;
+    private final StateDiffTracer tracer;
+
+    public GraphRegistry(int poolSize, boolean warmupEnabled, StateDiffTracer tracer) {
+        this(poolSize, poolSize, warmupEnabled, tracer);
+    }
+
+    /**
+     * @param poolSize 每个图启动时预编译的实例数
+     * @param maxIdle  每个图最多保留的空闲实例数，不小于 poolSize
+     */
+    public GraphRegistry(int poolSize, int maxIdle, boolean warmupEnabled, StateDiffTracer tracer) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize must be > 0");
+        }
+        if (maxIdle < poolSize) {
+            throw new IllegalArgumentException("maxIdle must be >= poolSize");
+        }
+        this.poolSize = poolSize;
+        this.maxIdle = maxIdle;
+        this.warmupEnabled = warmupEnabled;
+        this.tracer = tracer;
+    }
+
+    /**
+     * 注册并预编译状态图
+     *
+     * @param name        图名称
+     * @param stateGraph  状态图定义
+     * @param warmupInput 预热使用的输入，为 null 时跳过预热（例如入口节点必须调用大模型的图）
+     */
+    public GraphRegistry register(String name, StateGraph stateGraph, Map<String, Object> warmupInput) throws GraphStateException {
+        return register(name, stateGraph, warmupInput, null);
+    }
+
+    /**
+     * 注册并预编译状态图，按线程 ID 执行时使用指定的检查点存储
+     *
+     * @param checkpointSaver 检查点存储，为 null 时使用框架默认的内存存储
+     */
+    public GraphRegistry register(String name, StateGraph stateGraph, Map<String, Object> warmupInput,
+                                  BaseCheckpointSaver checkpointSaver) throws GraphStateException {
+        if (graphs.containsKey(name)) {
+            throw new IllegalStateException("图已注册: " + name);
+        }
+        RegisteredGraph graph = new RegisteredGraph(name, stateGraph, checkpointSaver);
+        for (int i = 0; i < poolSize; i++) {
+            graph.idle.offer(graph.compile());
+            graph.idleCount.incrementAndGet();
+        }
+        graphs.put(name, graph);
+        log.info("图 [{}] 预编译完成: 实例数={}, 平均编译耗时={}μs",
+                name, poolSize, graph.compileNanos.get() / poolSize / 1000);
+
+        if (warmupEnabled && warmupInput != null) {
+            warmup(graph, warmupInput);
+        }
+        return this;
+    }
+
+    /**
+     * 使用池中的已编译实例执行图，返回最终状态的快照
+     */
+    public Optional<OverAllState> invoke(String name, Map<String, Object> input) throws GraphStateException {
+        RegisteredGraph graph = get(name);
+        graph.invocations.incrementAndGet();
+        return measured(name, context -> graph.execute(input, context));
+    }
+
+    /**
+     * 按线程 ID 执行图，每个超步后保存检查点，执行成功后删除该线程的检查点
+     */
+    public Optional<OverAllState> invoke(String name, Map<String, Object> input, String threadId) throws GraphStateException {
+        RegisteredGraph graph = get(name);
+        graph.invocations.incrementAndGet();
+        return measured(name, context -> graph.execute(input, threadId, context));
+    }
+
+    /**
+     * 从线程的最新检查点继续执行中断的图
+     *
+     * @throws IllegalArgumentException 图没有配置检查点存储或该线程没有检查点
+     */
+    public Optional<OverAllState> resume(String name, String threadId) throws GraphStateException {
+        RegisteredGraph graph = get(name);
+        graph.resumes.incrementAndGet();
+        return measured(name, context -> graph.resume(threadId, context));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        graphs.forEach((name, graph) -> stats.put(name, graph.stats()));
+        return stats;
+    }
+
+    /**
+     * 创建本次执行的运行上下文和根 span，记录图执行的耗时和最终状态指标
+     */
+    private Optional<OverAllState> measured(String name, Execution execution) throws GraphStateException {
+        GraphRunContext context = new GraphRunContext(name, tracer.sample());
+        context.span(tracer.tracing().startRun(name, context.runId()));
+        long start = System.nanoTime();
+        Optional<OverAllState> result = Optional.empty();
+        Throwable error = null;
+        try {
+            result = execution.run(context);
+            return result;
+        } catch (RuntimeException | GraphStateException e) {
+            error = e;
+            throw e;
+        } finally {
+            Map<String, Object> data = result.map(OverAllState::data).orElse(Map.of());
+            tracer.metrics().recordRun(name, System.nanoTime() - start, result.isPresent(), data);
+            tracer.tracing().endRun(context.span(), data, error);
+        }
+    }
+
+    private RegisteredGraph get(String name) {
+        RegisteredGraph graph = graphs.get(name);
+        if (graph == null) {
+            throw new IllegalArgumentException("未注册的图: " + name);
+        }
+        return graph;
+    }
+
+    private void warmup(RegisteredGraph graph, Map<String, Object> warmupInput) {
+        long start = System.nanoTime();
+        try {
+            graph.execute(warmupInput, new GraphRunContext(graph.name, false));
+            log.info("图 [{}] 预热完成，耗时 {}ms", graph.name, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.warn("图 [{}] 预热失败，不影响正常服务: {}", graph.name, e.getMessage());
+        }
+    }
+
+    private static OverAllState snapshotWithoutInternalKeys(OverAllState state) {
+        Map<String, Object> data = new HashMap<>(state.data());
+        data.keySet().removeIf(key -> key.startsWith(INTERNAL_KEY_PREFIX));
+        return new OverAllState(data);
+    }
+
+    @FunctionalInterface
+    private interface Execution {
+        Optional<OverAllState> run(GraphRunContext context) throws GraphStateException;
+    }
+
+    private final class RegisteredGraph {
+        final String name;
+        final StateGraph stateGraph;
+        final ConcurrentLinkedDeque<CompiledGraph> idle = new ConcurrentLinkedDeque<>();
+        final AtomicInteger idleCount = new AtomicInteger();
+        final AtomicLong compilations = new AtomicLong();
+        final AtomicLong compileNanos = new AtomicLong();
+        final AtomicLong invocations = new AtomicLong();
+        final AtomicLong onDemandCompilations = new AtomicLong();
+        final AtomicLong discarded = new AtomicLong();
+        final AtomicLong resumes = new AtomicLong();
+        final BaseCheckpointSaver checkpointSaver;
+
+        RegisteredGraph(String name, StateGraph stateGraph, BaseCheckpointSaver checkpointSaver) {
+            this.name = name;
+            this.stateGraph = stateGraph;
+            this.checkpointSaver = checkpointSaver;
+        }
+
+        CompiledGraph compile() throws GraphStateException {
+            long start = System.nanoTime();
+            // 所有实例共享同一个检查点存储，恢复时借出任意实例都能读到检查点
+            CompiledGraph compiled = checkpointSaver == null
+                    ? stateGraph.compile()
+                    : stateGraph.compile(CompileConfig.builder()
+                            .saverConfig(SaverConfig.builder().register("checkpoint", checkpointSaver).build())
+                            .build());
+            compiled.overAllState().registerKeyAndStrategy(GraphRunContext.STATE_KEY, new ReplaceStrategy());
+            compileNanos.addAndGet(System.nanoTime() - start);
+            compilations.incrementAndGet();
+            return compiled;
+        }
+
+        Optional<OverAllState> execute(Map<String, Object> input, GraphRunContext context) throws GraphStateException {
+            Map<String, Object> runInput = new HashMap<>(input);
+            runInput.put(GraphRunContext.STATE_KEY, context);
+            CompiledGraph compiled = lease();
+            try {
+                // 最终状态即实例内部共享的状态，归还前必须先拷贝
+                return compiled.invoke(runInput).map(GraphRegistry::snapshotWithoutInternalKeys);
+            } finally {
+                release(compiled);
+            }
+        }
+
+        Optional<OverAllState> execute(Map<String, Object> input, String threadId, GraphRunContext context) throws GraphStateException {
+            RunnableConfig config = checkpointConfig(threadId);
+            // 引擎会把同一线程已有的检查点状态合并进新的执行，重新执行前先删除
+            checkpointSaver.clear(config);
+            Map<String, Object> runInput = new HashMap<>(input);
+            runInput.put(GraphRunContext.STATE_KEY, context);
+            CompiledGraph compiled = lease();
+            try {
+                Optional<OverAllState> result = compiled.invoke(runInput, config).map(GraphRegistry::snapshotWithoutInternalKeys);
+                checkpointSaver.clear(config);
+                return result;
+            } finally {
+                release(compiled);
+            }
+        }
+
+        Optional<OverAllState> resume(String threadId, GraphRunContext context) throws GraphStateException {
+            RunnableConfig config = checkpointConfig(threadId);
+            if (checkpointSaver.get(config).isEmpty()) {
+                throw new IllegalArgumentException("线程没有可恢复的检查点: " + threadId);
+            }
+            CompiledGraph compiled = lease();
+            try {
+                // 运行上下文不写入检查点，恢复前放回实例状态；恢复请求与实例共享状态数据，引擎会把检查点状态写入其中
+                compiled.overAllState().input(Map.of(GraphRunContext.STATE_KEY, context));
+                Optional<OverAllState> result = compiled.invoke(compiled.overAllState().copyWithResume(), config)
+                        .map(GraphRegistry::snapshotWithoutInternalKeys);
+                checkpointSaver.clear(config);
+                return result;
+            } finally {
+                release(compiled);
+            }
+        }
+
+        RunnableConfig checkpointConfig(String threadId) {
+            if (checkpointSaver == null) {
+                throw new IllegalArgumentException("图没有配置检查点存储: " + name);
+            }
+            return RunnableConfig.builder().threadId(threadId).build();
+        }
+
+        CompiledGraph lease() throws GraphStateException {
+            CompiledGraph compiled = idle.pollFirst();
+            if (compiled != null) {
+                idleCount.decrementAndGet();
+                return compiled;
+            }
+            onDemandCompilations.incrementAndGet();
+            log.debug("图 [{}] 实例池已耗尽，临时编译新实例", name);
+            return compile();
+        }
+
+        void release(CompiledGraph compiled) {
+            compiled.overAllState().reset();
+            // 临时编译的实例也留在池中，空闲实例只在超过上限时丢弃
+            if (idleCount.incrementAndGet() <= maxIdle) {
+                idle.offerFirst(compiled);
+            } else {
+                idleCount.decrementAndGet();
+                discarded.incrementAndGet();
+            }
+        }
+
+        Map<String, Object> stats() {
+            long compiled = compilations.get();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("graph_name", stateGraph.getName());
+            stats.put("invocations", invocations.get());
+            stats.put("compilations", compiled);
+            stats.put("on_demand_compilations", onDemandCompilations.get());
+            stats.put("resumes", resumes.get());
+            stats.put("total_compile_time_ms", compileNanos.get() / 1_000_000.0);
+            stats.put("avg_compile_time_ms", compiled == 0 ? 0.0 : compileNanos.get() / 1_000_000.0 / compiled);
+            stats.put("idle_instances", idleCount.get());
+            stats.put("max_idle_instances", maxIdle);
+            stats.put("discarded_instances", discarded.get());
+            return stats;
+        }
+    }
+}
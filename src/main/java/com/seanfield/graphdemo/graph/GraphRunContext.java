@@ -0,0 +1,57 @@
+package com.seanfield.graphdemo.graph;
+
+import io.micrometer.tracing.Span;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单次图执行的上下文：由图注册表在每次调用时放入状态键 {@link #STATE_KEY}，节点包装器据此识别所属的请求
+ *
+ * <p>同时携带本次执行的根 span，节点和大模型调用的 span 挂在其下，见 {@link GraphTracing}。</p>
+ */
+public class GraphRunContext {
+
+    public static final String STATE_KEY = "__run_context";
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final String graphName;
+    private final String runId;
+    private final boolean traceSampled;
+    private Span span = Span.NOOP;
+
+    public GraphRunContext(String graphName, boolean traceSampled) {
+        this.graphName = graphName;
+        this.runId = Long.toString(SEQUENCE.incrementAndGet(), 36);
+        this.traceSampled = traceSampled;
+    }
+
+    public String graphName() {
+        return graphName;
+    }
+
+    public String runId() {
+        return runId;
+    }
+
+    public boolean traceSampled() {
+        return traceSampled;
+    }
+
+    public Span span() {
+        return span;
+    }
+
+    /**
+     * 设置根 span，只在图执行开始前由图注册表调用
+     */
+    GraphRunContext span(Span span) {
+        this.span = span;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return graphName + "#" + runId;
+    }
+}
@@ -0,0 +1,93 @@
+package com.seanfield.graphdemo.graph;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 图执行使用的线程：接口返回 Mono/Flux 后立即释放 Tomcat 请求线程，图调用在 {@link #blockingScheduler()} 上执行
+ *
+ * <p>大模型节点以响应式方式注册，等待大模型期间节点本身不占用线程，但当前版本的图引擎在推进到下一个节点前
+ * 会等待节点的 future，驱动图执行的线程在整个图调用期间仍然阻塞。平台线程模式下该调度器是有上限的
+ * boundedElastic，同时执行的图数量不超过 {@code graph.threads.blocking-pool-size}，超出的调用排队；
+ * 虚拟线程模式下每个图调用一个虚拟线程，阻塞时不占用平台线程，同时执行的图数量只受内存和大模型并发限制约束。
+ * 推测分支、批量意图识别等阻塞等待大模型的后台任务同样使用 {@link #newExecutor(String)} 创建的对应类型线程。</p>
+ *
+ * <p>虚拟线程需要 Java 21 及以上（mvn -Pjava21 test 覆盖该路径），低版本时回退为平台线程。</p>
+ */
+public class GraphThreads {
+
+    private static final Logger log = LoggerFactory.getLogger(GraphThreads.class);
+
+    /**
+     * 与 Tomcat 默认最大线程数一致，接口改为返回 Mono 后同时执行的图数量不低于改造前
+     */
+    static final int DEFAULT_BLOCKING_POOL_SIZE = 200;
+
+    private final boolean virtual;
+    private final Scheduler blockingScheduler;
+
+    public GraphThreads(boolean virtualRequested) {
+        this(virtualRequested, DEFAULT_BLOCKING_POOL_SIZE);
+    }
+
+    /**
+     * @param blockingPoolSize 平台线程模式下执行阻塞图调用的最大线程数
+     */
+    public GraphThreads(boolean virtualRequested, int blockingPoolSize) {
+        this.virtual = virtualRequested && virtualThreadsSupported();
+        if (virtualRequested && !virtual) {
+            log.warn("当前 Java {} 不支持虚拟线程（需要 Java 21），使用平台线程", Runtime.version().feature());
+        }
+        this.blockingScheduler = virtual
+                ? Schedulers.fromExecutorService(newExecutor("graph-stream-"), "graph-stream")
+                : Schedulers.newBoundedElastic(blockingPoolSize, Integer.MAX_VALUE, "graph-blocking", 60, true);
+        log.info("图执行线程模式: {}", virtual ? "虚拟线程" : "平台线程");
+    }
+
+    public static boolean virtualThreadsSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * 平台线程模式的后台线程工厂：守护线程，名称为前缀加序号
+     */
+    public static ThreadFactory platformThreadFactory(String prefix) {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public boolean virtual() {
+        return virtual;
+    }
+
+    public ThreadFactory threadFactory(String prefix) {
+        return virtual ? new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory() : platformThreadFactory(prefix);
+    }
+
+    /**
+     * 按需创建线程的执行器，用于推测分支、批量调用等阻塞等待大模型的后台任务
+     */
+    public ExecutorService newExecutor(String prefix) {
+        return Executors.newCachedThreadPool(threadFactory(prefix));
+    }
+
+    /**
+     * 接口执行阻塞的图调用时使用的调度器：虚拟线程模式下每个任务一个虚拟线程，否则为固定上限的 boundedElastic，
+     * 图调用期间不占用 Tomcat 请求线程
+     */
+    public Scheduler blockingScheduler() {
+        return blockingScheduler;
+    }
+}
@@ -0,0 +1,152 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.springframework.ai.chat.model.ChatModel;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.Map;
+
+/**
+ * 图执行链路追踪：每次图执行一个根 span，其下每次节点执行、每次大模型调用各一个子 span
+ *
+ * <p>根 span 由 {@link GraphRegistry} 创建并放在 {@link GraphRunContext} 中随状态传递，节点在任意线程上执行都能找到父 span；
+ * 节点 span 在同步节点执行期间设为当前线程的 span，响应式节点则写入 Reactor 上下文，供 {@link TracedChatModel} 找到父 span。
+ * 路由决策记为根 span 的属性和事件。</p>
+ *
+ * <p>是否采样由 management.tracing.sampling.probability 决定，未采样的 span 不记录属性也不导出；
+ * 未配置 Tracer 时不包装、不创建 span。</p>
+ */
+public class GraphTracing {
+
+    static final String SPAN_KEY = GraphTracing.class.getName() + ".span";
+
+    private final Tracer tracer;
+
+    /**
+     * @param tracer 链路追踪器，为 null 时关闭追踪
+     */
+    public GraphTracing(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    public boolean enabled() {
+        return tracer != null;
+    }
+
+    /**
+     * 开始一次图执行的根 span，当前线程上已有 span（例如 HTTP 请求）时作为其子 span
+     */
+    Span startRun(String graphName, String runId) {
+        if (!enabled()) {
+            return Span.NOOP;
+        }
+        return tracer.nextSpan()
+                .name("graph " + graphName)
+                .tag("graph.name", graphName)
+                .tag("graph.run_id", runId)
+                .start();
+    }
+
+    /**
+     * 结束根 span，记录最终的重试次数
+     */
+    void endRun(Span span, Map<String, Object> data, Throwable error) {
+        if (span.isNoop()) {
+            return;
+        }
+        if (data.containsKey(CustomerServiceState.RETRY_COUNT.key())) {
+            span.tag("graph.retry_count", CustomerServiceState.RETRY_COUNT.get(data));
+        }
+        if (error != null) {
+            span.error(error);
+        }
+        span.end();
+    }
+
+    /**
+     * 包装同步节点，执行期间节点 span 是当前线程的 span
+     */
+    NodeAction span(String nodeId, NodeAction action) {
+        if (!enabled()) {
+            return action;
+        }
+        return state -> {
+            Span span = startNode(state, nodeId);
+            try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+                return action.apply(state);
+            } catch (Exception e) {
+                span.error(e);
+                throw e;
+            } finally {
+                span.end();
+            }
+        };
+    }
+
+    /**
+     * 包装响应式节点，节点 span 持续到 Mono 结束，并写入 Reactor 上下文
+     */
+    ReactiveNodeAction spanReactive(String nodeId, ReactiveNodeAction action) {
+        if (!enabled()) {
+            return action;
+        }
+        return state -> Mono.defer(() -> {
+            Span span = startNode(state, nodeId);
+            // doFinally 在下游收到结束信号之后才执行，节点 span 可能晚于根 span 结束，因此在结束信号上直接结束 span
+            return action.applyReactive(state)
+                    .doOnSuccess(result -> span.end())
+                    .doOnError(e -> span.error(e).end())
+                    .doOnCancel(span::end)
+                    .contextWrite(context -> context.put(SPAN_KEY, span));
+        });
+    }
+
+    /**
+     * 在根 span 上记录条件边的路由决策，同一条边多次经过（循环、重试）时属性保留最后一次，事件保留全部
+     */
+    void route(OverAllState state, String edgeId, String decision) {
+        Span span = runSpan(state);
+        if (!span.isNoop()) {
+            span.tag("graph.route." + edgeId, decision);
+            span.event("route " + edgeId + "=" + decision);
+        }
+    }
+
+    /**
+     * 包装聊天模型，为图内发起的每次调用创建子 span
+     */
+    public ChatModel trace(ChatModel chatModel) {
+        return enabled() ? new TracedChatModel(chatModel, this) : chatModel;
+    }
+
+    /**
+     * 大模型调用的父 span：优先取 Reactor 上下文，其次是当前线程的 span；都没有时（图外的调用）返回 null
+     */
+    Span parentSpan(ContextView context) {
+        Span span = context.getOrDefault(SPAN_KEY, null);
+        return span == null ? tracer.currentSpan() : span;
+    }
+
+    /**
+     * 创建子 span；没有父 span 时（不经过图注册表的执行）不创建
+     */
+    Span startChild(Span parent, String name) {
+        return parent == null || parent.isNoop() ? Span.NOOP : tracer.nextSpan(parent).name(name).start();
+    }
+
+    private Span startNode(OverAllState state, String nodeId) {
+        Span span = startChild(runSpan(state), "node " + nodeId).tag("graph.node", nodeId);
+        if (!span.isNoop() && state.data().containsKey(CustomerServiceState.RETRY_COUNT.key())) {
+            span.tag("graph.retry_count", CustomerServiceState.RETRY_COUNT.get(state));
+        }
+        return span;
+    }
+
+    private static Span runSpan(OverAllState state) {
+        return state.<GraphRunContext>value(GraphRunContext.STATE_KEY).map(GraphRunContext::span).orElse(Span.NOOP);
+    }
+}
@@ -19,11 +19,10 @@ public class HumanServiceNode implements NodeAction {
 
     @Override
     public Map<String, Object> apply(OverAllState state) throws Exception {
-        log.info("HumanServiceNode开始执行，当前状态: {}", state.data());
+        log.info("HumanServiceNode开始执行");
 
         // 获取意图分析结果
-        Map<String, Object> intentAnalysis = state.value("intent_analysis", Map.of());
-        String intentType = String.valueOf(intentAnalysis.getOrDefault("intent_type", ""));
+        String intentType = CustomerServiceState.intentType(state, "");
 
         log.info("转接人工客服处理: 问题类型={}", intentType);
 
@@ -33,25 +32,15 @@ public class HumanServiceNode implements NodeAction {
         // 根据问题类型生成相应的回复
         String humanServiceReply = generateHumanServiceReply(intentType, ticketId);
 
-        HashMap<String, Object> humanServiceInfo = new HashMap<>();
-        humanServiceInfo.put("ticket_id", ticketId);
-        humanServiceInfo.put("service_type", "human_service");
-        humanServiceInfo.put("expected_response_time", "30分钟内");
-        humanServiceInfo.put("contact_method", "电话回访或在线客服");
-        humanServiceInfo.put("priority", getPriority(intentType));
-        humanServiceInfo.put("assigned_time", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        String now = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        HumanServiceTicket humanServiceInfo = new HumanServiceTicket(ticketId, getPriority(intentType), now);
 
         // 构建最终回复
-        HashMap<String, Object> answerInfo = new HashMap<>();
-        answerInfo.put("final_answer", humanServiceReply);
-        answerInfo.put("answer_source", "human_service");
-        answerInfo.put("intent_type", intentType);
-        answerInfo.put("generated_time", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-        answerInfo.put("answer_length", humanServiceReply.length());
+        GeneratedAnswer answerInfo = new GeneratedAnswer(humanServiceReply, "human_service", intentType, now);
 
         HashMap<String, Object> result = new HashMap<>();
-        result.put("human_service", humanServiceInfo);
-        result.put("generated_answer", answerInfo);
+        CustomerServiceState.HUMAN_SERVICE.put(result, humanServiceInfo);
+        CustomerServiceState.GENERATED_ANSWER.put(result, answerInfo);
         
         return result;
     }
@@ -0,0 +1,51 @@
+package com.seanfield.graphdemo.graph;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 人工客服工单：工单号、优先级和分配时间
+ */
+public final class HumanServiceTicket {
+
+    private final String ticketId;
+    private final String priority;
+    private final String assignedTime;
+
+    public HumanServiceTicket(String ticketId, String priority, String assignedTime) {
+        this.ticketId = ticketId;
+        this.priority = priority;
+        this.assignedTime = assignedTime;
+    }
+
+    public String ticketId() {
+        return ticketId;
+    }
+
+    public String priority() {
+        return priority;
+    }
+
+    public String assignedTime() {
+        return assignedTime;
+    }
+
+    /**
+     * 接口返回的格式
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("ticket_id", ticketId);
+        map.put("service_type", "human_service");
+        map.put("expected_response_time", "30分钟内");
+        map.put("contact_method", "电话回访或在线客服");
+        map.put("priority", priority);
+        map.put("assigned_time", assignedTime);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
@@ -0,0 +1,66 @@
+package com.seanfield.graphdemo.graph;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 意图识别结果：意图类型（FAQ、COMPLEX、COMPLAINT）、置信度（0-100）和理由
+ *
+ * <p>classifier 为 local 表示由本地意图分类器给出，大模型识别时为 null。</p>
+ */
+public final class IntentAnalysis {
+
+    private final String intentType;
+    private final int confidence;
+    private final String reason;
+    private final String originalQuestion;
+    private final String classifier;
+
+    public IntentAnalysis(String intentType, int confidence, String reason, String originalQuestion, String classifier) {
+        this.intentType = intentType;
+        this.confidence = confidence;
+        this.reason = reason;
+        this.originalQuestion = originalQuestion;
+        this.classifier = classifier;
+    }
+
+    public String intentType() {
+        return intentType;
+    }
+
+    public int confidence() {
+        return confidence;
+    }
+
+    public String reason() {
+        return reason;
+    }
+
+    public String originalQuestion() {
+        return originalQuestion;
+    }
+
+    public String classifier() {
+        return classifier;
+    }
+
+    /**
+     * 接口返回的格式
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("intent_type", intentType);
+        map.put("confidence", confidence);
+        map.put("reason", reason);
+        map.put("original_question", originalQuestion);
+        if (classifier != null) {
+            map.put("classifier", classifier);
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
@@ -0,0 +1,289 @@
+package com.seanfield.graphdemo.graph;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 意图识别微批处理：把短时间窗口内到达的多个问题合并成一次编号的多问题大模型调用
+ *
+ * <p>收集线程取到第一个问题后最多再等待 maxWait 或凑满 maxBatchSize 个问题，然后把整批交给调用线程池，
+ * 收集下一批不必等待上一批返回。较长的意图识别说明每批只发送一次，减少重复的提示词 token 和请求次数。
+ * 窗口内只有一个问题、批量调用失败、超过 callTimeout 未返回或某个编号的结果解析不完整时返回 null，
+ * 由调用方按单个问题识别；未启用时不启动线程，总是返回 null。</p>
+ */
+public class IntentMicroBatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(IntentMicroBatcher.class);
+
+    static final String BATCH_INSTRUCTION =
+            "你是一个专业的客服意图识别专家。下面是若干个相互独立的用户问题，请分别判断每个问题的意图类型。\n\n" +
+            "意图类型：\n" +
+            "1. FAQ - 常见问题（如产品功能、使用方法、价格查询等）\n" +
+            "2. COMPLEX - 复杂咨询（需要深度分析的技术问题、业务咨询等）\n" +
+            "3. COMPLAINT - 投诉建议（用户不满、问题反馈、改进建议等）\n\n" +
+            "请按编号顺序逐个回答，每个问题先输出编号行，再输出意图类型（FAQ、COMPLEX、COMPLAINT）、置信度（0-100）和一句话理由，" +
+            "不要输出其他内容，格式如下：\n" +
+            "[1]\n" +
+            "意图类型：FAQ\n" +
+            "置信度：85\n" +
+            "理由：用户询问产品的基本功能，属于常见问题\n\n" +
+            "用户问题：\n";
+
+    private static final List<String> INTENT_FIELDS = List.of("意图类型", "置信度", "理由");
+    private static final List<String> REQUIRED_INTENT_FIELDS = List.of("意图类型", "置信度");
+    private static final Duration DEFAULT_CALL_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ChatClient chatClient;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final long callTimeoutNanos;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread collector;
+    private final ExecutorService callers;
+    private volatile boolean closed;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedQuestions = new AtomicLong();
+    private final AtomicLong singleQuestionWindows = new AtomicLong();
+    private final AtomicLong batchFailures = new AtomicLong();
+    private final AtomicLong batchTimeouts = new AtomicLong();
+    private final AtomicLong parseFallbacks = new AtomicLong();
+
+    public IntentMicroBatcher(ChatClient chatClient, boolean enabled, int maxBatchSize, Duration maxWait) {
+        this(chatClient, enabled, maxBatchSize, maxWait, DEFAULT_CALL_TIMEOUT, GraphThreads.platformThreadFactory("intent-batch-call-"));
+    }
+
+    /**
+     * @param callTimeout   批量调用的最长等待时间，超时后整批改为单独识别并中断调用线程
+     * @param threadFactory 发送批量调用的线程，调用期间阻塞等待大模型
+     */
+    public IntentMicroBatcher(ChatClient chatClient, boolean enabled, int maxBatchSize, Duration maxWait, Duration callTimeout,
+                              ThreadFactory threadFactory) {
+        if (maxBatchSize < 2) {
+            throw new IllegalArgumentException("maxBatchSize must be >= 2");
+        }
+        this.chatClient = chatClient;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.callTimeoutNanos = callTimeout.toNanos();
+        if (!enabled) {
+            this.callers = null;
+            this.collector = null;
+            return;
+        }
+        this.callers = Executors.newCachedThreadPool(threadFactory);
+        this.collector = new Thread(this::collect, "intent-batch-collector");
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交一个问题并等待所在批次的结果
+     *
+     * @return 意图识别字段（意图类型、置信度、理由）；为 null 时调用方应单独识别该问题
+     */
+    public Map<String, String> classify(String question) throws InterruptedException {
+        try {
+            return submit(question).get();
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 提交一个问题，不阻塞调用线程；返回的 future 在所在批次完成时以识别字段完成，需要单独识别时以 null 完成
+     */
+    public CompletableFuture<Map<String, String>> submit(String question) {
+        if (!enabled || closed) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Pending pending = new Pending(question);
+        submitted.incrementAndGet();
+        queue.add(pending);
+        if (closed) {
+            pending.result.complete(null);
+        }
+        return pending.result;
+    }
+
+    public Map<String, Object> stats() {
+        long batchCount = batches.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("max_batch_size", maxBatchSize);
+        stats.put("max_wait_ms", maxWaitNanos / 1_000_000.0);
+        stats.put("call_timeout_ms", callTimeoutNanos / 1_000_000.0);
+        stats.put("submitted", submitted.get());
+        stats.put("batches", batchCount);
+        stats.put("batched_questions", batchedQuestions.get());
+        stats.put("avg_batch_size", batchCount == 0 ? 0.0 : (double) batchedQuestions.get() / batchCount);
+        stats.put("single_question_windows", singleQuestionWindows.get());
+        stats.put("batch_failures", batchFailures.get());
+        stats.put("batch_timeouts", batchTimeouts.get());
+        stats.put("parse_fallbacks", parseFallbacks.get());
+        // 每批只发送一次识别说明，相比逐个调用少发送的说明字符数
+        stats.put("instruction_chars_saved", (batchedQuestions.get() - batchCount) * BATCH_INSTRUCTION.length());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (!enabled) {
+            return;
+        }
+        collector.interrupt();
+        callers.shutdownNow();
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.complete(null);
+        }
+    }
+
+    private void collect() {
+        while (!closed) {
+            List<Pending> batch = new ArrayList<>(maxBatchSize);
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                batch.forEach(pending -> pending.result.complete(null));
+                return;
+            }
+            if (batch.size() == 1) {
+                singleQuestionWindows.incrementAndGet();
+                batch.get(0).result.complete(null);
+            } else {
+                Future<?> call = callers.submit(() -> call(batch));
+                CompletableFuture.delayedExecutor(callTimeoutNanos, TimeUnit.NANOSECONDS)
+                        .execute(() -> expire(batch, call));
+            }
+        }
+    }
+
+    /**
+     * 批量调用超时：未完成的问题改为单独识别，中断仍在等待大模型的调用线程
+     */
+    private void expire(List<Pending> batch, Future<?> call) {
+        if (call.isDone()) {
+            return;
+        }
+        // 先更新统计再唤醒等待的请求
+        batchTimeouts.incrementAndGet();
+        log.warn("批量意图识别超过 {}ms 未返回，{} 个问题改为单独识别", callTimeoutNanos / 1_000_000, batch.size());
+        batch.forEach(pending -> pending.result.complete(null));
+        call.cancel(true);
+    }
+
+    private void call(List<Pending> batch) {
+        long start = System.nanoTime();
+        try {
+            String content = chatClient.prompt().user(prompt(batch)).call().content();
+            List<Map<String, String>> answers = parse(content == null ? "" : content, batch.size());
+            batches.incrementAndGet();
+            batchedQuestions.addAndGet(batch.size());
+            int fallbacks = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                if (!answers.get(i).keySet().containsAll(REQUIRED_INTENT_FIELDS)) {
+                    answers.set(i, null);
+                    fallbacks++;
+                }
+            }
+            // 先更新统计再唤醒等待的请求
+            parseFallbacks.addAndGet(fallbacks);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(answers.get(i));
+            }
+            log.info("批量意图识别完成: 问题数={}，解析失败={}，耗时 {}ms",
+                    batch.size(), fallbacks, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            if (batch.stream().allMatch(pending -> pending.result.isDone())) {
+                // 已按超时处理
+                return;
+            }
+            batchFailures.incrementAndGet();
+            log.warn("批量意图识别失败，{} 个问题改为单独识别: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> pending.result.complete(null));
+        }
+    }
+
+    private static String prompt(List<Pending> batch) {
+        StringBuilder prompt = new StringBuilder(BATCH_INSTRUCTION);
+        for (int i = 0; i < batch.size(); i++) {
+            // 问题中的换行会破坏编号格式
+            prompt.append('[').append(i + 1).append("] ")
+                    .append(batch.get(i).question.replace('\n', ' ').replace('\r', ' ')).append('\n');
+        }
+        return prompt.toString();
+    }
+
+    /**
+     * 按编号行切分批量回答，返回与问题一一对应的字段（缺失的编号为空映射）
+     */
+    static List<Map<String, String>> parse(String content, int size) {
+        List<Map<String, String>> answers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            answers.add(new HashMap<>());
+        }
+        Map<String, String> current = null;
+        for (String line : content.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("[") && trimmed.indexOf(']') > 1) {
+                int number = parseNumber(trimmed.substring(1, trimmed.indexOf(']')));
+                current = number >= 1 && number <= size ? answers.get(number - 1) : null;
+            } else if (current != null) {
+                StreamingLineParser.parseLine(trimmed, INTENT_FIELDS, current);
+            }
+        }
+        return answers;
+    }
+
+    private static int parseNumber(String text) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class Pending {
+        final String question;
+        final CompletableFuture<Map<String, String>> result = new CompletableFuture<>();
+
+        Pending(String question) {
+            this.question = question;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.seanfield.graphdemo.intent.IntentClassifier;
+import com.seanfield.graphdemo.intent.IntentPrediction;
+import com.seanfield.graphdemo.intent.IntentTrainingData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 意图预分类：在大模型意图识别之前先用本地分类器判断，概率达到阈值时直接给出意图，跳过大模型调用
+ *
+ * <p>输出与 {@link IntentRecognitionNode} 相同的 intent_analysis（intent_type、confidence、reason），
+ * 另外标记 classifier=local；概率不足时交给大模型识别。统计跳过大模型的比例和本地分类耗时。</p>
+ */
+public class IntentPreClassifier {
+
+    private static final Logger log = LoggerFactory.getLogger(IntentPreClassifier.class);
+
+    private final IntentClassifier classifier;
+    private final double threshold;
+
+    private final AtomicLong classified = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+    private final AtomicLong classifyNanos = new AtomicLong();
+    private final AtomicLongArray bypassedByIntent = new AtomicLongArray(IntentTrainingData.INTENT_TYPES.size());
+
+    /**
+     * @param classifier 本地分类器，为 null 时不预分类
+     * @param threshold  跳过大模型所需的最低概率（0-1）
+     */
+    public IntentPreClassifier(IntentClassifier classifier, double threshold) {
+        this.classifier = classifier;
+        this.threshold = threshold;
+    }
+
+    public boolean enabled() {
+        return classifier != null;
+    }
+
+    /**
+     * 包装大模型意图识别节点；未启用时原样返回
+     */
+    public NodeAction wrap(NodeAction llmNode) {
+        if (classifier == null) {
+            return llmNode;
+        }
+        return state -> {
+            Map<String, Object> result = classifyLocally(state);
+            return result != null ? result : llmNode.apply(state);
+        };
+    }
+
+    /**
+     * 包装响应式的大模型意图识别节点：本地分类在订阅线程上同步完成，概率不足时才订阅大模型节点；未启用时原样返回
+     */
+    public ReactiveNodeAction wrapReactive(ReactiveNodeAction llmNode) {
+        if (classifier == null) {
+            return llmNode;
+        }
+        return state -> Mono.defer(() -> {
+            Map<String, Object> result = classifyLocally(state);
+            return result != null ? Mono.just(result) : llmNode.applyReactive(state);
+        });
+    }
+
+    /**
+     * @return 本地分类得到的 intent_analysis，概率不足或问题为空时返回 null，由大模型识别
+     */
+    private Map<String, Object> classifyLocally(OverAllState state) {
+        String question = CustomerServiceState.question(state);
+        if (question.isBlank()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        IntentPrediction prediction = classifier.classify(question);
+        classifyNanos.addAndGet(System.nanoTime() - start);
+        classified.incrementAndGet();
+
+        if (prediction.probability() < threshold) {
+            log.info("本地意图分类置信度不足（{}={}），交给大模型识别", prediction.intentType(),
+                    String.format("%.2f", prediction.probability()));
+            return null;
+        }
+        bypassed.incrementAndGet();
+        bypassedByIntent.incrementAndGet(IntentTrainingData.INTENT_TYPES.indexOf(prediction.intentType()));
+        int confidence = (int) Math.round(prediction.probability() * 100);
+        log.info("本地意图分类完成，跳过大模型: 类型={}, 置信度={}", prediction.intentType(), confidence);
+
+        IntentAnalysis intent = new IntentAnalysis(prediction.intentType(), confidence,
+                "本地意图分类器判断，概率 " + String.format("%.2f", prediction.probability()), question, "local");
+
+        HashMap<String, Object> result = new HashMap<>();
+        CustomerServiceState.INTENT_ANALYSIS.put(result, intent);
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        long total = classified.get();
+        long bypassedCount = bypassed.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled());
+        stats.put("threshold", threshold);
+        stats.put("training_examples", classifier == null ? 0 : classifier.trainingExamples());
+        stats.put("classified", total);
+        stats.put("bypassed", bypassedCount);
+        stats.put("llm_fallbacks", total - bypassedCount);
+        stats.put("bypass_rate", total == 0 ? 0.0 : (double) bypassedCount / total);
+        Map<String, Long> byIntent = new LinkedHashMap<>();
+        for (int i = 0; i < IntentTrainingData.INTENT_TYPES.size(); i++) {
+            byIntent.put(IntentTrainingData.INTENT_TYPES.get(i), bypassedByIntent.get(i));
+        }
+        stats.put("bypassed_by_intent", byIntent);
+        stats.put("avg_classify_time_us", total == 0 ? 0.0 : classifyNanos.get() / 1_000.0 / total);
+        return stats;
+    }
+}
@@ -7,14 +7,16 @@ import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * 意图识别节点：分析用户问题的意图类型
  */
-public class IntentRecognitionNode implements NodeAction {
+public class IntentRecognitionNode implements NodeAction, ReactiveNodeAction {
 
     private static final Logger log = LoggerFactory.getLogger(IntentRecognitionNode.class);
 
@@ -31,26 +33,61 @@ public class IntentRecognitionNode implements NodeAction {
             "理由：用户询问产品的基本功能，属于常见问题"
     );
 
+    private static final List<String> INTENT_FIELDS = List.of("意图类型", "置信度", "理由");
+    private static final List<String> REQUIRED_INTENT_FIELDS = List.of("意图类型", "置信度");
+
     private final ChatClient chatClient;
+    private final IntentMicroBatcher batcher;
 
     public IntentRecognitionNode(ChatClient.Builder chatClientBuilder) {
+        this(chatClientBuilder, null);
+    }
+
+    /**
+     * @param batcher 意图识别微批处理，为 null 时每个问题单独调用大模型
+     */
+    public IntentRecognitionNode(ChatClient.Builder chatClientBuilder, IntentMicroBatcher batcher) {
         this.chatClient = chatClientBuilder.build();
+        this.batcher = batcher;
     }
 
     @Override
     public Map<String, Object> apply(OverAllState state) throws Exception {
-        log.info("IntentRecognitionNode开始执行，当前状态: {}", state.data());
+        return applyReactive(state).block();
+    }
+
+    @Override
+    public Mono<Map<String, Object>> applyReactive(OverAllState state) {
+        log.info("IntentRecognitionNode开始执行");
 
         // 获取用户问题
-        Map<String, Object> input = state.value("input", Map.of());
-        String question = String.valueOf(input.getOrDefault("question", ""));
-        
+        String question = CustomerServiceState.question(state);
+
         if (question.trim().isEmpty()) {
             throw new IllegalArgumentException("用户问题不能为空");
         }
 
         log.info("正在分析用户问题的意图: {}", question);
 
+        // 开启微批处理时先与同一时间窗口内的其他问题合并识别，未能合并或解析失败时单独识别
+        Mono<Map<String, String>> fields = this.batcher == null
+                ? recognize(question)
+                : Mono.fromFuture(this.batcher.submit(question)).switchIfEmpty(Mono.defer(() -> recognize(question)));
+
+        return fields.map(parsed -> {
+            // 解析AI返回的结果
+            IntentAnalysis intent = parseIntentResult(parsed, question);
+
+            log.info("意图识别完成: 类型={}, 置信度={}", intent.intentType(), intent.confidence());
+
+            // 构建返回结果
+            HashMap<String, Object> result = new HashMap<>();
+            CustomerServiceState.INTENT_ANALYSIS.put(result, intent);
+            return result;
+        });
+    }
+
+    private Mono<Map<String, String>> recognize(String question) {
         // 使用AI进行意图识别
         Flux<String> contentStream = this.chatClient
                 .prompt()
@@ -60,55 +97,37 @@ public class IntentRecognitionNode implements NodeAction {
                 .stream()
                 .content();
 
-        String analysisResult = contentStream.reduce("", (acc, s) -> acc + s).block();
-        
-        // 解析AI返回的结果
-        IntentAnalysis intent = parseIntentResult(analysisResult);
-        
-        log.info("意图识别完成: 类型={}, 置信度={}", intent.intentType, intent.confidence);
-
-        // 构建返回结果
-        HashMap<String, Object> intentInfo = new HashMap<>();
-        intentInfo.put("intent_type", intent.intentType);
-        intentInfo.put("confidence", intent.confidence);
-        intentInfo.put("reason", intent.reason);
-        intentInfo.put("original_question", question);
-
-        HashMap<String, Object> result = new HashMap<>();
-        result.put("intent_analysis", intentInfo);
-        
-        return result;
+        // 边接收边解析，拿到意图类型和置信度后立即取消，不再等待理由文本
+        return StreamingLineParser.parseFields(contentStream, INTENT_FIELDS, REQUIRED_INTENT_FIELDS);
     }
 
-    private IntentAnalysis parseIntentResult(String analysisResult) {
-        IntentAnalysis intent = new IntentAnalysis();
-        
+    IntentAnalysis parseIntentResult(Map<String, String> fields, String question) {
+        String intentType = "COMPLEX";
+        int confidence = 50;
+        String reason = "";
+
         try {
-            String[] lines = analysisResult.split("\n");
-            for (String line : lines) {
-                line = line.trim();
-                if (line.startsWith("意图类型：")) {
-                    String intentType = line.substring("意图类型：".length()).trim();
-                    intent.intentType = mapIntentType(intentType);
-                } else if (line.startsWith("置信度：")) {
-                    String confidenceStr = line.substring("置信度：".length()).trim();
-                    try {
-                        intent.confidence = Integer.parseInt(confidenceStr);
-                    } catch (NumberFormatException e) {
-                        intent.confidence = 70; // 默认置信度
-                    }
-                } else if (line.startsWith("理由：")) {
-                    intent.reason = line.substring("理由：".length()).trim();
+            if (fields.containsKey("意图类型")) {
+                intentType = mapIntentType(fields.get("意图类型"));
+            }
+            if (fields.containsKey("置信度")) {
+                try {
+                    confidence = Integer.parseInt(fields.get("置信度"));
+                } catch (NumberFormatException e) {
+                    confidence = 70; // 默认置信度
                 }
             }
+            if (fields.containsKey("理由")) {
+                reason = fields.get("理由");
+            }
         } catch (Exception e) {
             log.warn("解析意图识别结果失败，使用默认值: {}", e.getMessage());
-            intent.intentType = "COMPLEX";
-            intent.confidence = 50;
-            intent.reason = "解析失败，默认为复杂咨询";
+            intentType = "COMPLEX";
+            confidence = 50;
+            reason = "解析失败，默认为复杂咨询";
         }
 
-        return intent;
+        return new IntentAnalysis(intentType, confidence, reason, question, null);
     }
 
     private String mapIntentType(String intentType) {
@@ -124,10 +143,4 @@ public class IntentRecognitionNode implements NodeAction {
                 return "COMPLEX";
         }
     }
-
-    private static class IntentAnalysis {
-        String intentType = "COMPLEX";
-        int confidence = 50;
-        String reason = "";
-    }
 }
@@ -5,8 +5,6 @@ import com.alibaba.cloud.ai.graph.action.EdgeAction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Map;
-
 /**
  * 意图路由条件：根据意图识别结果决定处理路径
  */
@@ -16,9 +14,9 @@ public class IntentRoutingAction implements EdgeAction {
 
     @Override
     public String apply(OverAllState state) throws Exception {
-        Map<String, Object> intentAnalysis = state.value("intent_analysis", Map.of());
-        String intentType = String.valueOf(intentAnalysis.getOrDefault("intent_type", "COMPLEX"));
-        int confidence = (Integer) intentAnalysis.getOrDefault("confidence", 50);
+        IntentAnalysis intentAnalysis = CustomerServiceState.INTENT_ANALYSIS.get(state);
+        String intentType = intentAnalysis == null ? "COMPLEX" : intentAnalysis.intentType();
+        int confidence = intentAnalysis == null ? 50 : intentAnalysis.confidence();
 
         log.info("意图路由判断: 类型={}, 置信度={}", intentType, confidence);
 
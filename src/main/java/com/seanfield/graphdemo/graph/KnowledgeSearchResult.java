@@ -0,0 +1,77 @@
+package com.seanfield.graphdemo.graph;
+
+import com.seanfield.graphdemo.knowledge.KnowledgeMatch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 知识库搜索结果：未命中时 faqTitle、faqAnswer 为 null
+ */
+public final class KnowledgeSearchResult {
+
+    private final boolean searchFound;
+    private final double matchScore;
+    private final String retrieval;
+    private final String faqTitle;
+    private final String faqAnswer;
+
+    private KnowledgeSearchResult(boolean searchFound, double matchScore, String retrieval, String faqTitle, String faqAnswer) {
+        this.searchFound = searchFound;
+        this.matchScore = matchScore;
+        this.retrieval = retrieval;
+        this.faqTitle = faqTitle;
+        this.faqAnswer = faqAnswer;
+    }
+
+    public static KnowledgeSearchResult found(KnowledgeMatch match, String retrieval) {
+        return new KnowledgeSearchResult(true, match.score(), retrieval, match.entry().title(), match.entry().answer());
+    }
+
+    public static KnowledgeSearchResult notFound(String retrieval) {
+        return new KnowledgeSearchResult(false, 0.0, retrieval, null, null);
+    }
+
+    public boolean searchFound() {
+        return searchFound;
+    }
+
+    public double matchScore() {
+        return matchScore;
+    }
+
+    public String retrieval() {
+        return retrieval;
+    }
+
+    public String faqTitle() {
+        return faqTitle;
+    }
+
+    public String faqAnswer() {
+        return faqAnswer;
+    }
+
+    /**
+     * 接口返回的格式
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("search_found", searchFound);
+        map.put("match_score", matchScore);
+        map.put("retrieval", retrieval);
+        if (searchFound) {
+            map.put("faq_title", faqTitle);
+            map.put("faq_answer", faqAnswer);
+            map.put("source", "knowledge_base");
+        } else {
+            map.put("message", "知识库中未找到匹配的答案");
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
@@ -17,9 +17,9 @@ public class LoopConditionAction implements EdgeAction {
     @Override
     public String apply(OverAllState state) throws Exception {
         // 获取循环相关状态
-        int currentIndex = state.value("loop_index", 0);
-        List<String> items = state.value("items", List.of());
-        boolean loopCompleted = state.value("loop_completed", false);
+        int currentIndex = LoopState.LOOP_INDEX.get(state);
+        List<String> items = LoopState.ITEMS.get(state);
+        boolean loopCompleted = LoopState.LOOP_COMPLETED.get(state);
 
         log.info("循环条件检查: 当前索引={}, 总数={}, 是否完成={}", 
                 currentIndex, items.size(), loopCompleted);
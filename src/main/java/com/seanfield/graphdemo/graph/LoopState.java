@@ -0,0 +1,31 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import com.seanfield.graphdemo.graph.state.AppendOnlyStrategy;
+import com.seanfield.graphdemo.graph.state.StateSchema;
+import com.seanfield.graphdemo.graph.state.StateSlot;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 循环处理和并行映射处理工作流共用的状态键
+ *
+ * <p>状态只包含字符串、整数和列表，检查点可以直接编码；最终结果是返回给调用方的汇总，仍使用 Map。</p>
+ */
+public final class LoopState {
+
+    public static final StateSlot<List<String>> ITEMS = StateSlot.list("items", new ReplaceStrategy());
+    public static final StateSlot<Integer> LOOP_INDEX = StateSlot.of("loop_index", Integer.class, 0);
+    // 节点每轮只返回新增结果，由只追加策略以结构共享的方式追加，避免每轮复制整个列表
+    public static final StateSlot<List<String>> PROCESSED_RESULTS = StateSlot.list("processed_results", new AppendOnlyStrategy());
+    public static final StateSlot<Boolean> LOOP_COMPLETED = StateSlot.of("loop_completed", Boolean.class, false);
+    public static final StateSlot<String> CURRENT_PROCESSING = StateSlot.of("current_processing", String.class, "");
+    public static final StateSlot<Map<String, Object>> LOOP_FINAL_RESULT = StateSlot.map("loop_final_result");
+
+    public static final StateSchema SCHEMA = StateSchema.of("循环处理工作流", ITEMS, LOOP_INDEX, PROCESSED_RESULTS,
+            LOOP_COMPLETED, CURRENT_PROCESSING, LOOP_FINAL_RESULT);
+
+    private LoopState() {
+    }
+}
@@ -0,0 +1,70 @@
+package com.seanfield.graphdemo.graph;
+
+import io.micrometer.core.instrument.Tags;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 计量大模型调用的聊天模型包装，指标见 {@link GraphMetrics}
+ */
+class MeteredChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final GraphMetrics metrics;
+
+    MeteredChatModel(ChatModel delegate, GraphMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        Tags node = metrics.currentNode();
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            ChatResponse response = delegate.call(prompt);
+            outcome = "success";
+            return response;
+        } finally {
+            metrics.recordCall(node, "call", outcome, System.nanoTime() - start, 0);
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.deferContextual(context -> {
+            Tags node = metrics.currentNode(context);
+            long start = System.nanoTime();
+            AtomicInteger chunks = new AtomicInteger();
+            return delegate.stream(prompt)
+                    .doOnNext(response -> {
+                        if (chunks.getAndIncrement() == 0) {
+                            metrics.recordFirstToken(node, System.nanoTime() - start);
+                        }
+                    })
+                    // 解析到必需字段后提前取消是正常结束，单独标记
+                    .doFinally(signal -> metrics.recordCall(node, "stream", outcome(signal),
+                            System.nanoTime() - start, chunks.get()));
+        });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> "success";
+            case CANCEL -> "cancelled";
+            default -> "error";
+        };
+    }
+}
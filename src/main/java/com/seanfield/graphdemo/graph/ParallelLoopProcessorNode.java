@@ -0,0 +1,69 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 并行映射处理节点：将全部项目以有界并发同时交给AI处理，结果保持输入顺序
+ *
+ * <p>与 {@link LoopProcessorNode} 逐项循环的输出格式一致，耗时约为 项目数/并发数 次大模型调用。</p>
+ */
+public class ParallelLoopProcessorNode implements NodeAction {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelLoopProcessorNode.class);
+
+    private final ChatClient chatClient;
+    private final int concurrency;
+
+    public ParallelLoopProcessorNode(ChatClient.Builder chatClientBuilder, int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be > 0");
+        }
+        this.chatClient = chatClientBuilder.build();
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public Map<String, Object> apply(OverAllState state) throws Exception {
+        List<String> items = LoopState.ITEMS.get(state);
+
+        log.info("并行处理 {} 个项目，最大并发数: {}", items.size(), concurrency);
+
+        // flatMapSequential 并发订阅但按订阅顺序输出，保证结果与输入顺序一致
+        List<String> processedResults = Flux.range(0, items.size())
+                .flatMapSequential(index -> analyze(index, items.get(index)), concurrency)
+                .collectList()
+                .block();
+
+        HashMap<String, Object> result = new HashMap<>();
+        LoopState.LOOP_INDEX.put(result, items.size());
+        LoopState.PROCESSED_RESULTS.put(result, processedResults);
+        LoopState.LOOP_COMPLETED.put(result, true);
+        LoopState.CURRENT_PROCESSING.put(result, String.format("所有 %d 个项目处理完成", items.size()));
+
+        log.info("所有项目并行处理完成，共处理 {} 个项目", items.size());
+        return result;
+    }
+
+    private Mono<String> analyze(int index, String item) {
+        return this.chatClient
+                .prompt()
+                .user(user -> user
+                        .text(LoopProcessorNode.ANALYSIS_PROMPT.getTemplate())
+                        .param("text", item))
+                .stream()
+                .content()
+                .collect(Collectors.joining())
+                .map(analysisResult -> LoopProcessorNode.formatResult(index, item, analysisResult));
+    }
+}
@@ -0,0 +1,123 @@
+package com.seanfield.graphdemo.graph;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 质量评估结果：各维度评分（1-10）、总体评分和是否合格
+ *
+ * <p>异步评估模式下尚未评估的请求使用 {@link #pendingAsync()}，没有评分、直接视为合格；
+ * assessmentMode 在未启用异步评估时为 null。</p>
+ */
+public final class QualityAssessment {
+
+    /**
+     * 总体评分达到该分数认为质量合格
+     */
+    public static final int PASSING_SCORE = 7;
+
+    private final int accuracy;
+    private final int completeness;
+    private final int professionalism;
+    private final int friendliness;
+    private final int usefulness;
+    private final int overallScore;
+    private final String reason;
+    private final boolean pending;
+    private final String assessmentMode;
+
+    public QualityAssessment(int accuracy, int completeness, int professionalism, int friendliness, int usefulness,
+                             int overallScore, String reason) {
+        this(accuracy, completeness, professionalism, friendliness, usefulness, overallScore, reason, false, null);
+    }
+
+    private QualityAssessment(int accuracy, int completeness, int professionalism, int friendliness, int usefulness,
+                              int overallScore, String reason, boolean pending, String assessmentMode) {
+        this.accuracy = accuracy;
+        this.completeness = completeness;
+        this.professionalism = professionalism;
+        this.friendliness = friendliness;
+        this.usefulness = usefulness;
+        this.overallScore = overallScore;
+        this.reason = reason;
+        this.pending = pending;
+        this.assessmentMode = assessmentMode;
+    }
+
+    public static QualityAssessment pendingAsync() {
+        return new QualityAssessment(0, 0, 0, 0, 0, 0, "", true, "async");
+    }
+
+    public QualityAssessment withMode(String assessmentMode) {
+        return new QualityAssessment(accuracy, completeness, professionalism, friendliness, usefulness,
+                overallScore, reason, pending, assessmentMode);
+    }
+
+    public int accuracy() {
+        return accuracy;
+    }
+
+    public int completeness() {
+        return completeness;
+    }
+
+    public int professionalism() {
+        return professionalism;
+    }
+
+    public int friendliness() {
+        return friendliness;
+    }
+
+    public int usefulness() {
+        return usefulness;
+    }
+
+    public int overallScore() {
+        return overallScore;
+    }
+
+    public String reason() {
+        return reason;
+    }
+
+    public boolean pending() {
+        return pending;
+    }
+
+    public String assessmentMode() {
+        return assessmentMode;
+    }
+
+    public boolean qualityPassed() {
+        return pending || overallScore >= PASSING_SCORE;
+    }
+
+    /**
+     * 接口返回的格式
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        if (!pending) {
+            map.put("accuracy_score", accuracy);
+            map.put("completeness_score", completeness);
+            map.put("professionalism_score", professionalism);
+            map.put("friendliness_score", friendliness);
+            map.put("usefulness_score", usefulness);
+            map.put("overall_score", overallScore);
+            map.put("assessment_reason", reason);
+        } else {
+            map.put("pending", true);
+        }
+        map.put("quality_passed", qualityPassed());
+        if (assessmentMode != null) {
+            map.put("assessment_mode", assessmentMode);
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
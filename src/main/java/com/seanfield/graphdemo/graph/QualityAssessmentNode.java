@@ -7,14 +7,16 @@ import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * 质量评估节点：评估生成答案的质量
  */
-public class QualityAssessmentNode implements NodeAction {
+public class QualityAssessmentNode implements NodeAction, ReactiveNodeAction {
 
     private static final Logger log = LoggerFactory.getLogger(QualityAssessmentNode.class);
 
@@ -38,6 +40,9 @@ public class QualityAssessmentNode implements NodeAction {
             "评估理由：回答准确且专业，但可以更详细一些"
     );
 
+    private static final List<String> QUALITY_FIELDS = List.of("准确性", "完整性", "专业性", "友好性", "实用性", "总体评分", "评估理由");
+    private static final List<String> REQUIRED_QUALITY_FIELDS = List.of("总体评分");
+
     private final ChatClient chatClient;
 
     public QualityAssessmentNode(ChatClient.Builder chatClientBuilder) {
@@ -46,14 +51,17 @@ public class QualityAssessmentNode implements NodeAction {
 
     @Override
     public Map<String, Object> apply(OverAllState state) throws Exception {
-        log.info("QualityAssessmentNode开始执行，当前状态: {}", state.data());
+        return applyReactive(state).block();
+    }
+
+    @Override
+    public Mono<Map<String, Object>> applyReactive(OverAllState state) {
+        log.info("QualityAssessmentNode开始执行");
 
         // 获取用户问题和生成的答案
-        Map<String, Object> input = state.value("input", Map.of());
-        String question = String.valueOf(input.getOrDefault("question", ""));
-        
-        Map<String, Object> generatedAnswer = state.value("generated_answer", Map.of());
-        String answer = String.valueOf(generatedAnswer.getOrDefault("final_answer", ""));
+        String question = CustomerServiceState.question(state);
+        GeneratedAnswer generatedAnswer = CustomerServiceState.GENERATED_ANSWER.get(state);
+        String answer = generatedAnswer == null ? "" : generatedAnswer.finalAnswer();
         
         log.info("正在评估答案质量...");
 
@@ -67,87 +75,43 @@ public class QualityAssessmentNode implements NodeAction {
                 .stream()
                 .content();
 
-        String assessmentResult = contentStream.reduce("", (acc, s) -> acc + s).block();
-        
-        // 解析评估结果
-        QualityScores scores = parseQualityScores(assessmentResult);
-        
-        log.info("质量评估完成，总体评分: {}", scores.overallScore);
-
-        // 构建返回结果
-        HashMap<String, Object> qualityInfo = new HashMap<>();
-        qualityInfo.put("accuracy_score", scores.accuracy);
-        qualityInfo.put("completeness_score", scores.completeness);
-        qualityInfo.put("professionalism_score", scores.professionalism);
-        qualityInfo.put("friendliness_score", scores.friendliness);
-        qualityInfo.put("usefulness_score", scores.usefulness);
-        qualityInfo.put("overall_score", scores.overallScore);
-        qualityInfo.put("assessment_reason", scores.reason);
-        qualityInfo.put("quality_passed", scores.overallScore >= 7); // 7分以上认为质量合格
-
-        HashMap<String, Object> result = new HashMap<>();
-        result.put("quality_assessment", qualityInfo);
-        
-        return result;
+        // 边接收边解析，拿到总体评分后立即取消，不再等待评估理由文本
+        return StreamingLineParser.parseFields(contentStream, QUALITY_FIELDS, REQUIRED_QUALITY_FIELDS).map(fields -> {
+            // 解析评估结果，7分以上认为质量合格
+            QualityAssessment qualityInfo = parseQualityScores(fields);
+
+            log.info("质量评估完成，总体评分: {}", qualityInfo.overallScore());
+
+            HashMap<String, Object> result = new HashMap<>();
+            CustomerServiceState.QUALITY_ASSESSMENT.put(result, qualityInfo);
+            return result;
+        });
     }
 
-    private QualityScores parseQualityScores(String assessmentResult) {
-        QualityScores scores = new QualityScores();
-        
+    QualityAssessment parseQualityScores(Map<String, String> fields) {
         try {
-            String[] lines = assessmentResult.split("\n");
-            for (String line : lines) {
-                line = line.trim();
-                if (line.startsWith("准确性：")) {
-                    scores.accuracy = parseScore(line, "准确性：");
-                } else if (line.startsWith("完整性：")) {
-                    scores.completeness = parseScore(line, "完整性：");
-                } else if (line.startsWith("专业性：")) {
-                    scores.professionalism = parseScore(line, "专业性：");
-                } else if (line.startsWith("友好性：")) {
-                    scores.friendliness = parseScore(line, "友好性：");
-                } else if (line.startsWith("实用性：")) {
-                    scores.usefulness = parseScore(line, "实用性：");
-                } else if (line.startsWith("总体评分：")) {
-                    scores.overallScore = parseScore(line, "总体评分：");
-                } else if (line.startsWith("评估理由：")) {
-                    scores.reason = line.substring("评估理由：".length()).trim();
-                }
-            }
+            return new QualityAssessment(
+                    parseScore(fields.get("准确性"), 7),
+                    parseScore(fields.get("完整性"), 7),
+                    parseScore(fields.get("专业性"), 7),
+                    parseScore(fields.get("友好性"), 7),
+                    parseScore(fields.get("实用性"), 7),
+                    parseScore(fields.get("总体评分"), 7),
+                    fields.getOrDefault("评估理由", "质量评估正常"));
         } catch (Exception e) {
             log.warn("解析质量评估结果失败，使用默认分数: {}", e.getMessage());
-            scores.setDefaultScores();
+            return new QualityAssessment(7, 7, 7, 7, 7, 7, "默认评分");
         }
-
-        return scores;
     }
 
-    private int parseScore(String line, String prefix) {
+    private int parseScore(String value, int defaultScore) {
+        if (value == null) {
+            return defaultScore;
+        }
         try {
-            String scoreStr = line.substring(prefix.length()).trim();
-            return Integer.parseInt(scoreStr);
+            return Integer.parseInt(value);
         } catch (Exception e) {
             return 7; // 默认分数
         }
     }
-
-    private static class QualityScores {
-        int accuracy = 7;
-        int completeness = 7;
-        int professionalism = 7;
-        int friendliness = 7;
-        int usefulness = 7;
-        int overallScore = 7;
-        String reason = "质量评估正常";
-
-        void setDefaultScores() {
-            this.accuracy = 7;
-            this.completeness = 7;
-            this.professionalism = 7;
-            this.friendliness = 7;
-            this.usefulness = 7;
-            this.overallScore = 7;
-            this.reason = "默认评分";
-        }
-    }
 }
@@ -16,12 +16,12 @@ public class QualityCheckAction implements EdgeAction {
 
     @Override
     public String apply(OverAllState state) throws Exception {
-        Map<String, Object> qualityAssessment = state.value("quality_assessment", Map.of());
-        boolean qualityPassed = Boolean.TRUE.equals(qualityAssessment.get("quality_passed"));
-        int overallScore = (Integer) qualityAssessment.getOrDefault("overall_score", 7);
+        QualityAssessment qualityAssessment = CustomerServiceState.QUALITY_ASSESSMENT.get(state);
+        boolean qualityPassed = qualityAssessment != null && qualityAssessment.qualityPassed();
+        int overallScore = qualityAssessment == null ? QualityAssessment.PASSING_SCORE : qualityAssessment.overallScore();
         
         // 获取重试次数，避免无限循环
-        int retryCount = state.value("retry_count", 0);
+        int retryCount = CustomerServiceState.RETRY_COUNT.get(state);
         
         log.info("质量检查: 质量合格={}, 总分={}, 重试次数={}", qualityPassed, overallScore, retryCount);
 
@@ -32,13 +32,13 @@ public class QualityCheckAction implements EdgeAction {
         }
 
         // 根据质量评估结果决定路径
-        if (qualityPassed && overallScore >= 7) {
+        if (qualityPassed) {
             log.info("质量检查通过，继续发送回复");
             return "pass";
         } else {
             log.info("质量检查未通过，需要重新生成答案");
             // 增加重试计数
-            state.updateState(Map.of("retry_count", retryCount + 1));
+            state.updateState(Map.of(CustomerServiceState.RETRY_COUNT.key(), retryCount + 1));
             return "retry";
         }
     }
@@ -0,0 +1,28 @@
+package com.seanfield.graphdemo.graph;
+
+/**
+ * 查询验证结果：不通过时 reason 说明原因
+ */
+public final class QueryValidation {
+
+    private final boolean ok;
+    private final String reason;
+
+    public QueryValidation(boolean ok, String reason) {
+        this.ok = ok;
+        this.reason = reason;
+    }
+
+    public boolean ok() {
+        return ok;
+    }
+
+    public String reason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "{ok=" + ok + ", reason=" + reason + "}";
+    }
+}
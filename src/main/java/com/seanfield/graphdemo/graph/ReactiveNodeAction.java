@@ -0,0 +1,27 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.AsyncNodeAction;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * 响应式节点：返回在大模型流式响应结束时完成的 {@link Mono}，执行过程中不阻塞调用线程
+ *
+ * <p>可以在图之外直接订阅（例如响应式接口），也可以通过 {@link #node_reactive(ReactiveNodeAction)}
+ * 注册为图节点。注意当前版本的图引擎在推进到下一个节点前会等待节点的 CompletableFuture，
+ * 驱动图执行的线程仍会阻塞，节点本身不再占用额外的线程。</p>
+ */
+@FunctionalInterface
+public interface ReactiveNodeAction {
+
+    Mono<Map<String, Object>> applyReactive(OverAllState state);
+
+    /**
+     * 转换为图节点，节点同步抛出的异常同样以失败的 future 返回
+     */
+    static AsyncNodeAction node_reactive(ReactiveNodeAction action) {
+        return state -> Mono.defer(() -> action.applyReactive(state)).toFuture();
+    }
+}
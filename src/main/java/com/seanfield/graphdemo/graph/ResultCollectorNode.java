@@ -23,8 +23,8 @@ public class ResultCollectorNode implements NodeAction {
         log.info("ResultCollectorNode开始执行，收集循环处理结果");
 
         // 获取处理结果
-        List<String> processedResults = state.value("processed_results", List.of());
-        List<String> originalItems = state.value("items", List.of());
+        List<String> processedResults = LoopState.PROCESSED_RESULTS.get(state);
+        List<String> originalItems = LoopState.ITEMS.get(state);
         int totalProcessed = processedResults.size();
 
         // 生成汇总信息
@@ -50,7 +50,7 @@ public class ResultCollectorNode implements NodeAction {
 
         // 返回收集结果
         HashMap<String, Object> result = new HashMap<>();
-        result.put("loop_final_result", finalResult);
+        LoopState.LOOP_FINAL_RESULT.put(result, finalResult);
         
         return result;
     }
@@ -0,0 +1,217 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.exception.GraphStateException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 相同请求合并执行（single-flight）：同一个图、规范化后相同的问题在执行期间再次到达时，
+ * 不再重复执行，而是等待进行中的那次执行并共享其结果
+ *
+ * <p>与缓存不同，执行结束后立即移除记录，之后到达的请求会重新执行；不依赖语义缓存，
+ * 用于故障期间大量用户同时发送相同问题时保护大模型。执行失败时等待中的请求收到同样的异常，
+ * 等待超过 followerTimeout 时以 {@link TimeoutException} 失败，不会被卡住的执行无限期阻塞。</p>
+ */
+public class SingleFlightInvoker {
+
+    private static final Logger log = LoggerFactory.getLogger(SingleFlightInvoker.class);
+
+    private final GraphRegistry graphRegistry;
+    private final boolean enabled;
+    private final long followerTimeoutNanos;
+    private final Map<String, Flight> inflight = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong maxFollowers = new AtomicLong();
+    private final AtomicLong followerTimeouts = new AtomicLong();
+
+    /**
+     * @param followerTimeout 等待进行中执行的最长时间
+     */
+    public SingleFlightInvoker(GraphRegistry graphRegistry, boolean enabled, Duration followerTimeout) {
+        this.graphRegistry = graphRegistry;
+        this.enabled = enabled;
+        this.followerTimeoutNanos = followerTimeout.toNanos();
+    }
+
+    /**
+     * 执行图；已有相同问题在执行时等待其结果
+     *
+     * @param question 用于合并判断的问题，相同的图和规范化后相同的问题视为同一请求
+     */
+    public Optional<OverAllState> invoke(String graphName, String question, Map<String, Object> input) throws GraphStateException {
+        return invoke(graphName, question, input, state -> {
+        });
+    }
+
+    /**
+     * 执行图；已有相同问题在执行时等待其结果
+     *
+     * @param executedResult 只在实际执行的请求上、唤醒等待的请求之前调用（例如写入缓存），共享结果的请求不调用
+     * @throws IllegalStateException 等待共享结果超时（原因为 {@link TimeoutException}）
+     */
+    public Optional<OverAllState> invoke(String graphName, String question, Map<String, Object> input,
+                                         Consumer<OverAllState> executedResult) throws GraphStateException {
+        requests.incrementAndGet();
+        if (!enabled) {
+            executions.incrementAndGet();
+            Optional<OverAllState> result = graphRegistry.invoke(graphName, input);
+            result.ifPresent(executedResult);
+            return result;
+        }
+        String key = key(graphName, question);
+        Flight flight = new Flight();
+        Flight existing = inflight.putIfAbsent(key, flight);
+        if (existing != null) {
+            follow(existing, graphName, question);
+            return await(existing);
+        }
+        return lead(key, flight, graphName, input, executedResult);
+    }
+
+    /**
+     * 响应式执行：实际执行的请求在 scheduler 上阻塞执行图，等待共享结果的请求不占用任何线程
+     *
+     * <p>执行一旦开始就与订阅者无关，订阅者取消（例如客户端断开）不影响共享同一结果的其他请求。</p>
+     *
+     * @param scheduler 执行图的调度器，图引擎会阻塞执行线程直到工作流结束
+     */
+    public Mono<Optional<OverAllState>> invokeReactive(String graphName, String question, Map<String, Object> input,
+                                                       Consumer<OverAllState> executedResult, Scheduler scheduler) {
+        return Mono.defer(() -> {
+            requests.incrementAndGet();
+            if (!enabled) {
+                executions.incrementAndGet();
+                return Mono.fromCallable(() -> {
+                    Optional<OverAllState> result = graphRegistry.invoke(graphName, input);
+                    result.ifPresent(executedResult);
+                    return result;
+                }).subscribeOn(scheduler);
+            }
+            String key = key(graphName, question);
+            Flight flight = new Flight();
+            Flight existing = inflight.putIfAbsent(key, flight);
+            if (existing != null) {
+                follow(existing, graphName, question);
+                return Mono.fromFuture(existing.result, true)
+                        .timeout(Duration.ofNanos(followerTimeoutNanos))
+                        .onErrorMap(TimeoutException.class, this::followerTimeout);
+            }
+            try {
+                scheduler.schedule(() -> {
+                    try {
+                        lead(key, flight, graphName, input, executedResult);
+                    } catch (Throwable e) {
+                        // 异常已通过 flight.result 传给所有订阅者
+                    }
+                });
+            } catch (RuntimeException e) {
+                inflight.remove(key, flight);
+                flight.result.completeExceptionally(e);
+            }
+            return Mono.fromFuture(flight.result, true);
+        });
+    }
+
+    private void follow(Flight existing, String graphName, String question) {
+        coalesced.incrementAndGet();
+        maxFollowers.accumulateAndGet(existing.followers.incrementAndGet(), Math::max);
+        log.info("相同问题正在执行，等待共享结果: 图={}，问题={}", graphName, question);
+    }
+
+    private Optional<OverAllState> lead(String key, Flight flight, String graphName, Map<String, Object> input,
+                                        Consumer<OverAllState> executedResult) throws GraphStateException {
+        executions.incrementAndGet();
+        try {
+            Optional<OverAllState> result = graphRegistry.invoke(graphName, input);
+            result.ifPresent(executedResult);
+            flight.result.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // 任何失败都要通知等待中的请求，否则它们会一直阻塞
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, flight);
+            if (flight.followers.get() > 0) {
+                log.info("合并执行完成: 图={}，共享结果的请求数={}", graphName, flight.followers.get());
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long total = requests.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("requests", total);
+        stats.put("executions", executions.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("coalesced_fraction", total == 0 ? 0.0 : (double) coalesced.get() / total);
+        stats.put("max_followers_per_execution", maxFollowers.get());
+        stats.put("follower_timeouts", followerTimeouts.get());
+        stats.put("follower_timeout_ms", followerTimeoutNanos / 1_000_000.0);
+        stats.put("in_flight", inflight.size());
+        return stats;
+    }
+
+    static String normalize(String question) {
+        String normalized = question.trim().toLowerCase().replaceAll("\\s+", " ");
+        // 末尾的问号、感叹号等不影响问题含义
+        int end = normalized.length();
+        while (end > 0 && "?？!！。.~".indexOf(normalized.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        return normalized.substring(0, end).trim();
+    }
+
+    private Optional<OverAllState> await(Flight flight) throws GraphStateException {
+        try {
+            return flight.result.get(followerTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待合并执行结果时被中断", e);
+        } catch (TimeoutException e) {
+            throw followerTimeout(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof GraphStateException graphStateException) {
+                throw graphStateException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private IllegalStateException followerTimeout(TimeoutException e) {
+        followerTimeouts.incrementAndGet();
+        return new IllegalStateException("等待合并执行结果超时（" + followerTimeoutNanos / 1_000_000 + "ms）", e);
+    }
+
+    private static String key(String graphName, String question) {
+        return graphName + '\n' + normalize(question);
+    }
+
+    private static final class Flight {
+        final CompletableFuture<Optional<OverAllState>> result = new CompletableFuture<>();
+        final AtomicInteger followers = new AtomicInteger();
+    }
+}
@@ -0,0 +1,292 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.EdgeAction;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 推测执行：在路由节点（意图识别）执行的同时，提前在后台运行可能被路由到的分支节点
+ *
+ * <p>路由条件决定后，被选中分支的结果保留，节点执行到该分支时直接采用，未选中的分支立即取消
+ * （中断执行线程，进行中的大模型流式请求随之取消）。分支使用启动时的状态副本执行，
+ * 因此只适合只依赖输入问题的节点；AI 分析节点的 token 先缓存，被采用后再推送给用户。
+ * 统计被采用分支节省的等待时间和被取消分支浪费的执行时间。</p>
+ *
+ * <p>分支线程数有上限，线程全部占用时不再推测，分支节点到时按正常流程执行。</p>
+ */
+public class SpeculativeExecution {
+
+    private static final Logger log = LoggerFactory.getLogger(SpeculativeExecution.class);
+
+    public static final String STATE_KEY = "__speculation";
+
+    private static final int DEFAULT_MAX_THREADS = 32;
+
+    private final boolean enabled;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong launched = new AtomicLong();
+    private final AtomicLong adopted = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong savedNanos = new AtomicLong();
+    private final AtomicLong wastedNanos = new AtomicLong();
+
+    public SpeculativeExecution(boolean enabled) {
+        this(enabled, DEFAULT_MAX_THREADS, GraphThreads.platformThreadFactory("speculative-branch-"));
+    }
+
+    /**
+     * @param maxThreads    同时运行的推测分支上限，超出时跳过推测
+     * @param threadFactory 运行推测分支的线程，分支大部分时间阻塞等待大模型
+     */
+    public SpeculativeExecution(boolean enabled, int maxThreads, ThreadFactory threadFactory) {
+        this.enabled = enabled;
+        if (enabled) {
+            // 不排队：排队的分支开始时路由往往已经确定，推测没有意义
+            this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, 30, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), threadFactory);
+            this.executor.allowCoreThreadTimeOut(true);
+        } else {
+            this.executor = null;
+        }
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * 包装路由节点：执行前先在后台启动各分支节点；未启用时原样返回
+     */
+    public NodeAction launch(NodeAction routingNode, Map<String, NodeAction> branches) {
+        if (!enabled || branches.isEmpty()) {
+            return routingNode;
+        }
+        return state -> {
+            Speculation speculation = speculate(state, branches);
+            Map<String, Object> result;
+            try {
+                result = routingNode.apply(state);
+            } catch (Exception e) {
+                speculation.cancelAllExcept(null);
+                throw e;
+            }
+            return withSpeculation(result, speculation);
+        };
+    }
+
+    /**
+     * 包装响应式路由节点：订阅时在后台启动各分支节点，路由节点失败或被取消时取消全部分支；未启用时原样返回
+     */
+    public ReactiveNodeAction launchReactive(ReactiveNodeAction routingNode, Map<String, NodeAction> branches) {
+        if (!enabled || branches.isEmpty()) {
+            return routingNode;
+        }
+        return state -> Mono.defer(() -> {
+            Speculation speculation = speculate(state, branches);
+            return Mono.defer(() -> routingNode.applyReactive(state))
+                    .map(result -> withSpeculation(result, speculation))
+                    .doOnError(e -> speculation.cancelAllExcept(null))
+                    .doOnCancel(() -> speculation.cancelAllExcept(null));
+        });
+    }
+
+    private Speculation speculate(OverAllState state, Map<String, NodeAction> branches) {
+        Speculation speculation = new Speculation();
+        // 分支与后续节点并发运行，不能直接读取会被引擎修改的共享状态
+        OverAllState snapshot = new OverAllState(new HashMap<>(state.data()));
+        branches.forEach((nodeId, node) -> speculation.start(nodeId, node, snapshot));
+        return speculation;
+    }
+
+    private static Map<String, Object> withSpeculation(Map<String, Object> result, Speculation speculation) {
+        Map<String, Object> withSpeculation = new HashMap<>(result);
+        withSpeculation.put(STATE_KEY, speculation);
+        return withSpeculation;
+    }
+
+    /**
+     * 包装路由条件：得到路由结果后保留对应节点的推测结果，取消其余分支；未启用时原样返回
+     */
+    public EdgeAction resolve(EdgeAction routing, Map<String, String> routes) {
+        if (!enabled) {
+            return routing;
+        }
+        return state -> {
+            Speculation speculation = state.<Speculation>value(STATE_KEY).orElse(null);
+            String keptNodeId = null;
+            try {
+                String route = routing.apply(state);
+                keptNodeId = routes.get(route);
+                return route;
+            } finally {
+                // 路由条件抛出异常时取消全部分支
+                if (speculation != null) {
+                    speculation.cancelAllExcept(keptNodeId);
+                }
+            }
+        };
+    }
+
+    /**
+     * 包装分支节点：有可用的推测结果时直接采用，否则正常执行；未启用时原样返回
+     */
+    public NodeAction adopt(String nodeId, NodeAction node) {
+        if (!enabled) {
+            return node;
+        }
+        return state -> {
+            Branch branch = take(state, nodeId);
+            if (branch == null) {
+                return node.apply(state);
+            }
+            long enteredAt = System.nanoTime();
+            branch.listener.attach(state.value(AnswerStreamListener.STATE_KEY, AnswerStreamListener.NOOP));
+            try {
+                Map<String, Object> result = branch.result.get();
+                recordAdopted(nodeId, branch, enteredAt);
+                return result;
+            } catch (ExecutionException e) {
+                recordFailed(nodeId, e.getCause());
+                return node.apply(state);
+            }
+        };
+    }
+
+    /**
+     * 包装响应式分支节点：有可用的推测结果时等待其完成（不占用线程），否则正常执行；未启用时原样返回
+     */
+    public ReactiveNodeAction adoptReactive(String nodeId, ReactiveNodeAction node) {
+        if (!enabled) {
+            return node;
+        }
+        return state -> Mono.defer(() -> {
+            Branch branch = take(state, nodeId);
+            if (branch == null) {
+                return node.applyReactive(state);
+            }
+            long enteredAt = System.nanoTime();
+            branch.listener.attach(state.value(AnswerStreamListener.STATE_KEY, AnswerStreamListener.NOOP));
+            // 取消等待时不取消分支本身
+            return Mono.fromFuture(branch.result, true)
+                    .doOnNext(result -> recordAdopted(nodeId, branch, enteredAt))
+                    .onErrorResume(e -> {
+                        recordFailed(nodeId, e);
+                        return node.applyReactive(state);
+                    });
+        });
+    }
+
+    private static Branch take(OverAllState state, String nodeId) {
+        Speculation speculation = state.<Speculation>value(STATE_KEY).orElse(null);
+        return speculation == null ? null : speculation.take(nodeId);
+    }
+
+    private void recordAdopted(String nodeId, Branch branch, long enteredAt) {
+        long saved = Math.min(enteredAt, branch.completedAt) - branch.startedAt;
+        adopted.incrementAndGet();
+        savedNanos.addAndGet(saved);
+        log.info("采用推测执行结果: 节点={}，节省等待 {}ms", nodeId, saved / 1_000_000);
+    }
+
+    private void recordFailed(String nodeId, Throwable cause) {
+        failed.incrementAndGet();
+        log.warn("推测执行失败，重新执行节点 {}: {}", nodeId, cause.getMessage());
+    }
+
+    public Map<String, Object> stats() {
+        long adoptedCount = adopted.get();
+        long cancelledCount = cancelled.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("launched", launched.get());
+        stats.put("adopted", adoptedCount);
+        stats.put("cancelled", cancelledCount);
+        stats.put("failed", failed.get());
+        stats.put("skipped", skipped.get());
+        stats.put("active_threads", executor == null ? 0 : executor.getActiveCount());
+        stats.put("total_saved_ms", savedNanos.get() / 1_000_000.0);
+        stats.put("total_wasted_ms", wastedNanos.get() / 1_000_000.0);
+        stats.put("avg_saved_ms", adoptedCount == 0 ? 0.0 : savedNanos.get() / 1_000_000.0 / adoptedCount);
+        stats.put("avg_wasted_ms", cancelledCount == 0 ? 0.0 : wastedNanos.get() / 1_000_000.0 / cancelledCount);
+        return stats;
+    }
+
+    /**
+     * 一次图执行中的推测分支
+     */
+    private final class Speculation {
+        private final Map<String, Branch> branches = new ConcurrentHashMap<>();
+
+        void start(String nodeId, NodeAction node, OverAllState snapshot) {
+            Branch branch = new Branch();
+            Map<String, Object> data = new HashMap<>(snapshot.data());
+            data.put(AnswerStreamListener.STATE_KEY, branch.listener);
+            OverAllState branchState = new OverAllState(data);
+            try {
+                branch.future = executor.submit(() -> {
+                    try {
+                        Map<String, Object> result = node.apply(branchState);
+                        branch.completedAt = System.nanoTime();
+                        branch.result.complete(result);
+                    } catch (Throwable e) {
+                        branch.completedAt = System.nanoTime();
+                        branch.result.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                skipped.incrementAndGet();
+                log.debug("推测分支线程已满，跳过节点 {}", nodeId);
+                return;
+            }
+            branches.put(nodeId, branch);
+            launched.incrementAndGet();
+        }
+
+        Branch take(String nodeId) {
+            return branches.remove(nodeId);
+        }
+
+        void cancelAllExcept(String keptNodeId) {
+            branches.entrySet().removeIf(entry -> {
+                if (entry.getKey().equals(keptNodeId)) {
+                    return false;
+                }
+                Branch branch = entry.getValue();
+                branch.future.cancel(true);
+                long end = branch.completedAt != 0 ? branch.completedAt : System.nanoTime();
+                cancelled.incrementAndGet();
+                wastedNanos.addAndGet(end - branch.startedAt);
+                log.info("取消推测分支: 节点={}，已执行 {}ms", entry.getKey(), (end - branch.startedAt) / 1_000_000);
+                return true;
+            });
+        }
+    }
+
+    private static final class Branch {
+        final long startedAt = System.nanoTime();
+        final BufferedStreamListener listener = new BufferedStreamListener();
+        final CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        volatile long completedAt;
+        Future<?> future;
+    }
+}
@@ -0,0 +1,222 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.EdgeAction;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 状态差异追踪：按请求抽样，只记录节点本次改变的状态键，替代每个节点入口打印完整状态
+ *
+ * <p>节点返回的部分状态就是本次变更，只有被抽中的请求才会和执行前的值比较并格式化，
+ * 格式化推迟到日志真正输出时进行；未抽中的请求只多一次标志位判断。节点抛出异常时不论是否抽中都会输出执行前的状态，
+ * 其中不包含图内部使用的键（以 {@code __} 开头的键和答案流监听器），每个值截断到 {@value #MAX_VALUE_LENGTH} 个字符。
+ * 同一个包装点也负责 {@link GraphMetrics} 的节点耗时和路由决策计量，以及 {@link GraphTracing} 的节点 span 和路由属性。</p>
+ */
+public class StateDiffTracer {
+
+    private static final Logger log = LoggerFactory.getLogger(StateDiffTracer.class);
+
+    private static final int MAX_VALUE_LENGTH = 120;
+
+    private final double sampleRate;
+    private final GraphMetrics metrics;
+    private final GraphTracing tracing;
+    private final AtomicLong sampledRuns = new AtomicLong();
+    private final AtomicLong errorTraces = new AtomicLong();
+
+    public StateDiffTracer(double sampleRate) {
+        this(sampleRate, new GraphMetrics(null));
+    }
+
+    public StateDiffTracer(double sampleRate, GraphMetrics metrics) {
+        this(sampleRate, metrics, new GraphTracing(null));
+    }
+
+    public StateDiffTracer(double sampleRate, GraphMetrics metrics, GraphTracing tracing) {
+        this.sampleRate = sampleRate;
+        this.metrics = metrics;
+        this.tracing = tracing;
+    }
+
+    public GraphMetrics metrics() {
+        return metrics;
+    }
+
+    public GraphTracing tracing() {
+        return tracing;
+    }
+
+    /**
+     * 为一次图执行决定是否抽样追踪
+     */
+    public boolean sample() {
+        boolean sampled = sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+        if (sampled) {
+            sampledRuns.incrementAndGet();
+        }
+        return sampled;
+    }
+
+    /**
+     * 包装节点，在抽中的请求中记录该节点的状态变更
+     */
+    public NodeAction trace(String nodeId, NodeAction node) {
+        NodeAction action = tracing.span(nodeId, metrics.time(nodeId, node));
+        return state -> {
+            GraphRunContext context = state.<GraphRunContext>value(GraphRunContext.STATE_KEY).orElse(null);
+            if (context == null || !context.traceSampled()) {
+                try {
+                    return action.apply(state);
+                } catch (Exception e) {
+                    traceError(context, nodeId, state, e);
+                    throw e;
+                }
+            }
+
+            // 节点执行期间状态不会被引擎修改，执行前的只读视图即可作为比较基准
+            Map<String, Object> before = state.data();
+            long start = System.nanoTime();
+            Map<String, Object> partialState;
+            try {
+                partialState = action.apply(state);
+            } catch (Exception e) {
+                traceError(context, nodeId, state, e);
+                throw e;
+            }
+            log.info("[{}] 节点 {} 完成，耗时 {}ms，状态变更: {}",
+                    context, nodeId, (System.nanoTime() - start) / 1_000_000, new StateDiff(before, partialState));
+            return partialState;
+        };
+    }
+
+    /**
+     * 包装响应式节点，与 {@link #trace(String, NodeAction)} 相同，耗时统计到 Mono 完成为止
+     */
+    public ReactiveNodeAction traceReactive(String nodeId, ReactiveNodeAction node) {
+        ReactiveNodeAction action = tracing.spanReactive(nodeId, metrics.timeReactive(nodeId, node));
+        return state -> {
+            GraphRunContext context = state.<GraphRunContext>value(GraphRunContext.STATE_KEY).orElse(null);
+            Mono<Map<String, Object>> result = Mono.defer(() -> action.applyReactive(state))
+                    .doOnError(e -> traceError(context, nodeId, state, e));
+            if (context == null || !context.traceSampled()) {
+                return result;
+            }
+            Map<String, Object> before = state.data();
+            long start = System.nanoTime();
+            return result.doOnNext(partialState -> log.info("[{}] 节点 {} 完成，耗时 {}ms，状态变更: {}",
+                    context, nodeId, (System.nanoTime() - start) / 1_000_000, new StateDiff(before, partialState)));
+        };
+    }
+
+    /**
+     * 包装条件边，在抽中的请求中记录路由决策
+     */
+    public EdgeAction traceRoute(String edgeId, EdgeAction edge) {
+        EdgeAction action = metrics.route(edgeId, edge);
+        return state -> {
+            String decision = action.apply(state);
+            tracing.route(state, edgeId, decision);
+            GraphRunContext context = state.<GraphRunContext>value(GraphRunContext.STATE_KEY).orElse(null);
+            if (context != null && context.traceSampled()) {
+                log.info("[{}] 条件边 {} 路由到 {}", context, edgeId, decision);
+            }
+            return decision;
+        };
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sample_rate", sampleRate);
+        stats.put("sampled_runs", sampledRuns.get());
+        stats.put("error_traces", errorTraces.get());
+        return stats;
+    }
+
+    private void traceError(GraphRunContext context, String nodeId, OverAllState state, Throwable e) {
+        errorTraces.incrementAndGet();
+        log.warn("[{}] 节点 {} 执行失败: {}，执行前状态: {}", context, nodeId, e.toString(), new StateSnapshot(state.data()));
+    }
+
+    private static String abbreviate(Object value) {
+        String text = String.valueOf(value);
+        return text.length() <= MAX_VALUE_LENGTH ? text : text.substring(0, MAX_VALUE_LENGTH) + "...(" + text.length() + "字符)";
+    }
+
+    /**
+     * 延迟格式化的状态快照，跳过图内部使用的键
+     */
+    private static final class StateSnapshot {
+        private final Map<String, Object> data;
+
+        StateSnapshot(Map<String, Object> data) {
+            this.data = data;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder snapshot = new StringBuilder("{");
+            data.forEach((key, value) -> {
+                if (key.startsWith(GraphRegistry.INTERNAL_KEY_PREFIX) || AnswerStreamListener.STATE_KEY.equals(key)) {
+                    return;
+                }
+                if (snapshot.length() > 1) {
+                    snapshot.append(", ");
+                }
+                snapshot.append(key).append('=').append(abbreviate(value));
+            });
+            return snapshot.append('}').toString();
+        }
+    }
+
+    /**
+     * 延迟格式化的状态差异，只有日志输出时才会调用 toString
+     */
+    private static final class StateDiff {
+        private final Map<String, Object> before;
+        private final Map<String, Object> partialState;
+
+        StateDiff(Map<String, Object> before, Map<String, Object> partialState) {
+            this.before = before;
+            this.partialState = partialState;
+        }
+
+        @Override
+        public String toString() {
+            if (partialState == null || partialState.isEmpty()) {
+                return "{}";
+            }
+            StringBuilder diff = new StringBuilder("{");
+            partialState.forEach((key, newValue) -> {
+                Object oldValue = before.get(key);
+                if (oldValue == newValue || Objects.equals(oldValue, newValue)) {
+                    return;
+                }
+                if (diff.length() > 1) {
+                    diff.append(", ");
+                }
+                diff.append(key);
+                if (oldValue instanceof List && !(newValue instanceof List)) {
+                    // 只追加的键，节点返回的就是新增元素
+                    diff.append(" += ");
+                } else {
+                    diff.append(": ");
+                    if (oldValue != null) {
+                        diff.append(abbreviate(oldValue)).append(" -> ");
+                    }
+                }
+                diff.append(abbreviate(newValue));
+            });
+            return diff.append('}').toString();
+        }
+    }
+}
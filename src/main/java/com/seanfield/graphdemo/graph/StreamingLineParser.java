@@ -0,0 +1,95 @@
+package com.seanfield.graphdemo.graph;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式行解析器：边接收大模型的 token 流边按行解析 "字段：值" 格式的结构化输出
+ *
+ * <p>所有必需字段都解析完成后立即取消上游订阅，不再等待（也不再为）后续的理由等文本付费。</p>
+ */
+public final class StreamingLineParser {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingLineParser.class);
+
+    private static final String FIELD_SEPARATOR = "：";
+
+    private StreamingLineParser() {
+    }
+
+    /**
+     * 解析 token 流中的字段
+     *
+     * @param tokens         大模型输出的 token 流
+     * @param fieldNames     需要识别的字段名，例如 "意图类型"
+     * @param requiredFields 必需字段，全部解析到后取消上游；流提前结束时返回已解析的部分字段
+     * @return 字段名到去除首尾空白的字段值的映射
+     */
+    public static Mono<Map<String, String>> parseFields(Flux<String> tokens,
+                                                         Collection<String> fieldNames,
+                                                         Collection<String> requiredFields) {
+        return Mono.defer(() -> {
+            LineBuffer buffer = new LineBuffer();
+            Map<String, String> fields = new HashMap<>();
+
+            return tokens
+                    .concatMapIterable(buffer::append)
+                    .concatWith(Mono.fromSupplier(buffer::remainder))
+                    .doOnNext(line -> parseLine(line, fieldNames, fields))
+                    .takeUntil(line -> fields.keySet().containsAll(requiredFields))
+                    .doOnCancel(() -> log.debug("必需字段已解析完成，提前取消上游输出: {}", fields.keySet()))
+                    .then(Mono.fromSupplier(() -> fields));
+        });
+    }
+
+    static void parseLine(String line, Collection<String> fieldNames, Map<String, String> fields) {
+        String trimmed = line.trim();
+        for (String fieldName : fieldNames) {
+            if (trimmed.startsWith(fieldName) && trimmed.startsWith(FIELD_SEPARATOR, fieldName.length())) {
+                fields.put(fieldName, trimmed.substring(fieldName.length() + FIELD_SEPARATOR.length()).trim());
+                return;
+            }
+        }
+    }
+
+    /**
+     * 跨 token 拼接行；只扫描新追加的字符，整体为线性复杂度
+     */
+    private static final class LineBuffer {
+        private final StringBuilder pending = new StringBuilder();
+
+        List<String> append(String token) {
+            int scanFrom = pending.length();
+            pending.append(token);
+
+            List<String> lines = null;
+            int lineStart = 0;
+            for (int i = scanFrom; i < pending.length(); i++) {
+                if (pending.charAt(i) == '\n') {
+                    if (lines == null) {
+                        lines = new ArrayList<>(2);
+                    }
+                    lines.add(pending.substring(lineStart, i));
+                    lineStart = i + 1;
+                }
+            }
+            if (lines == null) {
+                return List.of();
+            }
+            pending.delete(0, lineStart);
+            return lines;
+        }
+
+        String remainder() {
+            return pending.toString();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.seanfield.graphdemo.graph;
+
+import io.micrometer.tracing.Span;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.util.context.Context;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 为大模型调用创建子 span 的聊天模型包装，span 结构见 {@link GraphTracing}
+ *
+ * <p>span 属性：提示词和回答的字符数、流式分片数、首 token 延迟（同时记为 first_token 事件）、是否被提前取消。</p>
+ */
+class TracedChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final GraphTracing tracing;
+
+    TracedChatModel(ChatModel delegate, GraphTracing tracing) {
+        this.delegate = delegate;
+        this.tracing = tracing;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        Span span = start(tracing.parentSpan(Context.empty()), "llm call", prompt);
+        try {
+            ChatResponse response = delegate.call(prompt);
+            span.tag("llm.response.chars", text(response).length());
+            return response;
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.deferContextual(context -> {
+            Span span = start(tracing.parentSpan(context), "llm stream", prompt);
+            if (span.isNoop()) {
+                return delegate.stream(prompt);
+            }
+            long start = System.nanoTime();
+            AtomicInteger chunks = new AtomicInteger();
+            AtomicLong responseChars = new AtomicLong();
+            return delegate.stream(prompt)
+                    .doOnNext(response -> {
+                        if (chunks.getAndIncrement() == 0) {
+                            span.tag("llm.time_to_first_token_ms", (System.nanoTime() - start) / 1_000_000);
+                            span.event("first_token");
+                        }
+                        responseChars.addAndGet(text(response).length());
+                    })
+                    // 与节点 span 相同，在结束信号上直接结束；解析到必需字段后提前取消是正常结束，单独标记
+                    .doOnComplete(() -> end(span, chunks.get(), responseChars.get(), false))
+                    .doOnError(e -> end(span.error(e), chunks.get(), responseChars.get(), false))
+                    .doOnCancel(() -> end(span, chunks.get(), responseChars.get(), true));
+        });
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private Span start(Span parent, String name, Prompt prompt) {
+        Span span = tracing.startChild(parent, name);
+        if (!span.isNoop()) {
+            span.tag("llm.prompt.chars", prompt.getContents().length());
+        }
+        return span;
+    }
+
+    private static void end(Span span, int chunks, long responseChars, boolean cancelled) {
+        span.tag("llm.stream.chunks", chunks);
+        span.tag("llm.response.chars", responseChars);
+        span.tag("llm.cancelled", cancelled);
+        span.end();
+    }
+
+    private static String text(ChatResponse response) {
+        if (response == null || response.getResult() == null || response.getResult().getOutput().getText() == null) {
+            return "";
+        }
+        return response.getResult().getOutput().getText();
+    }
+}
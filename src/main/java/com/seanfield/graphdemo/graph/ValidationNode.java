@@ -23,19 +23,14 @@ public class ValidationNode implements NodeAction {
 
 	@Override
 	public Map<String, Object> apply(OverAllState state) throws Exception {
-		Map<String, Object> input = state.value("input", Map.of());
-		Object queryObj = input.get("query");
+		Object queryObj = ExpandConditionalState.INPUT.get(state).get("query");
 		String query = queryObj == null ? "" : String.valueOf(queryObj).trim();
 
 		boolean ok = query.length() >= this.minQueryLength;
 		String reason = ok ? "" : "查询内容为空或过短";
 
-		HashMap<String, Object> validation = new HashMap<>();
-		validation.put("ok", ok);
-		validation.put("reason", reason);
-
 		HashMap<String, Object> result = new HashMap<>();
-		result.put("validation", validation);
+		ExpandConditionalState.VALIDATION.put(result, new QueryValidation(ok, reason));
 		return result;
 	}
 }
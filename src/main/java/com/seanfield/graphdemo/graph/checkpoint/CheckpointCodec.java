@@ -0,0 +1,365 @@
+package com.seanfield.graphdemo.graph.checkpoint;
+
+import com.alibaba.cloud.ai.graph.checkpoint.Checkpoint;
+import com.seanfield.graphdemo.graph.state.AppendOnlyList;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 检查点的紧凑二进制编码：每个值前写一个类型字节，字符串、数字、布尔、列表和映射直接编码，
+ * 其他可序列化对象才使用 Java 序列化
+ *
+ * <p>以 {@code __} 开头的内部状态键（运行上下文、流式监听器等）不写入检查点，恢复时重新生成；
+ * 既不是基本类型也不可序列化的值同样跳过。</p>
+ *
+ * <p>除完整记录（PUT）外还有增量记录（DELTA）：只写与同一线程上一条记录相比变化的键，
+ * 由上一版本追加得到的 {@link AppendOnlyList}（如 processed_results）只写新增的元素，
+ * 引用未变的值不写；回放时在上一条记录的状态上应用变化。</p>
+ */
+final class CheckpointCodec {
+
+    static final byte PUT = 1;
+    static final byte CLEAR = 2;
+    static final byte DELTA = 3;
+
+    private static final byte SET = 0;
+    private static final byte APPEND = 1;
+    private static final byte REMOVE = 2;
+
+    private static final String INTERNAL_KEY_PREFIX = "__";
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte LIST = 6;
+    private static final byte MAP = 7;
+    private static final byte SERIALIZED = 8;
+
+    private CheckpointCodec() {
+    }
+
+    static Encoded encodePut(String threadId, Checkpoint checkpoint) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = writeHeader(bytes, PUT, threadId, checkpoint);
+        Map<String, Object> state = new HashMap<>();
+        checkpoint.getState().forEach((key, value) -> {
+            if (!key.startsWith(INTERNAL_KEY_PREFIX) && encodable(value)) {
+                state.put(key, value);
+            }
+        });
+        writeValue(out, state);
+        out.flush();
+        return new Encoded(bytes.toByteArray(), state);
+    }
+
+    /**
+     * 编码相对 previous（同一线程上一条记录写入的状态）的增量记录
+     */
+    static Encoded encodeDelta(String threadId, Checkpoint checkpoint, Map<String, Object> previous) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = writeHeader(bytes, DELTA, threadId, checkpoint);
+        Map<String, Object> state = new HashMap<>();
+        ByteArrayOutputStream changes = new ByteArrayOutputStream(128);
+        DataOutputStream changesOut = new DataOutputStream(changes);
+        int count = 0;
+        for (Map.Entry<String, Object> entry : checkpoint.getState().entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (key.startsWith(INTERNAL_KEY_PREFIX)) {
+                continue;
+            }
+            Object old = previous.get(key);
+            if (old == value && (value != null || previous.containsKey(key))) {
+                // 引用未变，上一条记录写入时已检查过
+                state.put(key, value);
+                continue;
+            }
+            if (value instanceof AppendOnlyList<?> list && old instanceof List<?> oldList && list.isExtensionOf(oldList)) {
+                List<?> appended = list.subList(oldList.size(), list.size());
+                if (encodable(appended)) {
+                    writeString(changesOut, key);
+                    changesOut.writeByte(APPEND);
+                    changesOut.writeInt(oldList.size());
+                    writeValue(changesOut, appended);
+                    state.put(key, value);
+                    count++;
+                    continue;
+                }
+            } else if (encodable(value)) {
+                if (!isScalar(value) || !value.equals(old)) {
+                    writeString(changesOut, key);
+                    changesOut.writeByte(SET);
+                    writeValue(changesOut, value);
+                    count++;
+                }
+                state.put(key, value);
+                continue;
+            }
+            if (previous.containsKey(key)) {
+                // 值变得不可编码，回放时不能保留旧值
+                writeString(changesOut, key);
+                changesOut.writeByte(REMOVE);
+                count++;
+            }
+        }
+        for (String key : previous.keySet()) {
+            if (!checkpoint.getState().containsKey(key)) {
+                writeString(changesOut, key);
+                changesOut.writeByte(REMOVE);
+                count++;
+            }
+        }
+        out.writeInt(count);
+        changes.writeTo(out);
+        out.flush();
+        return new Encoded(bytes.toByteArray(), state);
+    }
+
+    static byte[] encodeClear(String threadId) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(CLEAR);
+        writeString(out, threadId);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 解码一条记录；CLEAR 记录返回的检查点为 null
+     *
+     * @param previous 按线程 ID 查询上一条记录回放出的检查点，解码增量记录时使用
+     */
+    static Decoded decode(byte[] payload, Function<String, Checkpoint> previous) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        String threadId = readString(in);
+        if (type == CLEAR) {
+            return new Decoded(threadId, null);
+        }
+        if (type != PUT && type != DELTA) {
+            throw new IOException("未知的检查点记录类型: " + type);
+        }
+        String id = readString(in);
+        String nodeId = readString(in);
+        String nextNodeId = readString(in);
+        Map<String, Object> state;
+        if (type == PUT) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> full = (Map<String, Object>) readValue(in);
+            state = full;
+        } else {
+            Checkpoint base = previous.apply(threadId);
+            if (base == null) {
+                throw new IOException("线程 " + threadId + " 的增量记录缺少之前的检查点");
+            }
+            state = new HashMap<>(base.getState());
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                applyChange(in, state);
+            }
+        }
+        Checkpoint checkpoint = Checkpoint.builder().id(id).nodeId(nodeId).nextNodeId(nextNodeId).state(state).build();
+        return new Decoded(threadId, checkpoint);
+    }
+
+    /**
+     * 只读取记录所属的线程 ID
+     */
+    static String threadId(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        in.readByte();
+        return readString(in);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void applyChange(DataInputStream in, Map<String, Object> state) throws IOException {
+        String key = readString(in);
+        byte op = in.readByte();
+        switch (op) {
+            case SET:
+                state.put(key, readValue(in));
+                return;
+            case REMOVE:
+                state.remove(key);
+                return;
+            case APPEND: {
+                int from = in.readInt();
+                List<Object> appended = (List<Object>) readValue(in);
+                Object old = state.get(key);
+                if (!(old instanceof List<?> list) || list.size() != from) {
+                    throw new IOException("键 " + key + " 的追加记录与之前的检查点不连续");
+                }
+                // 回放长循环时后续追加不再复制已有元素
+                state.put(key, AppendOnlyList.copyOf((List<Object>) list).appendAll(appended));
+                return;
+            }
+            default:
+                throw new IOException("未知的检查点变更类型: " + op);
+        }
+    }
+
+    private static DataOutputStream writeHeader(ByteArrayOutputStream bytes, byte type, String threadId,
+                                                Checkpoint checkpoint) throws IOException {
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(type);
+        writeString(out, threadId);
+        writeString(out, checkpoint.getId());
+        writeString(out, checkpoint.getNodeId());
+        writeString(out, checkpoint.getNextNodeId());
+        return out;
+    }
+
+    private static boolean isScalar(Object value) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean;
+    }
+
+    private static boolean encodable(Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return true;
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.stream().allMatch(CheckpointCodec::encodable);
+        }
+        if (value instanceof Map<?, ?> map) {
+            return map.entrySet().stream().allMatch(e -> e.getKey() instanceof String && encodable(e.getValue()));
+        }
+        return value instanceof Serializable;
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String s) {
+            out.writeByte(STRING);
+            writeString(out, s);
+        } else if (value instanceof Integer i) {
+            out.writeByte(INT);
+            out.writeInt(i);
+        } else if (value instanceof Long l) {
+            out.writeByte(LONG);
+            out.writeLong(l);
+        } else if (value instanceof Double d) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(d);
+        } else if (value instanceof Boolean b) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(b);
+        } else if (value instanceof Collection<?> collection) {
+            out.writeByte(LIST);
+            out.writeInt(collection.size());
+            for (Object element : collection) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeString(out, (String) entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else {
+            out.writeByte(SERIALIZED);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+                objectOut.writeObject(value);
+            }
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case BOOLEAN:
+                return in.readBoolean();
+            case LIST: {
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case MAP: {
+                int size = in.readInt();
+                Map<String, Object> map = new HashMap<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    map.put(readString(in), readValue(in));
+                }
+                return map;
+            }
+            case SERIALIZED: {
+                byte[] bytes = in.readNBytes(in.readInt());
+                try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return objectIn.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("检查点中的对象类型不存在: " + e.getMessage(), e);
+                }
+            }
+            default:
+                throw new IOException("未知的检查点值类型: " + type);
+        }
+    }
+
+    // writeUTF 限制 64KB，大模型分析结果可能更长
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+    }
+
+    static final class Encoded {
+        final byte[] payload;
+        /**
+         * 实际写入的状态（已去掉内部键和不可编码的值），作为下一条增量记录的比较基准
+         */
+        final Map<String, Object> state;
+
+        Encoded(byte[] payload, Map<String, Object> state) {
+            this.payload = payload;
+            this.state = state;
+        }
+    }
+
+    static final class Decoded {
+        final String threadId;
+        final Checkpoint checkpoint;
+
+        Decoded(String threadId, Checkpoint checkpoint) {
+            this.threadId = threadId;
+            this.checkpoint = checkpoint;
+        }
+    }
+}
@@ -0,0 +1,547 @@
+package com.seanfield.graphdemo.graph.checkpoint;
+
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.checkpoint.BaseCheckpointSaver;
+import com.alibaba.cloud.ai.graph.checkpoint.Checkpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * 基于本地文件的检查点存储：每个超步后的检查点追加写入日志文件，进程重启后按线程 ID 从最新检查点恢复
+ *
+ * <p>日志记录格式为 [长度][CRC32][内容]，内容由 {@link CheckpointCodec} 编码。调用线程只替换内存中的最新检查点并入队，
+ * 编码和写入都在后台写线程上：一次取出队列中的全部检查点写入后只调用一次 fsync（组提交），fsync 期间到达的进入下一批，
+ * 因此检查点不会增加节点之间的等待时间；代价是进程崩溃时可能丢失最后一批尚未 fsync 的检查点。
+ * 检查点的状态是引擎复制出的映射，其中的值在写入后不会被原地修改，所以可以在写线程上编码。</p>
+ *
+ * <p>同一线程的后续检查点写为增量记录，只包含变化的键和只追加列表新增的元素，每个超步的写入量不随已处理的结果增长；
+ * 增量累计超过上一条完整记录的大小时重新写一条完整记录。启动时顺序回放日志，遇到长度或校验和不完整的尾部记录即截断；
+ * 写入失败时把日志截回失败前的位置，并在下一批重新写入受影响线程的完整检查点，避免残缺记录之后的有效记录在回放时被丢弃。
+ * 日志超过压缩阈值且超过有效数据的两倍时，只把每个线程的最新检查点写入新文件并原子替换；
+ * 线程执行完成后调用 {@link #clear} 写入删除记录。</p>
+ *
+ * <p>恢复只需要每个线程的最新检查点，内存中和回放时都只保留最新的一个。</p>
+ *
+ * <p>未指定线程 ID 的执行不保存检查点。未启用时不创建文件和线程，相当于不保存任何检查点。</p>
+ */
+public class FileCheckpointSaver implements BaseCheckpointSaver, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(FileCheckpointSaver.class);
+
+    static final String LOG_FILE = "checkpoints.log";
+    private static final int HEADER_BYTES = 8;
+
+    private final boolean enabled;
+    private final Path logFile;
+    private final long compactionThresholdBytes;
+    private final Map<String, Checkpoint> checkpointsByThread = new ConcurrentHashMap<>();
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private FileChannel channel;
+    private volatile boolean closed;
+
+    // 以下状态只由写线程访问：每个线程上一条写入的记录（下一条增量记录的比较基准，也用于压缩），
+    // 写入失败后需要重新写入完整检查点的线程，以及日志是否需要截回 logBytes
+    private final Map<String, Persisted> persisted = new LinkedHashMap<>();
+    private final Set<String> resync = new LinkedHashSet<>();
+    private boolean truncatePending;
+    private long liveBytes;
+
+    private final AtomicLong logBytes = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+    private final AtomicLong clears = new AtomicLong();
+    private final AtomicLong writtenRecords = new AtomicLong();
+    private final AtomicLong deltaRecords = new AtomicLong();
+    private final AtomicLong putNanos = new AtomicLong();
+    private final AtomicLong fsyncs = new AtomicLong();
+    private final AtomicLong fsyncNanos = new AtomicLong();
+    private final AtomicLong encodeNanos = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+    private final AtomicLong recoveredThreads = new AtomicLong();
+
+    /**
+     * @param directory                日志文件所在目录，不存在时创建
+     * @param compactionThresholdBytes 日志文件超过该大小后才考虑压缩
+     */
+    public FileCheckpointSaver(boolean enabled, Path directory, long compactionThresholdBytes) throws IOException {
+        this.enabled = enabled;
+        this.logFile = directory.resolve(LOG_FILE);
+        this.compactionThresholdBytes = compactionThresholdBytes;
+        if (!enabled) {
+            this.writer = null;
+            return;
+        }
+        Files.createDirectories(directory);
+        recover();
+        this.channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.writer = new Thread(this::writeLoop, "checkpoint-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * 只保留每个线程的最新检查点，返回的集合最多一个元素
+     */
+    @Override
+    public Collection<Checkpoint> list(RunnableConfig config) {
+        return config.threadId().map(checkpointsByThread::get)
+                .<Collection<Checkpoint>>map(List::of)
+                .orElse(List.of());
+    }
+
+    @Override
+    public Optional<Checkpoint> get(RunnableConfig config) {
+        Optional<Checkpoint> latest = config.threadId().map(checkpointsByThread::get);
+        if (config.checkPointId().isPresent()) {
+            String id = config.checkPointId().get();
+            return latest.filter(checkpoint -> checkpoint.getId().equals(id));
+        }
+        return latest;
+    }
+
+    @Override
+    public RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) throws Exception {
+        if (!enabled || config.threadId().isEmpty()) {
+            return config;
+        }
+        String threadId = config.threadId().get();
+        long start = System.nanoTime();
+        if (config.checkPointId().isPresent()) {
+            String id = config.checkPointId().get();
+            checkpointsByThread.compute(threadId, (thread, latest) -> {
+                if (latest == null || !latest.getId().equals(id)) {
+                    throw new NoSuchElementException(String.format("Checkpoint with id %s not found!", id));
+                }
+                return checkpoint;
+            });
+        } else {
+            checkpointsByThread.put(threadId, checkpoint);
+        }
+        enqueue(new Record(threadId, checkpoint));
+        putNanos.addAndGet(System.nanoTime() - start);
+        puts.incrementAndGet();
+        return config.checkPointId().isPresent() ? config : RunnableConfig.builder(config).checkPointId(checkpoint.getId()).build();
+    }
+
+    /**
+     * 删除线程的全部检查点，执行成功完成后调用
+     */
+    @Override
+    public boolean clear(RunnableConfig config) {
+        if (!enabled || config.threadId().isEmpty()) {
+            return false;
+        }
+        String threadId = config.threadId().get();
+        boolean existed = checkpointsByThread.remove(threadId) != null;
+        if (existed) {
+            clears.incrementAndGet();
+            enqueue(new Record(threadId, null));
+        }
+        return existed;
+    }
+
+    /**
+     * 等待此前写入的检查点全部 fsync 到磁盘
+     */
+    public void flush() throws InterruptedException {
+        if (!enabled || closed) {
+            return;
+        }
+        CompletableFuture<Void> barrier = new CompletableFuture<>();
+        queue.add(barrier);
+        try {
+            barrier.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("检查点写入失败", e.getCause());
+        }
+    }
+
+    /**
+     * 有检查点（即尚未执行完成）的线程 ID
+     */
+    public List<String> pendingThreads() {
+        return new ArrayList<>(checkpointsByThread.keySet());
+    }
+
+    public Map<String, Object> stats() {
+        long syncCount = fsyncs.get();
+        long putCount = puts.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("log_file", logFile.toString());
+        stats.put("log_bytes", logBytes.get());
+        stats.put("pending_threads", checkpointsByThread.size());
+        stats.put("recovered_threads", recoveredThreads.get());
+        stats.put("checkpoints_written", putCount);
+        stats.put("threads_cleared", clears.get());
+        stats.put("fsyncs", syncCount);
+        // 组提交：平均每次 fsync 落盘的记录数
+        stats.put("records_per_fsync", syncCount == 0 ? 0.0 : (double) writtenRecords.get() / syncCount);
+        stats.put("avg_fsync_time_ms", syncCount == 0 ? 0.0 : fsyncNanos.get() / 1_000_000.0 / syncCount);
+        // 调用线程上只有替换内存中的最新检查点和入队，编码在写线程上
+        stats.put("avg_put_time_us", putCount == 0 ? 0.0 : putNanos.get() / 1_000.0 / putCount);
+        stats.put("avg_encode_time_us", putCount == 0 ? 0.0 : encodeNanos.get() / 1_000.0 / putCount);
+        stats.put("delta_records", deltaRecords.get());
+        stats.put("compactions", compactions.get());
+        stats.put("write_failures", writeFailures.get());
+        return stats;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (!enabled || closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        writer.interrupt();
+        writer.join();
+    }
+
+    private void enqueue(Record record) {
+        if (closed) {
+            log.warn("检查点存储已关闭，丢弃线程 {} 的检查点", record.threadId);
+            return;
+        }
+        queue.add(record);
+    }
+
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>();
+        try {
+            while (!closed) {
+                batch.add(queue.take());
+                // fsync 期间到达的记录都在队列里，一次取出合并为一批
+                queue.drainTo(batch);
+                writeBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // 关闭
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("关闭检查点日志失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void writeBatch(List<Object> batch) {
+        List<CompletableFuture<Void>> barriers = new ArrayList<>();
+        Set<String> touched = new LinkedHashSet<>();
+        for (Object item : batch) {
+            if (item instanceof Record record) {
+                // 写入中途失败时，本批尚未写到的线程同样需要重新写入
+                touched.add(record.threadId);
+            } else {
+                @SuppressWarnings("unchecked")
+                CompletableFuture<Void> barrier = (CompletableFuture<Void>) item;
+                barriers.add(barrier);
+            }
+        }
+        long goodOffset = logBytes.get();
+        try {
+            if (truncatePending) {
+                repair();
+            }
+            int records = rewriteResync(touched);
+            for (Object item : batch) {
+                if (item instanceof Record record) {
+                    append(record);
+                    records++;
+                }
+            }
+            if (records > 0) {
+                long start = System.nanoTime();
+                channel.force(false);
+                fsyncNanos.addAndGet(System.nanoTime() - start);
+                fsyncs.incrementAndGet();
+                writtenRecords.addAndGet(records);
+            }
+            resync.clear();
+        } catch (IOException e) {
+            writeFailures.incrementAndGet();
+            log.error("写入检查点日志失败，截回 {} 字节处，下一批重新写入 {} 个线程的检查点", goodOffset, touched.size(), e);
+            rollback(goodOffset, touched);
+            barriers.forEach(barrier -> barrier.completeExceptionally(e));
+            return;
+        }
+        barriers.forEach(barrier -> barrier.complete(null));
+        try {
+            maybeCompact();
+        } catch (IOException e) {
+            // 本批已经落盘，压缩失败只是日志暂时偏大
+            log.warn("压缩检查点日志失败，继续追加原日志: {}", e.toString());
+            truncatePending = !channel.isOpen();
+        }
+    }
+
+    /**
+     * 撤销失败批次：日志截回写入前的位置，受影响线程的比较基准作废，下一批写入其完整检查点（或删除记录）
+     */
+    private void rollback(long goodOffset, Set<String> touched) {
+        logBytes.set(goodOffset);
+        for (String threadId : touched) {
+            untrack(threadId);
+            resync.add(threadId);
+        }
+        truncatePending = true;
+        try {
+            repair();
+        } catch (IOException e) {
+            // 下一批写入前重试
+            log.warn("截断检查点日志失败: {}", e.toString());
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // 下一批重新打开
+            }
+        }
+    }
+
+    private void repair() throws IOException {
+        if (!channel.isOpen()) {
+            channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        channel.truncate(logBytes.get());
+        truncatePending = false;
+    }
+
+    private int rewriteResync(Set<String> touched) throws IOException {
+        for (String threadId : resync) {
+            touched.add(threadId);
+            // 写入内存中的最新状态，它可能比队列中尚未写入的检查点更新，后续记录仍以实际写入的内容为基准
+            append(new Record(threadId, checkpointsByThread.get(threadId)));
+        }
+        return resync.size();
+    }
+
+    private void append(Record record) throws IOException {
+        if (record.checkpoint == null) {
+            byte[] payload = CheckpointCodec.encodeClear(record.threadId);
+            write(frame(payload));
+            logBytes.addAndGet(HEADER_BYTES + payload.length);
+            untrack(record.threadId);
+            return;
+        }
+        Persisted previous = persisted.get(record.threadId);
+        // 增量累计超过上一条完整记录后重写完整记录，回放时需要读取的字节数不超过完整记录的两倍
+        boolean delta = previous != null && previous.chainBytes - previous.snapshotBytes < previous.snapshotBytes;
+        long start = System.nanoTime();
+        CheckpointCodec.Encoded encoded = delta
+                ? CheckpointCodec.encodeDelta(record.threadId, record.checkpoint, previous.state)
+                : CheckpointCodec.encodePut(record.threadId, record.checkpoint);
+        encodeNanos.addAndGet(System.nanoTime() - start);
+        write(frame(encoded.payload));
+        long bytes = HEADER_BYTES + encoded.payload.length;
+        logBytes.addAndGet(bytes);
+        if (delta) {
+            deltaRecords.incrementAndGet();
+            track(record.threadId, new Persisted(record.checkpoint, encoded.state, previous.snapshotBytes, previous.chainBytes + bytes));
+        } else {
+            track(record.threadId, new Persisted(record.checkpoint, encoded.state, bytes, bytes));
+        }
+    }
+
+    /**
+     * 向日志追加一条完整的记录帧
+     */
+    void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void track(String threadId, Persisted record) {
+        untrack(threadId);
+        persisted.put(threadId, record);
+        liveBytes += record.chainBytes;
+    }
+
+    private void untrack(String threadId) {
+        Persisted previous = persisted.remove(threadId);
+        if (previous != null) {
+            liveBytes -= previous.chainBytes;
+        }
+    }
+
+    private void maybeCompact() throws IOException {
+        long size = logBytes.get();
+        if (size < compactionThresholdBytes || size < 2 * liveBytes) {
+            return;
+        }
+        long start = System.nanoTime();
+        Path compacted = logFile.resolveSibling(LOG_FILE + ".compact");
+        // 压缩后每个线程只有一条完整记录
+        Map<String, Persisted> snapshots = new LinkedHashMap<>();
+        long compactedBytes = 0;
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Map.Entry<String, Persisted> entry : persisted.entrySet()) {
+                Checkpoint checkpoint = entry.getValue().checkpoint;
+                CheckpointCodec.Encoded encoded = CheckpointCodec.encodePut(entry.getKey(), checkpoint);
+                ByteBuffer buffer = frame(encoded.payload);
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                long bytes = HEADER_BYTES + encoded.payload.length;
+                snapshots.put(entry.getKey(), new Persisted(checkpoint, encoded.state, bytes, bytes));
+                compactedBytes += bytes;
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(compacted, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        persisted.putAll(snapshots);
+        liveBytes = compactedBytes;
+        logBytes.set(compactedBytes);
+        channel = FileChannel.open(logFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        compactions.incrementAndGet();
+        log.info("检查点日志压缩完成: {}KB -> {}KB，线程数={}，耗时 {}ms",
+                size / 1024, compactedBytes / 1024, persisted.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void recover() throws IOException {
+        if (!Files.exists(logFile)) {
+            return;
+        }
+        long start = System.nanoTime();
+        long validBytes = 0;
+        int records = 0;
+        try (FileChannel in = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long size = in.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (validBytes + HEADER_BYTES <= size) {
+                header.clear();
+                in.read(header, validBytes);
+                header.flip();
+                int length = header.getInt();
+                int crc = header.getInt();
+                if (length <= 0 || validBytes + HEADER_BYTES + length > size) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                in.read(payload, validBytes + HEADER_BYTES);
+                if (crc32(payload.array()) != crc) {
+                    break;
+                }
+                apply(payload.array());
+                validBytes += HEADER_BYTES + length;
+                records++;
+            }
+            if (validBytes < size) {
+                log.warn("检查点日志尾部有 {} 字节不完整的记录（写入时进程退出），已截断", size - validBytes);
+            }
+        }
+        if (validBytes < Files.size(logFile)) {
+            try (FileChannel truncate = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                truncate.truncate(validBytes);
+            }
+        }
+        logBytes.set(validBytes);
+        recoveredThreads.set(checkpointsByThread.size());
+        log.info("检查点日志回放完成: 记录数={}，未完成的线程数={}，耗时 {}ms",
+                records, checkpointsByThread.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void apply(byte[] payload) throws IOException {
+        CheckpointCodec.Decoded decoded;
+        try {
+            decoded = CheckpointCodec.decode(payload, checkpointsByThread::get);
+        } catch (IOException e) {
+            // 正常写入不会出现，丢弃该线程而不是截断之后其他线程的有效记录
+            log.warn("检查点记录无法回放，丢弃该线程的检查点: {}", e.getMessage());
+            decoded = null;
+        }
+        if (decoded == null || decoded.checkpoint == null) {
+            String threadId = decoded == null ? CheckpointCodec.threadId(payload) : decoded.threadId;
+            checkpointsByThread.remove(threadId);
+            untrack(threadId);
+            return;
+        }
+        checkpointsByThread.put(decoded.threadId, decoded.checkpoint);
+        long bytes = HEADER_BYTES + payload.length;
+        Persisted previous = persisted.get(decoded.threadId);
+        Map<String, Object> state = decoded.checkpoint.getState();
+        if (payload[0] == CheckpointCodec.DELTA && previous != null) {
+            track(decoded.threadId, new Persisted(decoded.checkpoint, state, previous.snapshotBytes, previous.chainBytes + bytes));
+        } else {
+            track(decoded.threadId, new Persisted(decoded.checkpoint, state, bytes, bytes));
+        }
+    }
+
+    private static ByteBuffer frame(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        buffer.putInt(payload.length).putInt(crc32(payload)).put(payload).flip();
+        return buffer;
+    }
+
+    private static int crc32(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static final class Record {
+        final String threadId;
+        /**
+         * 为 null 时表示删除该线程的检查点
+         */
+        final Checkpoint checkpoint;
+
+        Record(String threadId, Checkpoint checkpoint) {
+            this.threadId = threadId;
+            this.checkpoint = checkpoint;
+        }
+    }
+
+    private static final class Persisted {
+        final Checkpoint checkpoint;
+        final Map<String, Object> state;
+        /**
+         * 最近一条完整记录的字节数
+         */
+        final long snapshotBytes;
+        /**
+         * 从最近一条完整记录起回放该线程需要读取的字节数
+         */
+        final long chainBytes;
+
+        Persisted(Checkpoint checkpoint, Map<String, Object> state, long snapshotBytes, long chainBytes) {
+            this.checkpoint = checkpoint;
+            this.state = state;
+            this.snapshotBytes = snapshotBytes;
+            this.chainBytes = chainBytes;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.seanfield.graphdemo.graph.state;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 只追加的持久化列表：每个版本都是不可变视图，所有版本共享同一份分块存储
+ *
+ * <p>追加时只在共享存储的末尾写入新元素并返回长度加一的新视图，不复制已有元素；
+ * 存储按 32 个元素分块，扩容只新增块，不搬移旧数据，因此每次追加的内存分配量与列表长度无关。
+ * 如果从旧版本上再次追加（版本分叉），才会把该版本的前缀复制到新存储。</p>
+ */
+public final class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final int CHUNK_SHIFT = 5;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final transient Storage storage;
+    private final int size;
+
+    private AppendOnlyList(Storage storage, int size) {
+        this.storage = storage;
+        this.size = size;
+    }
+
+    public static <E> AppendOnlyList<E> empty() {
+        // 空列表的存储同样会被追加占用，每次返回新的空存储以免不同工作流之间互相分叉
+        return new AppendOnlyList<>(new Storage(), 0);
+    }
+
+    public static <E> AppendOnlyList<E> copyOf(Collection<? extends E> elements) {
+        if (elements instanceof AppendOnlyList<?> list) {
+            @SuppressWarnings("unchecked")
+            AppendOnlyList<E> existing = (AppendOnlyList<E>) list;
+            return existing;
+        }
+        return AppendOnlyList.<E>empty().appendAll(elements);
+    }
+
+    /**
+     * 返回追加一个元素后的新版本，当前版本保持不变
+     */
+    public AppendOnlyList<E> append(E element) {
+        Storage target = claim(1);
+        target.write(size, element);
+        return new AppendOnlyList<>(target, size + 1);
+    }
+
+    /**
+     * 返回追加多个元素后的新版本，当前版本保持不变
+     */
+    public AppendOnlyList<E> appendAll(Collection<? extends E> elements) {
+        int count = elements.size();
+        if (count == 0) {
+            return this;
+        }
+        Storage target = claim(count);
+        int index = size;
+        for (E element : elements) {
+            target.write(index++, element);
+        }
+        return new AppendOnlyList<>(target, size + count);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return (E) storage.read(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 当前版本是否由 previous 追加得到（previous 是当前版本的前缀），不比较元素，耗时与列表长度无关
+     *
+     * <p>同一份存储的每个槽位只会被写入一次，共享存储且不更长的版本必然是前缀；
+     * 返回 false 不代表不是前缀（例如分叉后复制到了新存储）。</p>
+     */
+    public boolean isExtensionOf(List<?> previous) {
+        return previous instanceof AppendOnlyList<?> list && list.storage == storage && list.size <= size;
+    }
+
+    /**
+     * 占用当前版本末尾的 count 个槽位；末尾已被其他版本占用时复制前缀到新存储
+     */
+    private Storage claim(int count) {
+        if (storage.claimed.compareAndSet(size, size + count)) {
+            return storage;
+        }
+        Storage fork = new Storage();
+        for (int i = 0; i < size; i++) {
+            fork.write(i, storage.read(i));
+        }
+        fork.claimed.set(size + count);
+        return fork;
+    }
+
+    @Serial
+    private Object writeReplace() {
+        return new SerializedForm(new ArrayList<>(this));
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("SerializedForm required");
+    }
+
+    private static final class Storage {
+        private final AtomicInteger claimed = new AtomicInteger();
+        private volatile Object[][] chunks = new Object[4][];
+
+        Object read(int index) {
+            return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        void write(int index, Object element) {
+            int chunkIndex = index >>> CHUNK_SHIFT;
+            Object[][] current = chunks;
+            if (chunkIndex >= current.length) {
+                // 只复制块目录（长度为元素数的 1/32），块本身继续共享
+                Object[][] grown = new Object[current.length << 1][];
+                System.arraycopy(current, 0, grown, 0, current.length);
+                current = grown;
+            }
+            if (current[chunkIndex] == null) {
+                current[chunkIndex] = new Object[CHUNK_SIZE];
+            }
+            current[chunkIndex][index & CHUNK_MASK] = element;
+            chunks = current;
+        }
+    }
+
+    private static final class SerializedForm implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final List<Object> elements;
+
+        SerializedForm(List<Object> elements) {
+            this.elements = elements;
+        }
+
+        @Serial
+        private Object readResolve() {
+            return AppendOnlyList.copyOf(elements);
+        }
+    }
+}
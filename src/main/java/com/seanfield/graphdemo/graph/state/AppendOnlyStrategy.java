@@ -0,0 +1,43 @@
+package com.seanfield.graphdemo.graph.state;
+
+import com.alibaba.cloud.ai.graph.KeyStrategy;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 只追加的合并策略：节点只需返回新增的元素（或元素集合），由引擎追加到 {@link AppendOnlyList} 末尾
+ *
+ * <p>与框架自带的 AppendStrategy 不同，不会原地修改旧列表，也不会复制或去重整个列表，
+ * 已返回给调用方的状态快照保持不变。</p>
+ */
+public class AppendOnlyStrategy implements KeyStrategy {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object apply(Object oldValue, Object newValue) {
+        if (newValue == null) {
+            return oldValue;
+        }
+
+        // 引擎逐节点合并状态时（OverAllState#updateState）传入的旧值是 Optional
+        if (oldValue instanceof Optional<?> optional) {
+            oldValue = optional.orElse(null);
+        }
+
+        AppendOnlyList<Object> current;
+        if (oldValue instanceof AppendOnlyList) {
+            current = (AppendOnlyList<Object>) oldValue;
+        } else if (oldValue instanceof List) {
+            current = AppendOnlyList.copyOf((List<Object>) oldValue);
+        } else {
+            current = AppendOnlyList.empty();
+        }
+
+        if (newValue instanceof Collection) {
+            return current.appendAll((Collection<Object>) newValue);
+        }
+        return current.append(newValue);
+    }
+}
@@ -0,0 +1,55 @@
+package com.seanfield.graphdemo.graph.state;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.OverAllStateFactory;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 工作流的状态模式：列出全部 {@link StateSlot}，编译状态图时据此注册每个键的合并策略
+ *
+ * <p>每个工作流只在一处登记状态键，节点和条件边引用同一组常量，键名拼写错误在编译期即可发现。</p>
+ */
+public final class StateSchema {
+
+    private final String name;
+    private final List<StateSlot<?>> slots;
+
+    private StateSchema(String name, List<StateSlot<?>> slots) {
+        this.name = name;
+        this.slots = slots;
+    }
+
+    public static StateSchema of(String name, StateSlot<?>... slots) {
+        Set<String> keys = new HashSet<>();
+        for (StateSlot<?> slot : slots) {
+            if (!keys.add(slot.key())) {
+                throw new IllegalArgumentException("状态模式 " + name + " 中重复的状态键: " + slot.key());
+            }
+        }
+        return new StateSchema(name, List.of(slots));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public List<StateSlot<?>> slots() {
+        return slots;
+    }
+
+    /**
+     * 创建注册了全部状态键合并策略的状态工厂
+     */
+    public OverAllStateFactory stateFactory() {
+        return () -> {
+            OverAllState state = new OverAllState();
+            for (StateSlot<?> slot : slots) {
+                state.registerKeyAndStrategy(slot.key(), slot.strategy());
+            }
+            return state;
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package com.seanfield.graphdemo.graph.state;
+
+import com.alibaba.cloud.ai.graph.KeyStrategy;
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类型化的状态键：键名、值类型、默认值和合并策略在 {@link StateSchema} 中登记一次，节点按类型读写
+ *
+ * <p>引擎仍以键名保存状态，读取是一次字符串键查找；值本身是不可变的值对象，
+ * 不再为每个节点输出分配嵌套的 HashMap，也不需要 {@code (Integer) map.getOrDefault(...)} 式的强制转换。</p>
+ */
+public final class StateSlot<T> {
+
+    private final String key;
+    private final Class<?> type;
+    private final T defaultValue;
+    private final KeyStrategy strategy;
+
+    private StateSlot(String key, Class<?> type, T defaultValue, KeyStrategy strategy) {
+        this.key = key;
+        this.type = type;
+        this.defaultValue = defaultValue;
+        this.strategy = strategy;
+    }
+
+    /**
+     * 使用替换策略的状态键
+     */
+    public static <T> StateSlot<T> of(String key, Class<T> type, T defaultValue) {
+        return new StateSlot<>(key, type, defaultValue, new ReplaceStrategy());
+    }
+
+    public static <T> StateSlot<List<T>> list(String key, KeyStrategy strategy) {
+        return new StateSlot<>(key, List.class, List.of(), strategy);
+    }
+
+    public static <V> StateSlot<Map<String, V>> map(String key) {
+        return new StateSlot<>(key, Map.class, Map.of(), new ReplaceStrategy());
+    }
+
+    public String key() {
+        return key;
+    }
+
+    KeyStrategy strategy() {
+        return strategy;
+    }
+
+    /**
+     * 读取状态值，不存在时返回默认值；类型不符说明有节点绕过了状态键写入，直接报错
+     */
+    public T get(OverAllState state) {
+        return get(state.data());
+    }
+
+    /**
+     * 从图执行结果或缓存的状态数据中读取
+     */
+    @SuppressWarnings("unchecked")
+    public T get(Map<String, Object> data) {
+        Object value = data.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!type.isInstance(value)) {
+            throw new IllegalStateException(String.format("状态键 %s 的值类型应为 %s，实际为 %s",
+                    key, type.getSimpleName(), value.getClass().getName()));
+        }
+        return (T) value;
+    }
+
+    /**
+     * 写入节点返回的部分状态
+     */
+    public void put(Map<String, Object> partialState, T value) {
+        partialState.put(key, value);
+    }
+
+    @Override
+    public String toString() {
+        return key + ":" + type.getSimpleName();
+    }
+}
@@ -0,0 +1,207 @@
+package com.seanfield.graphdemo.intent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 本地意图分类器：字符 n-gram 特征上的多分类逻辑回归（softmax）
+ *
+ * <p>单字和相邻二字组合直接从字符串中逐字计算哈希桶，不分词、不创建中间字符串，
+ * 一次分类只需扫描一遍问题文本并读取对应的权重，耗时在微秒级。
+ * 特征按出现次数计数，再按特征数的平方根缩放，长短问题的得分处于同一量级。
+ * 训练完成后只读，可被多个线程同时使用。</p>
+ */
+public final class IntentClassifier {
+
+    private static final int DEFAULT_BUCKETS = 1 << 14;
+
+    private final List<String> intentTypes;
+    private final int classes;
+    private final int bucketMask;
+    // 按 [桶][类别] 连续存放，同一特征的各类别权重在同一缓存行
+    private final float[] weights;
+    private final float[] bias;
+    private final int trainingExamples;
+
+    private IntentClassifier(List<String> intentTypes, int buckets, float[] weights, float[] bias, int trainingExamples) {
+        this.intentTypes = intentTypes;
+        this.classes = intentTypes.size();
+        this.bucketMask = buckets - 1;
+        this.weights = weights;
+        this.bias = bias;
+        this.trainingExamples = trainingExamples;
+    }
+
+    /**
+     * 使用默认参数训练：16384 个哈希桶，30 轮随机梯度下降
+     */
+    public static IntentClassifier train(List<IntentExample> examples) {
+        return train(examples, DEFAULT_BUCKETS, 30, 0.5, 1e-5);
+    }
+
+    /**
+     * @param buckets      哈希桶数，必须是 2 的幂
+     * @param epochs       训练轮数
+     * @param learningRate 学习率
+     * @param l2           L2 正则系数
+     */
+    public static IntentClassifier train(List<IntentExample> examples, int buckets, int epochs, double learningRate, double l2) {
+        if (Integer.bitCount(buckets) != 1) {
+            throw new IllegalArgumentException("buckets must be a power of two");
+        }
+        if (examples.isEmpty()) {
+            throw new IllegalArgumentException("意图样本不能为空");
+        }
+        List<String> intentTypes = IntentTrainingData.INTENT_TYPES;
+        int classes = intentTypes.size();
+        float[] weights = new float[buckets * classes];
+        float[] bias = new float[classes];
+
+        List<int[]> features = new ArrayList<>(examples.size());
+        int[] labels = new int[examples.size()];
+        for (int i = 0; i < examples.size(); i++) {
+            features.add(features(examples.get(i).question(), buckets - 1));
+            labels[i] = intentTypes.indexOf(examples.get(i).intentType());
+        }
+
+        List<Integer> order = new ArrayList<>(examples.size());
+        for (int i = 0; i < examples.size(); i++) {
+            order.add(i);
+        }
+        Random random = new Random(42);
+        double[] probabilities = new double[classes];
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            Collections.shuffle(order, random);
+            // 学习率随轮数衰减，后期稳定收敛
+            double rate = learningRate / (1 + epoch * 0.1);
+            for (int index : order) {
+                int[] exampleFeatures = features.get(index);
+                double scale = scale(exampleFeatures.length);
+                for (int k = 0; k < classes; k++) {
+                    double sum = 0;
+                    for (int feature : exampleFeatures) {
+                        sum += weights[feature * classes + k];
+                    }
+                    probabilities[k] = bias[k] + sum * scale;
+                }
+                softmax(probabilities);
+                for (int k = 0; k < classes; k++) {
+                    double gradient = probabilities[k] - (labels[index] == k ? 1 : 0);
+                    bias[k] -= (float) (rate * gradient);
+                    for (int feature : exampleFeatures) {
+                        int w = feature * classes + k;
+                        weights[w] -= (float) (rate * (gradient * scale + l2 * weights[w]));
+                    }
+                }
+            }
+        }
+        return new IntentClassifier(intentTypes, buckets, weights, bias, examples.size());
+    }
+
+    /**
+     * 对问题分类，返回概率最高的意图类型
+     */
+    public IntentPrediction classify(String question) {
+        double[] logits = new double[classes];
+        int featureCount = 0;
+        int previous = -1;
+        for (int i = 0; i < question.length(); i++) {
+            char c = question.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                previous = -1;
+                continue;
+            }
+            c = Character.toLowerCase(c);
+            accumulate(logits, bucket(c, bucketMask));
+            featureCount++;
+            if (previous >= 0) {
+                accumulate(logits, bucket(bigram(previous, c), bucketMask));
+                featureCount++;
+            }
+            previous = c;
+        }
+        double scale = scale(featureCount);
+        for (int k = 0; k < classes; k++) {
+            logits[k] = bias[k] + logits[k] * scale;
+        }
+        softmax(logits);
+        int best = 0;
+        for (int k = 1; k < classes; k++) {
+            if (logits[k] > logits[best]) {
+                best = k;
+            }
+        }
+        return new IntentPrediction(intentTypes.get(best), logits[best]);
+    }
+
+    public int trainingExamples() {
+        return trainingExamples;
+    }
+
+    private void accumulate(double[] logits, int bucket) {
+        int offset = bucket * classes;
+        for (int k = 0; k < classes; k++) {
+            logits[k] += weights[offset + k];
+        }
+    }
+
+    /**
+     * 训练时使用的特征列表，与 {@link #classify(String)} 中逐字计算的特征一致
+     */
+    private static int[] features(String text, int bucketMask) {
+        int[] features = new int[text.length() * 2];
+        int count = 0;
+        int previous = -1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                previous = -1;
+                continue;
+            }
+            c = Character.toLowerCase(c);
+            features[count++] = bucket(c, bucketMask);
+            if (previous >= 0) {
+                features[count++] = bucket(bigram(previous, c), bucketMask);
+            }
+            previous = c;
+        }
+        return Arrays.copyOf(features, count);
+    }
+
+    private static int bigram(int previous, char c) {
+        // 最高位区分二字组合和单字
+        return 0x80000000 | previous << 16 | c;
+    }
+
+    private static int bucket(int feature, int bucketMask) {
+        int h = feature;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h & bucketMask;
+    }
+
+    private static double scale(int featureCount) {
+        return featureCount == 0 ? 0 : 1 / Math.sqrt(featureCount);
+    }
+
+    private static void softmax(double[] values) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : values) {
+            max = Math.max(max, value);
+        }
+        double sum = 0;
+        for (int k = 0; k < values.length; k++) {
+            values[k] = Math.exp(values[k] - max);
+            sum += values[k];
+        }
+        for (int k = 0; k < values.length; k++) {
+            values[k] /= sum;
+        }
+    }
+}
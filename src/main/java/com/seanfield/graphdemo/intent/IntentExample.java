@@ -0,0 +1,23 @@
+package com.seanfield.graphdemo.intent;
+
+/**
+ * 意图分类的标注样本：用户问题和意图类型（FAQ、COMPLEX、COMPLAINT）
+ */
+public class IntentExample {
+
+    private final String question;
+    private final String intentType;
+
+    public IntentExample(String question, String intentType) {
+        this.question = question;
+        this.intentType = intentType;
+    }
+
+    public String question() {
+        return question;
+    }
+
+    public String intentType() {
+        return intentType;
+    }
+}
@@ -0,0 +1,23 @@
+package com.seanfield.graphdemo.intent;
+
+/**
+ * 本地意图分类结果：最可能的意图类型及其概率（0-1）
+ */
+public class IntentPrediction {
+
+    private final String intentType;
+    private final double probability;
+
+    public IntentPrediction(String intentType, double probability) {
+        this.intentType = intentType;
+        this.probability = probability;
+    }
+
+    public String intentType() {
+        return intentType;
+    }
+
+    public double probability() {
+        return probability;
+    }
+}
@@ -0,0 +1,102 @@
+package com.seanfield.graphdemo.intent;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 本地意图分类器的训练样本：内置的示例样本，以及从 JSON Lines 文件加载的标注样本
+ *
+ * <p>文件每行一个 JSON 对象，字段为 question 和 intent（FAQ、COMPLEX 或 COMPLAINT），
+ * 空行和以 # 开头的行会被跳过。可以把线上大模型的识别结果整理成标注文件持续扩充样本。</p>
+ */
+public final class IntentTrainingData {
+
+    public static final List<String> INTENT_TYPES = List.of("FAQ", "COMPLEX", "COMPLAINT");
+
+    private static final Set<String> KNOWN_TYPES = Set.copyOf(INTENT_TYPES);
+
+    private IntentTrainingData() {
+    }
+
+    /**
+     * 内置的示例样本，覆盖示例FAQ的常见问法、需要分析的复杂咨询和明显的投诉
+     */
+    public static List<IntentExample> builtin() {
+        List<IntentExample> examples = new ArrayList<>();
+        add(examples, "FAQ",
+                "价格多少钱", "你们的产品多少钱", "收费标准是什么", "套餐有哪些", "专业版价格是多少", "企业版多少钱一个月",
+                "年付有优惠吗", "费用怎么算", "产品有哪些功能", "你们的产品能做什么", "支持哪些数据源", "有什么特性",
+                "怎么使用", "使用教程在哪里", "操作步骤是什么", "怎么用你们的产品", "怎么注册账号", "怎么导出报告",
+                "客服电话是多少", "怎么联系技术支持", "技术支持时间", "工作时间是几点", "数据安全吗", "数据加密吗",
+                "有没有安全认证", "隐私怎么保护", "可以免费试用吗", "试用期多久", "有免费体验吗", "试用需要绑卡吗");
+        add(examples, "COMPLEX",
+                "我们公司有十个部门，数据分散在不同系统，怎么设计统一的分析方案",
+                "帮我分析一下销售数据下滑的原因", "如何把你们的产品和我们自研的数据仓库集成",
+                "百万级数据量下报表生成很慢，有什么优化建议", "我们想做用户流失预测，应该怎么建模",
+                "对比一下专业版和企业版哪个更适合我们这种五十人的团队", "迁移历史数据时如何保证一致性",
+                "多租户场景下权限应该怎么规划", "能否根据我们的业务流程定制分析模板",
+                "帮我评估一下从现有系统切换过来的成本和风险", "如何设计一个实时数据监控告警方案",
+                "我们的数据有很多缺失值，分析前应该怎么清洗", "请帮我制定一个季度数据分析规划",
+                "接口调用经常超时，可能是什么原因，怎么排查", "怎样结合机器学习做销量预测",
+                "私有化部署需要什么样的服务器架构", "跨部门指标口径不一致应该怎么统一",
+                "帮我写一个分析用户留存的思路", "如何评估营销活动的投入产出比", "大促期间系统扩容该怎么规划");
+        add(examples, "COMPLAINT",
+                "我要投诉", "你们的服务太差了", "产品一直出错，非常不满意", "客服态度很差", "我要退款，太坑了",
+                "等了三天都没人处理，太失望了", "你们这是欺骗消费者", "扣费了但是功能用不了，给个说法",
+                "系统又崩了，严重影响我们的工作", "再不解决我就去消协投诉", "体验很糟糕，建议你们改进",
+                "说好的功能根本没有，虚假宣传", "报告数据全是错的，怎么回事", "反馈了好几次问题都没人理",
+                "客服一直踢皮球，太气人了", "乱收费，我要求退钱", "你们的软件太卡了，根本没法用",
+                "对你们的售后非常不满", "问题拖了一个月还没解决", "我要找你们领导投诉");
+        return examples;
+    }
+
+    public static List<IntentExample> load(Path file) throws IOException {
+        List<IntentExample> examples = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    examples.add(parse(JsonParser.parseString(line).getAsJsonObject()));
+                } catch (RuntimeException e) {
+                    throw new IOException("意图样本文件格式错误: " + file + " 第 " + lineNumber + " 行: " + e.getMessage(), e);
+                }
+            }
+        }
+        return examples;
+    }
+
+    private static IntentExample parse(JsonObject json) {
+        JsonElement question = json.get("question");
+        JsonElement intent = json.get("intent");
+        if (question == null || intent == null) {
+            throw new IllegalArgumentException("缺少 question 或 intent 字段");
+        }
+        String intentType = intent.getAsString().toUpperCase();
+        if (!KNOWN_TYPES.contains(intentType)) {
+            throw new IllegalArgumentException("未知的意图类型: " + intent.getAsString());
+        }
+        return new IntentExample(question.getAsString(), intentType);
+    }
+
+    private static void add(List<IntentExample> examples, String intentType, String... questions) {
+        for (String question : questions) {
+            examples.add(new IntentExample(question, intentType));
+        }
+    }
+}
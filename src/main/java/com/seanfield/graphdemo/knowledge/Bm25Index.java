@@ -0,0 +1,406 @@
+package com.seanfield.graphdemo.knowledge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * BM25 倒排索引：索引文件通过内存映射打开，词典、倒排表、文档长度和原文都在堆外，堆内存占用与语料规模无关
+ *
+ * <p>使用 {@link #build(List, Path)} 从语料生成索引文件（先写临时文件再原子替换），
+ * 使用 {@link #open(Path)} 映射已有的索引文件，打开时不做任何解析。文件布局：
+ * <pre>
+ * 头部      magic, version, 文档数, 词项数, 平均文档长度, 各段偏移
+ * 词典      按词项升序排列的 (long 词项, int 倒排起始下标, int 文档频率)
+ * 倒排表    (int 文档号, int 词频)
+ * 文档长度  int[文档数]
+ * 文档偏移  long[文档数 + 1]
+ * 文档原文  标题、问题、答案、关键词
+ * </pre>
+ * 单个索引文件不能超过 2GB。</p>
+ */
+public final class Bm25Index {
+
+    private static final Logger log = LoggerFactory.getLogger(Bm25Index.class);
+
+    private static final int MAGIC = 0x424D3235;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * 4 + 4 + 8 * 5;
+    private static final int TERM_ENTRY_SIZE = 16;
+    private static final int POSTING_SIZE = 8;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ByteBuffer buffer;
+    private final int docCount;
+    private final int termCount;
+    private final float avgDocLength;
+    private final int termsOffset;
+    private final int postingsOffset;
+    private final int docLengthsOffset;
+    private final int docOffsetsOffset;
+    private final int docDataOffset;
+
+    private Bm25Index(Path file, ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("不是有效的 BM25 索引文件: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("不支持的 BM25 索引版本 " + buffer.getInt(4) + ": " + file);
+        }
+        this.docCount = buffer.getInt(8);
+        this.termCount = buffer.getInt(12);
+        this.avgDocLength = buffer.getFloat(16);
+        this.termsOffset = (int) buffer.getLong(20);
+        this.postingsOffset = (int) buffer.getLong(28);
+        this.docLengthsOffset = (int) buffer.getLong(36);
+        this.docOffsetsOffset = (int) buffer.getLong(44);
+        this.docDataOffset = (int) buffer.getLong(52);
+    }
+
+    /**
+     * 离线构建索引：参数为语料文件（JSON Lines）和输出的索引文件
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("用法: Bm25Index <语料文件.jsonl> <索引文件>");
+            System.exit(1);
+        }
+        build(FaqCorpus.load(Path.of(args[0])), Path.of(args[1]));
+    }
+
+    /**
+     * 映射已有的索引文件
+     */
+    public static Bm25Index open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("BM25 索引文件超过 2GB: " + file);
+            }
+            // 映射在通道关闭后仍然有效
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            Bm25Index index = new Bm25Index(file, buffer);
+            log.info("BM25 索引已映射: {}，文档数={}，词项数={}，文件大小={}KB", file, index.docCount, index.termCount, size / 1024);
+            return index;
+        }
+    }
+
+    /**
+     * 从语料构建索引文件，已存在的同名文件会被原子替换
+     */
+    public static void build(List<FaqEntry> entries, Path file) throws IOException {
+        long start = System.nanoTime();
+        int docCount = entries.size();
+        int[] docLengths = new int[docCount];
+        Map<Long, PostingsBuilder> postings = new HashMap<>();
+        long totalLength = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            long[] terms = NgramTokenizer.terms(entries.get(doc).searchText());
+            docLengths[doc] = terms.length;
+            totalLength += terms.length;
+            Arrays.sort(terms);
+            for (int i = 0; i < terms.length; ) {
+                int j = i;
+                while (j < terms.length && terms[j] == terms[i]) {
+                    j++;
+                }
+                postings.computeIfAbsent(terms[i], term -> new PostingsBuilder()).add(doc, j - i);
+                i = j;
+            }
+        }
+        long[] terms = postings.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        long postingCount = postings.values().stream().mapToLong(p -> p.size).sum();
+
+        List<byte[]> documents = new ArrayList<>(docCount);
+        long docDataSize = 0;
+        for (FaqEntry entry : entries) {
+            byte[] document = encode(entry);
+            documents.add(document);
+            docDataSize += document.length;
+        }
+
+        long termsOffset = HEADER_SIZE;
+        long postingsOffset = termsOffset + (long) terms.length * TERM_ENTRY_SIZE;
+        long docLengthsOffset = postingsOffset + postingCount * POSTING_SIZE;
+        long docOffsetsOffset = docLengthsOffset + (long) docCount * 4;
+        long docDataOffset = docOffsetsOffset + (long) (docCount + 1) * 8;
+        if (docDataOffset + docDataSize > Integer.MAX_VALUE) {
+            throw new IOException("语料过大，BM25 索引文件将超过 2GB");
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(docCount);
+            out.writeInt(terms.length);
+            out.writeFloat(docCount == 0 ? 0f : (float) totalLength / docCount);
+            out.writeLong(termsOffset);
+            out.writeLong(postingsOffset);
+            out.writeLong(docLengthsOffset);
+            out.writeLong(docOffsetsOffset);
+            out.writeLong(docDataOffset);
+
+            int postingStart = 0;
+            for (long term : terms) {
+                PostingsBuilder termPostings = postings.get(term);
+                out.writeLong(term);
+                out.writeInt(postingStart);
+                out.writeInt(termPostings.size);
+                postingStart += termPostings.size;
+            }
+            for (long term : terms) {
+                PostingsBuilder termPostings = postings.get(term);
+                for (int i = 0; i < termPostings.size; i++) {
+                    out.writeInt(termPostings.docs[i]);
+                    out.writeInt(termPostings.frequencies[i]);
+                }
+            }
+            for (int length : docLengths) {
+                out.writeInt(length);
+            }
+            long offset = 0;
+            for (byte[] document : documents) {
+                out.writeLong(offset);
+                offset += document.length;
+            }
+            out.writeLong(offset);
+            for (byte[] document : documents) {
+                out.write(document);
+            }
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        log.info("BM25 索引构建完成: {}，文档数={}，词项数={}，耗时 {}ms",
+                file, docCount, terms.length, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * BM25 排序，返回得分最高的至多 k 个文档，按得分降序
+     */
+    public List<Hit> search(String query, int k) {
+        long[] queryTerms = NgramTokenizer.distinctTerms(query);
+        int[] starts = new int[queryTerms.length];
+        int[] frequencies = new int[queryTerms.length];
+        int expected = 0;
+        for (int i = 0; i < queryTerms.length; i++) {
+            int term = findTerm(queryTerms[i]);
+            if (term >= 0) {
+                int entry = termsOffset + term * TERM_ENTRY_SIZE;
+                starts[i] = buffer.getInt(entry + 8);
+                frequencies[i] = buffer.getInt(entry + 12);
+                expected += frequencies[i];
+            }
+        }
+        if (expected == 0 || k <= 0) {
+            return List.of();
+        }
+
+        ScoreAccumulator scores = new ScoreAccumulator(Math.min(expected, docCount));
+        for (int i = 0; i < queryTerms.length; i++) {
+            int df = frequencies[i];
+            if (df == 0) {
+                continue;
+            }
+            double idf = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+            int posting = postingsOffset + starts[i] * POSTING_SIZE;
+            for (int p = 0; p < df; p++, posting += POSTING_SIZE) {
+                int doc = buffer.getInt(posting);
+                int tf = buffer.getInt(posting + 4);
+                int docLength = buffer.getInt(docLengthsOffset + doc * 4);
+                double norm = K1 * (1 - B + B * docLength / avgDocLength);
+                scores.add(doc, (float) (idf * tf * (K1 + 1) / (tf + norm)));
+            }
+        }
+        return scores.top(k);
+    }
+
+    public FaqEntry document(int doc) {
+        if (doc < 0 || doc >= docCount) {
+            throw new IndexOutOfBoundsException("文档号越界: " + doc);
+        }
+        int position = docDataOffset + (int) buffer.getLong(docOffsetsOffset + doc * 8);
+        String title = readString(position);
+        position += 4 + buffer.getInt(position);
+        String question = readString(position);
+        position += 4 + buffer.getInt(position);
+        String answer = readString(position);
+        position += 4 + buffer.getInt(position);
+        int keywordCount = buffer.getInt(position);
+        position += 4;
+        List<String> keywords = new ArrayList<>(keywordCount);
+        for (int i = 0; i < keywordCount; i++) {
+            keywords.add(readString(position));
+            position += 4 + buffer.getInt(position);
+        }
+        return new FaqEntry(title, question, answer, keywords);
+    }
+
+    public int docCount() {
+        return docCount;
+    }
+
+    public int termCount() {
+        return termCount;
+    }
+
+    private int findTerm(long term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midTerm = buffer.getLong(termsOffset + mid * TERM_ENTRY_SIZE);
+            if (midTerm < term) {
+                low = mid + 1;
+            } else if (midTerm > term) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private String readString(int position) {
+        byte[] bytes = new byte[buffer.getInt(position)];
+        buffer.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(FaqEntry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, entry.title());
+        writeString(out, entry.question());
+        writeString(out, entry.answer());
+        out.writeInt(entry.keywords().size());
+        for (String keyword : entry.keywords()) {
+            writeString(out, keyword);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 命中的文档号和 BM25 得分
+     */
+    public static final class Hit {
+        private final int doc;
+        private final float score;
+
+        Hit(int doc, float score) {
+            this.doc = doc;
+            this.score = score;
+        }
+
+        public int doc() {
+            return doc;
+        }
+
+        public float score() {
+            return score;
+        }
+    }
+
+    private static final class PostingsBuilder {
+        int[] docs = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+
+        void add(int doc, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+        }
+    }
+
+    /**
+     * 文档号 -> 累计得分的开放寻址表，容量只与本次查询涉及的倒排长度有关
+     */
+    private static final class ScoreAccumulator {
+        private final int[] docs;
+        private final float[] scores;
+        private final int mask;
+
+        ScoreAccumulator(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+            docs = new int[capacity];
+            scores = new float[capacity];
+            mask = capacity - 1;
+        }
+
+        void add(int doc, float score) {
+            // 槽位存放 doc + 1，0 表示空槽
+            int slot = (doc * 0x9E3779B9) >>> 1 & mask;
+            while (docs[slot] != 0 && docs[slot] != doc + 1) {
+                slot = (slot + 1) & mask;
+            }
+            docs[slot] = doc + 1;
+            scores[slot] += score;
+        }
+
+        List<Hit> top(int k) {
+            PriorityQueue<Hit> heap = new PriorityQueue<>(k + 1, (a, b) -> a.score != b.score
+                    ? Float.compare(a.score, b.score) : Integer.compare(b.doc, a.doc));
+            for (int slot = 0; slot < docs.length; slot++) {
+                if (docs[slot] == 0) {
+                    continue;
+                }
+                // 堆已满时只有超过堆顶的文档才需要入堆
+                if (heap.size() == k && !better(scores[slot], docs[slot] - 1, heap.peek())) {
+                    continue;
+                }
+                heap.offer(new Hit(docs[slot] - 1, scores[slot]));
+                if (heap.size() > k) {
+                    heap.poll();
+                }
+            }
+            Hit[] hits = new Hit[heap.size()];
+            for (int i = hits.length - 1; i >= 0; i--) {
+                hits[i] = heap.poll();
+            }
+            return Arrays.asList(hits);
+        }
+
+        private static boolean better(float score, int doc, Hit than) {
+            return score > than.score || (score == than.score && doc < than.doc);
+        }
+    }
+}
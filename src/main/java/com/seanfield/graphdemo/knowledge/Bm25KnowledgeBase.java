@@ -0,0 +1,38 @@
+package com.seanfield.graphdemo.knowledge;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * BM25 知识库：在内存映射的倒排索引上检索，得分最高且不低于阈值的条目命中
+ */
+public class Bm25KnowledgeBase implements KnowledgeBase {
+
+    private final Bm25Index index;
+    private final double minScore;
+
+    public Bm25KnowledgeBase(Bm25Index index, double minScore) {
+        this.index = index;
+        this.minScore = minScore;
+    }
+
+    @Override
+    public Optional<KnowledgeMatch> search(String question) {
+        List<Bm25Index.Hit> hits = index.search(question, 1);
+        if (hits.isEmpty() || hits.get(0).score() < minScore) {
+            return Optional.empty();
+        }
+        Bm25Index.Hit best = hits.get(0);
+        return Optional.of(new KnowledgeMatch(index.document(best.doc()), best.score()));
+    }
+
+    @Override
+    public String type() {
+        return "bm25";
+    }
+
+    @Override
+    public int size() {
+        return index.docCount();
+    }
+}
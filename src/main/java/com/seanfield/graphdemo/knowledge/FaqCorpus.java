@@ -0,0 +1,128 @@
+package com.seanfield.graphdemo.knowledge;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 知识库语料：内置的示例FAQ，以及从 JSON Lines 文件加载的问答对
+ *
+ * <p>文件每行一个 JSON 对象，字段为 title、question、answer、keywords（字符串数组），
+ * answer 必填，其余可选；空行和以 # 开头的行会被跳过。语料也可以是一个目录，
+ * 此时按文件名顺序加载其中全部 .jsonl 文件。</p>
+ */
+public final class FaqCorpus {
+
+    private FaqCorpus() {
+    }
+
+    /**
+     * 内置的示例FAQ，未配置知识库文件时使用
+     */
+    public static List<FaqEntry> builtin() {
+        return Arrays.asList(
+                new FaqEntry("产品功能", null, "我们的产品主要功能包括：智能分析、数据可视化、自动化报告生成等。支持多种数据源集成。", Arrays.asList("功能", "产品", "特性", "能力")),
+                new FaqEntry("价格政策", null, "我们提供多种套餐：基础版199元/月，专业版499元/月，企业版999元/月。支持年付优惠。", Arrays.asList("价格", "费用", "收费", "套餐", "多少钱")),
+                new FaqEntry("使用方法", null, "使用步骤：1.注册账号 2.上传数据 3.选择分析模板 4.生成报告 5.导出结果。详细教程请查看帮助文档。", Arrays.asList("怎么用", "使用", "操作", "教程", "步骤")),
+                new FaqEntry("技术支持", null, "技术支持时间：工作日9:00-18:00。联系方式：400-123-4567，support@company.com。", Arrays.asList("支持", "客服", "联系", "帮助", "电话")),
+                new FaqEntry("数据安全", null, "我们采用企业级加密技术，通过ISO27001认证，数据存储在国内合规机房，确保数据安全。", Arrays.asList("安全", "加密", "隐私", "保护", "认证")),
+                new FaqEntry("免费试用", null, "新用户可免费试用14天专业版功能，无需绑定信用卡。试用期结束后可选择合适套餐。", Arrays.asList("试用", "免费", "体验", "测试"))
+        );
+    }
+
+    public static List<FaqEntry> load(Path source) throws IOException {
+        List<FaqEntry> entries = new ArrayList<>();
+        for (Path file : files(source)) {
+            loadFile(file, entries);
+        }
+        return entries;
+    }
+
+    /**
+     * 语料的最后修改时间，目录取其中最新的文件
+     */
+    public static FileTime lastModified(Path source) throws IOException {
+        FileTime latest = FileTime.fromMillis(0);
+        for (Path file : files(source)) {
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (modified.compareTo(latest) > 0) {
+                latest = modified;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * 语料文件的名称、大小和修改时间摘要，任一文件增删或修改都会改变结果
+     */
+    public static String fingerprint(Path source) throws IOException {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Path file : files(source)) {
+            fingerprint.append(file.getFileName()).append(':').append(Files.size(file))
+                    .append(':').append(Files.getLastModifiedTime(file).toMillis()).append(';');
+        }
+        return fingerprint.toString();
+    }
+
+    private static List<Path> files(Path source) throws IOException {
+        if (!Files.isDirectory(source)) {
+            return List.of(source);
+        }
+        try (Stream<Path> children = Files.list(source)) {
+            return children.filter(path -> path.getFileName().toString().endsWith(".jsonl"))
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static void loadFile(Path file, List<FaqEntry> entries) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    entries.add(parse(JsonParser.parseString(line).getAsJsonObject()));
+                } catch (RuntimeException e) {
+                    throw new IOException("知识库文件格式错误: " + file + " 第 " + lineNumber + " 行: " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private static FaqEntry parse(JsonObject json) {
+        if (!json.has("answer")) {
+            throw new IllegalArgumentException("缺少 answer 字段");
+        }
+        List<String> keywords = new ArrayList<>();
+        if (json.has("keywords")) {
+            JsonArray array = json.getAsJsonArray("keywords");
+            for (JsonElement keyword : array) {
+                keywords.add(keyword.getAsString());
+            }
+        }
+        return new FaqEntry(string(json, "title"), string(json, "question"), json.get("answer").getAsString(), keywords);
+    }
+
+    private static String string(JsonObject json, String field) {
+        JsonElement value = json.get(field);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+}
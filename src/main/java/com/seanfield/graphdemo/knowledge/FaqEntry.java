@@ -0,0 +1,48 @@
+package com.seanfield.graphdemo.knowledge;
+
+import java.util.List;
+
+/**
+ * 知识库条目：标题、典型问题、答案和关键词，问题和关键词都可以为空
+ */
+public class FaqEntry {
+
+    private final String title;
+    private final String question;
+    private final String answer;
+    private final List<String> keywords;
+
+    public FaqEntry(String title, String question, String answer, List<String> keywords) {
+        this.title = title == null ? "" : title;
+        this.question = question == null ? "" : question;
+        this.answer = answer == null ? "" : answer;
+        this.keywords = keywords == null ? List.of() : List.copyOf(keywords);
+    }
+
+    public String title() {
+        return title;
+    }
+
+    public String question() {
+        return question;
+    }
+
+    public String answer() {
+        return answer;
+    }
+
+    public List<String> keywords() {
+        return keywords;
+    }
+
+    /**
+     * 参与检索的文本：标题、问题和关键词，不包含答案
+     */
+    public String searchText() {
+        StringBuilder text = new StringBuilder(title).append('\n').append(question);
+        for (String keyword : keywords) {
+            text.append('\n').append(keyword);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,471 @@
+package com.seanfield.graphdemo.knowledge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 进程内 HNSW 近似最近邻索引：向量需已 L2 归一化，相似度为点积
+ *
+ * <p>M 控制每层的邻居数（第 0 层为 2M），efConstruction 控制构建质量，
+ * 查询时的 ef 越大召回越高、延迟越高。构建完成后只读，可被多个线程同时查询。
+ * 索引可以保存到文件，文件中记录了向量化方式和维度，加载方据此判断是否需要重建。</p>
+ */
+public final class HnswIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(HnswIndex.class);
+
+    private static final int MAGIC = 0x484E5357;
+    private static final int VERSION = 1;
+
+    private final String embedderName;
+    private final int dimensions;
+    private final int m;
+    private final int efConstruction;
+    private final double levelFactor;
+    private final float[] vectors;
+    // links[节点][层] = 邻居数组，第一个元素是邻居个数
+    private final int[][][] links;
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private final ThreadLocal<VisitedSet> visited = ThreadLocal.withInitial(VisitedSet::new);
+
+    private HnswIndex(String embedderName, int dimensions, int capacity, int m, int efConstruction) {
+        if (m < 2) {
+            throw new IllegalArgumentException("M must be >= 2");
+        }
+        this.embedderName = embedderName;
+        this.dimensions = dimensions;
+        this.m = m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelFactor = 1 / Math.log(m);
+        this.vectors = new float[capacity * dimensions];
+        this.links = new int[capacity][][];
+    }
+
+    /**
+     * 按顺序插入全部向量构建索引，节点号即向量在列表中的下标
+     */
+    public static HnswIndex build(String embedderName, List<float[]> vectors, int m, int efConstruction) {
+        long start = System.nanoTime();
+        int dimensions = vectors.isEmpty() ? 0 : vectors.get(0).length;
+        HnswIndex index = new HnswIndex(embedderName, dimensions, vectors.size(), m, efConstruction);
+        // 固定种子使同一语料构建出的索引一致
+        SplittableRandom random = new SplittableRandom(42);
+        for (float[] vector : vectors) {
+            if (vector.length != dimensions) {
+                throw new IllegalArgumentException("向量维度不一致: " + vector.length + " != " + dimensions);
+            }
+            index.insert(vector, random);
+        }
+        log.info("HNSW 索引构建完成: 向量数={}，维度={}，M={}，efConstruction={}，耗时 {}ms",
+                index.size, dimensions, m, efConstruction, (System.nanoTime() - start) / 1_000_000);
+        return index;
+    }
+
+    /**
+     * 查询与向量最相似的至多 k 个节点，按相似度降序
+     */
+    public List<Hit> search(float[] query, int k, int ef) {
+        if (size == 0 || k <= 0) {
+            return List.of();
+        }
+        int current = entryPoint;
+        float currentScore = similarity(query, current);
+        for (int level = maxLevel; level > 0; level--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                int[] neighbors = links[current][level];
+                for (int i = 1; i <= neighbors[0]; i++) {
+                    float score = similarity(query, neighbors[i]);
+                    if (score > currentScore) {
+                        currentScore = score;
+                        current = neighbors[i];
+                        changed = true;
+                    }
+                }
+            }
+        }
+        ScoredHeap results = searchLayer(query, current, currentScore, Math.max(ef, k), 0);
+        while (results.size() > k) {
+            results.pop();
+        }
+        Hit[] hits = new Hit[results.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            hits[i] = new Hit(results.topId(), results.topScore());
+            results.pop();
+        }
+        return Arrays.asList(hits);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    public String embedderName() {
+        return embedderName;
+    }
+
+    public void save(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(embedderName);
+            out.writeInt(dimensions);
+            out.writeInt(size);
+            out.writeInt(m);
+            out.writeInt(efConstruction);
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+            for (int i = 0; i < size * dimensions; i++) {
+                out.writeFloat(vectors[i]);
+            }
+            for (int node = 0; node < size; node++) {
+                out.writeInt(links[node].length);
+                for (int[] neighbors : links[node]) {
+                    out.writeInt(neighbors[0]);
+                    for (int i = 1; i <= neighbors[0]; i++) {
+                        out.writeInt(neighbors[i]);
+                    }
+                }
+            }
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public static HnswIndex load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("不是有效的 HNSW 索引文件: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("不支持的 HNSW 索引版本 " + version + ": " + file);
+            }
+            String embedderName = in.readUTF();
+            int dimensions = in.readInt();
+            int size = in.readInt();
+            HnswIndex index = new HnswIndex(embedderName, dimensions, size, in.readInt(), in.readInt());
+            index.entryPoint = in.readInt();
+            index.maxLevel = in.readInt();
+            for (int i = 0; i < size * dimensions; i++) {
+                index.vectors[i] = in.readFloat();
+            }
+            for (int node = 0; node < size; node++) {
+                int[][] nodeLinks = new int[in.readInt()][];
+                for (int level = 0; level < nodeLinks.length; level++) {
+                    int[] neighbors = new int[index.maxConnections(level) + 1];
+                    neighbors[0] = in.readInt();
+                    for (int i = 1; i <= neighbors[0]; i++) {
+                        neighbors[i] = in.readInt();
+                    }
+                    nodeLinks[level] = neighbors;
+                }
+                index.links[node] = nodeLinks;
+            }
+            index.size = size;
+            return index;
+        }
+    }
+
+    private void insert(float[] vector, SplittableRandom random) {
+        int node = size;
+        System.arraycopy(vector, 0, vectors, node * dimensions, dimensions);
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[maxConnections(l) + 1];
+        }
+        size++;
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int current = entryPoint;
+        float currentScore = similarity(vector, current);
+        for (int l = maxLevel; l > level; l--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                int[] neighbors = links[current][l];
+                for (int i = 1; i <= neighbors[0]; i++) {
+                    float score = similarity(vector, neighbors[i]);
+                    if (score > currentScore) {
+                        currentScore = score;
+                        current = neighbors[i];
+                        changed = true;
+                    }
+                }
+            }
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            ScoredHeap candidates = searchLayer(vector, current, currentScore, efConstruction, l);
+            int[] selected = selectNeighbors(candidates, m);
+            int[] nodeNeighbors = links[node][l];
+            for (int neighbor : selected) {
+                nodeNeighbors[++nodeNeighbors[0]] = neighbor;
+                connect(neighbor, node, l);
+            }
+            // 下一层从本层找到的最相似节点开始
+            current = selected.length > 0 ? selected[0] : current;
+            currentScore = similarity(vector, current);
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * 启发式选邻：候选按相似度从高到低，只保留比已选邻居更接近新节点的候选，使邻居分布在不同方向上
+     */
+    private int[] selectNeighbors(ScoredHeap candidates, int limit) {
+        int count = candidates.size();
+        int[] ids = new int[count];
+        float[] scores = new float[count];
+        for (int i = count - 1; i >= 0; i--) {
+            ids[i] = candidates.topId();
+            scores[i] = candidates.topScore();
+            candidates.pop();
+        }
+        int[] selected = new int[Math.min(limit, count)];
+        int selectedCount = 0;
+        for (int i = 0; i < count && selectedCount < selected.length; i++) {
+            boolean keep = true;
+            for (int j = 0; j < selectedCount; j++) {
+                if (similarity(ids[i], selected[j]) > scores[i]) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[selectedCount++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(selected, selectedCount);
+    }
+
+    private void connect(int node, int neighbor, int level) {
+        int[] neighbors = links[node][level];
+        int capacity = neighbors.length - 1;
+        if (neighbors[0] < capacity) {
+            neighbors[++neighbors[0]] = neighbor;
+            return;
+        }
+        // 邻居已满时重新选邻，可能淘汰新连接本身
+        ScoredHeap candidates = new ScoredHeap(capacity + 1);
+        candidates.push(neighbor, similarity(node, neighbor));
+        for (int i = 1; i <= neighbors[0]; i++) {
+            candidates.push(neighbors[i], similarity(node, neighbors[i]));
+        }
+        int[] selected = selectNeighbors(candidates, capacity);
+        neighbors[0] = selected.length;
+        System.arraycopy(selected, 0, neighbors, 1, selected.length);
+    }
+
+    /**
+     * 在单层内做束搜索，返回至多 ef 个最相似节点（堆顶为其中最不相似的）
+     */
+    private ScoredHeap searchLayer(float[] query, int start, float startScore, int ef, int level) {
+        VisitedSet seen = visited.get();
+        seen.reset(links.length);
+        seen.add(start);
+        // candidates 以相似度取反入堆，堆顶即最相似的待扩展节点
+        ScoredHeap candidates = new ScoredHeap(ef * 2);
+        ScoredHeap results = new ScoredHeap(ef + 1);
+        candidates.push(start, -startScore);
+        results.push(start, startScore);
+        while (candidates.size() > 0) {
+            int candidate = candidates.topId();
+            float candidateScore = -candidates.topScore();
+            candidates.pop();
+            if (results.size() >= ef && candidateScore < results.topScore()) {
+                break;
+            }
+            int[] neighbors = links[candidate][level];
+            for (int i = 1; i <= neighbors[0]; i++) {
+                int neighbor = neighbors[i];
+                if (!seen.add(neighbor)) {
+                    continue;
+                }
+                float score = similarity(query, neighbor);
+                if (results.size() < ef || score > results.topScore()) {
+                    candidates.push(neighbor, -score);
+                    results.push(neighbor, score);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private int maxConnections(int level) {
+        return level == 0 ? m * 2 : m;
+    }
+
+    private float similarity(float[] query, int node) {
+        int offset = node * dimensions;
+        float sum = 0f;
+        for (int i = 0; i < dimensions; i++) {
+            sum += query[i] * vectors[offset + i];
+        }
+        return sum;
+    }
+
+    private float similarity(int a, int b) {
+        int offsetA = a * dimensions;
+        int offsetB = b * dimensions;
+        float sum = 0f;
+        for (int i = 0; i < dimensions; i++) {
+            sum += vectors[offsetA + i] * vectors[offsetB + i];
+        }
+        return sum;
+    }
+
+    /**
+     * 命中的节点号和相似度
+     */
+    public static final class Hit {
+        private final int id;
+        private final float similarity;
+
+        Hit(int id, float similarity) {
+            this.id = id;
+            this.similarity = similarity;
+        }
+
+        public int id() {
+            return id;
+        }
+
+        public float similarity() {
+            return similarity;
+        }
+    }
+
+    /**
+     * 按得分排列的最小堆，堆顶为得分最低的节点
+     */
+    private static final class ScoredHeap {
+        private int[] ids;
+        private float[] scores;
+        private int size;
+
+        ScoredHeap(int capacity) {
+            ids = new int[Math.max(capacity, 4)];
+            scores = new float[ids.length];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int topId() {
+            return ids[0];
+        }
+
+        float topScore() {
+            return scores[0];
+        }
+
+        void push(int id, float score) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (scores[parent] <= score) {
+                    break;
+                }
+                ids[i] = ids[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            ids[i] = id;
+            scores[i] = score;
+        }
+
+        void pop() {
+            int lastId = ids[--size];
+            float lastScore = scores[size];
+            int i = 0;
+            while (true) {
+                int child = i * 2 + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && scores[child + 1] < scores[child]) {
+                    child++;
+                }
+                if (scores[child] >= lastScore) {
+                    break;
+                }
+                ids[i] = ids[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            ids[i] = lastId;
+            scores[i] = lastScore;
+        }
+    }
+
+    /**
+     * 每个线程复用的访问标记，以代数区分不同的查询，避免每次查询清空数组
+     */
+    private static final class VisitedSet {
+        private int[] marks = new int[0];
+        private int generation;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[capacity];
+                generation = 0;
+            }
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        boolean add(int node) {
+            if (marks[node] == generation) {
+                return false;
+            }
+            marks[node] = generation;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.seanfield.graphdemo.knowledge;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 关键词知识库：问题中出现的关键词按长度累加得分，得分最高且不低于阈值的条目命中
+ */
+public class KeywordKnowledgeBase implements KnowledgeBase {
+
+    static final int MIN_SCORE = 3;
+
+    private final List<FaqEntry> entries;
+    // 全部关键词预先构建为一个自动机，搜索时只需扫描一遍问题
+    private final KeywordMatcher matcher;
+
+    public KeywordKnowledgeBase(List<FaqEntry> entries) {
+        this.entries = List.copyOf(entries);
+        KeywordMatcher.Builder builder = KeywordMatcher.builder();
+        for (int i = 0; i < this.entries.size(); i++) {
+            for (String keyword : this.entries.get(i).keywords()) {
+                builder.add(keyword.toLowerCase(), i, keyword.length()); // 关键词越长，权重越高
+            }
+        }
+        this.matcher = builder.build();
+    }
+
+    @Override
+    public Optional<KnowledgeMatch> search(String question) {
+        Map<Integer, Integer> scores = matcher.score(question.toLowerCase());
+        int bestIndex = -1;
+        int bestScore = 0;
+
+        for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+            int index = entry.getKey();
+            int score = entry.getValue();
+            // 得分相同时保留知识库中靠前的条目
+            if (score > bestScore || (score == bestScore && index < bestIndex)) {
+                bestScore = score;
+                bestIndex = index;
+            }
+        }
+
+        if (bestScore < MIN_SCORE) {
+            return Optional.empty();
+        }
+        return Optional.of(new KnowledgeMatch(entries.get(bestIndex), bestScore));
+    }
+
+    @Override
+    public String type() {
+        return "keyword";
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,207 @@
+package com.seanfield.graphdemo.knowledge;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 多关键词匹配器：基于 Aho-Corasick 自动机，一次扫描文本即可找出所有出现的关键词
+ *
+ * <p>每个关键词可关联多个 (id, 权重)，{@link #score(String)} 按 id 累加文本中出现过的关键词权重，
+ * 同一关键词在文本中出现多次只计一次，与逐个关键词调用 {@code String.contains} 的结果一致。
+ * 构建完成后只读，可被多个线程同时使用。调用方负责在构建和匹配前统一大小写。</p>
+ */
+public final class KeywordMatcher {
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    // 每个状态的子节点按字符排序连续存放，匹配时二分查找
+    private final int[] childStart;
+    private final char[] childChars;
+    private final int[] childTargets;
+    private final int[] fail;
+    // 沿失败链最近的、有关键词在此结束的状态
+    private final int[] outputLink;
+    private final int[] outputStart;
+    private final int[] outputIds;
+    private final int[] outputWeights;
+    private final int keywordCount;
+
+    private KeywordMatcher(Builder builder) {
+        List<TreeMap<Character, Integer>> children = builder.children;
+        int states = children.size();
+
+        childStart = new int[states + 1];
+        for (int s = 0; s < states; s++) {
+            childStart[s + 1] = childStart[s] + children.get(s).size();
+        }
+        childChars = new char[childStart[states]];
+        childTargets = new int[childStart[states]];
+        for (int s = 0; s < states; s++) {
+            int i = childStart[s];
+            for (Map.Entry<Character, Integer> child : children.get(s).entrySet()) {
+                childChars[i] = child.getKey();
+                childTargets[i] = child.getValue();
+                i++;
+            }
+        }
+
+        outputStart = new int[states + 1];
+        for (int s = 0; s < states; s++) {
+            outputStart[s + 1] = outputStart[s] + builder.outputs.get(s).size();
+        }
+        outputIds = new int[outputStart[states]];
+        outputWeights = new int[outputStart[states]];
+        for (int s = 0; s < states; s++) {
+            int i = outputStart[s];
+            for (int[] output : builder.outputs.get(s)) {
+                outputIds[i] = output[0];
+                outputWeights[i] = output[1];
+                i++;
+            }
+        }
+
+        fail = new int[states];
+        outputLink = new int[states];
+        Arrays.fill(outputLink, NONE);
+        buildFailureLinks();
+        keywordCount = builder.keywordCount;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 扫描文本，返回 id -> 出现过的关键词权重之和；没有任何关键词出现的 id 不在结果中
+     */
+    public Map<Integer, Integer> score(String text) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        BitSet matched = new BitSet();
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            int terminal = hasOutput(state) ? state : outputLink[state];
+            // 某个终止状态已计分时，其输出链上的状态也已全部计分
+            while (terminal != NONE && !matched.get(terminal)) {
+                matched.set(terminal);
+                for (int o = outputStart[terminal]; o < outputStart[terminal + 1]; o++) {
+                    scores.merge(outputIds[o], outputWeights[o], Integer::sum);
+                }
+                terminal = outputLink[terminal];
+            }
+        }
+        return scores;
+    }
+
+    public int keywordCount() {
+        return keywordCount;
+    }
+
+    public int stateCount() {
+        return fail.length;
+    }
+
+    private int next(int state, char c) {
+        while (true) {
+            int child = child(state, c);
+            if (child != NONE) {
+                return child;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = fail[state];
+        }
+    }
+
+    private int child(int state, char c) {
+        int low = childStart[state];
+        int high = childStart[state + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = childChars[mid];
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return childTargets[mid];
+            }
+        }
+        return NONE;
+    }
+
+    private boolean hasOutput(int state) {
+        return outputStart[state + 1] > outputStart[state];
+    }
+
+    private void buildFailureLinks() {
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int i = childStart[ROOT]; i < childStart[ROOT + 1]; i++) {
+            fail[childTargets[i]] = ROOT;
+            queue.add(childTargets[i]);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = childStart[state]; i < childStart[state + 1]; i++) {
+                int target = childTargets[i];
+                int fallback = fail[state];
+                int failTarget;
+                while ((failTarget = child(fallback, childChars[i])) == NONE && fallback != ROOT) {
+                    fallback = fail[fallback];
+                }
+                fail[target] = failTarget == NONE ? ROOT : failTarget;
+                outputLink[target] = hasOutput(fail[target]) ? fail[target] : outputLink[fail[target]];
+                queue.add(target);
+            }
+        }
+    }
+
+    public static final class Builder {
+        private final List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        private final List<List<int[]>> outputs = new ArrayList<>();
+        private int keywordCount;
+
+        private Builder() {
+            newState();
+        }
+
+        /**
+         * 添加关键词，空关键词会被忽略
+         */
+        public Builder add(String keyword, int id, int weight) {
+            if (keyword == null || keyword.isEmpty()) {
+                return this;
+            }
+            int state = ROOT;
+            for (int i = 0; i < keyword.length(); i++) {
+                Integer next = children.get(state).get(keyword.charAt(i));
+                if (next == null) {
+                    next = newState();
+                    children.get(state).put(keyword.charAt(i), next);
+                }
+                state = next;
+            }
+            outputs.get(state).add(new int[]{id, weight});
+            keywordCount++;
+            return this;
+        }
+
+        public KeywordMatcher build() {
+            return new KeywordMatcher(this);
+        }
+
+        private int newState() {
+            children.add(new TreeMap<>());
+            outputs.add(new ArrayList<>(0));
+            return children.size() - 1;
+        }
+    }
+}
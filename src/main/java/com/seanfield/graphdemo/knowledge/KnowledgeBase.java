@@ -0,0 +1,18 @@
+package com.seanfield.graphdemo.knowledge;
+
+import java.util.Optional;
+
+/**
+ * 知识库检索接口：返回与问题最匹配且达到命中阈值的条目，实现必须支持并发调用
+ */
+public interface KnowledgeBase {
+
+    Optional<KnowledgeMatch> search(String question);
+
+    /**
+     * 检索方式，会写入知识检索结果
+     */
+    String type();
+
+    int size();
+}
@@ -0,0 +1,160 @@
+package com.seanfield.graphdemo.knowledge;
+
+import com.seanfield.graphdemo.embedding.TextEmbedder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按配置加载知识库：keyword 直接在内存中构建关键词自动机；
+ * bm25 优先映射已有的索引文件，索引不存在或比语料文件旧时先重新构建；
+ * vector 批量向量化后构建 HNSW 索引，配置了索引文件时优先加载，向量化方式或语料变化时重新构建
+ */
+public class KnowledgeBaseLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(KnowledgeBaseLoader.class);
+
+    private final String type;
+    private final Path source;
+    private final Path indexFile;
+    private final double minScore;
+    private final TextEmbedder embedder;
+    private final int hnswM;
+    private final int efConstruction;
+    private final int efSearch;
+    private final int embedBatchSize;
+
+    /**
+     * @param type      检索方式：keyword 或 bm25
+     * @param source    语料文件或目录，为 null 时使用内置示例FAQ
+     * @param indexFile BM25 索引文件，为 null 时放在语料文件旁
+     * @param minScore  BM25 命中阈值
+     */
+    public KnowledgeBaseLoader(String type, Path source, Path indexFile, double minScore) {
+        this(type, source, indexFile, minScore, null, 16, 200, 64, 64);
+    }
+
+    /**
+     * @param type           检索方式：keyword、bm25 或 vector
+     * @param source         语料文件或目录，为 null 时使用内置示例FAQ
+     * @param indexFile      当前检索方式的索引文件，bm25 为 null 时放在语料文件旁，vector 为 null 时不持久化
+     * @param minScore       命中阈值：bm25 为 BM25 得分，vector 为余弦相似度
+     * @param embedder       vector 检索使用的向量化方式
+     * @param hnswM          HNSW 每层邻居数
+     * @param efConstruction HNSW 构建时的候选数
+     * @param efSearch       HNSW 查询时的候选数
+     * @param embedBatchSize 构建索引时每批向量化的条目数
+     */
+    public KnowledgeBaseLoader(String type, Path source, Path indexFile, double minScore, TextEmbedder embedder,
+                               int hnswM, int efConstruction, int efSearch, int embedBatchSize) {
+        this.type = type.toLowerCase();
+        this.source = source;
+        this.indexFile = indexFile != null || source == null || !"bm25".equals(this.type)
+                ? indexFile : source.resolveSibling(source.getFileName() + ".bm25");
+        this.minScore = minScore;
+        this.embedder = embedder;
+        this.hnswM = hnswM;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.embedBatchSize = Math.max(embedBatchSize, 1);
+        if (!List.of("keyword", "bm25", "vector").contains(this.type)) {
+            throw new IllegalArgumentException("不支持的知识库检索方式: " + type);
+        }
+        if ("bm25".equals(this.type) && this.indexFile == null) {
+            throw new IllegalArgumentException("bm25 检索需要配置 graph.knowledge.source 或 graph.knowledge.bm25.index-file");
+        }
+        if ("vector".equals(this.type) && embedder == null) {
+            throw new IllegalArgumentException("vector 检索需要提供向量化方式");
+        }
+    }
+
+    public Path source() {
+        return source;
+    }
+
+    /**
+     * 加载知识库，已有的索引文件不比语料旧时直接使用
+     */
+    public KnowledgeBase load() throws IOException {
+        return load(false);
+    }
+
+    /**
+     * 忽略已有的索引文件，从语料重新构建知识库（语料变化后热加载使用）
+     */
+    public KnowledgeBase rebuild() throws IOException {
+        return load(true);
+    }
+
+    private KnowledgeBase load(boolean rebuild) throws IOException {
+        long start = System.nanoTime();
+        KnowledgeBase knowledgeBase = switch (type) {
+            case "bm25" -> loadBm25(rebuild);
+            case "vector" -> loadVector(rebuild);
+            default -> new KeywordKnowledgeBase(corpus());
+        };
+        log.info("知识库加载完成: 检索方式={}，条目数={}，耗时 {}ms",
+                knowledgeBase.type(), knowledgeBase.size(), (System.nanoTime() - start) / 1_000_000);
+        return knowledgeBase;
+    }
+
+    private KnowledgeBase loadBm25(boolean rebuild) throws IOException {
+        if (rebuild || indexStale()) {
+            Bm25Index.build(corpus(), indexFile);
+        }
+        return new Bm25KnowledgeBase(Bm25Index.open(indexFile), minScore);
+    }
+
+    private KnowledgeBase loadVector(boolean rebuild) throws IOException {
+        List<FaqEntry> entries = corpus();
+        HnswIndex index = null;
+        if (indexFile != null && !rebuild && !indexStale()) {
+            HnswIndex saved = HnswIndex.load(indexFile);
+            if (saved.embedderName().equals(embedder.name()) && saved.size() == entries.size()) {
+                index = saved;
+                log.info("已加载 HNSW 索引: {}", indexFile);
+            } else {
+                log.info("HNSW 索引与当前向量化方式或语料不一致，重新构建: {}", indexFile);
+            }
+        }
+        if (index == null) {
+            index = HnswIndex.build(embedder.name(), embed(entries), hnswM, efConstruction);
+            if (indexFile != null) {
+                index.save(indexFile);
+            }
+        }
+        return new VectorKnowledgeBase(entries, index, embedder, efSearch, minScore);
+    }
+
+    private List<float[]> embed(List<FaqEntry> entries) {
+        long start = System.nanoTime();
+        List<float[]> vectors = new ArrayList<>(entries.size());
+        for (int from = 0; from < entries.size(); from += embedBatchSize) {
+            List<String> batch = new ArrayList<>(embedBatchSize);
+            for (FaqEntry entry : entries.subList(from, Math.min(from + embedBatchSize, entries.size()))) {
+                batch.add(entry.searchText());
+            }
+            vectors.addAll(embedder.embedAll(batch));
+        }
+        log.info("知识库向量化完成: 条目数={}，批大小={}，耗时 {}ms",
+                entries.size(), embedBatchSize, (System.nanoTime() - start) / 1_000_000);
+        return vectors;
+    }
+
+    private boolean indexStale() throws IOException {
+        if (!Files.exists(indexFile)) {
+            return true;
+        }
+        return source != null && Files.exists(source)
+                && FaqCorpus.lastModified(source).compareTo(Files.getLastModifiedTime(indexFile)) > 0;
+    }
+
+    private List<FaqEntry> corpus() throws IOException {
+        return source == null ? FaqCorpus.builtin() : FaqCorpus.load(source);
+    }
+}
@@ -0,0 +1,46 @@
+package com.seanfield.graphdemo.knowledge;
+
+import com.seanfield.graphdemo.embedding.TextEmbedder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 知识库配置类：graph.knowledge.type=keyword 使用关键词匹配，bm25 使用内存映射的倒排索引，vector 使用 HNSW 向量检索；
+ * 语料变化时在后台重建并热替换
+ */
+@Configuration
+public class KnowledgeConfiguration {
+
+	@Bean
+	public KnowledgeBaseLoader knowledgeBaseLoader(TextEmbedder textEmbedder,
+												   @Value("${graph.knowledge.type:keyword}") String type,
+												   @Value("${graph.knowledge.source:}") String source,
+												   @Value("${graph.knowledge.bm25.index-file:}") String bm25IndexFile,
+												   @Value("${graph.knowledge.bm25.min-score:3.0}") double bm25MinScore,
+												   @Value("${graph.knowledge.vector.index-file:}") String vectorIndexFile,
+												   @Value("${graph.knowledge.vector.min-similarity:0.35}") double minSimilarity,
+												   @Value("${graph.knowledge.vector.m:16}") int m,
+												   @Value("${graph.knowledge.vector.ef-construction:200}") int efConstruction,
+												   @Value("${graph.knowledge.vector.ef-search:64}") int efSearch,
+												   @Value("${graph.knowledge.vector.embed-batch-size:64}") int embedBatchSize) {
+		boolean vector = "vector".equalsIgnoreCase(type);
+		return new KnowledgeBaseLoader(type, path(source),
+				path(vector ? vectorIndexFile : bm25IndexFile), vector ? minSimilarity : bm25MinScore,
+				textEmbedder, m, efConstruction, efSearch, embedBatchSize);
+	}
+
+	@Bean
+	public ReloadableKnowledgeBase knowledgeBase(KnowledgeBaseLoader loader,
+												 @Value("${graph.knowledge.watch-interval:10s}") Duration watchInterval) throws IOException {
+		return new ReloadableKnowledgeBase(loader, watchInterval);
+	}
+
+	private static Path path(String value) {
+		return value == null || value.isBlank() ? null : Path.of(value);
+	}
+}
@@ -0,0 +1,23 @@
+package com.seanfield.graphdemo.knowledge;
+
+/**
+ * 知识库检索命中的条目及其得分，得分的取值范围取决于检索方式
+ */
+public class KnowledgeMatch {
+
+    private final FaqEntry entry;
+    private final double score;
+
+    public KnowledgeMatch(FaqEntry entry, double score) {
+        this.entry = entry;
+        this.score = score;
+    }
+
+    public FaqEntry entry() {
+        return entry;
+    }
+
+    public double score() {
+        return score;
+    }
+}
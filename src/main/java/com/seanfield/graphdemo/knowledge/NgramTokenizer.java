@@ -0,0 +1,59 @@
+package com.seanfield.graphdemo.knowledge;
+
+import java.util.Arrays;
+
+/**
+ * 字符 n-gram 分词：对连续的字母/数字/汉字片段生成相邻双字词项，只有单个字符的片段生成单字词项，适合不做分词的中文检索
+ *
+ * <p>不为每个字都生成单字词项：常用字的倒排表很长，会让查询需要遍历大量文档。
+ * 词项编码为 long：单字为字符本身，双字为 {@code 1 << 32 | 前字 << 16 | 后字}，无需词典即可比较和存储。</p>
+ */
+public final class NgramTokenizer {
+
+    private static final long BIGRAM_FLAG = 1L << 32;
+
+    private NgramTokenizer() {
+    }
+
+    /**
+     * 返回文本中的全部词项（含重复），顺序与出现顺序一致
+     */
+    public static long[] terms(String text) {
+        long[] terms = new long[text.length()];
+        int count = 0;
+        char previous = 0;
+        int runLength = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (!Character.isLetterOrDigit(c)) {
+                if (runLength == 1) {
+                    terms[count++] = previous;
+                }
+                runLength = 0;
+                continue;
+            }
+            c = Character.toLowerCase(c);
+            if (runLength > 0) {
+                terms[count++] = BIGRAM_FLAG | ((long) previous << 16) | c;
+            }
+            previous = c;
+            runLength++;
+        }
+        return Arrays.copyOf(terms, count);
+    }
+
+    /**
+     * 去重并排序后的词项
+     */
+    public static long[] distinctTerms(String text) {
+        long[] terms = terms(text);
+        Arrays.sort(terms);
+        int count = 0;
+        for (int i = 0; i < terms.length; i++) {
+            if (i == 0 || terms[i] != terms[i - 1]) {
+                terms[count++] = terms[i];
+            }
+        }
+        return Arrays.copyOf(terms, count);
+    }
+}
@@ -0,0 +1,202 @@
+package com.seanfield.graphdemo.knowledge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 支持热加载的知识库：检索总是使用当前快照，新快照在后台线程完整构建后通过原子引用替换发布
+ *
+ * <p>检索路径上只有一次 volatile 读，不加锁，进行中的检索继续使用旧快照直到结束。
+ * 配置了语料文件或目录时按固定间隔检查文件的大小和修改时间，变化后自动重建；
+ * 也可以通过 {@link #reload()} 手动触发。同一时间只有一次重建，排队中的重建请求会合并。
+ * 重建失败时保留旧快照。</p>
+ */
+public class ReloadableKnowledgeBase implements KnowledgeBase, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReloadableKnowledgeBase.class);
+
+    private final KnowledgeBaseLoader loader;
+    private final Path source;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Map<String, Object>>> pendingReload = new AtomicReference<>();
+    private final List<Runnable> reloadListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService executor;
+    private final boolean watching;
+
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong reloadFailures = new AtomicLong();
+    private final AtomicLong totalBuildNanos = new AtomicLong();
+    private volatile String lastError;
+    // 只在重建线程中读写
+    private String sourceFingerprint;
+
+    /**
+     * 同步加载初始快照
+     *
+     * @param watchInterval 语料文件的检查间隔，为 null 或 0 时不自动检查
+     */
+    public ReloadableKnowledgeBase(KnowledgeBaseLoader loader, Duration watchInterval) throws IOException {
+        this.loader = loader;
+        this.source = loader.source();
+        this.sourceFingerprint = fingerprint();
+        long start = System.nanoTime();
+        KnowledgeBase initial = loader.load();
+        current.set(new Snapshot(initial, 1, Instant.now(), System.nanoTime() - start));
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "knowledge-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watching = source != null && watchInterval != null && !watchInterval.isZero();
+        if (watching) {
+            long intervalMillis = watchInterval.toMillis();
+            executor.scheduleWithFixedDelay(this::reloadIfChanged, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            log.info("开始监听知识库语料变化: {}，检查间隔 {}ms", source, intervalMillis);
+        }
+    }
+
+    @Override
+    public Optional<KnowledgeMatch> search(String question) {
+        return current.get().knowledgeBase.search(question);
+    }
+
+    @Override
+    public String type() {
+        return current.get().knowledgeBase.type();
+    }
+
+    @Override
+    public int size() {
+        return current.get().knowledgeBase.size();
+    }
+
+    public long version() {
+        return current.get().version;
+    }
+
+    /**
+     * 在后台重建知识库，返回重建完成后的统计信息；已有重建在排队时直接复用
+     */
+    public CompletableFuture<Map<String, Object>> reload() {
+        while (true) {
+            CompletableFuture<Map<String, Object>> pending = pendingReload.get();
+            if (pending != null) {
+                return pending;
+            }
+            CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+            if (pendingReload.compareAndSet(null, future)) {
+                executor.execute(() -> {
+                    // 开始构建后再到达的请求需要另一次重建才能看到最新语料
+                    pendingReload.compareAndSet(future, null);
+                    rebuild("手动触发");
+                    future.complete(stats());
+                });
+                return future;
+            }
+        }
+    }
+
+    /**
+     * 新快照发布后调用，例如清空依赖旧知识库答案的缓存
+     */
+    public void addReloadListener(Runnable listener) {
+        reloadListeners.add(listener);
+    }
+
+    public Map<String, Object> stats() {
+        Snapshot snapshot = current.get();
+        long totalReloads = reloads.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("type", snapshot.knowledgeBase.type());
+        stats.put("entries", snapshot.knowledgeBase.size());
+        stats.put("source", source == null ? "builtin" : source.toString());
+        stats.put("watching", watching);
+        stats.put("version", snapshot.version);
+        stats.put("loaded_at", snapshot.loadedAt.toString());
+        stats.put("last_build_time_ms", snapshot.buildNanos / 1_000_000.0);
+        stats.put("reloads", totalReloads);
+        stats.put("reload_failures", reloadFailures.get());
+        stats.put("avg_reload_time_ms", totalReloads == 0 ? 0.0 : totalBuildNanos.get() / 1_000_000.0 / totalReloads);
+        stats.put("last_error", lastError);
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void reloadIfChanged() {
+        try {
+            String fingerprint = fingerprint();
+            if (!Objects.equals(fingerprint, sourceFingerprint)) {
+                rebuild("语料文件变化");
+            }
+        } catch (Exception e) {
+            log.warn("检查知识库语料失败: {}", e.getMessage());
+        }
+    }
+
+    private void rebuild(String reason) {
+        long start = System.nanoTime();
+        try {
+            // 构建前取指纹，构建期间语料再次变化时下一次检查会再重建；
+            // 构建成功后才记录，失败（例如文件正在写入）时下一次检查会重试
+            String fingerprint = fingerprint();
+            KnowledgeBase knowledgeBase = loader.rebuild();
+            long buildNanos = System.nanoTime() - start;
+            Snapshot previous = current.get();
+            current.set(new Snapshot(knowledgeBase, previous.version + 1, Instant.now(), buildNanos));
+            sourceFingerprint = fingerprint;
+            reloads.incrementAndGet();
+            totalBuildNanos.addAndGet(buildNanos);
+            lastError = null;
+            log.info("知识库已重新加载（{}）: 版本={}，条目数={}，耗时 {}ms",
+                    reason, previous.version + 1, knowledgeBase.size(), buildNanos / 1_000_000);
+            for (Runnable listener : reloadListeners) {
+                listener.run();
+            }
+        } catch (Exception e) {
+            reloadFailures.incrementAndGet();
+            lastError = e.getMessage();
+            log.warn("知识库重新加载失败（{}），继续使用版本 {}: {}", reason, current.get().version, e.getMessage());
+        }
+    }
+
+    private String fingerprint() throws IOException {
+        return source == null || !Files.exists(source) ? null : FaqCorpus.fingerprint(source);
+    }
+
+    private static final class Snapshot {
+        final KnowledgeBase knowledgeBase;
+        final long version;
+        final Instant loadedAt;
+        final long buildNanos;
+
+        Snapshot(KnowledgeBase knowledgeBase, long version, Instant loadedAt, long buildNanos) {
+            this.knowledgeBase = knowledgeBase;
+            this.version = version;
+            this.loadedAt = loadedAt;
+            this.buildNanos = buildNanos;
+        }
+    }
+}
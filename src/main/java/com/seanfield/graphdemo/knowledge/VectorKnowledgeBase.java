@@ -0,0 +1,49 @@
+package com.seanfield.graphdemo.knowledge;
+
+import com.seanfield.graphdemo.embedding.TextEmbedder;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 向量知识库：问题向量化后在 HNSW 索引中查找最相似的条目，相似度不低于阈值时命中，能识别用词不同的改写问法
+ */
+public class VectorKnowledgeBase implements KnowledgeBase {
+
+    private final List<FaqEntry> entries;
+    private final HnswIndex index;
+    private final TextEmbedder embedder;
+    private final int efSearch;
+    private final double minSimilarity;
+
+    public VectorKnowledgeBase(List<FaqEntry> entries, HnswIndex index, TextEmbedder embedder, int efSearch, double minSimilarity) {
+        if (entries.size() != index.size()) {
+            throw new IllegalArgumentException("向量索引与知识库条目数不一致: " + index.size() + " != " + entries.size());
+        }
+        this.entries = List.copyOf(entries);
+        this.index = index;
+        this.embedder = embedder;
+        this.efSearch = efSearch;
+        this.minSimilarity = minSimilarity;
+    }
+
+    @Override
+    public Optional<KnowledgeMatch> search(String question) {
+        List<HnswIndex.Hit> hits = index.search(embedder.embed(question), 1, efSearch);
+        if (hits.isEmpty() || hits.get(0).similarity() < minSimilarity) {
+            return Optional.empty();
+        }
+        HnswIndex.Hit best = hits.get(0);
+        return Optional.of(new KnowledgeMatch(entries.get(best.id()), best.similarity()));
+    }
+
+    @Override
+    public String type() {
+        return "vector";
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,260 @@
+package com.seanfield.graphdemo.llm;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 自适应并发限制（AIMD）：调用成功且并发已用到上限一半以上时，上限每轮约加 1；
+ * 服务端限流（429）或超时时按比例降低上限，使并发收敛到服务端实际能承受的水平
+ *
+ * <p>超出上限的调用进入有界队列等待许可，队列已满或等待超时时以 {@link RejectedExecutionException} 拒绝，
+ * 不会让所有在途请求一起变慢。获取许可是非阻塞的（返回 Mono），许可在调用结束时通过 {@link Permit#release(Outcome)} 归还。</p>
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * 调用结果：SUCCESS 可能提高上限，OVERLOAD 降低上限，IGNORE（与负载无关的失败）不调整
+     */
+    public enum Outcome {
+        SUCCESS, OVERLOAD, IGNORE
+    }
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final int maxQueue;
+    private final Duration maxWait;
+
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong rejectedQueueFull = new AtomicLong();
+    private final AtomicLong rejectedTimeout = new AtomicLong();
+    private final AtomicLong overloads = new AtomicLong();
+    private final AtomicLong queueWaitNanos = new AtomicLong();
+
+    /**
+     * @param initialLimit 初始并发上限
+     * @param minLimit     并发上限的下限，限流时不会低于该值
+     * @param maxLimit     并发上限的上限
+     * @param backoffRatio 限流或超时时上限乘以的比例（0-1）
+     * @param maxQueue     等待许可的调用数上限，0 表示不排队
+     * @param maxWait      等待许可的最长时间
+     */
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                      int maxQueue, Duration maxWait) {
+        if (minLimit <= 0 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("并发上限必须满足 0 < min-limit <= initial-limit <= max-limit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio 必须在 0 和 1 之间");
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+        this.limit = initialLimit;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * 获取一个许可：未达上限时立即获得，否则排队等待；订阅被取消时放弃排队，已获得的许可自动归还
+     */
+    public Mono<Permit> acquire() {
+        return Mono.create(sink -> {
+            Waiter waiter = null;
+            boolean admitted = false;
+            synchronized (this) {
+                if (inFlight < currentLimit()) {
+                    inFlight++;
+                    admitted = true;
+                } else if (queue.size() < maxQueue) {
+                    waiter = new Waiter(sink);
+                    queue.add(waiter);
+                }
+            }
+            // 下游在 success 中同步订阅大模型调用，不能持有锁
+            if (admitted) {
+                acquired.incrementAndGet();
+                sink.success(new Permit(this));
+                return;
+            }
+            if (waiter == null) {
+                rejectedQueueFull.incrementAndGet();
+                sink.error(new RejectedExecutionException("大模型并发已达上限且等待队列已满: " + name));
+                return;
+            }
+            queued.incrementAndGet();
+            Waiter queuedWaiter = waiter;
+            Disposable timeout = Schedulers.parallel().schedule(() -> {
+                if (queuedWaiter.cancel()) {
+                    remove(queuedWaiter);
+                    rejectedTimeout.incrementAndGet();
+                    sink.error(new RejectedExecutionException("等待大模型并发许可超时（" + maxWait.toMillis() + "ms）: " + name));
+                }
+            }, maxWait.toMillis(), TimeUnit.MILLISECONDS);
+            sink.onDispose(timeout);
+            sink.onCancel(() -> {
+                if (queuedWaiter.cancel()) {
+                    remove(queuedWaiter);
+                } else if (queuedWaiter.granted()) {
+                    // 许可已经发出但下游已取消，直接归还
+                    queuedWaiter.permit.release(Outcome.IGNORE);
+                }
+            });
+        });
+    }
+
+    /**
+     * 按异常判断是否为服务端过载：超时，或错误信息中包含 429 / 限流
+     */
+    public static Outcome classify(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException) {
+                return Outcome.OVERLOAD;
+            }
+            String message = cause.getMessage();
+            if (message != null && (message.contains("429") || message.contains("Too Many Requests")
+                    || message.contains("Throttling") || message.toLowerCase().contains("rate limit"))) {
+                return Outcome.OVERLOAD;
+            }
+        }
+        return Outcome.IGNORE;
+    }
+
+    public synchronized int currentLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int queueDepth() {
+        return queue.size();
+    }
+
+    public long rejections() {
+        return rejectedQueueFull.get() + rejectedTimeout.get();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("limit", currentLimit());
+            stats.put("in_flight", inFlight);
+            stats.put("queue_depth", queue.size());
+        }
+        stats.put("min_limit", minLimit);
+        stats.put("max_limit", maxLimit);
+        stats.put("max_queue", maxQueue);
+        stats.put("acquired", acquired.get());
+        stats.put("queued", queued.get());
+        stats.put("rejected_queue_full", rejectedQueueFull.get());
+        stats.put("rejected_timeout", rejectedTimeout.get());
+        stats.put("overloads", overloads.get());
+        long queuedCount = queued.get();
+        stats.put("avg_queue_wait_ms", queuedCount == 0 ? 0.0 : queueWaitNanos.get() / 1_000_000.0 / queuedCount);
+        return stats;
+    }
+
+    private void release(Outcome outcome) {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            int inFlightBefore = inFlight--;
+            if (outcome == Outcome.OVERLOAD) {
+                overloads.incrementAndGet();
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (outcome == Outcome.SUCCESS && inFlightBefore * 2 >= limit) {
+                // 并发没有用到一半时说明上限不是瓶颈，不再提高
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            while (inFlight < currentLimit() && !queue.isEmpty()) {
+                Waiter waiter = queue.poll();
+                if (waiter.grant(new Permit(this))) {
+                    inFlight++;
+                    acquired.incrementAndGet();
+                    granted.add(waiter);
+                }
+            }
+        }
+        for (Waiter waiter : granted) {
+            queueWaitNanos.addAndGet(System.nanoTime() - waiter.enqueuedAt);
+            waiter.sink.success(waiter.permit);
+        }
+    }
+
+    private synchronized void remove(Waiter waiter) {
+        queue.remove(waiter);
+    }
+
+    /**
+     * 并发许可，必须且只能归还一次，重复归还会被忽略
+     */
+    public static final class Permit {
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final AtomicInteger released = new AtomicInteger();
+
+        private Permit(AdaptiveConcurrencyLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        public void release(Outcome outcome) {
+            if (released.compareAndSet(0, 1)) {
+                limiter.release(outcome);
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private static final int PENDING = 0;
+        private static final int GRANTED = 1;
+        private static final int CANCELLED = 2;
+
+        final MonoSink<Permit> sink;
+        final long enqueuedAt = System.nanoTime();
+        final AtomicInteger state = new AtomicInteger(PENDING);
+        volatile Permit permit;
+
+        Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+
+        boolean grant(Permit permit) {
+            // 先写入许可再改状态，取消方看到 GRANTED 时一定能取到许可
+            this.permit = permit;
+            return state.compareAndSet(PENDING, GRANTED);
+        }
+
+        boolean granted() {
+            return state.get() == GRANTED;
+        }
+
+        boolean cancel() {
+            return state.compareAndSet(PENDING, CANCELLED);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.seanfield.graphdemo.llm;
+
+import com.seanfield.graphdemo.llm.AdaptiveConcurrencyLimiter.Outcome;
+import com.seanfield.graphdemo.llm.AdaptiveConcurrencyLimiter.Permit;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+/**
+ * 每次调用前从 {@link AdaptiveConcurrencyLimiter} 获取许可的聊天模型包装
+ *
+ * <p>流式调用在订阅时排队获取许可，许可保持到流结束；解析到必需字段后提前取消视为成功。</p>
+ */
+class ConcurrencyLimitedChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    ConcurrencyLimitedChatModel(ChatModel delegate, AdaptiveConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        Permit permit = limiter.acquire().block();
+        try {
+            ChatResponse response = delegate.call(prompt);
+            permit.release(Outcome.SUCCESS);
+            return response;
+        } catch (RuntimeException e) {
+            permit.release(AdaptiveConcurrencyLimiter.classify(e));
+            throw e;
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        // 在结束信号上归还许可，保证调用方看到流结束时许可已经归还（doFinally 在下游处理完结束信号后才执行）
+        return limiter.acquire().flatMapMany(permit -> delegate.stream(prompt)
+                .doOnComplete(() -> permit.release(Outcome.SUCCESS))
+                .doOnError(e -> permit.release(AdaptiveConcurrencyLimiter.classify(e)))
+                .doOnCancel(() -> permit.release(Outcome.SUCCESS)));
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+}
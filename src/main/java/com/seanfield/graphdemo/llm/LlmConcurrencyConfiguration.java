@@ -0,0 +1,35 @@
+package com.seanfield.graphdemo.llm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 大模型并发限制配置类，每个服务商的参数在 graph.llm-limit.&lt;provider&gt; 下
+ *
+ * <p>目前图工作流只通过 DashScope 调用大模型，因此只配置 DashScope 的限制；
+ * 接入其他服务商的聊天客户端时在这里增加对应的限制器，并用 {@link LlmConcurrencyLimits#limit} 包装该客户端。</p>
+ */
+@Configuration
+public class LlmConcurrencyConfiguration {
+
+	public static final String DASHSCOPE = "dashscope";
+
+	@Bean
+	public LlmConcurrencyLimits llmConcurrencyLimits(ObjectProvider<MeterRegistry> meterRegistry,
+													 @Value("${graph.llm-limit.enabled:true}") boolean enabled,
+													 @Value("${graph.llm-limit.dashscope.initial-limit:20}") int dashscopeInitial,
+													 @Value("${graph.llm-limit.dashscope.min-limit:2}") int dashscopeMin,
+													 @Value("${graph.llm-limit.dashscope.max-limit:200}") int dashscopeMax,
+													 @Value("${graph.llm-limit.dashscope.max-queue:200}") int dashscopeQueue,
+													 @Value("${graph.llm-limit.dashscope.max-wait:10s}") Duration dashscopeWait,
+													 @Value("${graph.llm-limit.backoff-ratio:0.9}") double backoffRatio) {
+		return new LlmConcurrencyLimits(enabled, meterRegistry.getIfAvailable(), List.of(
+				new AdaptiveConcurrencyLimiter(DASHSCOPE, dashscopeInitial, dashscopeMin, dashscopeMax, backoffRatio, dashscopeQueue, dashscopeWait)));
+	}
+}
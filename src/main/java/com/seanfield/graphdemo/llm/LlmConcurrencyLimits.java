@@ -0,0 +1,85 @@
+package com.seanfield.graphdemo.llm;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.chat.model.ChatModel;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按大模型服务商分别限制并发：每个服务商一个 {@link AdaptiveConcurrencyLimiter}，互不影响
+ *
+ * <p>当前上限、在途调用数、排队数和拒绝次数以 llm.concurrency.* 指标暴露（按 provider 标签区分）。
+ * 未启用时不包装聊天模型。</p>
+ */
+public class LlmConcurrencyLimits {
+
+    private final boolean enabled;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new LinkedHashMap<>();
+
+    /**
+     * @param registry 指标注册表，为 null 时不注册指标
+     */
+    public LlmConcurrencyLimits(boolean enabled, MeterRegistry registry, List<AdaptiveConcurrencyLimiter> limiters) {
+        this.enabled = enabled;
+        for (AdaptiveConcurrencyLimiter limiter : limiters) {
+            this.limiters.put(limiter.name(), limiter);
+            if (enabled && registry != null) {
+                register(registry, limiter);
+            }
+        }
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * 用指定服务商的并发限制包装聊天模型
+     *
+     * @throws IllegalArgumentException 没有该服务商的限制配置
+     */
+    public ChatModel limit(String provider, ChatModel chatModel) {
+        if (!enabled) {
+            return chatModel;
+        }
+        return new ConcurrencyLimitedChatModel(chatModel, limiter(provider));
+    }
+
+    public AdaptiveConcurrencyLimiter limiter(String provider) {
+        AdaptiveConcurrencyLimiter limiter = limiters.get(provider);
+        if (limiter == null) {
+            throw new IllegalArgumentException("未配置并发限制的大模型服务商: " + provider);
+        }
+        return limiter;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        limiters.forEach((provider, limiter) -> stats.put(provider, limiter.stats()));
+        return stats;
+    }
+
+    private static void register(MeterRegistry registry, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("llm.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::currentLimit)
+                .description("当前自适应并发上限")
+                .tag("provider", limiter.name())
+                .register(registry);
+        Gauge.builder("llm.concurrency.in_flight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .description("在途的大模型调用数")
+                .tag("provider", limiter.name())
+                .register(registry);
+        Gauge.builder("llm.concurrency.queue_depth", limiter, AdaptiveConcurrencyLimiter::queueDepth)
+                .description("等待并发许可的调用数")
+                .tag("provider", limiter.name())
+                .register(registry);
+        FunctionCounter.builder("llm.concurrency.rejections", limiter, AdaptiveConcurrencyLimiter::rejections)
+                .description("队列已满或等待超时被拒绝的调用数")
+                .tag("provider", limiter.name())
+                .register(registry);
+    }
+}
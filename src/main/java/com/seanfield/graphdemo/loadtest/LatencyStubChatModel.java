@@ -0,0 +1,163 @@
+package com.seanfield.graphdemo.loadtest;
+
+import com.seanfield.graphdemo.intent.IntentClassifier;
+import com.seanfield.graphdemo.intent.IntentPrediction;
+import com.seanfield.graphdemo.intent.IntentTrainingData;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 模拟大模型延迟的本地聊天模型，用于离线压测（graph.llm-stub.enabled=true）
+ *
+ * <p>按设定的首 token 延迟和 token 速率流式输出，并按比例注入调用失败和超时。回答内容按提示词类型生成，
+ * 格式与各节点解析的一致：意图识别返回 {@code 意图类型：…}（用内置样本训练的本地分类器给出意图），
+ * 批量意图识别按编号逐个返回，质量评估返回 {@code 总体评分：…}，查询扩展按要求的数量逐行返回变体，
+ * 其余提示词返回固定长度的文本。</p>
+ */
+public class LatencyStubChatModel implements ChatModel {
+
+    private static final Pattern BATCH_QUESTION = Pattern.compile("(?m)^\\[(\\d+)] (.*)$");
+    private static final Pattern EXPANDER_NUMBER = Pattern.compile("generate (\\d+) different versions");
+    private static final String QUESTION_PREFIX = "用户问题：";
+    private static final String ANSWER_TEXT = "感谢您的咨询。根据您描述的情况，建议先确认当前使用的套餐和数据规模，" +
+            "再按照帮助文档中的步骤逐项排查配置。如果问题仍然存在，可以提供账号信息和操作截图，我们的技术团队会进一步协助您处理。";
+    /**
+     * 每个 token 的字符数，中文大致一到两个字一个 token
+     */
+    private static final int TOKEN_CHARS = 2;
+
+    private final Duration timeToFirstToken;
+    private final Duration tokenInterval;
+    private final double errorRate;
+    private final double timeoutRate;
+    private final Duration timeout;
+    private final int answerLength;
+    private final IntentClassifier intentClassifier = IntentClassifier.train(IntentTrainingData.builtin());
+
+    /**
+     * @param timeToFirstToken 首 token 延迟
+     * @param tokensPerSecond  之后的输出速率，不大于 0 时一次输出全部内容
+     * @param errorRate        首 token 前调用失败的比例
+     * @param timeoutRate      首 token 前挂起、等待 timeout 后以超时失败的比例
+     * @param timeout          模拟超时的挂起时长，一般与真实客户端的读超时一致
+     * @param answerLength     普通回答的字数
+     */
+    public LatencyStubChatModel(Duration timeToFirstToken, double tokensPerSecond, double errorRate,
+                                double timeoutRate, Duration timeout, int answerLength) {
+        if (errorRate < 0 || timeoutRate < 0 || errorRate + timeoutRate > 1) {
+            throw new IllegalArgumentException("errorRate 和 timeoutRate 必须非负且之和不超过 1");
+        }
+        this.timeToFirstToken = timeToFirstToken;
+        this.tokenInterval = tokensPerSecond > 0 ? Duration.ofNanos((long) (1_000_000_000L / tokensPerSecond)) : Duration.ZERO;
+        this.errorRate = errorRate;
+        this.timeoutRate = timeoutRate;
+        this.timeout = timeout;
+        this.answerLength = answerLength;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        return response(Flux.defer(() -> tokenStream(prompt)).reduce("", String::concat).block());
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        // 每次订阅（包括重试）重新抽取是否失败或超时
+        return Flux.defer(() -> tokenStream(prompt)).map(LatencyStubChatModel::response);
+    }
+
+    private Flux<String> tokenStream(Prompt prompt) {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < this.errorRate) {
+            return Mono.<String>error(new IllegalStateException("模拟的大模型调用失败"))
+                    .delaySubscription(this.timeToFirstToken)
+                    .flux();
+        }
+        if (roll < this.errorRate + this.timeoutRate) {
+            return Mono.<String>error(new TimeoutException("模拟的大模型调用超时（" + this.timeout.toMillis() + "ms）"))
+                    .delaySubscription(this.timeout)
+                    .flux();
+        }
+
+        List<String> tokens = tokens(respond(prompt.getContents()));
+        Flux<String> first = Mono.just(tokens.get(0)).delaySubscription(this.timeToFirstToken).flux();
+        Flux<String> rest = Flux.fromIterable(tokens.subList(1, tokens.size()));
+        if (!this.tokenInterval.isZero()) {
+            rest = rest.delayElements(this.tokenInterval);
+        }
+        return first.concatWith(rest);
+    }
+
+    /**
+     * 按提示词类型生成回答内容
+     */
+    String respond(String prompt) {
+        if (prompt.contains("若干个相互独立的用户问题")) {
+            StringBuilder answer = new StringBuilder();
+            Matcher matcher = BATCH_QUESTION.matcher(prompt);
+            while (matcher.find()) {
+                answer.append('[').append(matcher.group(1)).append("]\n").append(intent(matcher.group(2))).append('\n');
+            }
+            return answer.toString();
+        }
+        if (prompt.contains("意图识别")) {
+            return intent(question(prompt));
+        }
+        if (prompt.contains("质量评估")) {
+            return "准确性：8\n完整性：8\n专业性：9\n友好性：9\n实用性：8\n总体评分：8\n评估理由：回答准确，语气友好\n";
+        }
+        Matcher expander = EXPANDER_NUMBER.matcher(prompt);
+        if (expander.find()) {
+            int number = Integer.parseInt(expander.group(1));
+            StringBuilder variants = new StringBuilder();
+            for (int i = 1; i <= number; i++) {
+                variants.append("查询变体").append(i).append("：从第").append(i).append("个角度重新表述原问题\n");
+            }
+            return variants.toString();
+        }
+        return ANSWER_TEXT.repeat(this.answerLength / ANSWER_TEXT.length() + 1).substring(0, Math.max(1, this.answerLength));
+    }
+
+    private String intent(String question) {
+        IntentPrediction prediction = this.intentClassifier.classify(question);
+        return "意图类型：" + prediction.intentType() + "\n" +
+                "置信度：" + Math.round(prediction.probability() * 100) + "\n" +
+                "理由：本地模拟的识别结果\n";
+    }
+
+    private static String question(String prompt) {
+        int start = prompt.indexOf(QUESTION_PREFIX);
+        if (start < 0) {
+            return prompt;
+        }
+        start += QUESTION_PREFIX.length();
+        int end = prompt.indexOf('\n', start);
+        return end < 0 ? prompt.substring(start) : prompt.substring(start, end);
+    }
+
+    private static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>(text.length() / TOKEN_CHARS + 1);
+        tokens.add(text.substring(0, Math.min(text.length(), TOKEN_CHARS)));
+        for (int i = TOKEN_CHARS; i < text.length(); i += TOKEN_CHARS) {
+            tokens.add(text.substring(i, Math.min(text.length(), i + TOKEN_CHARS)));
+        }
+        return tokens;
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+}
@@ -1,225 +1,217 @@
 package com.seanfield.graphdemo.web;
 
 import com.alibaba.cloud.ai.graph.OverAllState;
-import com.alibaba.cloud.ai.graph.OverAllStateFactory;
-import com.alibaba.cloud.ai.graph.StateGraph;
-import com.alibaba.cloud.ai.graph.exception.GraphStateException;
-import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import com.seanfield.graphdemo.cache.SemanticAnswerCache;
 import com.seanfield.graphdemo.graph.*;
+import com.seanfield.graphdemo.graph.checkpoint.FileCheckpointSaver;
+import com.seanfield.graphdemo.knowledge.ReloadableKnowledgeBase;
+import com.seanfield.graphdemo.llm.LlmConcurrencyLimits;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
-import static com.alibaba.cloud.ai.graph.action.AsyncEdgeAction.edge_async;
-import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/graph")
 public class SimpleGraphController {
 
     private static final Logger log = LoggerFactory.getLogger(SimpleGraphController.class);
-    private final StateGraph stateGraph;
-    private final StateGraph loopStateGraph;
-    private final StateGraph customerServiceGraph;
+    private final GraphRegistry graphRegistry;
+    private final SemanticAnswerCache answerCache;
+    private final StateDiffTracer stateDiffTracer;
+    private final ReloadableKnowledgeBase knowledgeBase;
+    private final SpeculativeExecution speculativeExecution;
+    private final IntentPreClassifier intentPreClassifier;
+    private final IntentMicroBatcher intentMicroBatcher;
+    private final SingleFlightInvoker singleFlightInvoker;
+    private final GraphThreads graphThreads;
+    private final AsyncQualityAssessment asyncQualityAssessment;
+    private final FileCheckpointSaver checkpointSaver;
     private final ChatClient.Builder chatClientBuilder;
+    private final GraphMetrics graphMetrics;
+    private final FileSpanExporter fileSpanExporter;
+    private final LlmConcurrencyLimits llmConcurrencyLimits;
 
-    public SimpleGraphController(ChatClient.Builder chatClientBuilder) throws GraphStateException {
+    public SimpleGraphController(ChatClient.Builder chatClientBuilder, GraphRegistry graphRegistry, SemanticAnswerCache answerCache,
+                                 StateDiffTracer stateDiffTracer, ReloadableKnowledgeBase knowledgeBase,
+                                 SpeculativeExecution speculativeExecution, IntentPreClassifier intentPreClassifier,
+                                 IntentMicroBatcher intentMicroBatcher, SingleFlightInvoker singleFlightInvoker,
+                                 GraphThreads graphThreads, AsyncQualityAssessment asyncQualityAssessment,
+                                 FileCheckpointSaver checkpointSaver, GraphMetrics graphMetrics,
+                                 FileSpanExporter fileSpanExporter, LlmConcurrencyLimits llmConcurrencyLimits) {
         this.chatClientBuilder = chatClientBuilder;
-        log.info("正在创建包含扩展节点的状态图...");
-
-        // 创建预配置所有必要键的状态工厂
-        OverAllStateFactory stateFactory = () -> {
-            OverAllState state = new OverAllState();
-            state.registerKeyAndStrategy("validation", new ReplaceStrategy());
-            state.registerKeyAndStrategy("expandercontent", new ReplaceStrategy());
-            state.registerKeyAndStrategy("error", new ReplaceStrategy());
-            return state;
-        };
-
-        // 创建包含条件逻辑的状态图
-        this.stateGraph = new StateGraph("条件扩展工作流", stateFactory)
-                .addNode("validation", node_async(new ValidationNode(1)))
-                .addNode("expander", node_async(new ExpanderNode(chatClientBuilder)))
-                .addNode("fallback", node_async(new FallbackNode()))
-                .addEdge(StateGraph.START, "validation")
-                .addConditionalEdges("validation",
-                        edge_async(new ValidationEdgeAction()),
-                        Map.of("valid", "expander", "invalid", "fallback"))
-                .addEdge("expander", StateGraph.END)
-                .addEdge("fallback", StateGraph.END);
-        log.info("状态图创建成功");
-
-        // 创建循环演示的状态图
-        log.info("正在创建循环处理状态图...");
-        
-        OverAllStateFactory loopStateFactory = () -> {
-            OverAllState state = new OverAllState();
-            state.registerKeyAndStrategy("items", new ReplaceStrategy());
-            state.registerKeyAndStrategy("loop_index", new ReplaceStrategy());
-            state.registerKeyAndStrategy("processed_results", new ReplaceStrategy());
-            state.registerKeyAndStrategy("loop_completed", new ReplaceStrategy());
-            state.registerKeyAndStrategy("current_processing", new ReplaceStrategy());
-            state.registerKeyAndStrategy("loop_final_result", new ReplaceStrategy());
-            return state;
-        };
-
-        this.loopStateGraph = new StateGraph("循环处理工作流", loopStateFactory)
-                .addNode("loop_processor", node_async(new LoopProcessorNode(chatClientBuilder)))
-                .addNode("result_collector", node_async(new ResultCollectorNode()))
-                .addEdge(StateGraph.START, "loop_processor")
-                .addConditionalEdges("loop_processor",
-                        edge_async(new LoopConditionAction()),
-                        Map.of("continue", "loop_processor", "finish", "result_collector"))
-                .addEdge("result_collector", StateGraph.END);
-        log.info("循环处理状态图创建成功");
-
-        // 创建智能客服工作流状态图
-        log.info("正在创建智能客服工作流状态图...");
-        
-        OverAllStateFactory customerServiceStateFactory = () -> {
-            OverAllState state = new OverAllState();
-            state.registerKeyAndStrategy("input", new ReplaceStrategy());
-            state.registerKeyAndStrategy("intent_analysis", new ReplaceStrategy());
-            state.registerKeyAndStrategy("knowledge_search", new ReplaceStrategy());
-            state.registerKeyAndStrategy("ai_analysis", new ReplaceStrategy());
-            state.registerKeyAndStrategy("generated_answer", new ReplaceStrategy());
-            state.registerKeyAndStrategy("quality_assessment", new ReplaceStrategy());
-            state.registerKeyAndStrategy("human_service", new ReplaceStrategy());
-            state.registerKeyAndStrategy("retry_count", new ReplaceStrategy());
-            return state;
-        };
-
-        this.customerServiceGraph = new StateGraph("智能客服工作流", customerServiceStateFactory)
-                .addNode("intent_recognition", node_async(new IntentRecognitionNode(chatClientBuilder)))
-                .addNode("knowledge_search", node_async(new KnowledgeSearchNode()))
-                .addNode("ai_analysis", node_async(new AIAnalysisNode(chatClientBuilder)))
-                .addNode("human_service", node_async(new HumanServiceNode()))
-                .addNode("answer_generation", node_async(new AnswerGenerationNode()))
-                .addNode("quality_assessment", node_async(new QualityAssessmentNode(chatClientBuilder)))
-                .addEdge(StateGraph.START, "intent_recognition")
-                .addConditionalEdges("intent_recognition",
-                        edge_async(new IntentRoutingAction()),
-                        Map.of("faq", "knowledge_search", "complex", "ai_analysis", "complaint", "human_service"))
-                .addEdge("knowledge_search", "answer_generation")
-                .addEdge("ai_analysis", "answer_generation")
-                .addEdge("answer_generation", "quality_assessment")
-                .addConditionalEdges("quality_assessment",
-                        edge_async(new QualityCheckAction()),
-                        Map.of("pass", StateGraph.END, "retry", "ai_analysis"))
-                .addEdge("human_service", StateGraph.END);
-        log.info("智能客服工作流状态图创建成功");
+        this.graphRegistry = graphRegistry;
+        this.answerCache = answerCache;
+        this.stateDiffTracer = stateDiffTracer;
+        this.knowledgeBase = knowledgeBase;
+        this.speculativeExecution = speculativeExecution;
+        this.intentPreClassifier = intentPreClassifier;
+        this.intentMicroBatcher = intentMicroBatcher;
+        this.singleFlightInvoker = singleFlightInvoker;
+        this.graphThreads = graphThreads;
+        this.asyncQualityAssessment = asyncQualityAssessment;
+        this.checkpointSaver = checkpointSaver;
+        this.graphMetrics = graphMetrics;
+        this.fileSpanExporter = fileSpanExporter;
+        this.llmConcurrencyLimits = llmConcurrencyLimits;
     }
 
+    /**
+     * 直接调用扩展节点：大模型响应以 Mono 返回，等待期间不占用任何线程
+     */
     @GetMapping("/expand")
-    public Map<String, Object> expand(@RequestParam(value = "query", defaultValue = "你好，很高兴认识你，能简单介绍一下自己吗？") String query,
-                                      @RequestParam(value = "expandernumber", defaultValue = "3") Integer expanderNumber,
-                                      @RequestParam(value = "threadid", defaultValue = "demo-thread") String threadId) {
-
-        try {
-            ExpanderNode expanderNode = new ExpanderNode(this.chatClientBuilder);
-            OverAllState state = new OverAllState();
-            Map<String, Object> payload = Map.of("query", query, "expandernumber", expanderNumber);
-            state.updateState(Map.of("input", payload));
-            return expanderNode.apply(state);
-        } catch (Exception e) {
-            log.error("直接调用失败", e);
-            String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
-            return Map.of("error", errorMsg);
-        }
+    public Mono<Map<String, Object>> expand(@RequestParam(value = "query", defaultValue = "你好，很高兴认识你，能简单介绍一下自己吗？") String query,
+                                            @RequestParam(value = "expandernumber", defaultValue = "3") Integer expanderNumber,
+                                            @RequestParam(value = "threadid", defaultValue = "demo-thread") String threadId) {
+
+        ExpanderNode expanderNode = new ExpanderNode(this.chatClientBuilder);
+        OverAllState state = new OverAllState();
+        Map<String, Object> payload = Map.of("query", query, "expandernumber", expanderNumber);
+        state.updateState(Map.of("input", payload));
+        return Mono.defer(() -> expanderNode.applyReactive(state))
+                .onErrorResume(e -> {
+                    log.error("直接调用失败", e);
+                    String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                    return Mono.just(Map.of("error", errorMsg));
+                });
     }
 
     @GetMapping("/expand-conditional")
-    public Map<String, Object> expandConditional(@RequestParam(value = "query", defaultValue = "") String query,
-                                                 @RequestParam(value = "expandernumber", defaultValue = "3") Integer expanderNumber) {
-        try {
-            // 编译现有的状态图
-            var compiledGraph = this.stateGraph.compile();
-
-            // 创建初始状态并设置输入数据
-            Map<String, Object> initialData = Map.of("input", Map.of("query", query, "expandernumber", expanderNumber));
-
-            // 执行图并返回结果
-            var result = compiledGraph.invoke(initialData);
-            return result.map(state -> {
-                Map<String, Object> data = state.data();
-                // 如果有 expandercontent，直接返回它
-                if (data.containsKey("expandercontent")) {
-                    return Map.of("expandercontent", data.get("expandercontent"));
-                }
-                // 如果有 error，返回错误信息
-                if (data.containsKey("error")) {
-                    return Map.of("error", data.get("error"), "expandercontent", data.get("expandercontent"));
-                }
-                // 其他情况返回完整数据
-                return data;
-            }).orElse(Map.of("error", "图执行失败"));
-        } catch (Exception e) {
-            log.error("条件流程执行失败", e);
-            String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
-            return Map.of("error", errorMsg);
-        }
+    public Mono<Map<String, Object>> expandConditional(@RequestParam(value = "query", defaultValue = "") String query,
+                                                       @RequestParam(value = "expandernumber", defaultValue = "3") Integer expanderNumber) {
+        return onBlockingScheduler(() -> {
+            try {
+                // 创建初始状态并设置输入数据
+                Map<String, Object> initialData = Map.of("input", Map.of("query", query, "expandernumber", expanderNumber));
+
+                // 执行图并返回结果
+                var result = this.graphRegistry.invoke(GraphConfiguration.EXPAND_CONDITIONAL_GRAPH, initialData);
+                return result.map(state -> {
+                    Map<String, Object> data = state.data();
+                    // 如果有 expandercontent，直接返回它
+                    if (data.containsKey("expandercontent")) {
+                        return Map.of("expandercontent", data.get("expandercontent"));
+                    }
+                    // 如果有 error，返回错误信息
+                    if (data.containsKey("error")) {
+                        return Map.of("error", data.get("error"), "expandercontent", data.get("expandercontent"));
+                    }
+                    // 其他情况返回完整数据
+                    return data;
+                }).orElse(Map.of("error", "图执行失败"));
+            } catch (Exception e) {
+                log.error("条件流程执行失败", e);
+                String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                return Map.of("error", errorMsg);
+            }
+        });
     }
 
+    /**
+     * 循环处理演示；sequential 模式指定 threadid 且启用检查点时，每处理一项保存一次检查点，中断后可通过 /loop-demo/resume 继续
+     */
     @GetMapping("/loop-demo")
-    public Map<String, Object> loopDemo(@RequestParam(value = "items", defaultValue = "春天的花朵,夏天的海滩,秋天的落叶,冬天的雪花") String itemsParam) {
-        try {
-            // 解析输入的项目列表
-            List<String> items = Arrays.asList(itemsParam.split(","));
-            log.info("开始循环处理演示，项目列表: {}", items);
+    public Mono<Map<String, Object>> loopDemo(@RequestParam(value = "items", defaultValue = "春天的花朵,夏天的海滩,秋天的落叶,冬天的雪花") String itemsParam,
+                                              @RequestParam(value = "mode", defaultValue = "sequential") String mode,
+                                              @RequestParam(value = "threadid", defaultValue = "") String threadId) {
+        return onBlockingScheduler(() -> {
+            try {
+                // 解析输入的项目列表
+                List<String> items = Arrays.asList(itemsParam.split(","));
+                log.info("开始循环处理演示，模式: {}, 项目列表: {}", mode, items);
 
-            // 编译循环状态图
-            var compiledLoopGraph = this.loopStateGraph.compile();
+                // parallel 模式并发处理全部项目，sequential 模式逐项循环
+                String graphName = "parallel".equalsIgnoreCase(mode)
+                        ? GraphConfiguration.LOOP_PARALLEL_GRAPH
+                        : GraphConfiguration.LOOP_GRAPH;
 
-            // 创建初始状态
-            Map<String, Object> initialData = Map.of(
-                    "items", items,
-                    "loop_index", 0,
-                    "processed_results", List.of()
-            );
-
-            // 执行循环状态图
-            var result = compiledLoopGraph.invoke(initialData);
-            return result.map(state -> {
-                Map<String, Object> data = state.data();
-                // 返回最终处理结果
-                if (data.containsKey("loop_final_result")) {
-                    Object finalResult = data.get("loop_final_result");
-                    if (finalResult instanceof Map) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> resultMap = (Map<String, Object>) finalResult;
-                        return resultMap;
-                    }
-                }
-                // 如果没有最终结果，返回当前状态
-                return Map.of(
-                        "status", "processing",
-                        "current_data", data
+                // 创建初始状态
+                Map<String, Object> initialData = Map.of(
+                        "items", items,
+                        "loop_index", 0,
+                        "processed_results", List.of()
                 );
-            }).orElse(Map.of("error", "循环图执行失败"));
 
-        } catch (Exception e) {
-            log.error("循环演示执行失败", e);
-            String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
-            return Map.of("error", errorMsg);
-        }
+                // 执行循环状态图
+                boolean checkpointed = !threadId.isBlank() && this.checkpointSaver.enabled()
+                        && GraphConfiguration.LOOP_GRAPH.equals(graphName);
+                var result = checkpointed
+                        ? this.graphRegistry.invoke(graphName, initialData, threadId)
+                        : this.graphRegistry.invoke(graphName, initialData);
+                return buildLoopResponse(result);
+
+            } catch (Exception e) {
+                log.error("循环演示执行失败", e);
+                String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                return threadId.isBlank() ? Map.of("error", errorMsg) : Map.of("error", errorMsg, "thread_id", threadId);
+            }
+        });
+    }
+
+    /**
+     * 从检查点继续执行中断的循环处理（异常退出或进程重启），已处理的项目不会重新调用大模型
+     */
+    @PostMapping("/loop-demo/resume")
+    public Mono<Map<String, Object>> resumeLoopDemo(@RequestParam("threadid") String threadId) {
+        return onBlockingScheduler(() -> {
+            try {
+                log.info("从检查点继续循环处理，线程: {}", threadId);
+                return buildLoopResponse(this.graphRegistry.resume(GraphConfiguration.LOOP_GRAPH, threadId));
+            } catch (Exception e) {
+                log.error("循环处理恢复失败", e);
+                String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                return Map.of("error", errorMsg, "thread_id", threadId);
+            }
+        });
+    }
+
+    private Map<String, Object> buildLoopResponse(Optional<OverAllState> result) {
+        return result.map(state -> {
+            Map<String, Object> data = state.data();
+            // 返回最终处理结果
+            if (data.containsKey("loop_final_result")) {
+                Object finalResult = data.get("loop_final_result");
+                if (finalResult instanceof Map) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> resultMap = (Map<String, Object>) finalResult;
+                    return resultMap;
+                }
+            }
+            // 如果没有最终结果，返回当前状态
+            return Map.<String, Object>of(
+                    "status", "processing",
+                    "current_data", data
+            );
+        }).orElse(Map.of("error", "循环图执行失败"));
     }
 
     @GetMapping("/customer-service")
-    public Map<String, Object> customerService(@RequestParam(value = "question", defaultValue = "请问你们的产品有哪些功能？") String question) {
-        try {
+    public Mono<Map<String, Object>> customerService(@RequestParam(value = "question", defaultValue = "请问你们的产品有哪些功能？") String question) {
+        return Mono.defer(() -> {
             log.info("开始智能客服处理，用户问题: {}", question);
 
-            // 编译客服状态图
-            var compiledCustomerServiceGraph = this.customerServiceGraph.compile();
+            // 相同或相近的问题命中语义缓存时直接返回，不进入工作流
+            Optional<SemanticAnswerCache.CacheHit> cacheHit = this.answerCache.lookup(question);
+            if (cacheHit.isPresent()) {
+                return Mono.just(buildCachedResponse(cacheHit.get()));
+            }
 
             // 创建初始状态
             Map<String, Object> initialData = Map.of(
@@ -227,54 +219,223 @@ public class SimpleGraphController {
                     "retry_count", 0
             );
 
-            // 执行客服状态图
-            var result = compiledCustomerServiceGraph.invoke(initialData);
-            return result.map(state -> {
-                Map<String, Object> data = state.data();
-                
-                // 构建返回结果
-                Map<String, Object> response = new HashMap<>();
-                
-                // 获取最终答案
-                if (data.containsKey("generated_answer")) {
-                    Object generatedAnswer = data.get("generated_answer");
-                    if (generatedAnswer instanceof Map) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> answerMap = (Map<String, Object>) generatedAnswer;
-                        response.put("answer", answerMap.get("final_answer"));
-                        response.put("answer_source", answerMap.get("answer_source"));
-                        response.put("intent_type", answerMap.get("intent_type"));
-                    }
+            // 执行客服状态图，相同问题正在执行时直接共享其结果（等待期间不占用线程）；只由实际执行的请求写入缓存
+            return this.singleFlightInvoker.invokeReactive(GraphConfiguration.CUSTOMER_SERVICE_GRAPH, question, initialData,
+                            state -> this.answerCache.put(question, state.data()), this.graphThreads.blockingScheduler())
+                    .map(result -> result.map(state -> buildCustomerServiceResponse(state.data()))
+                            .orElse(Map.of("error", "客服工作流执行失败", "status", "failed")));
+        }).onErrorResume(e -> {
+            log.error("智能客服处理失败", e);
+            String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return Mono.just(Map.of("error", errorMsg, "status", "failed"));
+        });
+    }
+
+    /**
+     * 流式智能客服：AI 生成答案时逐个推送 token 事件，工作流结束后推送包含意图分析和质量评估的 result 事件
+     */
+    @GetMapping(value = "/customer-service/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> customerServiceStream(@RequestParam(value = "question", defaultValue = "请问你们的产品有哪些功能？") String question) {
+        // 图执行会阻塞到工作流结束，虚拟线程模式下每个流式请求占用一个虚拟线程
+        return Flux.<ServerSentEvent<Object>>create(sink -> {
+            log.info("开始流式智能客服处理，用户问题: {}", question);
+
+            Optional<SemanticAnswerCache.CacheHit> cacheHit = this.answerCache.lookup(question);
+            if (cacheHit.isPresent()) {
+                sink.next(ServerSentEvent.builder((Object) buildCachedResponse(cacheHit.get())).event("result").build());
+                sink.complete();
+                return;
+            }
+
+            // 客户端断开时通知流式节点取消大模型调用，图执行随之结束并释放阻塞线程和并发许可
+            Sinks.Empty<Void> cancelled = Sinks.empty();
+            sink.onCancel(cancelled::tryEmitEmpty);
+
+            AnswerStreamListener listener = new AnswerStreamListener() {
+                @Override
+                public void onAnswerStart(int attempt) {
+                    sink.next(ServerSentEvent.builder((Object) Map.of("attempt", attempt)).event("answer_start").build());
                 }
-                
-                // 获取意图分析结果
-                if (data.containsKey("intent_analysis")) {
-                    response.put("intent_analysis", data.get("intent_analysis"));
+
+                @Override
+                public void onToken(String token) {
+                    sink.next(ServerSentEvent.builder((Object) token).event("token").build());
                 }
-                
-                // 获取质量评估结果
-                if (data.containsKey("quality_assessment")) {
-                    response.put("quality_assessment", data.get("quality_assessment"));
+
+                @Override
+                public Mono<Void> cancelled() {
+                    return cancelled.asMono();
                 }
-                
-                // 获取人工客服信息
-                if (data.containsKey("human_service")) {
-                    response.put("human_service", data.get("human_service"));
+            };
+
+            try {
+                Map<String, Object> initialData = Map.of(
+                        "input", Map.of("question", question),
+                        "retry_count", 0,
+                        AnswerStreamListener.STATE_KEY, listener
+                );
+
+                var result = this.graphRegistry.invoke(GraphConfiguration.CUSTOMER_SERVICE_GRAPH, initialData);
+                Map<String, Object> response = result.map(state -> {
+                            this.answerCache.put(question, state.data());
+                            return buildCustomerServiceResponse(state.data());
+                        })
+                        .orElse(Map.of("error", "客服工作流执行失败", "status", "failed"));
+                sink.next(ServerSentEvent.builder((Object) response).event("result").build());
+            } catch (Exception e) {
+                if (sink.isCancelled()) {
+                    log.info("客户端已断开，流式智能客服处理已取消，用户问题: {}", question);
+                    return;
                 }
-                
-                response.put("status", "success");
-                response.put("processing_time", System.currentTimeMillis());
-                
-                return response;
-                
-            }).orElse(Map.of("error", "客服工作流执行失败", "status", "failed"));
-
-        } catch (Exception e) {
-            log.error("智能客服处理失败", e);
-            String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
-            return Map.of("error", errorMsg, "status", "failed");
+                log.error("流式智能客服处理失败", e);
+                String errorMsg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                sink.next(ServerSentEvent.builder((Object) Map.of("error", errorMsg, "status", "failed")).event("error").build());
+            }
+            sink.complete();
+        }).subscribeOn(this.graphThreads.blockingScheduler());
+    }
+
+    /**
+     * 图执行会阻塞到工作流结束，放到阻塞调度器上执行，不占用 Tomcat 请求线程
+     */
+    private Mono<Map<String, Object>> onBlockingScheduler(Callable<Map<String, Object>> invocation) {
+        return Mono.fromCallable(invocation).subscribeOn(this.graphThreads.blockingScheduler());
+    }
+
+    private Map<String, Object> buildCachedResponse(SemanticAnswerCache.CacheHit cacheHit) {
+        Map<String, Object> response = buildCustomerServiceResponse(cacheHit.data());
+        response.put("cache_hit", true);
+        response.put("cache_similarity", cacheHit.similarity());
+        response.put("cache_matched_question", cacheHit.matchedQuestion());
+        return response;
+    }
+
+    private Map<String, Object> buildCustomerServiceResponse(Map<String, Object> data) {
+        // 构建返回结果
+        Map<String, Object> response = new HashMap<>();
+
+        // 状态中是值对象，转换为接口约定的 snake_case 字段
+        // 获取最终答案
+        GeneratedAnswer generatedAnswer = CustomerServiceState.GENERATED_ANSWER.get(data);
+        if (generatedAnswer != null) {
+            response.put("answer", generatedAnswer.finalAnswer());
+            response.put("answer_source", generatedAnswer.answerSource());
+            response.put("intent_type", generatedAnswer.intentType());
+        }
+
+        // 获取意图分析结果
+        IntentAnalysis intentAnalysis = CustomerServiceState.INTENT_ANALYSIS.get(data);
+        if (intentAnalysis != null) {
+            response.put("intent_analysis", intentAnalysis.toMap());
         }
+
+        // 获取质量评估结果
+        QualityAssessment qualityAssessment = CustomerServiceState.QUALITY_ASSESSMENT.get(data);
+        if (qualityAssessment != null) {
+            response.put("quality_assessment", qualityAssessment.toMap());
+        }
+
+        // 获取人工客服信息
+        HumanServiceTicket humanService = CustomerServiceState.HUMAN_SERVICE.get(data);
+        if (humanService != null) {
+            response.put("human_service", humanService.toMap());
+        }
+
+        response.put("status", "success");
+        response.put("processing_time", System.currentTimeMillis());
+
+        return response;
+    }
+
+    @GetMapping("/registry/stats")
+    public Map<String, Object> registryStats() {
+        return this.graphRegistry.stats();
+    }
+
+    @GetMapping("/cache/stats")
+    public Map<String, Object> cacheStats() {
+        return this.answerCache.stats();
+    }
+
+    @GetMapping("/trace/stats")
+    public Map<String, Object> traceStats() {
+        return this.stateDiffTracer.stats();
+    }
+
+    /**
+     * 各节点耗时汇总，完整指标（含分位数）见 /actuator/prometheus
+     */
+    @GetMapping("/metrics/nodes")
+    public Map<String, Object> nodeMetrics() {
+        return this.graphMetrics.stats();
+    }
+
+    @GetMapping("/trace/spans/stats")
+    public Map<String, Object> spanFileStats() {
+        return this.fileSpanExporter.stats();
+    }
+
+    @GetMapping("/llm/limits")
+    public Map<String, Object> llmLimits() {
+        return this.llmConcurrencyLimits.stats();
+    }
+
+    @GetMapping("/speculation/stats")
+    public Map<String, Object> speculationStats() {
+        return this.speculativeExecution.stats();
+    }
+
+    @GetMapping("/intent/stats")
+    public Map<String, Object> intentStats() {
+        return this.intentPreClassifier.stats();
+    }
+
+    @GetMapping("/intent/batch/stats")
+    public Map<String, Object> intentBatchStats() {
+        return this.intentMicroBatcher.stats();
+    }
+
+    @GetMapping("/single-flight/stats")
+    public Map<String, Object> singleFlightStats() {
+        return this.singleFlightInvoker.stats();
     }
-}
 
+    @GetMapping("/quality/stats")
+    public Map<String, Object> qualityStats() {
+        return this.asyncQualityAssessment.stats();
+    }
+
+    /**
+     * 最近完成的异步质量评估记录，用于离线抽查答案质量
+     */
+    @GetMapping("/quality/recent")
+    public List<Map<String, Object>> qualityRecent() {
+        return this.asyncQualityAssessment.recent();
+    }
 
+    @GetMapping("/checkpoint/stats")
+    public Map<String, Object> checkpointStats() {
+        return this.checkpointSaver.stats();
+    }
+
+    /**
+     * 有检查点、可以继续执行的线程 ID
+     */
+    @GetMapping("/checkpoint/pending")
+    public List<String> pendingCheckpoints() {
+        return this.checkpointSaver.pendingThreads();
+    }
+
+    @GetMapping("/knowledge/stats")
+    public Map<String, Object> knowledgeStats() {
+        return this.knowledgeBase.stats();
+    }
+
+    /**
+     * 在后台重新加载知识库，新版本构建完成后返回；构建期间检索继续使用旧版本
+     */
+    @PostMapping("/knowledge/reload")
+    public CompletableFuture<Map<String, Object>> reloadKnowledge() {
+        return this.knowledgeBase.reload();
+    }
+}
@@ -0,0 +1,118 @@
+package com.seanfield.graphdemo.cache;
+
+import com.seanfield.graphdemo.embedding.HashingNgramEmbedder;
+import com.seanfield.graphdemo.graph.QualityAssessment;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SemanticAnswerCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private SemanticAnswerCache newCache(int maxEntries) {
+        return new SemanticAnswerCache(new HashingNgramEmbedder(256), true, 0.8, maxEntries, Duration.ofMinutes(10), clock::get);
+    }
+
+    private static Map<String, Object> answer(String text) {
+        return Map.of(
+                "generated_answer", Map.of("final_answer", text),
+                "intent_analysis", Map.of("intent_type", "FAQ", "confidence", 90));
+    }
+
+    @Test
+    void returnsCachedAnswerForParaphrasedQuestion() {
+        SemanticAnswerCache cache = newCache(10);
+        cache.put("请问你们的产品有哪些功能？", answer("功能介绍"));
+
+        var hit = cache.lookup("你们的产品有哪些功能");
+
+        assertTrue(hit.isPresent());
+        assertEquals(answer("功能介绍").get("generated_answer"), hit.get().data().get("generated_answer"));
+        assertFalse(cache.lookup("怎么投诉你们的售后").isPresent());
+        assertEquals(0.5, (double) cache.stats().get("hit_rate"));
+    }
+
+    @Test
+    void invalidatedAnswersAreNoLongerServed() {
+        SemanticAnswerCache cache = newCache(10);
+        cache.put("价格多少钱", answer("价格"));
+
+        cache.invalidate("价格多少钱");
+
+        assertFalse(cache.lookup("价格多少钱").isPresent());
+        assertEquals(1L, cache.stats().get("invalidations"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedAndExpiredEntries() {
+        SemanticAnswerCache cache = newCache(2);
+        cache.put("价格多少钱", answer("价格"));
+        clock.addAndGet(1);
+        cache.put("怎么申请免费试用", answer("试用"));
+        clock.addAndGet(1);
+        cache.lookup("价格多少钱");
+        clock.addAndGet(1);
+        cache.put("数据安全如何保证", answer("安全"));
+
+        assertTrue(cache.lookup("价格多少钱").isPresent());
+        assertFalse(cache.lookup("怎么申请免费试用").isPresent());
+
+        clock.addAndGet(Duration.ofMinutes(11).toNanos());
+        assertFalse(cache.lookup("数据安全如何保证").isPresent());
+    }
+
+    @Test
+    void doesNotCacheHumanServiceResults() {
+        SemanticAnswerCache cache = newCache(10);
+        cache.put("我要投诉", Map.of(
+                "generated_answer", Map.of("final_answer", "工单号 CS1"),
+                "intent_analysis", Map.of("intent_type", "COMPLAINT"),
+                "human_service", Map.of("ticket_id", "CS1")));
+
+        assertFalse(cache.lookup("我要投诉").isPresent());
+    }
+
+    @Test
+    void doesNotCacheAnswersThatFailedQualityAssessment() {
+        SemanticAnswerCache cache = newCache(10);
+        // 重试次数用尽后工作流强制放行，但评估结果仍是不合格
+        Map<String, Object> forcePassed = new HashMap<>(answer("答非所问"));
+        forcePassed.put("quality_assessment", new QualityAssessment(3, 3, 4, 6, 3, 4, "没有回答用户的问题"));
+        cache.put("怎么导出报表", forcePassed);
+
+        Map<String, Object> pendingAsync = new HashMap<>(answer("发票在订单页申请"));
+        pendingAsync.put("quality_assessment", QualityAssessment.pendingAsync());
+        cache.put("怎么开发票", pendingAsync);
+
+        assertFalse(cache.lookup("怎么导出报表").isPresent());
+        assertTrue(cache.lookup("怎么开发票").isPresent());
+        assertEquals(1L, cache.stats().get("rejected_failed_quality"));
+    }
+
+    @Test
+    void dropsTheAnswerWhenBackgroundAssessmentFailsBeforeItIsCached() {
+        SemanticAnswerCache cache = newCache(10);
+        // 后台评估先于工作流返回完成，此时答案还没有写入缓存
+        cache.invalidateFailedAnswer("怎么导出报表");
+        cache.put("怎么导出报表", answer("答非所问"));
+        assertFalse(cache.lookup("怎么导出报表").isPresent());
+        assertEquals(1L, cache.stats().get("rejected_after_async_failure"));
+
+        // 只丢弃随后的一次写入，之后重新生成的答案照常缓存
+        cache.put("怎么导出报表", answer("在报表页点击导出"));
+        assertTrue(cache.lookup("怎么导出报表").isPresent());
+
+        // 已写入的答案直接移除
+        cache.invalidateFailedAnswer("怎么导出报表");
+        assertFalse(cache.lookup("怎么导出报表").isPresent());
+        assertEquals(1L, cache.stats().get("invalidations"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncQualityAssessmentTest {
+
+    private static final Duration ASSESSMENT_LATENCY = Duration.ofMillis(300);
+
+    /**
+     * 固定延迟后给出不合格评分的评估节点
+     */
+    private static final ReactiveNodeAction FAILING_ASSESSMENT = state -> Mono.delay(ASSESSMENT_LATENCY)
+            .map(tick -> Map.of(CustomerServiceState.QUALITY_ASSESSMENT.key(),
+                    new QualityAssessment(6, 5, 6, 7, 4, 5, "遗漏了价格信息")));
+
+    @Test
+    void answerReturnsBeforeBackgroundAssessmentIsRecorded() throws InterruptedException {
+        AsyncQualityAssessment assessment = new AsyncQualityAssessment(true, 0, Set.of(), 8, 10);
+        List<String> failedQuestions = new CopyOnWriteArrayList<>();
+        assessment.addFailedQualityListener(failedQuestions::add);
+
+        long start = System.nanoTime();
+        Map<String, Object> result = assessment.wrap(FAILING_ASSESSMENT).applyReactive(state("FAQ", 0)).block();
+        assertTrue(System.nanoTime() - start < ASSESSMENT_LATENCY.toNanos(), "异步模式不应等待质量评估");
+
+        QualityAssessment qualityInfo = CustomerServiceState.QUALITY_ASSESSMENT.get(result);
+        assertEquals("async", qualityInfo.assessmentMode());
+        assertTrue(qualityInfo.qualityPassed());
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while ((long) assessment.stats().get("async_completed") == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        List<Map<String, Object>> recent = assessment.recent();
+        assertEquals(1, recent.size());
+        assertEquals("专业版价格多少钱", recent.get(0).get("question"));
+        assertEquals(5, ((Map<?, ?>) recent.get(0).get("quality_assessment")).get("overall_score"));
+        assertEquals(1L, assessment.stats().get("async_failed_quality"));
+        assertEquals(0, assessment.stats().get("in_flight"));
+        assertEquals(List.of("专业版价格多少钱"), failedQuestions);
+    }
+
+    @Test
+    void hungAssessmentsTimeOutAndReleaseTheirSlot() throws InterruptedException {
+        AsyncQualityAssessment assessment = new AsyncQualityAssessment(true, 0, Set.of(), 1, 10, Duration.ofMillis(100));
+        ReactiveNodeAction hung = state -> Mono.never();
+
+        for (int i = 0; i < 3; i++) {
+            assessment.wrap(hung).applyReactive(state("FAQ", 0)).block();
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while ((long) assessment.stats().get("async_timeouts") <= i && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        // 上限为 1，超时后名额被释放，后续评估不会被跳过
+        assertEquals(3L, assessment.stats().get("async_submitted"));
+        assertEquals(3L, assessment.stats().get("async_timeouts"));
+        assertEquals(0L, assessment.stats().get("skipped"));
+        assertEquals(0, assessment.stats().get("in_flight"));
+    }
+
+    @Test
+    void configuredIntentsAndRetriesAreGatedSynchronously() {
+        AsyncQualityAssessment assessment = new AsyncQualityAssessment(true, 0, Set.of("COMPLEX"), 8, 10);
+        ReactiveNodeAction wrapped = assessment.wrap(FAILING_ASSESSMENT);
+
+        QualityAssessment complex = CustomerServiceState.QUALITY_ASSESSMENT.get(wrapped.applyReactive(state("COMPLEX", 0)).block());
+        QualityAssessment retry = CustomerServiceState.QUALITY_ASSESSMENT.get(wrapped.applyReactive(state("FAQ", 1)).block());
+
+        assertEquals("sync", complex.assessmentMode());
+        assertFalse(complex.qualityPassed());
+        assertEquals("sync", retry.assessmentMode());
+        assertEquals(2L, assessment.stats().get("sync_assessed"));
+        assertEquals(0L, assessment.stats().get("async_submitted"));
+    }
+
+    private static OverAllState state(String intentType, int retryCount) {
+        return new OverAllState(Map.of(
+                "input", Map.of("question", "专业版价格多少钱"),
+                "intent_analysis", new IntentAnalysis(intentType, 90, "", "专业版价格多少钱", null),
+                "generated_answer", new GeneratedAnswer("请参考官网", "knowledge_base", intentType, "2025-01-01 00:00:00"),
+                "retry_count", retryCount));
+    }
+}
@@ -0,0 +1,109 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.seanfield.graphdemo.graph.state.StateSchema;
+import com.seanfield.graphdemo.graph.state.StateSlot;
+import com.seanfield.graphdemo.intent.IntentClassifier;
+import com.seanfield.graphdemo.intent.IntentTrainingData;
+import com.seanfield.graphdemo.knowledge.FaqCorpus;
+import com.seanfield.graphdemo.knowledge.KeywordKnowledgeBase;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerServiceStateTest {
+
+    @Test
+    void workflowWritesTypedValuesThatKeepApiFieldNames() throws Exception {
+        ChatClient.Builder chatClientBuilder = ChatClient.builder(new StubChatModel());
+        GraphRegistry registry = new GraphRegistry(1, false, new StateDiffTracer(0));
+        registry.register(GraphConfiguration.CUSTOMER_SERVICE_GRAPH, GraphConfiguration.customerServiceGraph(
+                chatClientBuilder, new StateDiffTracer(0), new KeywordKnowledgeBase(FaqCorpus.builtin()),
+                new SpeculativeExecution(false), false, new IntentPreClassifier(null, 1),
+                new IntentMicroBatcher(chatClientBuilder.build(), false, 2, Duration.ZERO),
+                new AsyncQualityAssessment(false, 1, Set.of(), 0, 0)), null);
+
+        OverAllState state = registry.invoke(GraphConfiguration.CUSTOMER_SERVICE_GRAPH,
+                Map.of("input", Map.of("question", "专业版价格多少钱"), "retry_count", 0)).orElseThrow();
+
+        IntentAnalysis intent = CustomerServiceState.INTENT_ANALYSIS.get(state);
+        assertEquals("FAQ", intent.intentType());
+        assertEquals(90, intent.confidence());
+        assertTrue(CustomerServiceState.KNOWLEDGE_SEARCH.get(state).searchFound());
+        assertEquals("knowledge_base", CustomerServiceState.GENERATED_ANSWER.get(state).answerSource());
+        QualityAssessment quality = CustomerServiceState.QUALITY_ASSESSMENT.get(state);
+        assertEquals(9, quality.overallScore());
+        assertTrue(quality.qualityPassed());
+        assertNull(CustomerServiceState.HUMAN_SERVICE.get(state));
+
+        // 接口返回的字段与改为值对象之前一致
+        assertEquals(List.of("accuracy_score", "completeness_score", "professionalism_score", "friendliness_score",
+                "usefulness_score", "overall_score", "assessment_reason", "quality_passed"), List.copyOf(quality.toMap().keySet()));
+        assertEquals(List.of("intent_type", "confidence", "reason", "original_question"), List.copyOf(intent.toMap().keySet()));
+    }
+
+    @Test
+    void speculatesOnlyWhenIntentFallsBackToTheModel() throws Exception {
+        ChatClient.Builder chatClientBuilder = ChatClient.builder(new StubChatModel());
+        SpeculativeExecution speculation = new SpeculativeExecution(true);
+        IntentPreClassifier preClassifier = new IntentPreClassifier(IntentClassifier.train(IntentTrainingData.builtin()), 0.85);
+        GraphRegistry registry = new GraphRegistry(1, false, new StateDiffTracer(0));
+        registry.register(GraphConfiguration.CUSTOMER_SERVICE_GRAPH, GraphConfiguration.customerServiceGraph(
+                chatClientBuilder, new StateDiffTracer(0), new KeywordKnowledgeBase(FaqCorpus.builtin()),
+                speculation, false, preClassifier,
+                new IntentMicroBatcher(chatClientBuilder.build(), false, 2, Duration.ZERO),
+                new AsyncQualityAssessment(false, 1, Set.of(), 0, 0)), null);
+
+        registry.invoke(GraphConfiguration.CUSTOMER_SERVICE_GRAPH,
+                Map.of("input", Map.of("question", "专业版价格是多少"), "retry_count", 0)).orElseThrow();
+        assertEquals(1L, preClassifier.stats().get("bypassed"));
+        assertEquals(0L, speculation.stats().get("launched"));
+
+        registry.invoke(GraphConfiguration.CUSTOMER_SERVICE_GRAPH,
+                Map.of("input", Map.of("question", "今天天气怎么样"), "retry_count", 0)).orElseThrow();
+        assertEquals(1L, preClassifier.stats().get("llm_fallbacks"));
+        assertEquals(1L, speculation.stats().get("launched"));
+    }
+
+    @Test
+    void slotsRejectUntypedValuesAndDuplicateKeys() {
+        OverAllState legacy = new OverAllState(Map.of("intent_analysis", Map.of("intent_type", "FAQ", "confidence", 90)));
+        assertThrows(IllegalStateException.class, () -> CustomerServiceState.INTENT_ANALYSIS.get(legacy));
+        assertEquals(0, CustomerServiceState.RETRY_COUNT.get(legacy), "未写入的状态键返回默认值");
+
+        StateSlot<Integer> duplicate = StateSlot.of("retry_count", Integer.class, 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> StateSchema.of("重复", CustomerServiceState.RETRY_COUNT, duplicate));
+    }
+
+    /**
+     * 按提示词返回意图识别和质量评估结果的桩模型
+     */
+    private static final class StubChatModel implements ChatModel {
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            return stream(prompt).blockLast();
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            String text = prompt.getContents().contains("意图识别")
+                    ? "意图类型：FAQ\n置信度：90\n理由：价格查询\n"
+                    : "准确性：9\n完整性：9\n专业性：9\n友好性：9\n实用性：9\n总体评分：9\n评估理由：回答准确\n";
+            return Flux.just(new ChatResponse(List.of(new Generation(new AssistantMessage(text)))));
+        }
+    }
+}
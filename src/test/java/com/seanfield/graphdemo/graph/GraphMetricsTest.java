@@ -0,0 +1,73 @@
+package com.seanfield.graphdemo.graph;
+
+import com.seanfield.graphdemo.knowledge.FaqCorpus;
+import com.seanfield.graphdemo.knowledge.KeywordKnowledgeBase;
+import com.seanfield.graphdemo.loadtest.LatencyStubChatModel;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatModel;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphMetricsTest {
+
+    @Test
+    void recordsNodeLatencyRoutesRetriesAndFirstToken() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GraphMetrics metrics = new GraphMetrics(meterRegistry);
+        StateDiffTracer tracer = new StateDiffTracer(0, metrics);
+        ChatClient.Builder chatClientBuilder = ChatClient.builder(metrics.meter(
+                new LatencyStubChatModel(Duration.ofMillis(20), 0, 0, 0, Duration.ofSeconds(1), 40)));
+        GraphRegistry registry = new GraphRegistry(1, false, tracer)
+                .register(GraphConfiguration.CUSTOMER_SERVICE_GRAPH, GraphConfiguration.customerServiceGraph(chatClientBuilder, tracer,
+                        new KeywordKnowledgeBase(FaqCorpus.builtin()), new SpeculativeExecution(false), false,
+                        new IntentPreClassifier(null, 1), new IntentMicroBatcher(chatClientBuilder.build(), false, 2, Duration.ZERO),
+                        new AsyncQualityAssessment(false, 1, Set.of(), 0, 0)), null);
+
+        registry.invoke(GraphConfiguration.CUSTOMER_SERVICE_GRAPH,
+                Map.of("input", Map.of("question", "帮我分析一下专业版和企业版的区别"), "retry_count", 0)).orElseThrow();
+
+        Timer intentNode = meterRegistry.find("graph.node.duration")
+                .tags("graph", GraphConfiguration.CUSTOMER_SERVICE_GRAPH, "node", "intent_recognition", "outcome", "success").timer();
+        assertNotNull(intentNode);
+        assertEquals(1, intentNode.count());
+        assertEquals(1, meterRegistry.find("graph.route.decisions")
+                .tags("graph", GraphConfiguration.CUSTOMER_SERVICE_GRAPH, "edge", "intent_routing").counter().count());
+        assertNotNull(meterRegistry.find("graph.route.decisions").tags("edge", "quality_check").counter());
+
+        // 意图识别在 StateDiffTracer 包装的节点内调用大模型，首 token 延迟归属到该节点
+        Timer firstToken = meterRegistry.find("graph.llm.time_to_first_token")
+                .tags("graph", GraphConfiguration.CUSTOMER_SERVICE_GRAPH, "node", "intent_recognition").timer();
+        assertNotNull(firstToken);
+        assertTrue(firstToken.totalTime(java.util.concurrent.TimeUnit.MILLISECONDS) >= 15);
+        assertTrue(meterRegistry.find("graph.llm.stream.tokens").tags("node", "intent_recognition").summary().totalAmount() > 1);
+
+        DistributionSummary retries = meterRegistry.find("graph.retries").tags("graph", GraphConfiguration.CUSTOMER_SERVICE_GRAPH).summary();
+        assertEquals(1, retries.count());
+        assertEquals(1, meterRegistry.find("graph.run.duration").tags("outcome", "success").timer().count());
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> nodes = (List<Map<String, Object>>) metrics.stats().get("nodes");
+        assertFalse(nodes.isEmpty());
+        assertTrue((double) nodes.get(0).get("total_ms") >= (double) nodes.get(nodes.size() - 1).get("total_ms"));
+    }
+
+    @Test
+    void disabledLeavesModelAndNodesUnwrapped() {
+        GraphMetrics metrics = new GraphMetrics(null);
+        ChatModel model = new LatencyStubChatModel(Duration.ZERO, 0, 0, 0, Duration.ofSeconds(1), 40);
+        assertSame(model, metrics.meter(model));
+        com.alibaba.cloud.ai.graph.action.NodeAction node = state -> Map.of();
+        assertSame(node, metrics.time("node", node));
+        assertEquals(false, metrics.stats().get("enabled"));
+    }
+}
@@ -0,0 +1,114 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphRegistryTest {
+
+    @Test
+    void sequentialRunsReuseOneInstanceWithAFreshState() throws Exception {
+        GraphRegistry registry = new GraphRegistry(1, false, new StateDiffTracer(0));
+        registry.register("demo", echoGraph(null), null);
+
+        OverAllState first = registry.invoke("demo", Map.of("question", "怎么退款", "extra", "只属于第一次执行")).orElseThrow();
+        assertEquals("怎么退款", first.value("answer").orElseThrow());
+        assertEquals("只属于第一次执行", first.value("extra").orElseThrow());
+
+        // 实例归还时清空共享状态，第二次执行看不到第一次的输入
+        OverAllState second = registry.invoke("demo", Map.of("question", "怎么开发票")).orElseThrow();
+        assertEquals("怎么开发票", second.value("answer").orElseThrow());
+        assertTrue(second.value("extra").isEmpty());
+        assertEquals(Boolean.FALSE, second.value("saw_extra").orElseThrow());
+        assertTrue(second.data().keySet().stream().noneMatch(key -> key.startsWith(GraphRegistry.INTERNAL_KEY_PREFIX)),
+                "快照不包含内部状态键");
+
+        Map<?, ?> stats = (Map<?, ?>) registry.stats().get("demo");
+        assertEquals(2L, stats.get("invocations"));
+        assertEquals(1L, stats.get("compilations"), "只在注册时编译一次");
+        assertEquals(0L, stats.get("on_demand_compilations"));
+        assertEquals(1, stats.get("idle_instances"));
+    }
+
+    @Test
+    void instancesCompiledUnderLoadStayPooledUpToMaxIdle() throws Exception {
+        CountDownLatch started = new CountDownLatch(3);
+        CountDownLatch release = new CountDownLatch(1);
+        GraphRegistry registry = new GraphRegistry(1, 2, false, new StateDiffTracer(0));
+        registry.register("demo", echoGraph(() -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+        }), null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<Future<Optional<OverAllState>>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String question = "问题" + i;
+            results.add(executor.submit(() -> registry.invoke("demo", Map.of("question", question))));
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS), "三次执行同时占用实例");
+        release.countDown();
+        for (Future<Optional<OverAllState>> result : results) {
+            assertTrue(result.get(5, TimeUnit.SECONDS).isPresent());
+        }
+        executor.shutdown();
+
+        Map<?, ?> stats = (Map<?, ?>) registry.stats().get("demo");
+        assertEquals(3L, stats.get("compilations"));
+        assertEquals(2L, stats.get("on_demand_compilations"));
+        assertEquals(2, stats.get("idle_instances"), "临时编译的实例保留到上限");
+        assertEquals(1L, stats.get("discarded_instances"));
+
+        registry.invoke("demo", Map.of("question", "再问一次"));
+        stats = (Map<?, ?>) registry.stats().get("demo");
+        assertEquals(3L, stats.get("compilations"), "之后的请求从池中借出实例，不再编译");
+        assertEquals(2, stats.get("idle_instances"));
+    }
+
+    @Test
+    void maxIdleBelowPoolSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new GraphRegistry(4, 2, false, new StateDiffTracer(0)));
+    }
+
+    /**
+     * 把 question 原样写入 answer 的单节点图，执行前调用 beforeAnswer
+     */
+    private static StateGraph echoGraph(Blocker beforeAnswer) throws Exception {
+        return new StateGraph(() -> {
+            OverAllState state = new OverAllState();
+            state.registerKeyAndStrategy("question", new ReplaceStrategy());
+            state.registerKeyAndStrategy("extra", new ReplaceStrategy());
+            state.registerKeyAndStrategy("saw_extra", new ReplaceStrategy());
+            state.registerKeyAndStrategy("answer", new ReplaceStrategy());
+            return state;
+        })
+                .addNode("answer", node_async(state -> {
+                    if (beforeAnswer != null) {
+                        beforeAnswer.await();
+                    }
+                    return Map.of("answer", state.value("question").orElseThrow(),
+                            "saw_extra", state.value("extra").isPresent());
+                }))
+                .addEdge(StateGraph.START, "answer")
+                .addEdge("answer", StateGraph.END);
+    }
+
+    @FunctionalInterface
+    private interface Blocker {
+        void await() throws InterruptedException;
+    }
+}
@@ -0,0 +1,70 @@
+package com.seanfield.graphdemo.graph;
+
+import com.seanfield.graphdemo.knowledge.FaqCorpus;
+import com.seanfield.graphdemo.knowledge.KeywordKnowledgeBase;
+import com.seanfield.graphdemo.loadtest.LatencyStubChatModel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.ai.chat.client.ChatClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphThreadsTest {
+
+    @Test
+    void fallsBackToPlatformThreadsBeforeJava21() {
+        GraphThreads graphThreads = new GraphThreads(true, 4);
+        assertEquals(GraphThreads.virtualThreadsSupported(), graphThreads.virtual());
+        assertEquals(false, new GraphThreads(false, 4).virtual());
+    }
+
+    /**
+     * 需要 Java 21（mvn -Pjava21 test），低版本时跳过
+     */
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void runsThousandsOfBlockingGraphsConcurrentlyOnVirtualThreads() throws Exception {
+        int runs = 2000;
+        ChatClient.Builder chatClientBuilder = ChatClient.builder(
+                new LatencyStubChatModel(Duration.ofMillis(200), 0, 0, 0, Duration.ofSeconds(1), 40));
+        GraphRegistry registry = new GraphRegistry(runs, false, new StateDiffTracer(0));
+        registry.register(GraphConfiguration.CUSTOMER_SERVICE_GRAPH, GraphConfiguration.customerServiceGraph(
+                chatClientBuilder, new StateDiffTracer(0), new KeywordKnowledgeBase(FaqCorpus.builtin()),
+                new SpeculativeExecution(false), false, new IntentPreClassifier(null, 1),
+                new IntentMicroBatcher(chatClientBuilder.build(), false, 2, Duration.ZERO),
+                new AsyncQualityAssessment(false, 1, Set.of(), 0, 0)), null);
+        GraphThreads graphThreads = new GraphThreads(true, 200);
+        assertTrue(graphThreads.virtual());
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        long start = System.nanoTime();
+        long completed = Flux.range(0, runs)
+                .flatMap(run -> Mono.fromCallable(() -> {
+                    peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        return registry.invoke(GraphConfiguration.CUSTOMER_SERVICE_GRAPH,
+                                Map.of("input", Map.of("question", "专业版价格多少钱"), "retry_count", 0)).orElseThrow();
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                }).subscribeOn(graphThreads.blockingScheduler()), runs)
+                .count()
+                .block(Duration.ofSeconds(60));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(runs, completed);
+        // 平台线程模式最多同时执行 200 个，2000 个需要至少十轮大模型延迟
+        assertTrue(peakInFlight.get() > 1000, "peak " + peakInFlight.get());
+        assertTrue(elapsedMillis < 10_000, elapsedMillis + "ms");
+    }
+}
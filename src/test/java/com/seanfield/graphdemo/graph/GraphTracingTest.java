@@ -0,0 +1,89 @@
+package com.seanfield.graphdemo.graph;
+
+import com.google.gson.Gson;
+import com.seanfield.graphdemo.knowledge.FaqCorpus;
+import com.seanfield.graphdemo.knowledge.KeywordKnowledgeBase;
+import com.seanfield.graphdemo.loadtest.LatencyStubChatModel;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphTracingTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void nestsNodeAndLlmSpansUnderOneTracePerRun(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("spans.jsonl");
+        FileSpanExporter exporter = new FileSpanExporter(file);
+        SdkTracerProvider provider = SdkTracerProvider.builder().addSpanProcessor(SimpleSpanProcessor.create(exporter)).build();
+        GraphTracing tracing = new GraphTracing(new OtelTracer(provider.get("test"), new OtelCurrentTraceContext(), event -> {
+        }));
+        StateDiffTracer tracer = new StateDiffTracer(0, new GraphMetrics(null), tracing);
+        ChatClient.Builder chatClientBuilder = ChatClient.builder(tracing.trace(
+                new LatencyStubChatModel(Duration.ofMillis(20), 0, 0, 0, Duration.ofSeconds(1), 40)));
+        GraphRegistry registry = new GraphRegistry(1, false, tracer)
+                .register(GraphConfiguration.CUSTOMER_SERVICE_GRAPH, GraphConfiguration.customerServiceGraph(chatClientBuilder, tracer,
+                        new KeywordKnowledgeBase(FaqCorpus.builtin()), new SpeculativeExecution(false), false,
+                        new IntentPreClassifier(null, 1), new IntentMicroBatcher(chatClientBuilder.build(), false, 2, Duration.ZERO),
+                        new AsyncQualityAssessment(false, 1, Set.of(), 0, 0)), null);
+
+        registry.invoke(GraphConfiguration.CUSTOMER_SERVICE_GRAPH,
+                Map.of("input", Map.of("question", "帮我分析一下专业版和企业版的区别"), "retry_count", 0)).orElseThrow();
+        provider.shutdown();
+
+        Gson gson = new Gson();
+        List<Map<String, Object>> spans = Files.readAllLines(file).stream()
+                .map(line -> (Map<String, Object>) gson.fromJson(line, Map.class))
+                .toList();
+        assertEquals(1, spans.stream().map(span -> span.get("trace_id")).distinct().count());
+        Map<String, Map<String, Object>> byId = spans.stream().collect(Collectors.toMap(span -> (String) span.get("span_id"), span -> span));
+
+        Map<String, Object> root = spans.stream().filter(span -> !span.containsKey("parent_span_id")).findFirst().orElseThrow();
+        assertEquals("graph customer_service", root.get("name"));
+        Map<String, Object> rootAttributes = (Map<String, Object>) root.get("attributes");
+        assertEquals("complex", rootAttributes.get("graph.route.intent_routing"));
+        assertNotNull(rootAttributes.get("graph.retry_count"));
+
+        Map<String, Object> intentNode = spans.stream().filter(span -> "node intent_recognition".equals(span.get("name"))).findFirst().orElseThrow();
+        assertEquals(root.get("span_id"), intentNode.get("parent_span_id"));
+
+        // 每次大模型调用都挂在发起调用的节点下，带首 token 延迟和取消标记
+        List<Map<String, Object>> llmSpans = spans.stream().filter(span -> ((String) span.get("name")).startsWith("llm ")).toList();
+        assertFalse(llmSpans.isEmpty());
+        for (Map<String, Object> llm : llmSpans) {
+            Map<String, Object> parent = byId.get((String) llm.get("parent_span_id"));
+            assertNotNull(parent, spans.toString());
+            assertTrue(((String) parent.get("name")).startsWith("node "), parent.get("name") + " -> " + llm.get("name"));
+            Map<String, Object> attributes = (Map<String, Object>) llm.get("attributes");
+            assertTrue(((Number) attributes.get("llm.prompt.chars")).intValue() > 0);
+            if ("llm stream".equals(llm.get("name"))) {
+                assertTrue(((Number) attributes.get("llm.time_to_first_token_ms")).longValue() >= 15);
+                assertNotNull(attributes.get("llm.cancelled"));
+            }
+        }
+        assertTrue(llmSpans.stream().anyMatch(llm -> llm.get("parent_span_id").equals(intentNode.get("span_id"))));
+        assertEquals((long) spans.size(), exporter.stats().get("exported_spans"));
+    }
+
+    @Test
+    void disabledCreatesNoSpans() {
+        GraphTracing tracing = new GraphTracing(null);
+        com.alibaba.cloud.ai.graph.action.NodeAction node = state -> Map.of();
+        assertSame(node, tracing.span("node", node));
+        assertTrue(tracing.startRun("graph", "1").isNoop());
+    }
+}
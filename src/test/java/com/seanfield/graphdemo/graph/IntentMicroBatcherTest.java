@@ -0,0 +1,117 @@
+package com.seanfield.graphdemo.graph;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntentMicroBatcherTest {
+
+    private static final Pattern NUMBERED_QUESTION = Pattern.compile("^\\[(\\d+)] (.*)$", Pattern.MULTILINE);
+
+    @Test
+    void answersConcurrentQuestionsWithOneModelCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        ChatModel model = prompt -> {
+            calls.incrementAndGet();
+            StringBuilder answer = new StringBuilder();
+            Matcher matcher = NUMBERED_QUESTION.matcher(prompt.getContents());
+            while (matcher.find()) {
+                String intent = matcher.group(2).contains("投诉") ? "COMPLAINT" : "FAQ";
+                answer.append('[').append(matcher.group(1)).append("]\n意图类型：").append(intent)
+                        .append("\n置信度：90\n理由：测试\n");
+            }
+            return response(answer.toString());
+        };
+        List<String> questions = List.of("价格多少钱", "我要投诉", "怎么使用", "再不处理就投诉");
+
+        try (IntentMicroBatcher batcher = new IntentMicroBatcher(ChatClient.create(model), true, 4, Duration.ofSeconds(5))) {
+            ExecutorService executor = Executors.newFixedThreadPool(questions.size());
+            List<Future<Map<String, String>>> results = new ArrayList<>();
+            for (String question : questions) {
+                results.add(executor.submit(() -> batcher.classify(question)));
+            }
+
+            assertEquals("FAQ", results.get(0).get().get("意图类型"));
+            assertEquals("COMPLAINT", results.get(1).get().get("意图类型"));
+            assertEquals("FAQ", results.get(2).get().get("意图类型"));
+            assertEquals("COMPLAINT", results.get(3).get().get("意图类型"));
+            assertEquals("90", results.get(3).get().get("置信度"));
+            assertEquals(1, calls.get());
+            assertEquals(4.0, batcher.stats().get("avg_batch_size"));
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void returnsNullForMissingAnswersAndLoneQuestions() throws Exception {
+        ChatModel model = prompt -> response("[1]\n意图类型：FAQ\n置信度：80\n[3]\n意图类型：FAQ\n");
+
+        try (IntentMicroBatcher batcher = new IntentMicroBatcher(ChatClient.create(model), true, 2, Duration.ofSeconds(5))) {
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            Future<Map<String, String>> first = executor.submit(() -> batcher.classify("价格多少钱"));
+            Future<Map<String, String>> second = executor.submit(() -> batcher.classify("怎么使用"));
+            Map<String, String> answered = first.get() != null ? first.get() : second.get();
+
+            assertEquals("80", answered.get("置信度"));
+            assertNull(first.get() != null ? second.get() : first.get());
+            assertEquals(1L, batcher.stats().get("parse_fallbacks"));
+            executor.shutdown();
+        }
+
+        try (IntentMicroBatcher batcher = new IntentMicroBatcher(ChatClient.create(model), true, 2, Duration.ofMillis(10))) {
+            assertNull(batcher.classify("价格多少钱"));
+            assertEquals(1L, batcher.stats().get("single_question_windows"));
+        }
+    }
+
+    @Test
+    void fallsBackToSingleCallsWhenTheBatchCallHangs() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        ChatModel model = prompt -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return response("[1]\n意图类型：FAQ\n置信度：80\n[2]\n意图类型：FAQ\n置信度：80\n");
+        };
+
+        try (IntentMicroBatcher batcher = new IntentMicroBatcher(ChatClient.create(model), true, 2, Duration.ofSeconds(5),
+                Duration.ofMillis(100), GraphThreads.platformThreadFactory("test-batch-call-"))) {
+            CompletableFuture<Map<String, String>> first = batcher.submit("价格多少钱");
+            CompletableFuture<Map<String, String>> second = batcher.submit("怎么使用");
+
+            assertNull(first.get(5, TimeUnit.SECONDS));
+            assertNull(second.get(5, TimeUnit.SECONDS));
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+            assertEquals(1L, batcher.stats().get("batch_timeouts"));
+            assertEquals(0L, batcher.stats().get("batch_failures"));
+        }
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+}
@@ -0,0 +1,98 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.seanfield.graphdemo.graph.checkpoint.FileCheckpointSaver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoopCheckpointResumeTest {
+
+    private static final List<String> ITEMS = List.of("春天的花朵", "夏天的海滩", "秋天的落叶", "冬天的雪花");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resumesFromLastLoopIndexAfterRestart() throws Exception {
+        AtomicInteger callsBeforeRestart = new AtomicInteger();
+        try (FileCheckpointSaver saver = new FileCheckpointSaver(true, directory, Long.MAX_VALUE)) {
+            // 处理第三个项目时大模型调用失败，相当于执行中途进程退出
+            GraphRegistry registry = registry(new CountingChatModel(callsBeforeRestart, "秋天的落叶"), saver);
+            assertThrows(RuntimeException.class, () -> registry.invoke(GraphConfiguration.LOOP_GRAPH, input(), "thread-1"));
+            assertEquals(List.of("thread-1"), saver.pendingThreads());
+        }
+
+        AtomicInteger callsAfterRestart = new AtomicInteger();
+        try (FileCheckpointSaver saver = new FileCheckpointSaver(true, directory, Long.MAX_VALUE)) {
+            GraphRegistry registry = registry(new CountingChatModel(callsAfterRestart, null), saver);
+            OverAllState state = registry.resume(GraphConfiguration.LOOP_GRAPH, "thread-1").orElseThrow();
+
+            Map<?, ?> finalResult = (Map<?, ?>) state.data().get("loop_final_result");
+            assertEquals(4, finalResult.get("processed_count"));
+            assertEquals(4, ((List<?>) finalResult.get("analysis_results")).size());
+            // 前两个项目的结果来自检查点，只重新调用剩下的两个
+            assertEquals(2, callsAfterRestart.get());
+            assertTrue(saver.pendingThreads().isEmpty(), "执行完成后删除检查点");
+        }
+    }
+
+    @Test
+    void resumeWithoutCheckpointIsRejected() throws Exception {
+        try (FileCheckpointSaver saver = new FileCheckpointSaver(true, directory, Long.MAX_VALUE)) {
+            GraphRegistry registry = registry(new CountingChatModel(new AtomicInteger(), null), saver);
+            assertThrows(IllegalArgumentException.class, () -> registry.resume(GraphConfiguration.LOOP_GRAPH, "unknown"));
+        }
+    }
+
+    private static GraphRegistry registry(ChatModel model, FileCheckpointSaver saver) throws Exception {
+        GraphRegistry registry = new GraphRegistry(1, false, new StateDiffTracer(0));
+        registry.register(GraphConfiguration.LOOP_GRAPH,
+                GraphConfiguration.loopGraph(ChatClient.builder(model), new StateDiffTracer(0)), null, saver);
+        return registry;
+    }
+
+    private static Map<String, Object> input() {
+        return Map.of("items", ITEMS, "loop_index", 0, "processed_results", List.of());
+    }
+
+    /**
+     * 统计调用次数的桩模型，提示词包含 failOn 时调用失败
+     */
+    private static final class CountingChatModel implements ChatModel {
+        private final AtomicInteger calls;
+        private final String failOn;
+
+        CountingChatModel(AtomicInteger calls, String failOn) {
+            this.calls = calls;
+            this.failOn = failOn;
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            return stream(prompt).blockLast();
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            if (failOn != null && prompt.getContents().contains(failOn)) {
+                return Flux.error(new IllegalStateException("模型服务不可用"));
+            }
+            calls.incrementAndGet();
+            return Flux.just(new ChatResponse(List.of(new Generation(new AssistantMessage("分析结果")))));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelLoopProcessorNodeTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void keepsInputOrderWithOutOfOrderLatenciesAndBoundsConcurrency() throws Exception {
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            items.add("项目" + i);
+        }
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        // 越靠前的项目响应越慢，完成顺序与输入顺序相反
+        ChatModel chatModel = new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Flux<ChatResponse> stream(Prompt prompt) {
+                String item = items.stream().filter(prompt.getContents()::contains)
+                        .reduce((a, b) -> a.length() >= b.length() ? a : b).orElseThrow();
+                int index = items.indexOf(item);
+                return Flux.defer(() -> {
+                            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                            return Flux.just("分析", ":" + item)
+                                    .delayElements(Duration.ofMillis(5L * (items.size() - index)));
+                        })
+                        .map(text -> new ChatResponse(List.of(new Generation(new AssistantMessage(text)))))
+                        .doOnComplete(inFlight::decrementAndGet);
+            }
+        };
+
+        ParallelLoopProcessorNode node = new ParallelLoopProcessorNode(ChatClient.builder(chatModel), 3);
+        Map<String, Object> result = node.apply(new OverAllState(Map.of("items", items)));
+
+        List<String> processed = (List<String>) result.get("processed_results");
+        assertEquals(items.size(), processed.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertTrue(processed.get(i).contains(items.get(i)) && processed.get(i).endsWith(":" + items.get(i)), processed.get(i));
+        }
+        assertEquals(3, maxInFlight.get());
+        assertEquals(true, result.get("loop_completed"));
+    }
+}
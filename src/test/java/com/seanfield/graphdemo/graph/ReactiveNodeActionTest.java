@@ -0,0 +1,67 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveNodeActionTest {
+
+    @Test
+    void applyReactiveReturnsBeforeModelResponds() {
+        ExpanderNode node = new ExpanderNode(ChatClient.builder(new DelayedChatModel(Duration.ofMillis(300))));
+        OverAllState state = new OverAllState(Map.of("input", Map.of("query", "价格", "expandernumber", 2)));
+
+        long start = System.nanoTime();
+        Mono<Map<String, Object>> result = node.applyReactive(state);
+        assertTrue(System.nanoTime() - start < Duration.ofMillis(300).toNanos(), "组装 Mono 时不应等待大模型");
+
+        assertEquals(List.of("专业版价格", "企业版价格"), result.block(Duration.ofSeconds(5)).get("expandercontent"));
+    }
+
+    @Test
+    void nodeReactiveTurnsSynchronousFailureIntoFailedFuture() {
+        ReactiveNodeAction failing = state -> {
+            throw new IllegalStateException("boom");
+        };
+
+        CompletableFuture<Map<String, Object>> future = ReactiveNodeAction.node_reactive(failing).apply(new OverAllState(Map.of()));
+
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    private static final class DelayedChatModel implements ChatModel {
+        private final Duration latency;
+
+        DelayedChatModel(Duration latency) {
+            this.latency = latency;
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            return stream(prompt).blockLast();
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return Flux.just("专业版价格\n", "企业版价格")
+                    .map(text -> new ChatResponse(List.of(new Generation(new AssistantMessage(text)))))
+                    .delaySubscription(latency);
+        }
+    }
+}
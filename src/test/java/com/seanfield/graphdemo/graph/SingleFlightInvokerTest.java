@@ -0,0 +1,151 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightInvokerTest {
+
+    @Test
+    void concurrentIdenticalQuestionsShareOneExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        StateGraph graph = new StateGraph(() -> {
+            OverAllState state = new OverAllState();
+            state.registerKeyAndStrategy("answer", new ReplaceStrategy());
+            return state;
+        })
+                .addNode("answer", node_async(state -> {
+                    executions.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return Map.of("answer", "答案");
+                }))
+                .addEdge(StateGraph.START, "answer")
+                .addEdge("answer", StateGraph.END);
+        GraphRegistry registry = new GraphRegistry(4, false, new StateDiffTracer(0));
+        registry.register("demo", graph, null);
+        SingleFlightInvoker invoker = new SingleFlightInvoker(registry, true, Duration.ofSeconds(5));
+        AtomicInteger cachedResults = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<String> questions = List.of("怎么退款？", " 怎么退款", "怎么退款!", "怎么开发票");
+        List<Future<Optional<OverAllState>>> results = new ArrayList<>();
+        for (String question : questions) {
+            results.add(executor.submit(() -> invoker.invoke("demo", question, Map.of(), state -> cachedResults.incrementAndGet())));
+            Thread.sleep(50);
+        }
+        release.countDown();
+
+        for (Future<Optional<OverAllState>> result : results) {
+            assertEquals("答案", result.get(5, TimeUnit.SECONDS).orElseThrow().value("answer").orElseThrow());
+        }
+        assertEquals(2, executions.get());
+        assertEquals(2, cachedResults.get(), "只有实际执行的请求处理结果");
+        Map<String, Object> stats = invoker.stats();
+        assertEquals(2L, stats.get("coalesced"));
+        assertEquals(0.5, stats.get("coalesced_fraction"));
+        assertEquals(0, stats.get("in_flight"));
+        executor.shutdown();
+
+        // 执行结束后不保留结果，再次到达的相同问题重新执行
+        invoker.invoke("demo", "怎么退款", Map.of());
+        assertEquals(3, executions.get());
+        assertEquals(3L, invoker.stats().get("executions"));
+    }
+
+    @Test
+    void followersStopWaitingForAHungExecution() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StateGraph graph = new StateGraph(() -> {
+            OverAllState state = new OverAllState();
+            state.registerKeyAndStrategy("answer", new ReplaceStrategy());
+            return state;
+        })
+                .addNode("answer", node_async(state -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return Map.of("answer", "答案");
+                }))
+                .addEdge(StateGraph.START, "answer")
+                .addEdge("answer", StateGraph.END);
+        GraphRegistry registry = new GraphRegistry(2, false, new StateDiffTracer(0));
+        registry.register("demo", graph, null);
+        SingleFlightInvoker invoker = new SingleFlightInvoker(registry, true, Duration.ofMillis(100));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Optional<OverAllState>> leader = executor.submit(() -> invoker.invoke("demo", "怎么退款", Map.of()));
+        while ((int) invoker.stats().get("in_flight") == 0) {
+            Thread.sleep(5);
+        }
+
+        IllegalStateException timeout = assertThrows(IllegalStateException.class, () -> invoker.invoke("demo", "怎么退款", Map.of()));
+        assertInstanceOf(TimeoutException.class, timeout.getCause());
+        assertEquals(1L, invoker.stats().get("follower_timeouts"));
+
+        release.countDown();
+        assertEquals("答案", leader.get(5, TimeUnit.SECONDS).orElseThrow().value("answer").orElseThrow());
+        executor.shutdown();
+    }
+
+    @Test
+    void reactiveFollowersShareTheResultWithoutHoldingThreads() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        StateGraph graph = new StateGraph(() -> {
+            OverAllState state = new OverAllState();
+            state.registerKeyAndStrategy("answer", new ReplaceStrategy());
+            return state;
+        })
+                .addNode("answer", node_async(state -> {
+                    executions.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return Map.of("answer", "答案");
+                }))
+                .addEdge(StateGraph.START, "answer")
+                .addEdge("answer", StateGraph.END);
+        GraphRegistry registry = new GraphRegistry(1, false, new StateDiffTracer(0));
+        registry.register("demo", graph, null);
+        SingleFlightInvoker invoker = new SingleFlightInvoker(registry, true, Duration.ofSeconds(5));
+        AtomicInteger cachedResults = new AtomicInteger();
+        // 只有一个线程：执行占用它之后，等待共享结果的请求不能再占用线程
+        Scheduler scheduler = Schedulers.newBoundedElastic(1, 100, "single-flight-test");
+
+        List<CompletableFuture<Optional<OverAllState>>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            results.add(invoker.invokeReactive("demo", "怎么退款", Map.of(), state -> cachedResults.incrementAndGet(), scheduler)
+                    .toFuture());
+        }
+        // 取消一个等待中的请求不影响其他请求
+        results.get(0).cancel(true);
+        release.countDown();
+
+        for (CompletableFuture<Optional<OverAllState>> result : results.subList(1, results.size())) {
+            assertEquals("答案", result.get(5, TimeUnit.SECONDS).orElseThrow().value("answer").orElseThrow());
+        }
+        assertEquals(1, executions.get());
+        assertEquals(1, cachedResults.get());
+        assertEquals(19L, invoker.stats().get("coalesced"));
+        scheduler.dispose();
+    }
+}
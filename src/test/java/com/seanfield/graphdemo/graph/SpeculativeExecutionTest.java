@@ -0,0 +1,191 @@
+package com.seanfield.graphdemo.graph;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.action.NodeAction;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpeculativeExecutionTest {
+
+    private static final Map<String, String> ROUTES = Map.of("faq", "knowledge_search", "complex", "ai_analysis");
+
+    @Test
+    void adoptsTheRoutedBranchAndCancelsTheOthers() throws Exception {
+        SpeculativeExecution speculation = new SpeculativeExecution(true);
+        AtomicInteger searchCalls = new AtomicInteger();
+        CountDownLatch analysisInterrupted = new CountDownLatch(1);
+        NodeAction search = state -> {
+            searchCalls.incrementAndGet();
+            return Map.of("faq_answer", "答案:" + state.value("question", ""));
+        };
+        NodeAction analysis = state -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                analysisInterrupted.countDown();
+            }
+            return Map.of("ai_response", "不应被采用");
+        };
+        Map<String, NodeAction> branches = new LinkedHashMap<>();
+        branches.put("knowledge_search", search);
+        branches.put("ai_analysis", analysis);
+        NodeAction intent = state -> {
+            Thread.sleep(20);
+            return Map.of("intent_type", "faq");
+        };
+
+        OverAllState state = new OverAllState(Map.of("question", "可以退款吗"));
+        state = merge(state, speculation.launch(intent, branches).apply(state));
+        String route = speculation.resolve(s -> s.value("intent_type", ""), ROUTES).apply(state);
+        Map<String, Object> result = speculation.adopt("knowledge_search", search).apply(state);
+
+        assertEquals("faq", route);
+        assertEquals("答案:可以退款吗", result.get("faq_answer"));
+        assertEquals(1, searchCalls.get());
+        assertTrue(analysisInterrupted.await(5, TimeUnit.SECONDS));
+        Map<String, Object> stats = speculation.stats();
+        assertEquals(2L, stats.get("launched"));
+        assertEquals(1L, stats.get("adopted"));
+        assertEquals(1L, stats.get("cancelled"));
+        assertTrue((double) stats.get("total_saved_ms") > 0);
+
+        // 同一次执行中再次进入节点（例如重试）时正常执行
+        speculation.adopt("knowledge_search", search).apply(state);
+        assertEquals(2, searchCalls.get());
+    }
+
+    @Test
+    void replaysBufferedTokensOnlyWhenTheBranchIsAdopted() throws Exception {
+        SpeculativeExecution speculation = new SpeculativeExecution(true);
+        NodeAction analysis = state -> {
+            AnswerStreamListener listener = state.value(AnswerStreamListener.STATE_KEY, AnswerStreamListener.NOOP);
+            listener.onAnswerStart(1);
+            listener.onToken("你好");
+            return Map.of("ai_response", "你好");
+        };
+        StringBuilder streamed = new StringBuilder();
+        AnswerStreamListener client = new AnswerStreamListener() {
+            @Override
+            public void onAnswerStart(int attempt) {
+                streamed.append('#').append(attempt);
+            }
+
+            @Override
+            public void onToken(String token) {
+                streamed.append(token);
+            }
+        };
+
+        OverAllState state = new OverAllState(Map.of("question", "帮我分析一下", AnswerStreamListener.STATE_KEY, client));
+        state = merge(state, speculation.launch(s -> Map.of("intent_type", "complex"), Map.of("ai_analysis", analysis)).apply(state));
+        speculation.resolve(s -> s.value("intent_type", ""), ROUTES).apply(state);
+        Thread.sleep(50);
+        assertEquals("", streamed.toString());
+
+        speculation.adopt("ai_analysis", analysis).apply(state);
+        assertEquals("#1你好", streamed.toString());
+    }
+
+    @Test
+    void cancelsAllBranchesWhenRoutingFails() throws Exception {
+        SpeculativeExecution speculation = new SpeculativeExecution(true);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        NodeAction slow = state -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return Map.of();
+        };
+
+        OverAllState state = new OverAllState(Map.of("question", "可以退款吗"));
+        state = merge(state, speculation.launch(s -> Map.of("intent_type", "faq"), Map.of("knowledge_search", slow)).apply(state));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        OverAllState routed = state;
+        assertThrows(IllegalStateException.class, () -> speculation.resolve(s -> {
+            throw new IllegalStateException("路由失败");
+        }, ROUTES).apply(routed));
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(1L, speculation.stats().get("cancelled"));
+    }
+
+    @Test
+    void skipsSpeculationWhenAllBranchThreadsAreBusy() throws Exception {
+        SpeculativeExecution speculation = new SpeculativeExecution(true, 1, GraphThreads.platformThreadFactory("test-branch-"));
+        CountDownLatch release = new CountDownLatch(1);
+        NodeAction blocking = state -> {
+            release.await();
+            return Map.of("faq_answer", "推测");
+        };
+        NodeAction search = state -> Map.of("faq_answer", "同步");
+
+        OverAllState first = new OverAllState(Map.of("question", "a"));
+        speculation.launch(s -> Map.of(), Map.of("knowledge_search", blocking)).apply(first);
+        OverAllState second = new OverAllState(Map.of("question", "b"));
+        second = merge(second, speculation.launch(s -> Map.of("intent_type", "faq"), Map.of("knowledge_search", search)).apply(second));
+        speculation.resolve(s -> s.value("intent_type", ""), ROUTES).apply(second);
+
+        assertEquals("同步", speculation.adopt("knowledge_search", search).apply(second).get("faq_answer"));
+        assertEquals(1L, speculation.stats().get("launched"));
+        assertEquals(1L, speculation.stats().get("skipped"));
+        release.countDown();
+    }
+
+    @Test
+    void reactiveNodesAdoptTheBranchWithoutBlocking() throws Exception {
+        SpeculativeExecution speculation = new SpeculativeExecution(true);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger analysisCalls = new AtomicInteger();
+        NodeAction analysis = state -> {
+            analysisCalls.incrementAndGet();
+            release.await();
+            return Map.of("ai_response", "推测结果");
+        };
+        ReactiveNodeAction reactiveAnalysis = state -> Mono.fromCallable(() -> analysis.apply(state));
+
+        OverAllState state = new OverAllState(Map.of("question", "帮我分析一下"));
+        ReactiveNodeAction intent = s -> Mono.just(Map.of("intent_type", "complex"));
+        state = merge(state, speculation.launchReactive(intent, Map.of("ai_analysis", analysis)).applyReactive(state).block());
+        speculation.resolve(s -> s.value("intent_type", ""), ROUTES).apply(state);
+
+        // 分支尚未完成时订阅立即返回，分支完成后发出其结果
+        CompletableFuture<Map<String, Object>> adopted = speculation.adoptReactive("ai_analysis", reactiveAnalysis)
+                .applyReactive(state).toFuture();
+        assertFalse(adopted.isDone());
+        release.countDown();
+        assertEquals("推测结果", adopted.get(5, TimeUnit.SECONDS).get("ai_response"));
+        assertEquals(1, analysisCalls.get());
+        assertEquals(1L, speculation.stats().get("adopted"));
+    }
+
+    @Test
+    void disabledReturnsNodesUnchanged() {
+        SpeculativeExecution speculation = new SpeculativeExecution(false);
+        NodeAction node = state -> Map.of();
+        assertTrue(speculation.launch(node, Map.of("knowledge_search", node)) == node);
+        assertTrue(speculation.adopt("knowledge_search", node) == node);
+    }
+
+    private static OverAllState merge(OverAllState state, Map<String, Object> update) {
+        Map<String, Object> data = new HashMap<>(state.data());
+        data.putAll(update);
+        return new OverAllState(data);
+    }
+}
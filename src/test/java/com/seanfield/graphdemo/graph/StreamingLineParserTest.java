@@ -0,0 +1,46 @@
+package com.seanfield.graphdemo.graph;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingLineParserTest {
+
+    private static final List<String> FIELDS = List.of("意图类型", "置信度", "理由");
+
+    @Test
+    void cancelsUpstreamOnceRequiredFieldsAreParsed() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicInteger emitted = new AtomicInteger();
+        Flux<String> tokens = Flux.just("意图", "类型：F", "AQ\n置信度：", "8", "5\n理由：", "用户询问", "产品功能")
+                .doOnNext(t -> emitted.incrementAndGet())
+                .doOnCancel(() -> cancelled.set(true));
+
+        Map<String, String> fields = StreamingLineParser.parseFields(tokens, FIELDS, List.of("意图类型", "置信度")).block();
+
+        assertEquals("FAQ", fields.get("意图类型"));
+        assertEquals("85", fields.get("置信度"));
+        assertFalse(fields.containsKey("理由"));
+        assertTrue(cancelled.get());
+        assertEquals(5, emitted.get());
+    }
+
+    @Test
+    void returnsPartialFieldsWhenStreamEndsEarly() {
+        Flux<String> tokens = Flux.just("意图类型：COMPLAINT\n", "理由：用户不满");
+
+        Map<String, String> fields = StreamingLineParser.parseFields(tokens, FIELDS, List.of("意图类型", "置信度")).block();
+
+        assertEquals("COMPLAINT", fields.get("意图类型"));
+        assertEquals("用户不满", fields.get("理由"));
+        assertFalse(fields.containsKey("置信度"));
+    }
+}
@@ -0,0 +1,150 @@
+package com.seanfield.graphdemo.graph.checkpoint;
+
+import com.alibaba.cloud.ai.graph.RunnableConfig;
+import com.alibaba.cloud.ai.graph.checkpoint.Checkpoint;
+import com.seanfield.graphdemo.graph.state.AppendOnlyList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileCheckpointSaverTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversLatestCheckpointAndDropsTornTail() throws Exception {
+        RunnableConfig thread = RunnableConfig.builder().threadId("loop-1").build();
+        try (FileCheckpointSaver saver = new FileCheckpointSaver(true, directory, Long.MAX_VALUE)) {
+            for (int i = 0; i < 3; i++) {
+                saver.put(thread, checkpoint(i));
+            }
+            RunnableConfig finished = RunnableConfig.builder().threadId("loop-2").build();
+            saver.put(finished, checkpoint(1));
+            saver.clear(finished);
+            saver.flush();
+        }
+        // 模拟写入最后一条记录时进程退出
+        Files.write(directory.resolve(FileCheckpointSaver.LOG_FILE), new byte[]{0, 0, 1, 0, 42}, StandardOpenOption.APPEND);
+
+        try (FileCheckpointSaver reopened = new FileCheckpointSaver(true, directory, Long.MAX_VALUE)) {
+            assertEquals(List.of("loop-1"), reopened.pendingThreads());
+            Checkpoint latest = reopened.get(thread).orElseThrow();
+            assertEquals(2, latest.getState().get("loop_index"));
+            assertEquals(List.of("结果 0", "结果 1"), latest.getState().get("processed_results"));
+            assertEquals("loop_processor", latest.getNextNodeId());
+            assertFalse(latest.getState().containsKey("__run_context"), "内部状态键不写入检查点");
+            assertEquals(List.of(latest), List.copyOf(reopened.list(thread)), "只保留最新的检查点");
+        }
+    }
+
+    @Test
+    void compactionKeepsOnlyLatestCheckpointPerThread() throws Exception {
+        RunnableConfig thread = RunnableConfig.builder().threadId("loop-1").build();
+        try (FileCheckpointSaver saver = new FileCheckpointSaver(true, directory, 1024)) {
+            for (int i = 0; i < 50; i++) {
+                saver.put(thread, checkpoint(i));
+                saver.flush();
+            }
+            assertTrue((long) saver.stats().get("compactions") > 0);
+            // 未压缩时 50 个检查点约 20KB
+            assertTrue(Files.size(directory.resolve(FileCheckpointSaver.LOG_FILE)) < 4096);
+        }
+
+        try (FileCheckpointSaver reopened = new FileCheckpointSaver(true, directory, 1024)) {
+            assertEquals(49, reopened.get(thread).orElseThrow().getState().get("loop_index"));
+        }
+    }
+
+    @Test
+    void writesOnlyTheNewResultOfEachLoopStep() throws Exception {
+        RunnableConfig thread = RunnableConfig.builder().threadId("loop-1").build();
+        List<String> items = IntStream.range(0, 1000).mapToObj(i -> "项目" + i).toList();
+        AppendOnlyList<String> results = AppendOnlyList.empty();
+        try (FileCheckpointSaver saver = new FileCheckpointSaver(true, directory, Long.MAX_VALUE)) {
+            for (int i = 0; i < items.size(); i++) {
+                results = results.append("结果 " + i);
+                saver.put(thread, Checkpoint.builder()
+                        .nodeId("loop_processor")
+                        .nextNodeId("loop_processor")
+                        .state(Map.of("items", items, "loop_index", i + 1, "processed_results", results))
+                        .build());
+            }
+            saver.flush();
+            assertTrue((long) saver.stats().get("delta_records") > 990);
+            // 每步写完整状态约 30MB
+            assertTrue(Files.size(directory.resolve(FileCheckpointSaver.LOG_FILE)) < 1024 * 1024);
+        }
+
+        try (FileCheckpointSaver reopened = new FileCheckpointSaver(true, directory, Long.MAX_VALUE)) {
+            Map<String, Object> state = reopened.get(thread).orElseThrow().getState();
+            assertEquals(1000, state.get("loop_index"));
+            assertEquals(items, state.get("items"));
+            assertEquals(results, state.get("processed_results"));
+        }
+    }
+
+    @Test
+    void truncatesAFailedWriteBeforeAppendingAgain() throws Exception {
+        RunnableConfig thread = RunnableConfig.builder().threadId("loop-1").build();
+        RunnableConfig other = RunnableConfig.builder().threadId("loop-2").build();
+        AtomicBoolean failNextWrite = new AtomicBoolean();
+        try (FileCheckpointSaver saver = new FileCheckpointSaver(true, directory, Long.MAX_VALUE) {
+            @Override
+            void write(ByteBuffer buffer) throws IOException {
+                if (failNextWrite.compareAndSet(true, false)) {
+                    // 只写入一半后失败，留下残缺的记录
+                    ByteBuffer half = buffer.slice();
+                    half.limit(buffer.remaining() / 2);
+                    super.write(half);
+                    throw new IOException("磁盘已满");
+                }
+                super.write(buffer);
+            }
+        }) {
+            saver.put(thread, checkpoint(1));
+            saver.flush();
+            failNextWrite.set(true);
+            saver.put(thread, checkpoint(2));
+            saver.put(other, checkpoint(3));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!Long.valueOf(1L).equals(saver.stats().get("write_failures")) && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1L, saver.stats().get("write_failures"));
+            // 失败批次之后的一批会先截断日志并重新写入失败批次中的全部线程，flush 返回时它们已经落盘
+            saver.flush();
+        }
+
+        try (FileCheckpointSaver reopened = new FileCheckpointSaver(true, directory, Long.MAX_VALUE)) {
+            // 残缺记录之后的记录都能回放，写入失败的检查点也在下一批重新写入
+            assertEquals(2, reopened.get(thread).orElseThrow().getState().get("loop_index"));
+            assertEquals(3, reopened.get(other).orElseThrow().getState().get("loop_index"));
+        }
+    }
+
+    private static Checkpoint checkpoint(int processed) {
+        List<String> results = IntStream.range(0, processed).mapToObj(i -> "结果 " + i).toList();
+        return Checkpoint.builder()
+                .nodeId("loop_processor")
+                .nextNodeId("loop_processor")
+                .state(Map.of(
+                        "items", List.of("春天", "夏天", "秋天", "冬天"),
+                        "loop_index", processed,
+                        "processed_results", results,
+                        "__run_context", new Object()))
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.seanfield.graphdemo.graph.state;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class AppendOnlyListTest {
+
+    @Test
+    void olderVersionsAreUnchangedByAppends() {
+        AppendOnlyList<Integer> list = AppendOnlyList.empty();
+        for (int i = 0; i < 100; i++) {
+            list = list.append(i);
+        }
+        AppendOnlyList<Integer> longer = list.append(100);
+
+        assertEquals(100, list.size());
+        assertEquals(101, longer.size());
+        assertEquals(IntStream.range(0, 100).boxed().toList(), list);
+    }
+
+    @Test
+    void appendingToAnOlderVersionForksWithoutCorruptingTheNewer() {
+        AppendOnlyList<String> base = AppendOnlyList.copyOf(List.of("a", "b"));
+        AppendOnlyList<String> first = base.append("c");
+        AppendOnlyList<String> second = base.append("x");
+
+        assertEquals(List.of("a", "b", "c"), first);
+        assertEquals(List.of("a", "b", "x"), second);
+        assertEquals(List.of("a", "b", "c", "d"), first.append("d"));
+    }
+
+    @Test
+    void strategyAppendsSingleElementsAndCollections() {
+        AppendOnlyStrategy strategy = new AppendOnlyStrategy();
+
+        Object value = strategy.apply(null, List.of());
+        value = strategy.apply(value, "one");
+        value = strategy.apply(value, List.of("two", "three"));
+
+        assertInstanceOf(AppendOnlyList.class, value);
+        assertEquals(List.of("one", "two", "three"), value);
+    }
+
+    @Test
+    void strategyAccumulatesAcrossOverAllStateUpdates() {
+        OverAllState state = new OverAllState();
+        state.registerKeyAndStrategy("results", new AppendOnlyStrategy());
+        state.input(Map.of("results", List.of()));
+
+        state.updateState(Map.of("results", "one"));
+        state.updateState(Map.of("results", "two"));
+
+        assertEquals(List.of("one", "two"), state.value("results", List.of()));
+    }
+
+    @Test
+    void serializesAsAppendOnlyList() throws Exception {
+        AppendOnlyList<String> list = AppendOnlyList.copyOf(List.of("a", "b", "c"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(list);
+        }
+        Object restored;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            restored = in.readObject();
+        }
+
+        assertInstanceOf(AppendOnlyList.class, restored);
+        assertEquals(list, restored);
+    }
+}
@@ -0,0 +1,41 @@
+package com.seanfield.graphdemo.intent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntentClassifierTest {
+
+    private static final IntentClassifier CLASSIFIER = IntentClassifier.train(IntentTrainingData.builtin());
+
+    @Test
+    void classifiesUnseenObviousQuestionsConfidently() {
+        // 均不在内置样本中
+        Map<String, String> questions = Map.of(
+                "专业版一年多少钱", "FAQ",
+                "技术支持电话是多少", "FAQ",
+                "试用期结束后怎么收费", "FAQ",
+                "问题一直没人解决，非常失望", "COMPLAINT",
+                "客服半天不回复，非常不满意", "COMPLAINT",
+                "帮我分析一下我们的用户增长为什么放缓，应该怎么优化", "COMPLEX");
+        for (IntentExample example : IntentTrainingData.builtin()) {
+            assertFalse(questions.containsKey(example.question()), example.question());
+        }
+        questions.forEach((question, expected) -> {
+            IntentPrediction prediction = CLASSIFIER.classify(question);
+            assertEquals(expected, prediction.intentType(), question);
+            assertTrue(prediction.probability() >= 0.85, question + " " + prediction.probability());
+        });
+    }
+
+    @Test
+    void staysUnsureAboutUnrelatedText() {
+        IntentPrediction prediction = CLASSIFIER.classify("今天天气怎么样");
+        assertTrue(prediction.probability() < 0.85);
+        assertTrue(CLASSIFIER.classify("").probability() < 0.85);
+    }
+}
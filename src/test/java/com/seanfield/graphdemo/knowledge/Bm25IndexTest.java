@@ -0,0 +1,52 @@
+package com.seanfield.graphdemo.knowledge;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Bm25IndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void ranksTheMatchingEntryFirstAndRestoresItFromTheMappedFile() throws Exception {
+        Path indexFile = dir.resolve("faq.bm25");
+        Bm25Index.build(FaqCorpus.builtin(), indexFile);
+        Bm25Index index = Bm25Index.open(indexFile);
+
+        List<Bm25Index.Hit> hits = index.search("你们的套餐价格是多少钱？", 3);
+
+        assertEquals(6, index.docCount());
+        assertEquals("价格政策", index.document(hits.get(0).doc()).title());
+        assertEquals(FaqCorpus.builtin().get(1).keywords(), index.document(hits.get(0).doc()).keywords());
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue(hits.get(i - 1).score() >= hits.get(i).score());
+        }
+        assertTrue(index.search("！？", 3).isEmpty());
+    }
+
+    @Test
+    void loaderBuildsTheIndexFromAJsonLinesCorpus() throws Exception {
+        Path source = dir.resolve("faq.jsonl");
+        Files.writeString(source, String.join("\n",
+                "# 示例语料",
+                "{\"title\":\"退款\",\"question\":\"买了之后可以退款吗\",\"answer\":\"7天内可无理由退款。\"}",
+                "{\"title\":\"发票\",\"question\":\"怎么开发票\",\"answer\":\"在订单页面申请电子发票。\",\"keywords\":[\"开票\"]}"),
+                StandardCharsets.UTF_8);
+
+        KnowledgeBase knowledgeBase = new KnowledgeBaseLoader("bm25", source, null, 1.0).load();
+
+        assertEquals(2, knowledgeBase.size());
+        assertTrue(Files.exists(dir.resolve("faq.jsonl.bm25")));
+        assertEquals("在订单页面申请电子发票。", knowledgeBase.search("请问发票怎么开").orElseThrow().entry().answer());
+        assertTrue(knowledgeBase.search("今天天气").isEmpty());
+    }
+}
@@ -0,0 +1,74 @@
+package com.seanfield.graphdemo.knowledge;
+
+import com.seanfield.graphdemo.embedding.HashingNgramEmbedder;
+import com.seanfield.graphdemo.embedding.TextEmbedder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HnswIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsNearlyAllExactNearestNeighboursAndSurvivesSaveAndLoad() throws Exception {
+        Random random = new Random(1);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            vectors.add(randomVector(random, 32));
+        }
+        HnswIndex index = HnswIndex.build("test", vectors, 8, 100);
+        Path file = dir.resolve("faq.hnsw");
+        index.save(file);
+        HnswIndex loaded = HnswIndex.load(file);
+
+        int found = 0;
+        int queries = 200;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector(random, 32);
+            int exact = 0;
+            for (int i = 1; i < vectors.size(); i++) {
+                if (TextEmbedder.dot(query, vectors.get(i)) > TextEmbedder.dot(query, vectors.get(exact))) {
+                    exact = i;
+                }
+            }
+            List<HnswIndex.Hit> hits = index.search(query, 1, 64);
+            if (hits.get(0).id() == exact) {
+                found++;
+            }
+            assertEquals(hits.get(0).id(), loaded.search(query, 1, 64).get(0).id());
+        }
+        assertTrue(found >= queries * 0.95, "recall@1 = " + found + "/" + queries);
+    }
+
+    @Test
+    void vectorKnowledgeBaseMatchesRewordedQuestionsOffline() throws Exception {
+        Path indexFile = dir.resolve("builtin.hnsw");
+        KnowledgeBaseLoader loader = new KnowledgeBaseLoader("vector", null, indexFile, 0.35,
+                new HashingNgramEmbedder(256), 16, 200, 64, 4);
+
+        KnowledgeBase knowledgeBase = loader.load();
+
+        assertTrue(Files.exists(indexFile));
+        assertEquals("数据安全", knowledgeBase.search("数据安全吗").orElseThrow().entry().title());
+        assertEquals("免费试用", loader.load().search("有免费试用吗").orElseThrow().entry().title());
+        assertTrue(knowledgeBase.search("我要投诉").isEmpty());
+    }
+
+    private static float[] randomVector(Random random, int dimensions) {
+        float[] vector = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return TextEmbedder.normalize(vector);
+    }
+}
@@ -0,0 +1,63 @@
+package com.seanfield.graphdemo.knowledge;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KeywordMatcherTest {
+
+    @Test
+    void countsOverlappingAndNestedKeywordsOncePerOccurrence() {
+        KeywordMatcher matcher = KeywordMatcher.builder()
+                .add("使用", 0, 2)
+                .add("怎么用", 0, 3)
+                .add("用", 1, 1)
+                .add("he", 2, 2)
+                .add("she", 2, 3)
+                .add("hers", 2, 4)
+                .build();
+
+        assertEquals(Map.of(0, 5, 1, 1), matcher.score("怎么用？使用说明，使用教程"));
+        assertEquals(Map.of(2, 9), matcher.score("ushers"));
+        assertEquals(Map.of(), matcher.score("无关的问题"));
+    }
+
+    @Test
+    void matchesNaiveContainsScoring() {
+        Random random = new Random(42);
+        String alphabet = "abc价格试用";
+        List<String> keywords = new ArrayList<>();
+        KeywordMatcher.Builder builder = KeywordMatcher.builder();
+        for (int i = 0; i < 300; i++) {
+            String keyword = randomText(random, alphabet, 1 + random.nextInt(4));
+            keywords.add(keyword);
+            builder.add(keyword, i % 20, keyword.length());
+        }
+        KeywordMatcher matcher = builder.build();
+
+        for (int round = 0; round < 200; round++) {
+            String text = randomText(random, alphabet, random.nextInt(30));
+            Map<Integer, Integer> expected = new HashMap<>();
+            for (int i = 0; i < keywords.size(); i++) {
+                if (text.contains(keywords.get(i))) {
+                    expected.merge(i % 20, keywords.get(i).length(), Integer::sum);
+                }
+            }
+            assertEquals(expected, matcher.score(text), text);
+        }
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package com.seanfield.graphdemo.knowledge;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReloadableKnowledgeBaseTest {
+
+    private static final String REFUND = "{\"title\":\"退款\",\"question\":\"可以退款吗\",\"answer\":\"7天内可无理由退款。\"}";
+    private static final String INVOICE = "{\"title\":\"发票\",\"question\":\"怎么开发票\",\"answer\":\"在订单页面申请电子发票。\"}";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void picksUpCorpusChangesInTheBackground() throws Exception {
+        Path corpus = Files.createDirectory(dir.resolve("corpus"));
+        Files.writeString(corpus.resolve("a.jsonl"), REFUND, StandardCharsets.UTF_8);
+        AtomicInteger listenerCalls = new AtomicInteger();
+
+        try (ReloadableKnowledgeBase knowledgeBase = new ReloadableKnowledgeBase(
+                new KnowledgeBaseLoader("bm25", corpus, null, 1.0), Duration.ofMillis(20))) {
+            knowledgeBase.addReloadListener(listenerCalls::incrementAndGet);
+            assertTrue(knowledgeBase.search("发票怎么开").isEmpty());
+
+            Files.writeString(corpus.resolve("b.jsonl"), INVOICE, StandardCharsets.UTF_8);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (knowledgeBase.version() < 2 && System.nanoTime() < deadline) {
+                // 重建期间检索仍然可用
+                assertEquals("退款", knowledgeBase.search("可以退款吗").orElseThrow().entry().title());
+                Thread.sleep(5);
+            }
+
+            assertEquals(2, knowledgeBase.version());
+            assertEquals(2, knowledgeBase.size());
+            assertEquals("发票", knowledgeBase.search("发票怎么开").orElseThrow().entry().title());
+            assertEquals(1, listenerCalls.get());
+        }
+    }
+
+    @Test
+    void manualReloadPublishesANewVersionAndKeepsTheOldOneOnFailure() throws Exception {
+        Path corpus = dir.resolve("faq.jsonl");
+        Files.writeString(corpus, REFUND, StandardCharsets.UTF_8);
+
+        try (ReloadableKnowledgeBase knowledgeBase = new ReloadableKnowledgeBase(
+                new KnowledgeBaseLoader("keyword", corpus, null, 0), Duration.ZERO)) {
+            Map<String, Object> stats = knowledgeBase.reload().get(5, TimeUnit.SECONDS);
+            assertEquals(2L, stats.get("version"));
+
+            Files.writeString(corpus, "不是 JSON", StandardCharsets.UTF_8);
+            stats = knowledgeBase.reload().get(5, TimeUnit.SECONDS);
+            assertEquals(2L, stats.get("version"));
+            assertEquals(1L, stats.get("reload_failures"));
+            assertEquals(1, knowledgeBase.size());
+        }
+    }
+
+    @Test
+    void retriesAFailedBackgroundRebuildWithoutAnotherChange() throws Exception {
+        Path corpus = dir.resolve("faq.jsonl");
+        Files.writeString(corpus, REFUND, StandardCharsets.UTF_8);
+
+        try (ReloadableKnowledgeBase knowledgeBase = new ReloadableKnowledgeBase(
+                new KnowledgeBaseLoader("keyword", corpus, null, 0), Duration.ofMillis(20))) {
+            Files.writeString(corpus, "不是 JSON", StandardCharsets.UTF_8);
+            // 失败后不记录指纹，文件不再变化时后台检查也会继续重试
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((long) knowledgeBase.stats().get("reload_failures") < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue((long) knowledgeBase.stats().get("reload_failures") >= 2);
+            assertEquals(1, knowledgeBase.version());
+            assertEquals(1, knowledgeBase.size());
+        }
+    }
+}
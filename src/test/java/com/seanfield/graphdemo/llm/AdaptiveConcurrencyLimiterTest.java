@@ -0,0 +1,109 @@
+package com.seanfield.graphdemo.llm;
+
+import com.seanfield.graphdemo.llm.AdaptiveConcurrencyLimiter.Outcome;
+import com.seanfield.graphdemo.llm.AdaptiveConcurrencyLimiter.Permit;
+import com.seanfield.graphdemo.loadtest.LatencyStubChatModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void queuesBeyondTheLimitAndRejectsWhenTheQueueIsFullOrTheWaitExpires() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 1, 10, 0.5, 1, Duration.ofMillis(100));
+        Permit first = limiter.acquire().block();
+        Permit second = limiter.acquire().block();
+        assertEquals(2, limiter.inFlight());
+
+        Mono<Permit> queued = limiter.acquire().cache();
+        queued.subscribe(permit -> {
+        }, error -> {
+        });
+        assertEquals(1, limiter.queueDepth());
+        assertThrows(RejectedExecutionException.class, () -> limiter.acquire().block());
+
+        // 归还一个许可后排队的调用立即获得许可
+        first.release(Outcome.SUCCESS);
+        Permit third = queued.block(Duration.ofSeconds(1));
+        assertNotNull(third);
+        assertEquals(0, limiter.queueDepth());
+
+        long start = System.nanoTime();
+        assertThrows(RejectedExecutionException.class, () -> limiter.acquire().block());
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(90).toNanos());
+        assertEquals(2, limiter.rejections());
+
+        second.release(Outcome.SUCCESS);
+        third.release(Outcome.SUCCESS);
+        third.release(Outcome.SUCCESS);
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void increasesAdditivelyOnSuccessAndDecreasesMultiplicativelyOnOverload() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 4, 2, 8, 0.5, 0, Duration.ZERO);
+        for (int round = 0; round < 40; round++) {
+            List<Permit> permits = new ArrayList<>();
+            for (int i = 0; i < limiter.currentLimit(); i++) {
+                permits.add(limiter.acquire().block());
+            }
+            permits.forEach(permit -> permit.release(Outcome.SUCCESS));
+        }
+        assertEquals(8, limiter.currentLimit());
+
+        // 并发用不到上限一半时不再提高
+        limiter.acquire().block().release(Outcome.SUCCESS);
+        assertEquals(8, limiter.currentLimit());
+
+        limiter.acquire().block().release(Outcome.OVERLOAD);
+        assertEquals(4, limiter.currentLimit());
+        limiter.acquire().block().release(Outcome.OVERLOAD);
+        limiter.acquire().block().release(Outcome.OVERLOAD);
+        assertEquals(2, limiter.currentLimit());
+
+        assertEquals(Outcome.OVERLOAD, AdaptiveConcurrencyLimiter.classify(new RuntimeException(new TimeoutException())));
+        assertEquals(Outcome.OVERLOAD, AdaptiveConcurrencyLimiter.classify(new IllegalStateException("HTTP 429 - Too Many Requests")));
+        assertEquals(Outcome.IGNORE, AdaptiveConcurrencyLimiter.classify(new IllegalStateException("invalid api key")));
+    }
+
+    @Test
+    void limitsStreamingCallsPerProviderAndBacksOffOnTimeouts() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        LlmConcurrencyLimits limits = new LlmConcurrencyLimits(true, registry, List.of(
+                new AdaptiveConcurrencyLimiter("dashscope", 2, 1, 10, 0.5, 10, Duration.ofSeconds(5)),
+                new AdaptiveConcurrencyLimiter("deepseek", 2, 1, 10, 0.5, 10, Duration.ofSeconds(5))));
+        ChatClient chatClient = ChatClient.builder(limits.limit("dashscope",
+                new LatencyStubChatModel(Duration.ofMillis(100), 0, 0, 0, Duration.ofSeconds(1), 10))).build();
+
+        long start = System.nanoTime();
+        Flux.range(0, 4)
+                .flatMap(i -> chatClient.prompt().user("请分析以下文本内容").stream().content().collectList())
+                .blockLast();
+        // 并发上限 2，4 次调用分两轮完成
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(190).toNanos());
+        assertEquals(0, limits.limiter("dashscope").inFlight());
+        // 并发用满时每次成功都会提高上限
+        assertEquals(3.0, registry.get("llm.concurrency.limit").tag("provider", "dashscope").gauge().value());
+        assertEquals(0.0, registry.get("llm.concurrency.in_flight").tag("provider", "deepseek").gauge().value());
+
+        ChatClient timingOut = ChatClient.builder(limits.limit("dashscope",
+                new LatencyStubChatModel(Duration.ZERO, 0, 0, 1, Duration.ofMillis(10), 10))).build();
+        assertThrows(Exception.class, () -> timingOut.prompt().user("你好").stream().content().blockLast());
+        assertEquals(1, limits.limiter("dashscope").currentLimit());
+        assertEquals(0, limits.limiter("dashscope").inFlight());
+
+        assertThrows(IllegalArgumentException.class, () -> limits.limit("unknown", null));
+    }
+}
@@ -0,0 +1,59 @@
+package com.seanfield.graphdemo.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyStubChatModelTest {
+
+    @Test
+    void streamsTokensAfterTimeToFirstTokenInParsableFormat() {
+        ChatClient chatClient = ChatClient.builder(
+                new LatencyStubChatModel(Duration.ofMillis(200), 100, 0, 0, Duration.ofSeconds(1), 40)).build();
+
+        long start = System.nanoTime();
+        List<String> tokens = chatClient.prompt()
+                .user("你是一个专业的客服意图识别专家。\n\n用户问题：你们的服务太差了，我要投诉\n\n请只返回意图类型")
+                .stream()
+                .content()
+                .collectList()
+                .block();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        String content = String.join("", tokens);
+        assertTrue(content.startsWith("意图类型：COMPLAINT\n置信度："), content);
+        assertTrue(tokens.size() > 10, "按 token 分片流式输出");
+        // 首 token 200ms，之后每 10ms 一个 token
+        assertTrue(elapsedMillis >= 200 + (tokens.size() - 1) * 10L * 8 / 10, "耗时 " + elapsedMillis + "ms");
+
+        String quality = chatClient.prompt().user("请你作为客服质量评估专家，评估以下客服回答的质量。").call().content();
+        assertTrue(quality.contains("总体评分：8\n"), quality);
+        String batch = chatClient.prompt()
+                .user("下面是若干个相互独立的用户问题，请分别判断每个问题的意图类型。\n用户问题：\n[1] 专业版多少钱\n[2] 我要投诉\n")
+                .call().content();
+        assertTrue(batch.startsWith("[1]\n意图类型：FAQ\n") && batch.contains("[2]\n意图类型：COMPLAINT\n"), batch);
+        assertEquals(40, chatClient.prompt().user("请分析以下文本内容").call().content().length());
+    }
+
+    @Test
+    void injectsErrorsAndTimeouts() {
+        ChatClient failing = ChatClient.builder(
+                new LatencyStubChatModel(Duration.ZERO, 0, 1, 0, Duration.ofSeconds(1), 40)).build();
+        assertThrows(IllegalStateException.class, () -> failing.prompt().user("你好").call().content());
+
+        ChatClient timingOut = ChatClient.builder(
+                new LatencyStubChatModel(Duration.ZERO, 0, 0, 1, Duration.ofMillis(100), 40)).build();
+        long start = System.nanoTime();
+        Exception error = assertThrows(Exception.class, () -> timingOut.prompt().user("你好").stream().content().blockLast());
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(100).toNanos());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new LatencyStubChatModel(Duration.ZERO, 0, 0.6, 0.6, Duration.ofSeconds(1), 40));
+    }
+}
@@ -0,0 +1,296 @@
+package com.seanfield.graphdemo.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 离线压测：按设定的并发数和请求比例循环调用 /graph/customer-service、/graph/loop-demo 和
+ * /graph/expand-conditional，结束后按请求类别输出吞吐量和 p50/p95/p99 延迟
+ *
+ * <p>闭环压测，每个并发线程收到响应后立即发出下一个请求。服务端通常配合 graph.llm-stub.enabled=true 运行；
+ * 需要测量工作流本身时同时关闭语义缓存和相同问题合并（graph.semantic-cache.enabled=false、
+ * graph.single-flight.enabled=false），否则重复的问题会直接命中缓存，报告中的缓存命中数可用于确认。</p>
+ *
+ * <p>压测工具放在测试源码中，不打进应用 jar；只依赖 JDK，编译测试代码后直接运行：</p>
+ *
+ * <pre>
+ * mvn test-compile
+ * java -cp target/test-classes com.seanfield.graphdemo.loadtest.LoadGenerator --concurrency=64 --duration=120s
+ *
+ * 用法: LoadGenerator [--base-url=http://localhost:8080] [--concurrency=16] [--duration=60s] [--warmup=10s]
+ *                     [--mix=faq:50,complex:25,complaint:10,loop:10,expand:5] [--loop-mode=sequential]
+ *                     [--request-timeout=120s]
+ * </pre>
+ */
+public final class LoadGenerator {
+
+    private static final Map<String, List<String>> QUESTIONS = Map.of(
+            "faq", List.of("专业版一个月多少钱", "基础版和企业版的价格分别是多少", "你们有哪些主要功能", "支持导入哪些数据源",
+                    "新用户怎么开始使用", "报告生成的步骤是什么", "技术支持的联系电话", "数据会不会泄露",
+                    "免费试用有几天", "试用要不要信用卡"),
+            "complex", List.of("我们有三个业务系统的数据需要汇总分析，应该怎么设计数据接入方案",
+                    "千万级订单数据做月度报表很慢，怎么优化", "如何基于历史数据预测下个季度的客户流失",
+                    "想把分析结果同步到我们的 BI 平台，有什么集成方式", "帮我规划一下从 Excel 报表迁移到你们平台的步骤",
+                    "多个子公司的指标口径不同，怎么做统一的经营分析"),
+            "complaint", List.of("导出的报告数据不对，已经反馈三次了还没人处理", "你们的系统今天又打不开了，太耽误事",
+                    "扣了年费但是企业版功能一直用不了", "客服电话一直打不通，非常不满意", "升级之后卡得没法用，要求退款"));
+
+    private static final List<String> LOOP_ITEMS = List.of("春天的花朵", "夏天的海滩", "秋天的落叶", "冬天的雪花");
+    private static final List<String> EXPAND_QUERIES = List.of("如何提高团队的数据分析能力", "数据可视化有哪些最佳实践",
+            "怎样评估一个分析工具是否适合自己", "企业数据治理从哪里开始");
+
+    private final String baseUrl;
+    private final int concurrency;
+    private final Duration duration;
+    private final Duration warmup;
+    private final Duration requestTimeout;
+    private final String loopMode;
+    private final List<String> categories = new ArrayList<>();
+    private final int[] cumulativeWeights;
+    private final Map<String, Recorder> recorders = new LinkedHashMap<>();
+    private final HttpClient client;
+
+    LoadGenerator(Map<String, String> options) {
+        this.baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        this.concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        this.duration = duration(options.getOrDefault("duration", "60s"));
+        this.warmup = duration(options.getOrDefault("warmup", "10s"));
+        this.requestTimeout = duration(options.getOrDefault("request-timeout", "120s"));
+        this.loopMode = options.getOrDefault("loop-mode", "sequential");
+
+        Map<String, Integer> mix = mix(options.getOrDefault("mix", "faq:50,complex:25,complaint:10,loop:10,expand:5"));
+        this.cumulativeWeights = new int[mix.size()];
+        int total = 0;
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            total += entry.getValue();
+            this.cumulativeWeights[this.categories.size()] = total;
+            this.categories.add(entry.getKey());
+            this.recorders.put(entry.getKey(), new Recorder());
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("请求比例之和必须大于 0");
+        }
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("无法识别的参数: " + arg);
+                System.err.println("用法: LoadGenerator [--base-url=http://localhost:8080] [--concurrency=16] [--duration=60s] [--warmup=10s]");
+                System.err.println("                    [--mix=faq:50,complex:25,complaint:10,loop:10,expand:5] [--loop-mode=sequential] [--request-timeout=120s]");
+                System.exit(1);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadGenerator(options).run();
+    }
+
+    void run() throws InterruptedException {
+        System.out.printf("压测 %s：并发=%d，预热=%ds，持续=%ds，请求比例=%s%n", this.baseUrl, this.concurrency,
+                this.warmup.toSeconds(), this.duration.toSeconds(), this.categories);
+
+        long warmupEnd = System.nanoTime() + this.warmup.toNanos();
+        long end = warmupEnd + this.duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(this.concurrency);
+        for (int i = 0; i < this.concurrency; i++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < end) {
+                    String category = nextCategory();
+                    long start = System.nanoTime();
+                    Outcome outcome = send(category);
+                    // 预热期间的请求不计入结果
+                    if (start >= warmupEnd) {
+                        this.recorders.get(category).record(System.nanoTime() - start, outcome);
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+
+        long lastCompleted = 0;
+        while (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            long completed = this.recorders.values().stream().mapToLong(Recorder::count).sum();
+            System.out.printf("已完成 %d 个请求（最近 10 秒 %.1f req/s）%n", completed, (completed - lastCompleted) / 10.0);
+            lastCompleted = completed;
+        }
+        report();
+    }
+
+    private String nextCategory() {
+        int roll = ThreadLocalRandom.current().nextInt(this.cumulativeWeights[this.cumulativeWeights.length - 1]);
+        for (int i = 0; i < this.cumulativeWeights.length; i++) {
+            if (roll < this.cumulativeWeights[i]) {
+                return this.categories.get(i);
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private Outcome send(String category) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(this.baseUrl + path(category)))
+                    .timeout(this.requestTimeout)
+                    .GET()
+                    .build();
+            HttpResponse<String> response = this.client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            String body = response.body();
+            // 各接口出错时都返回 200 和 error 字段
+            if (response.statusCode() != 200 || body.contains("\"error\":")) {
+                return Outcome.FAILED;
+            }
+            return body.contains("\"cache_hit\":true") ? Outcome.CACHE_HIT : Outcome.OK;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Outcome.FAILED;
+        } catch (Exception e) {
+            return Outcome.FAILED;
+        }
+    }
+
+    private String path(String category) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (category) {
+            case "loop" -> "/graph/loop-demo?mode=" + this.loopMode + "&items=" + encode(String.join(",", LOOP_ITEMS));
+            case "expand" -> "/graph/expand-conditional?expandernumber=" + (2 + random.nextInt(3))
+                    + "&query=" + encode(EXPAND_QUERIES.get(random.nextInt(EXPAND_QUERIES.size())));
+            default -> {
+                List<String> questions = QUESTIONS.get(category);
+                yield "/graph/customer-service?question=" + encode(questions.get(random.nextInt(questions.size())));
+            }
+        };
+    }
+
+    private void report() {
+        double seconds = this.duration.toNanos() / 1e9;
+        System.out.printf("%n%-12s %8s %8s %8s %12s %10s %10s %10s %10s%n",
+                "类别", "请求数", "失败数", "缓存命中", "吞吐(req/s)", "p50(ms)", "p95(ms)", "p99(ms)", "最大(ms)");
+        Recorder total = new Recorder();
+        for (Map.Entry<String, Recorder> entry : this.recorders.entrySet()) {
+            print(entry.getKey(), entry.getValue(), seconds);
+            total.merge(entry.getValue());
+        }
+        print("合计", total, seconds);
+    }
+
+    private static void print(String category, Recorder recorder, double seconds) {
+        long[] latencies = recorder.sortedLatencies();
+        System.out.printf("%-12s %8d %8d %8d %12.1f %10.1f %10.1f %10.1f %10.1f%n", category, latencies.length,
+                recorder.failed.get(), recorder.cacheHits.get(), latencies.length / seconds,
+                percentile(latencies, 50), percentile(latencies, 95), percentile(latencies, 99), percentile(latencies, 100));
+    }
+
+    /**
+     * 最近秩法的百分位延迟（毫秒）
+     */
+    static double percentile(long[] sortedNanos, double percent) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100 * sortedNanos.length);
+        return sortedNanos[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    static Map<String, Integer> mix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split(":");
+            String category = pair[0].trim();
+            if (!QUESTIONS.containsKey(category) && !"loop".equals(category) && !"expand".equals(category)) {
+                throw new IllegalArgumentException("未知的请求类别: " + category + "，可选 faq、complex、complaint、loop、expand");
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                mix.put(category, weight);
+            }
+        }
+        return mix;
+    }
+
+    private static Duration duration(String value) {
+        String text = value.trim().toLowerCase();
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        if (text.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        if (text.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(text));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private enum Outcome {
+        OK, CACHE_HIT, FAILED
+    }
+
+    /**
+     * 单个请求类别的延迟记录，失败的请求也计入延迟（超时失败会拉高尾延迟）
+     */
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int size;
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong cacheHits = new AtomicLong();
+
+        synchronized void record(long nanos, Outcome outcome) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+            if (outcome == Outcome.FAILED) {
+                failed.incrementAndGet();
+            } else if (outcome == Outcome.CACHE_HIT) {
+                cacheHits.incrementAndGet();
+            }
+        }
+
+        synchronized long count() {
+            return size;
+        }
+
+        synchronized long[] sortedLatencies() {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        void merge(Recorder other) {
+            long[] otherLatencies = other.sortedLatencies();
+            synchronized (this) {
+                for (long nanos : otherLatencies) {
+                    if (size == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, size * 2);
+                    }
+                    latencies[size++] = nanos;
+                }
+            }
+            failed.addAndGet(other.failed.get());
+            cacheHits.addAndGet(other.cacheHits.get());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.seanfield.graphdemo.web;
+
+import com.alibaba.cloud.ai.graph.StateGraph;
+import com.seanfield.graphdemo.cache.SemanticAnswerCache;
+import com.seanfield.graphdemo.embedding.HashingNgramEmbedder;
+import com.seanfield.graphdemo.graph.AIAnalysisNode;
+import com.seanfield.graphdemo.graph.AnswerGenerationNode;
+import com.seanfield.graphdemo.graph.CustomerServiceState;
+import com.seanfield.graphdemo.graph.GraphConfiguration;
+import com.seanfield.graphdemo.graph.GraphRegistry;
+import com.seanfield.graphdemo.graph.GraphThreads;
+import com.seanfield.graphdemo.graph.StateDiffTracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.alibaba.cloud.ai.graph.action.AsyncNodeAction.node_async;
+import static com.seanfield.graphdemo.graph.ReactiveNodeAction.node_reactive;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimpleGraphControllerTest {
+
+    private final GraphThreads graphThreads = new GraphThreads(false, 4);
+    private final GraphRegistry registry = new GraphRegistry(1, false, new StateDiffTracer(0));
+
+    @AfterEach
+    void shutdown() {
+        graphThreads.blockingScheduler().dispose();
+    }
+
+    @Test
+    void streamsTokensBeforeTheResult() throws Exception {
+        ChatModel model = new TokenChatModel(Flux.just("您好，", "退款", "三个工作日到账。"), new CountDownLatch(1));
+        SimpleGraphController controller = controller(model);
+
+        List<ServerSentEvent<Object>> events = controller.customerServiceStream("怎么退款")
+                .collectList().block(Duration.ofSeconds(10));
+
+        assertNotNull(events);
+        assertEquals(List.of("answer_start", "token", "token", "token", "result"),
+                events.stream().map(ServerSentEvent::event).toList());
+        assertEquals(List.of("您好，", "退款", "三个工作日到账。"),
+                events.subList(1, 4).stream().map(ServerSentEvent::data).toList());
+        Map<?, ?> result = (Map<?, ?>) events.get(4).data();
+        assertEquals("success", result.get("status"));
+        assertTrue(String.valueOf(result.get("answer")).contains("您好，退款三个工作日到账。"));
+    }
+
+    @Test
+    void clientDisconnectCancelsTheModelStream() throws Exception {
+        CountDownLatch modelCancelled = new CountDownLatch(1);
+        // 推送第一个 token 后模型不再响应，只有取消订阅才能结束
+        ChatModel model = new TokenChatModel(Flux.concat(Flux.just("您好，"), Flux.never()), modelCancelled);
+        SimpleGraphController controller = controller(model);
+
+        CountDownLatch firstToken = new CountDownLatch(1);
+        Disposable subscription = controller.customerServiceStream("怎么退款")
+                .filter(event -> "token".equals(event.event()))
+                .subscribe(event -> firstToken.countDown());
+        assertTrue(firstToken.await(5, TimeUnit.SECONDS));
+
+        subscription.dispose();
+
+        assertTrue(modelCancelled.await(5, TimeUnit.SECONDS), "客户端断开后取消大模型流");
+        // 图执行结束，实例归还到池中
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (idleInstances() != 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, idleInstances());
+    }
+
+    private SimpleGraphController controller(ChatModel model) throws Exception {
+        ChatClient.Builder chatClientBuilder = ChatClient.builder(model);
+        // 只保留 AI 分析和答案生成两个节点，意图默认为复杂问题
+        StateGraph graph = new StateGraph("智能客服工作流", CustomerServiceState.SCHEMA.stateFactory())
+                .addNode("ai_analysis", node_reactive(new AIAnalysisNode(chatClientBuilder)))
+                .addNode("answer_generation", node_async(new AnswerGenerationNode()))
+                .addEdge(StateGraph.START, "ai_analysis")
+                .addEdge("ai_analysis", "answer_generation")
+                .addEdge("answer_generation", StateGraph.END);
+        registry.register(GraphConfiguration.CUSTOMER_SERVICE_GRAPH, graph, null);
+        SemanticAnswerCache answerCache = new SemanticAnswerCache(new HashingNgramEmbedder(64), false, 0.9, 16, Duration.ofMinutes(1));
+        return new SimpleGraphController(chatClientBuilder, registry, answerCache, null, null, null, null, null, null,
+                graphThreads, null, null, null, null, null);
+    }
+
+    private int idleInstances() {
+        return (Integer) ((Map<?, ?>) registry.stats().get(GraphConfiguration.CUSTOMER_SERVICE_GRAPH)).get("idle_instances");
+    }
+
+    /**
+     * 按给定的 token 流式响应的桩模型，订阅被取消时计数减一
+     */
+    private static final class TokenChatModel implements ChatModel {
+        private final Flux<String> tokens;
+        private final CountDownLatch cancelled;
+
+        TokenChatModel(Flux<String> tokens, CountDownLatch cancelled) {
+            this.tokens = tokens;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            return stream(prompt).blockLast();
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return tokens.map(token -> new ChatResponse(List.of(new Generation(new AssistantMessage(token)))))
+                    .doOnCancel(cancelled::countDown);
+        }
+    }
+}